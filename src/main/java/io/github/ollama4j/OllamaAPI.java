@@ -1,16 +1,22 @@
 package io.github.ollama4j;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.exceptions.OllamaResponseException;
 import io.github.ollama4j.exceptions.RoleNotFoundException;
 import io.github.ollama4j.exceptions.ToolInvocationException;
 import io.github.ollama4j.exceptions.ToolNotFoundException;
 import io.github.ollama4j.models.chat.*;
+import io.github.ollama4j.models.embeddings.OllamaEmbedFloatResponseModel;
 import io.github.ollama4j.models.embeddings.OllamaEmbedRequestModel;
 import io.github.ollama4j.models.embeddings.OllamaEmbeddingResponseModel;
 import io.github.ollama4j.models.embeddings.OllamaEmbeddingsRequestModel;
 import io.github.ollama4j.models.embeddings.OllamaEmbedResponseModel;
 import io.github.ollama4j.models.generate.OllamaGenerateRequest;
+import io.github.ollama4j.models.generate.OllamaGenerateResponseModel;
+import io.github.ollama4j.models.generate.CumulativeStreamHandlerAdapter;
 import io.github.ollama4j.models.generate.OllamaStreamHandler;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
 import io.github.ollama4j.models.ps.ModelsProcessResponse;
 import io.github.ollama4j.models.request.*;
 import io.github.ollama4j.models.response.*;
@@ -28,14 +34,17 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.http.HttpClient;
 import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -49,7 +58,7 @@ import org.jsoup.select.Elements;
  * The base Ollama API class.
  */
 @SuppressWarnings({"DuplicatedCode", "resource"})
-public class OllamaAPI {
+public class OllamaAPI implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(OllamaAPI.class);
     private final String host;
@@ -73,11 +82,13 @@ public class OllamaAPI {
 
     private final ToolRegistry toolRegistry = new ToolRegistry();
 
+    private final OllamaHttpTransport httpTransport;
+
     /**
      * Instantiates the Ollama API with default Ollama host: <a href="http://localhost:11434">http://localhost:11434</a>
      **/
     public OllamaAPI() {
-        this.host = "http://localhost:11434";
+        this("http://localhost:11434");
     }
 
     /**
@@ -86,11 +97,38 @@ public class OllamaAPI {
      * @param host the host address of Ollama server
      */
     public OllamaAPI(String host) {
+        this(host, OllamaHttpTransportConfig.defaults());
+    }
+
+    /**
+     * Instantiates the Ollama API with specified Ollama host address and HTTP transport configuration. The transport
+     * (HTTP client, connection pool and executor) is created once and shared by all calls made through this instance,
+     * so the instance should be reused and closed via {@link #close()} when no longer needed.
+     *
+     * @param host            the host address of Ollama server
+     * @param transportConfig the configuration of the shared HTTP transport
+     */
+    public OllamaAPI(String host, OllamaHttpTransportConfig transportConfig) {
         if (host.endsWith("/")) {
             this.host = host.substring(0, host.length() - 1);
         } else {
             this.host = host;
         }
+        this.httpTransport = new OllamaHttpTransport(transportConfig);
+    }
+
+    /**
+     * @return the host address of the Ollama server, without trailing slash
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the per-model circuit breakers of the chat and generate calls made through this instance
+     */
+    public OllamaCircuitBreaker getCircuitBreaker() {
+        return httpTransport.getCircuitBreaker();
     }
 
     /**
@@ -110,7 +148,6 @@ public class OllamaAPI {
      */
     public boolean ping() {
         String url = this.host + "/api/tags";
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest httpRequest = null;
         try {
             httpRequest = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").GET().build();
@@ -119,7 +156,7 @@ public class OllamaAPI {
         }
         HttpResponse<String> response = null;
         try {
-            response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            response = httpTransport.send(httpRequest, HttpResponse.BodyHandlers.ofString());
         } catch (HttpConnectTimeoutException e) {
             return false;
         } catch (IOException | InterruptedException e) {
@@ -139,7 +176,6 @@ public class OllamaAPI {
      */
     public ModelsProcessResponse ps() throws IOException, InterruptedException, OllamaBaseException {
         String url = this.host + "/api/ps";
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest httpRequest = null;
         try {
             httpRequest = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").GET().build();
@@ -147,13 +183,13 @@ public class OllamaAPI {
             throw new RuntimeException(e);
         }
         HttpResponse<String> response = null;
-        response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        response = httpTransport.send(httpRequest, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
         if (statusCode == 200) {
             return Utils.getObjectMapper().readValue(responseString, ModelsProcessResponse.class);
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
     }
 
@@ -168,15 +204,14 @@ public class OllamaAPI {
      */
     public List<Model> listModels() throws OllamaBaseException, IOException, InterruptedException, URISyntaxException {
         String url = this.host + "/api/tags";
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest httpRequest = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").GET().build();
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(httpRequest, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
         if (statusCode == 200) {
             return Utils.getObjectMapper().readValue(responseString, ListModelsResponse.class).getModels();
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
     }
 
@@ -192,9 +227,8 @@ public class OllamaAPI {
      */
     public List<LibraryModel> listModelsFromLibrary() throws OllamaBaseException, IOException, InterruptedException, URISyntaxException {
         String url = "https://ollama.com/library";
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest httpRequest = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").GET().build();
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(httpRequest, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
         List<LibraryModel> models = new ArrayList<>();
@@ -225,7 +259,7 @@ public class OllamaAPI {
             }
             return models;
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
     }
 
@@ -245,9 +279,8 @@ public class OllamaAPI {
      */
     public LibraryModelDetail getLibraryModelDetails(LibraryModel libraryModel) throws OllamaBaseException, IOException, InterruptedException, URISyntaxException {
         String url = String.format("https://ollama.com/library/%s/tags", libraryModel.getName());
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest httpRequest = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").GET().build();
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(httpRequest, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
 
@@ -276,7 +309,7 @@ public class OllamaAPI {
             libraryModelDetail.setTags(libraryModelTags);
             return libraryModelDetail;
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
     }
 
@@ -318,8 +351,7 @@ public class OllamaAPI {
         String url = this.host + "/api/pull";
         String jsonData = new ModelRequest(modelName).toString();
         HttpRequest request = getRequestBuilderDefault(new URI(url)).POST(HttpRequest.BodyPublishers.ofString(jsonData)).header("Accept", "application/json").header("Content-type", "application/json").build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        HttpResponse<InputStream> response = httpTransport.sendStreaming(request);
         int statusCode = response.statusCode();
         InputStream responseBodyStream = response.body();
         String responseString = "";
@@ -333,7 +365,7 @@ public class OllamaAPI {
             }
         }
         if (statusCode != 200) {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
     }
 
@@ -368,14 +400,13 @@ public class OllamaAPI {
         String url = this.host + "/api/show";
         String jsonData = new ModelRequest(modelName).toString();
         HttpRequest request = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-type", "application/json").POST(HttpRequest.BodyPublishers.ofString(jsonData)).build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseBody = response.body();
         if (statusCode == 200) {
             return Utils.getObjectMapper().readValue(responseBody, ModelDetail.class);
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseBody);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseBody);
         }
     }
 
@@ -394,12 +425,11 @@ public class OllamaAPI {
         String url = this.host + "/api/create";
         String jsonData = new CustomModelFilePathRequest(modelName, modelFilePath).toString();
         HttpRequest request = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(jsonData, StandardCharsets.UTF_8)).build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
         if (statusCode != 200) {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
         // FIXME: Ollama API returns HTTP status code 200 for model creation failure cases. Correct this
         // if the issue is fixed in the Ollama API server.
@@ -426,12 +456,11 @@ public class OllamaAPI {
         String url = this.host + "/api/create";
         String jsonData = new CustomModelFileContentsRequest(modelName, modelFileContents).toString();
         HttpRequest request = getRequestBuilderDefault(new URI(url)).header("Accept", "application/json").header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(jsonData, StandardCharsets.UTF_8)).build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseString = response.body();
         if (statusCode != 200) {
-            throw new OllamaBaseException(statusCode + " - " + responseString);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseString);
         }
         if (responseString.contains("error")) {
             throw new OllamaBaseException(responseString);
@@ -455,15 +484,14 @@ public class OllamaAPI {
         String url = this.host + "/api/delete";
         String jsonData = new ModelRequest(modelName).toString();
         HttpRequest request = getRequestBuilderDefault(new URI(url)).method("DELETE", HttpRequest.BodyPublishers.ofString(jsonData, StandardCharsets.UTF_8)).header("Accept", "application/json").header("Content-type", "application/json").build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseBody = response.body();
         if (statusCode == 404 && responseBody.contains("model") && responseBody.contains("not found")) {
             return;
         }
         if (statusCode != 200) {
-            throw new OllamaBaseException(statusCode + " - " + responseBody);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseBody);
         }
     }
 
@@ -497,17 +525,16 @@ public class OllamaAPI {
     public List<Double> generateEmbeddings(OllamaEmbeddingsRequestModel modelRequest) throws IOException, InterruptedException, OllamaBaseException {
         URI uri = URI.create(this.host + "/api/embeddings");
         String jsonData = modelRequest.toString();
-        HttpClient httpClient = HttpClient.newHttpClient();
         HttpRequest.Builder requestBuilder = getRequestBuilderDefault(uri).header("Accept", "application/json").POST(HttpRequest.BodyPublishers.ofString(jsonData));
         HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseBody = response.body();
         if (statusCode == 200) {
             OllamaEmbeddingResponseModel embeddingResponse = Utils.getObjectMapper().readValue(responseBody, OllamaEmbeddingResponseModel.class);
             return embeddingResponse.getEmbedding();
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseBody);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseBody);
         }
     }
 
@@ -537,19 +564,106 @@ public class OllamaAPI {
     public OllamaEmbedResponseModel embed(OllamaEmbedRequestModel modelRequest) throws IOException, InterruptedException, OllamaBaseException {
         URI uri = URI.create(this.host + "/api/embed");
         String jsonData = Utils.getObjectMapper().writeValueAsString(modelRequest);
-        HttpClient httpClient = HttpClient.newHttpClient();
-
         HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "application/json").POST(HttpRequest.BodyPublishers.ofString(jsonData)).build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         int statusCode = response.statusCode();
         String responseBody = response.body();
 
         if (statusCode == 200) {
             return Utils.getObjectMapper().readValue(responseBody, OllamaEmbedResponseModel.class);
         } else {
-            throw new OllamaBaseException(statusCode + " - " + responseBody);
+            throw new OllamaResponseException(statusCode, statusCode + " - " + responseBody);
+        }
+    }
+
+    /**
+     * Asynchronously generate embeddings for a given text from a model.
+     *
+     * @param model  name of model to generate embeddings from
+     * @param inputs text/s to generate embeddings for
+     * @return future completing with the embeddings
+     */
+    public CompletableFuture<OllamaEmbedResponseModel> embedAsync(String model, List<String> inputs) {
+        return embedAsync(new OllamaEmbedRequestModel(model, inputs), null);
+    }
+
+    /**
+     * Asynchronously generate embeddings using a {@link OllamaEmbedRequestModel}. No thread is blocked while waiting
+     * for the server.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @param executor     executor to parse the response on and to complete the returned future with, or null to use
+     *                     the HTTP transport's executor
+     * @return future completing with the embeddings, or exceptionally with an {@link OllamaBaseException} if the
+     * response indicates an error status
+     */
+    public CompletableFuture<OllamaEmbedResponseModel> embedAsync(OllamaEmbedRequestModel modelRequest, Executor executor) {
+        return embedAsync(modelRequest, executor, OllamaEmbedResponseModel.class);
+    }
+
+    /**
+     * Generate embeddings using a {@link OllamaEmbedRequestModel}, returned as one primitive {@code float[]} matrix.
+     * Unlike {@link #embed(OllamaEmbedRequestModel)}, the numbers are parsed straight into the matrix without boxing
+     * every value into a {@link Double}, which keeps heap usage and GC pressure low when embedding many inputs.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @return embeddings, one row per input
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaEmbedFloatResponseModel embedAsFloats(OllamaEmbedRequestModel modelRequest) throws IOException, InterruptedException, OllamaBaseException {
+        URI uri = URI.create(this.host + "/api/embed");
+        byte[] jsonData = Utils.getObjectMapper().writeValueAsBytes(modelRequest);
+        HttpRequest request = getRequestBuilderDefault(uri).header("Accept", "application/json").POST(HttpRequest.BodyPublishers.ofByteArray(jsonData)).build();
+
+        HttpResponse<byte[]> response = httpTransport.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        int statusCode = response.statusCode();
+        if (statusCode == 200) {
+            return Utils.getObjectMapper().readValue(response.body(), OllamaEmbedFloatResponseModel.class);
+        } else {
+            throw new OllamaResponseException(statusCode, statusCode + " - " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #embedAsFloats(OllamaEmbedRequestModel)}. No thread is blocked while waiting for
+     * the server.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @param executor     executor to parse the response on and to complete the returned future with, or null to use
+     *                     the HTTP transport's executor
+     * @return future completing with the embeddings, or exceptionally with an {@link OllamaBaseException} if the
+     * response indicates an error status
+     */
+    public CompletableFuture<OllamaEmbedFloatResponseModel> embedAsFloatsAsync(OllamaEmbedRequestModel modelRequest, Executor executor) {
+        return embedAsync(modelRequest, executor, OllamaEmbedFloatResponseModel.class);
+    }
+
+    private <T> CompletableFuture<T> embedAsync(OllamaEmbedRequestModel modelRequest, Executor executor, Class<T> responseType) {
+        URI uri = URI.create(this.host + "/api/embed");
+        HttpRequest request;
+        try {
+            byte[] jsonData = Utils.getObjectMapper().writeValueAsBytes(modelRequest);
+            request = getRequestBuilderDefault(uri).header("Accept", "application/json").POST(HttpRequest.BodyPublishers.ofByteArray(jsonData)).build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        Function<HttpResponse<byte[]>, T> responseParser = response -> {
+            int statusCode = response.statusCode();
+            try {
+                if (statusCode == 200) {
+                    return Utils.getObjectMapper().readValue(response.body(), responseType);
+                } else {
+                    throw new OllamaResponseException(statusCode, statusCode + " - " + new String(response.body(), StandardCharsets.UTF_8));
+                }
+            } catch (IOException | OllamaBaseException e) {
+                throw new CompletionException(e);
+            }
+        };
+        CompletableFuture<HttpResponse<byte[]>> responseFuture = httpTransport.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        return executor != null ? responseFuture.thenApplyAsync(responseParser, executor) : responseFuture.thenApply(responseParser);
     }
 
     /**
@@ -571,7 +685,45 @@ public class OllamaAPI {
         OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
         ollamaRequestModel.setRaw(raw);
         ollamaRequestModel.setOptions(options.getOptionsMap());
-        return generateSyncForOllamaRequestModel(ollamaRequestModel, streamHandler);
+        return generateSyncForOllamaRequestModel(ollamaRequestModel, toTokenHandler(streamHandler));
+    }
+
+    /**
+     * Generate response for a question to a model running on Ollama server, streaming the response parts to the given
+     * handler as deltas. Unlike {@link #generate(String, String, boolean, Options, OllamaStreamHandler)}, the response
+     * received so far is not re-built for every part, which keeps long generations linear in the response length.
+     *
+     * @param model        the ollama model to ask the question to
+     * @param prompt       the prompt/question text
+     * @param raw          if true no formatting will be applied to the prompt
+     * @param options      the Options object
+     * @param tokenHandler callback handler that receives every streamed response part
+     * @return OllamaResult that includes response text and time taken for response
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaResult generateStreaming(String model, String prompt, boolean raw, Options options, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
+        ollamaRequestModel.setRaw(raw);
+        ollamaRequestModel.setOptions(options.getOptionsMap());
+        return generateSyncForOllamaRequestModel(ollamaRequestModel, tokenHandler);
+    }
+
+    /**
+     * Generate response for an {@link OllamaGenerateRequest}. This is a sync/blocking call, which can be aborted via
+     * the request's {@link OllamaCancellationHandle}.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler optional callback handler that receives every streamed response part. If not set, the stream parameter of the request is set to false.
+     * @return OllamaResult that includes response text and time taken for response
+     * @throws OllamaBaseException  if the response indicates an error status, or an
+     *                              {@link io.github.ollama4j.exceptions.OllamaCancelledException} if the request has been cancelled
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaResult generate(OllamaGenerateRequest request, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        return generateSyncForOllamaRequestModel(request, tokenHandler);
     }
 
     /**
@@ -637,7 +789,8 @@ public class OllamaAPI {
     /**
      * Generate response for a question to a model running on Ollama server and get a callback handle
      * that can be used to check for status and get the response from the model later. This would be
-     * an async/non-blocking call.
+     * an async/non-blocking call. If the HTTP transport has an executor configured (e.g. virtual threads), the
+     * streamer runs on it and {@link OllamaAsyncResultStreamer#isRunning()} has to be used to poll for completion.
      *
      * @param model  the ollama model to ask the question to
      * @param prompt the prompt/question text
@@ -647,11 +800,51 @@ public class OllamaAPI {
         OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
         ollamaRequestModel.setRaw(raw);
         URI uri = URI.create(this.host + "/api/generate");
-        OllamaAsyncResultStreamer ollamaAsyncResultStreamer = new OllamaAsyncResultStreamer(getRequestBuilderDefault(uri), ollamaRequestModel, requestTimeoutSeconds);
-        ollamaAsyncResultStreamer.start();
+        OllamaAsyncResultStreamer ollamaAsyncResultStreamer = new OllamaAsyncResultStreamer(getRequestBuilderDefault(uri), ollamaRequestModel, requestTimeoutSeconds, httpTransport);
+        if (httpTransport.getExecutor() != null) {
+            ollamaAsyncResultStreamer.start(httpTransport.getExecutor());
+        } else {
+            ollamaAsyncResultStreamer.start();
+        }
         return ollamaAsyncResultStreamer;
     }
 
+    /**
+     * Generate response for a question to a model running on Ollama server as a {@link CompletableFuture}. The
+     * response is processed as it arrives, without parking a thread per request.
+     *
+     * @param model         the ollama model to ask the question to
+     * @param prompt        the prompt/question text
+     * @param raw           if true no formatting will be applied to the prompt
+     * @param options       the Options object
+     * @param tokenHandler  optional callback handler that receives every streamed response part as a delta. If not set, the stream parameter of the request is set to false.
+     * @return future completing with the {@link OllamaResult}
+     */
+    public CompletableFuture<OllamaResult> generateAsync(String model, String prompt, boolean raw, Options options, OllamaTokenHandler tokenHandler) {
+        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
+        ollamaRequestModel.setRaw(raw);
+        ollamaRequestModel.setOptions(options.getOptionsMap());
+        return generateAsync(ollamaRequestModel, tokenHandler, null);
+    }
+
+    /**
+     * Generate response for an {@link OllamaGenerateRequest} as a {@link CompletableFuture}.
+     *
+     * @param request       request object to be sent to the server
+     * @param tokenHandler  optional callback handler that receives every streamed response part as a delta. If not set, the stream parameter of the request is set to false.
+     * @param executor      executor to complete the returned future with, or null to use the HTTP transport's executor
+     * @return future completing with the {@link OllamaResult}, or exceptionally with an {@link OllamaBaseException} if
+     * the response indicates an error status
+     */
+    public CompletableFuture<OllamaResult> generateAsync(OllamaGenerateRequest request, OllamaTokenHandler tokenHandler, Executor executor) {
+        OllamaGenerateEndpointCaller requestCaller = new OllamaGenerateEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+        if (tokenHandler != null) {
+            request.setStream(true);
+        }
+        OllamaCancellationHandle cancellationHandle = cancellationHandleFor(request);
+        return cancelOnCancellation(completeAsync(requestCaller.callAsync(request, tokenHandler, cancellationHandle), executor), cancellationHandle);
+    }
+
     /**
      * With one or more image files, ask a question to a model running on Ollama server. This is a
      * sync/blocking call.
@@ -669,13 +862,14 @@ public class OllamaAPI {
      * @throws InterruptedException if the operation is interrupted
      */
     public OllamaResult generateWithImageFiles(String model, String prompt, List<File> imageFiles, Options options, OllamaStreamHandler streamHandler) throws OllamaBaseException, IOException, InterruptedException {
-        List<String> images = new ArrayList<>();
+        List<OllamaImageSource> images = new ArrayList<>();
         for (File imageFile : imageFiles) {
-            images.add(encodeFileToBase64(imageFile));
+            images.add(OllamaImageSource.ofFile(imageFile));
         }
-        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt, images);
+        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
+        ollamaRequestModel.setImageSources(images);
         ollamaRequestModel.setOptions(options.getOptionsMap());
-        return generateSyncForOllamaRequestModel(ollamaRequestModel, streamHandler);
+        return generateSyncForOllamaRequestModel(ollamaRequestModel, toTokenHandler(streamHandler));
     }
 
     /**
@@ -709,13 +903,14 @@ public class OllamaAPI {
      * @throws URISyntaxException   if the URI for the request is malformed
      */
     public OllamaResult generateWithImageURLs(String model, String prompt, List<String> imageURLs, Options options, OllamaStreamHandler streamHandler) throws OllamaBaseException, IOException, InterruptedException, URISyntaxException {
-        List<String> images = new ArrayList<>();
+        List<OllamaImageSource> images = new ArrayList<>();
         for (String imageURL : imageURLs) {
-            images.add(encodeByteArrayToBase64(Utils.loadImageBytesFromUrl(imageURL)));
+            images.add(OllamaImageSource.ofBytes(Utils.loadImageBytesFromUrl(imageURL)));
         }
-        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt, images);
+        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
+        ollamaRequestModel.setImageSources(images);
         ollamaRequestModel.setOptions(options.getOptionsMap());
-        return generateSyncForOllamaRequestModel(ollamaRequestModel, streamHandler);
+        return generateSyncForOllamaRequestModel(ollamaRequestModel, toTokenHandler(streamHandler));
     }
 
     /**
@@ -785,15 +980,31 @@ public class OllamaAPI {
      * @throws InterruptedException if the operation is interrupted
      */
     public OllamaChatResult chat(OllamaChatRequest request, OllamaStreamHandler streamHandler) throws OllamaBaseException, IOException, InterruptedException {
-        OllamaChatEndpointCaller requestCaller = new OllamaChatEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose);
+        return chatStreaming(request, toTokenHandler(streamHandler));
+    }
+
+    /**
+     * Ask a question to a model using an {@link OllamaChatRequest}, streaming the response parts to the given handler
+     * as deltas. Unlike {@link #chat(OllamaChatRequest, OllamaStreamHandler)}, the message received so far is not
+     * re-built for every part, which keeps long responses linear in the response length.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part, or null to not stream the response
+     * @return {@link OllamaChatResult}
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaChatResult chatStreaming(OllamaChatRequest request, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        OllamaChatEndpointCaller requestCaller = new OllamaChatEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
         OllamaChatResult result;
 
         // add all registered tools to Request
         request.setTools(toolRegistry.getRegisteredSpecs().stream().map(Tools.ToolSpecification::getToolPrompt).collect(Collectors.toList()));
 
-        if (streamHandler != null) {
+        if (tokenHandler != null) {
             request.setStream(true);
-            result = requestCaller.call(request, streamHandler);
+            result = requestCaller.callStreaming(request, tokenHandler);
         } else {
             result = requestCaller.callSync(request);
         }
@@ -802,16 +1013,10 @@ public class OllamaAPI {
         List<OllamaChatToolCalls> toolCalls = result.getResponseModel().getMessage().getToolCalls();
         int toolCallTries = 0;
         while(toolCalls != null && !toolCalls.isEmpty() && toolCallTries < maxChatToolCallRetries){
-            for (OllamaChatToolCalls toolCall : toolCalls){
-                String toolName = toolCall.getFunction().getName();
-                ToolFunction toolFunction = toolRegistry.getToolFunction(toolName);
-                Map<String, Object> arguments = toolCall.getFunction().getArguments();
-                Object res = toolFunction.apply(arguments);
-                request.getMessages().add(new OllamaChatMessage(OllamaChatMessageRole.TOOL,"[TOOL_RESULTS]" + toolName + "(" + arguments.keySet() +") : " + res + "[/TOOL_RESULTS]"));
-            }
+            appendToolResults(request, toolCalls, httpTransport.getExecutor());
 
-            if (streamHandler != null) {
-                result = requestCaller.call(request, streamHandler);
+            if (tokenHandler != null) {
+                result = requestCaller.callStreaming(request, tokenHandler);
             } else {
                 result = requestCaller.callSync(request);
             }
@@ -822,6 +1027,86 @@ public class OllamaAPI {
         return result;
     }
 
+    /**
+     * Asynchronously ask a question to a model using an {@link OllamaChatRequest}.
+     *
+     * @param request request object to be sent to the server
+     * @return future completing with the {@link OllamaChatResult}
+     */
+    public CompletableFuture<OllamaChatResult> chatAsync(OllamaChatRequest request) {
+        return chatAsync(request, null, null);
+    }
+
+    /**
+     * Asynchronously ask a question to a model using an {@link OllamaChatRequest}. The response is processed as it
+     * arrives, so a small number of threads can serve many in-flight requests. Tool calls requested by the model are
+     * invoked on the given executor and answered like in {@link #chat(OllamaChatRequest, OllamaStreamHandler)}.
+     *
+     * @param request       request object to be sent to the server
+     * @param tokenHandler  callback handler that receives every streamed response part as a delta, may be null
+     * @param executor      executor to invoke tools on and to complete the returned future with, or null to use the
+     *                      HTTP transport's executor respectively the common pool for tool invocations
+     * @return future completing with the {@link OllamaChatResult}, or exceptionally with an {@link OllamaBaseException}
+     * if the response indicates an error status
+     */
+    public CompletableFuture<OllamaChatResult> chatAsync(OllamaChatRequest request, OllamaTokenHandler tokenHandler, Executor executor) {
+        // add all registered tools to Request
+        request.setTools(toolRegistry.getRegisteredSpecs().stream().map(Tools.ToolSpecification::getToolPrompt).collect(Collectors.toList()));
+        if (tokenHandler != null) {
+            request.setStream(true);
+        }
+        OllamaCancellationHandle cancellationHandle = cancellationHandleFor(request);
+        return cancelOnCancellation(completeAsync(chatAsyncWithToolCalls(request, tokenHandler, executor, cancellationHandle, 0), executor), cancellationHandle);
+    }
+
+    /**
+     * Ask a question to a model using an {@link OllamaChatRequest} and publish the streamed response parts. The request
+     * is sent when the returned publisher is subscribed to. The response is only read as fast as the subscriber
+     * requests parts, and cancelling the subscription closes the connection so that the server stops generating.
+     * Tools requested by the model are not invoked.
+     *
+     * @param request request object to be sent to the server
+     * @return publisher of the streamed response parts, signalling an {@link OllamaBaseException} if the response
+     * indicates an error status
+     */
+    public Flow.Publisher<OllamaChatResponseModel> chatPublisher(OllamaChatRequest request) {
+        OllamaChatEndpointCaller requestCaller = new OllamaChatEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+        request.setStream(true);
+        return requestCaller.callPublisher(request);
+    }
+
+    /**
+     * Generate response for a question to a model running on Ollama server and publish the streamed response parts.
+     * See {@link #generatePublisher(OllamaGenerateRequest)}.
+     *
+     * @param model   the ollama model to ask the question to
+     * @param prompt  the prompt/question text
+     * @param raw     if true no formatting will be applied to the prompt
+     * @param options the Options object
+     * @return publisher of the streamed response parts
+     */
+    public Flow.Publisher<OllamaGenerateResponseModel> generatePublisher(String model, String prompt, boolean raw, Options options) {
+        OllamaGenerateRequest ollamaRequestModel = new OllamaGenerateRequest(model, prompt);
+        ollamaRequestModel.setRaw(raw);
+        ollamaRequestModel.setOptions(options.getOptionsMap());
+        return generatePublisher(ollamaRequestModel);
+    }
+
+    /**
+     * Generate response for an {@link OllamaGenerateRequest} and publish the streamed response parts. The request is
+     * sent when the returned publisher is subscribed to. The response is only read as fast as the subscriber requests
+     * parts, and cancelling the subscription closes the connection so that the server stops generating.
+     *
+     * @param request request object to be sent to the server
+     * @return publisher of the streamed response parts, signalling an {@link OllamaBaseException} if the response
+     * indicates an error status
+     */
+    public Flow.Publisher<OllamaGenerateResponseModel> generatePublisher(OllamaGenerateRequest request) {
+        OllamaGenerateEndpointCaller requestCaller = new OllamaGenerateEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+        request.setStream(true);
+        return requestCaller.callPublisher(request);
+    }
+
     public void registerTool(Tools.ToolSpecification toolSpecification) {
         toolRegistry.addTool(toolSpecification.getFunctionName(), toolSpecification);
     }
@@ -942,23 +1227,118 @@ public class OllamaAPI {
         return OllamaChatMessageRole.getRole(roleName);
     }
 
+    /**
+     * Closes the HTTP transport shared by all calls of this instance. The instance must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        httpTransport.close();
+    }
+
 
     // technical private methods //
 
-    private static String encodeFileToBase64(File file) throws IOException {
-        return Base64.getEncoder().encodeToString(Files.readAllBytes(file.toPath()));
+    private CompletableFuture<OllamaChatResult> chatAsyncWithToolCalls(OllamaChatRequest request, OllamaTokenHandler tokenHandler, Executor executor,
+                                                                       OllamaCancellationHandle cancellationHandle, int toolCallTries) {
+        OllamaChatEndpointCaller requestCaller = new OllamaChatEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+        return requestCaller.callAsync(request, tokenHandler, cancellationHandle).thenCompose(result -> {
+            List<OllamaChatToolCalls> toolCalls = result.getResponseModel().getMessage().getToolCalls();
+            if (toolCalls == null || toolCalls.isEmpty() || toolCallTries >= maxChatToolCallRetries) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Executor toolExecutor = executor != null ? executor : httpTransport.getExecutor();
+            Runnable toolInvocation = () -> appendToolResults(request, toolCalls, toolExecutor);
+            CompletableFuture<Void> toolResults = toolExecutor != null ? CompletableFuture.runAsync(toolInvocation, toolExecutor) : CompletableFuture.runAsync(toolInvocation);
+            return toolResults.thenCompose(ignored -> chatAsyncWithToolCalls(request, tokenHandler, executor, cancellationHandle, toolCallTries + 1));
+        });
+    }
+
+    /**
+     * Invokes the requested tools and appends their results to the chat history. With an executor, the tools of one
+     * turn are invoked concurrently; the results are appended in the order the model requested them.
+     */
+    private void appendToolResults(OllamaChatRequest request, List<OllamaChatToolCalls> toolCalls, Executor executor) {
+        if (executor == null || toolCalls.size() == 1) {
+            for (OllamaChatToolCalls toolCall : toolCalls) {
+                request.getMessages().add(invokeToolCall(toolCall));
+            }
+            return;
+        }
+        List<CompletableFuture<OllamaChatMessage>> toolResults = toolCalls.stream()
+                .map(toolCall -> CompletableFuture.supplyAsync(() -> invokeToolCall(toolCall), executor))
+                .collect(Collectors.toList());
+        for (CompletableFuture<OllamaChatMessage> toolResult : toolResults) {
+            try {
+                request.getMessages().add(toolResult.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private OllamaChatMessage invokeToolCall(OllamaChatToolCalls toolCall) {
+        String toolName = toolCall.getFunction().getName();
+        ToolFunction toolFunction = toolRegistry.getToolFunction(toolName);
+        Map<String, Object> arguments = toolCall.getFunction().getArguments();
+        Object res = toolFunction.apply(arguments);
+        return new OllamaChatMessage(OllamaChatMessageRole.TOOL,"[TOOL_RESULTS]" + toolName + "(" + arguments.keySet() +") : " + res + "[/TOOL_RESULTS]");
+    }
+
+    /**
+     * Returns the cancellation handle of an asynchronous call, so that cancelling the returned future can abort the
+     * request in flight. The handle is passed alongside the request instead of being set on it, so concurrent calls
+     * with the same request do not share it.
+     *
+     * @return the handle set on the request, or a new handle for this call if it has none
+     */
+    private static OllamaCancellationHandle cancellationHandleFor(OllamaCommonRequest request) {
+        return request.getCancellationHandle() != null ? request.getCancellationHandle() : new OllamaCancellationHandle();
+    }
+
+    /**
+     * Cancels the given cancellation handle when the given future is cancelled.
+     */
+    private static <T> CompletableFuture<T> cancelOnCancellation(CompletableFuture<T> future, OllamaCancellationHandle cancellationHandle) {
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                cancellationHandle.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Hands the completion of the given future over to the executor, so that dependent stages of callers do not run on
+     * the threads of the HTTP transport.
+     */
+    private static <T> CompletableFuture<T> completeAsync(CompletableFuture<T> future, Executor executor) {
+        if (executor == null) {
+            return future;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenCompleteAsync((value, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        }, executor);
+        return result;
     }
 
-    private static String encodeByteArrayToBase64(byte[] bytes) {
-        return Base64.getEncoder().encodeToString(bytes);
+    private static OllamaTokenHandler toTokenHandler(OllamaStreamHandler streamHandler) {
+        return streamHandler != null ? new CumulativeStreamHandlerAdapter(streamHandler) : null;
     }
 
-    private OllamaResult generateSyncForOllamaRequestModel(OllamaGenerateRequest ollamaRequestModel, OllamaStreamHandler streamHandler) throws OllamaBaseException, IOException, InterruptedException {
-        OllamaGenerateEndpointCaller requestCaller = new OllamaGenerateEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose);
+    private OllamaResult generateSyncForOllamaRequestModel(OllamaGenerateRequest ollamaRequestModel, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        OllamaGenerateEndpointCaller requestCaller = new OllamaGenerateEndpointCaller(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
         OllamaResult result;
-        if (streamHandler != null) {
+        if (tokenHandler != null) {
             ollamaRequestModel.setStream(true);
-            result = requestCaller.call(ollamaRequestModel, streamHandler);
+            result = requestCaller.callStreaming(ollamaRequestModel, tokenHandler);
         } else {
             result = requestCaller.callSync(ollamaRequestModel);
         }
@@ -0,0 +1,78 @@
+package io.github.ollama4j.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable hash ring mapping keys to hosts. Every host is placed on the ring at {@link #VIRTUAL_NODES} points derived
+ * from its address, and a key belongs to the host of the first point at or after the hash of the key. Adding or
+ * removing a host thus only moves the keys of the ring segments it gains or loses, about 1/n of all keys.
+ */
+class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final long[] points;
+    private final OllamaClusterHost[] owners;
+    private final int hostCount;
+
+    ConsistentHashRing(List<OllamaClusterHost> hosts) {
+        hostCount = hosts.size();
+        long[][] entries = new long[hosts.size() * VIRTUAL_NODES][];
+        int n = 0;
+        for (int h = 0; h < hosts.size(); h++) {
+            String address = hosts.get(h).getHost();
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                entries[n++] = new long[]{hash(address + "#" + i), h};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[n];
+        owners = new OllamaClusterHost[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = entries[i][0];
+            owners[i] = hosts.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * @param key the key, e.g. a session id
+     * @return all hosts in the order they are met walking the ring clockwise from the key, the owner of the key first
+     */
+    List<OllamaClusterHost> successors(String key) {
+        List<OllamaClusterHost> successors = new ArrayList<>(hostCount);
+        if (points.length == 0) {
+            return successors;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (int i = 0; i < points.length && successors.size() < hostCount; i++) {
+            OllamaClusterHost owner = owners[(index + i) % points.length];
+            if (!successors.contains(owner)) {
+                successors.add(owner);
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, followed by the finalizer of MurmurHash3 to spread similar keys over the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.ollama4j.cluster;
+
+/**
+ * How an {@link OllamaCluster} picks the host for a request among its healthy hosts.
+ */
+public enum LoadBalancingStrategy {
+    /**
+     * The host with the fewest requests in flight, ties broken randomly. Best for a small number of clients that
+     * each see all of their requests.
+     */
+    LEAST_OUTSTANDING_REQUESTS,
+    /**
+     * The host with fewer requests in flight of two randomly chosen ones. Spreads load almost as evenly as
+     * {@link #LEAST_OUTSTANDING_REQUESTS}, but avoids that many clients with the same view all pick the same idle
+     * host at once.
+     */
+    POWER_OF_TWO_CHOICES
+}
@@ -0,0 +1,716 @@
+package io.github.ollama4j.cluster;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.exceptions.OllamaCircuitOpenException;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatResult;
+import io.github.ollama4j.models.embeddings.OllamaEmbedFloatResponseModel;
+import io.github.ollama4j.models.embeddings.OllamaEmbedRequestModel;
+import io.github.ollama4j.models.embeddings.OllamaEmbedResponseModel;
+import io.github.ollama4j.models.generate.OllamaGenerateRequest;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
+import io.github.ollama4j.models.request.OllamaCircuitBreaker;
+import io.github.ollama4j.models.request.OllamaHttpTransportConfig;
+import io.github.ollama4j.models.response.OllamaResult;
+import lombok.Builder;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Client for a pool of Ollama servers serving the same models, which balances chat, generate and embed requests
+ * across the servers.
+ * <p>
+ * Every request is sent to one healthy host chosen by the {@link LoadBalancingStrategy}. Hosts whose requests fail
+ * with connection errors or 5xx statuses are ejected for a while (see {@link OllamaClusterHost}), and a periodic
+ * {@link OllamaAPI#ping()} ejects unreachable hosts and reinstates recovered ones. If all hosts are ejected, requests
+ * are spread over all of them rather than failed outright. Failed requests are not retried on another host.
+ * Requests for a model also avoid hosts whose {@link OllamaAPI#getCircuitBreaker() circuit breaker} for that model is
+ * open, so a host stuck with one model keeps serving the others.
+ * <p>
+ * Hosts that have the requested model loaded are preferred, as loading a model takes seconds: the cluster polls
+ * {@link OllamaAPI#ps()} on every host and sends a request to the least loaded host with the model resident, unless
+ * all of those are busy with {@link #getModelSpilloverThreshold()} requests. Other requests go to the least loaded
+ * host, and among equally loaded hosts to the one with the fewest bytes of loaded models, i.e. the most headroom for
+ * loading the model.
+ * <p>
+ * Turns of one conversation should go to the same host, whose prompt cache then holds the conversation so far and
+ * only the new message has to be evaluated. {@link #chatInSession(String, OllamaChatRequest, OllamaTokenHandler)}
+ * routes by a session id on a consistent hash ring, so hosts joining ({@link #addHost(String)}) or leaving
+ * ({@link #removeHost(String)}, ejection) only move the sessions of about one host. A session only moves to the next
+ * host on the ring while its own host has more than {@link #getSessionLoadFactor()} times the average number of
+ * requests in flight (consistent hashing with bounded loads).
+ * <pre>{@code
+ * OllamaCluster cluster = OllamaCluster.builder()
+ *         .hosts(List.of("http://ollama-1:11434", "http://ollama-2:11434", "http://ollama-3:11434"))
+ *         .build();
+ * OllamaChatResult result = cluster.chat(OllamaChatRequestBuilder.getInstance("llama3")
+ *         .withMessage(OllamaChatMessageRole.USER, "Why is the sky blue?").build());
+ * }</pre>
+ */
+@Getter
+public class OllamaCluster implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaCluster.class);
+
+    /**
+     * The current hosts of the cluster.
+     */
+    private volatile List<OllamaClusterHost> hosts;
+
+    private final LoadBalancingStrategy strategy;
+
+    /**
+     * Number of failed requests in a row after which a host is ejected.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Share of failed requests above which a host is ejected, between 0 and 1.
+     */
+    private final double maxErrorRate;
+
+    /**
+     * Base time a host stays ejected; a host ejected repeatedly stays ejected for a multiple of it.
+     */
+    private final Duration ejectionDuration;
+
+    /**
+     * Time between two health checks of a host, or {@link Duration#ZERO} if hosts are not checked.
+     */
+    private final Duration healthCheckInterval;
+
+    /**
+     * Time between two polls of the models loaded on a host, or {@link Duration#ZERO} to ignore which models are
+     * loaded.
+     */
+    private final Duration modelPollInterval;
+
+    /**
+     * Number of requests in flight at which a host with the requested model loaded counts as busy, so that requests
+     * spill over to other hosts even though they have to load the model. Ollama serves 4 requests per model in
+     * parallel by default ({@code OLLAMA_NUM_PARALLEL}).
+     */
+    private final int modelSpilloverThreshold;
+
+    /**
+     * Maximum number of requests in flight of the host of a session, relative to the average of all healthy hosts,
+     * up to which session requests stay on their host; at least 1.
+     */
+    private final double sessionLoadFactor;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final OllamaHttpTransportConfig transportConfig;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final List<OllamaAPI> ownedApis = new ArrayList<>();
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final ScheduledExecutorService scheduler;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<OllamaClusterHost, List<ScheduledFuture<?>>> scheduledPolls = new HashMap<>();
+
+    @Getter(lombok.AccessLevel.NONE)
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * Creates a cluster client. Hosts can be given as addresses, for which API instances with the given transport
+     * configuration are created and closed with this client, or as already configured API instances (e.g. with basic
+     * authentication or registered tools), which the caller keeps ownership of.
+     */
+    @Builder
+    private OllamaCluster(List<String> hosts, List<OllamaAPI> apis, OllamaHttpTransportConfig transportConfig, LoadBalancingStrategy strategy,
+                          Integer failureThreshold, Double maxErrorRate, Duration ejectionDuration, Duration healthCheckInterval,
+                          Duration modelPollInterval, Integer modelSpilloverThreshold, Double sessionLoadFactor) {
+        this.transportConfig = transportConfig != null ? transportConfig : OllamaHttpTransportConfig.defaults();
+        List<OllamaClusterHost> clusterHosts = new ArrayList<>();
+        if (hosts != null) {
+            for (String host : hosts) {
+                clusterHosts.add(new OllamaClusterHost(createApi(host)));
+            }
+        }
+        if (apis != null) {
+            for (OllamaAPI api : apis) {
+                clusterHosts.add(new OllamaClusterHost(api));
+            }
+        }
+        this.hosts = Collections.unmodifiableList(clusterHosts);
+        this.strategy = strategy != null ? strategy : LoadBalancingStrategy.POWER_OF_TWO_CHOICES;
+        this.failureThreshold = failureThreshold != null ? failureThreshold : 5;
+        this.maxErrorRate = maxErrorRate != null ? maxErrorRate : 0.5;
+        this.ejectionDuration = ejectionDuration != null ? ejectionDuration : Duration.ofSeconds(30);
+        this.healthCheckInterval = healthCheckInterval != null ? healthCheckInterval : Duration.ofSeconds(10);
+        this.modelPollInterval = modelPollInterval != null ? modelPollInterval : Duration.ofSeconds(5);
+        this.modelSpilloverThreshold = modelSpilloverThreshold != null ? modelSpilloverThreshold : 4;
+        this.sessionLoadFactor = sessionLoadFactor != null ? sessionLoadFactor : 1.25;
+        if (this.hosts.isEmpty()) {
+            ownedApis.forEach(OllamaAPI::close);
+            throw new IllegalArgumentException("A cluster needs at least one host.");
+        }
+        if (this.failureThreshold <= 0 || this.maxErrorRate <= 0 || this.maxErrorRate > 1 || this.modelSpilloverThreshold <= 0
+                || this.sessionLoadFactor < 1 || this.ejectionDuration.isNegative() || this.healthCheckInterval.isNegative()
+                || this.modelPollInterval.isNegative()) {
+            ownedApis.forEach(OllamaAPI::close);
+            throw new IllegalArgumentException("failureThreshold and modelSpilloverThreshold must be positive, maxErrorRate must be in (0, 1], "
+                    + "sessionLoadFactor must be at least 1 and durations must not be negative.");
+        }
+        this.ring = new ConsistentHashRing(this.hosts);
+        this.scheduler = this.healthCheckInterval.isZero() && this.modelPollInterval.isZero() ? null : createScheduler();
+        this.hosts.forEach(this::startPolling);
+    }
+
+    /**
+     * Adds a host to the cluster, creating an API instance for it with the cluster's transport configuration.
+     *
+     * @param host the host address of the Ollama server
+     * @return the added host
+     */
+    public OllamaClusterHost addHost(String host) {
+        return add(createApi(host));
+    }
+
+    /**
+     * Adds a host to the cluster, given as an already configured API instance the caller keeps ownership of.
+     *
+     * @param api the API instance of the host
+     * @return the added host
+     */
+    public OllamaClusterHost addApi(OllamaAPI api) {
+        return add(api);
+    }
+
+    /**
+     * Removes a host from the cluster. Requests in flight to the host are not affected; an API instance created by the
+     * cluster is closed.
+     *
+     * @param host the host address of the Ollama server
+     * @return true if the cluster contained the host
+     */
+    public boolean removeHost(String host) {
+        String address = host.endsWith("/") ? host.substring(0, host.length() - 1) : host;
+        OllamaClusterHost removed = null;
+        synchronized (this) {
+            List<OllamaClusterHost> remaining = new ArrayList<>(hosts);
+            for (OllamaClusterHost clusterHost : hosts) {
+                if (clusterHost.getHost().equals(address)) {
+                    removed = clusterHost;
+                    remaining.remove(clusterHost);
+                    break;
+                }
+            }
+            if (removed == null) {
+                return false;
+            }
+            if (remaining.isEmpty()) {
+                throw new IllegalStateException("The last host of a cluster cannot be removed.");
+            }
+            hosts = Collections.unmodifiableList(remaining);
+            ring = new ConsistentHashRing(remaining);
+            List<ScheduledFuture<?>> polls = scheduledPolls.remove(removed);
+            if (polls != null) {
+                polls.forEach(poll -> poll.cancel(false));
+            }
+            if (!ownedApis.remove(removed.getApi())) {
+                return true;
+            }
+        }
+        removed.getApi().close();
+        return true;
+    }
+
+    private synchronized OllamaClusterHost add(OllamaAPI api) {
+        OllamaClusterHost host = new OllamaClusterHost(api);
+        List<OllamaClusterHost> extended = new ArrayList<>(hosts);
+        extended.add(host);
+        hosts = Collections.unmodifiableList(extended);
+        ring = new ConsistentHashRing(extended);
+        startPolling(host);
+        return host;
+    }
+
+    private OllamaAPI createApi(String host) {
+        OllamaAPI api = new OllamaAPI(host, transportConfig);
+        api.setVerbose(false);
+        synchronized (this) {
+            ownedApis.add(api);
+        }
+        return api;
+    }
+
+    /**
+     * Sends a chat request of a conversation to the host of the conversation, so that the host can reuse the evaluated
+     * history in its prompt cache. See {@link OllamaAPI#chatStreaming(OllamaChatRequest, OllamaTokenHandler)}.
+     *
+     * @param sessionId    id of the conversation, e.g. a user or chat id
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part, or null to not stream the response
+     * @return {@link OllamaChatResult}
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaChatResult chatInSession(String sessionId, OllamaChatRequest request, OllamaTokenHandler tokenHandler)
+            throws OllamaBaseException, IOException, InterruptedException {
+        return execute(selectSessionHost(sessionId, request.getModel()), request.getModel(), api -> api.chatStreaming(request, tokenHandler));
+    }
+
+    /**
+     * Asynchronously sends a chat request of a conversation to the host of the conversation. See
+     * {@link #chatInSession(String, OllamaChatRequest, OllamaTokenHandler)}.
+     *
+     * @param sessionId    id of the conversation, e.g. a user or chat id
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part as a delta, may be null
+     * @param executor     executor to invoke tools on and to complete the returned future with, may be null
+     * @return future completing with the {@link OllamaChatResult}
+     */
+    public CompletableFuture<OllamaChatResult> chatInSessionAsync(String sessionId, OllamaChatRequest request, OllamaTokenHandler tokenHandler, Executor executor) {
+        return executeAsync(selectSessionHost(sessionId, request.getModel()), request.getModel(), api -> api.chatAsync(request, tokenHandler, executor));
+    }
+
+    /**
+     * Sends a chat request to a healthy host. See {@link OllamaAPI#chatStreaming(OllamaChatRequest, OllamaTokenHandler)}.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part, or null to not stream the response
+     * @return {@link OllamaChatResult}
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaChatResult chatStreaming(OllamaChatRequest request, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(request.getModel(), api -> api.chatStreaming(request, tokenHandler));
+    }
+
+    /**
+     * Sends a chat request to a healthy host and waits for the complete answer.
+     *
+     * @param request request object to be sent to the server
+     * @return {@link OllamaChatResult}
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaChatResult chat(OllamaChatRequest request) throws OllamaBaseException, IOException, InterruptedException {
+        return chatStreaming(request, null);
+    }
+
+    /**
+     * Asynchronously sends a chat request to a healthy host. See
+     * {@link OllamaAPI#chatAsync(OllamaChatRequest, OllamaTokenHandler, Executor)}.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part as a delta, may be null
+     * @param executor     executor to invoke tools on and to complete the returned future with, may be null
+     * @return future completing with the {@link OllamaChatResult}
+     */
+    public CompletableFuture<OllamaChatResult> chatAsync(OllamaChatRequest request, OllamaTokenHandler tokenHandler, Executor executor) {
+        return executeAsync(request.getModel(), api -> api.chatAsync(request, tokenHandler, executor));
+    }
+
+    /**
+     * Sends a generate request to a healthy host. See {@link OllamaAPI#generate(OllamaGenerateRequest, OllamaTokenHandler)}.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part, or null to not stream the response
+     * @return {@link OllamaResult}
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaResult generate(OllamaGenerateRequest request, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(request.getModel(), api -> api.generate(request, tokenHandler));
+    }
+
+    /**
+     * Asynchronously sends a generate request to a healthy host. See
+     * {@link OllamaAPI#generateAsync(OllamaGenerateRequest, OllamaTokenHandler, Executor)}.
+     *
+     * @param request      request object to be sent to the server
+     * @param tokenHandler callback handler that receives every streamed response part as a delta, may be null
+     * @param executor     executor to complete the returned future with, may be null
+     * @return future completing with the {@link OllamaResult}
+     */
+    public CompletableFuture<OllamaResult> generateAsync(OllamaGenerateRequest request, OllamaTokenHandler tokenHandler, Executor executor) {
+        return executeAsync(request.getModel(), api -> api.generateAsync(request, tokenHandler, executor));
+    }
+
+    /**
+     * Sends an embed request to a healthy host. See {@link OllamaAPI#embed(OllamaEmbedRequestModel)}.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @return embeddings
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaEmbedResponseModel embed(OllamaEmbedRequestModel modelRequest) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(modelRequest.getModel(), api -> api.embed(modelRequest));
+    }
+
+    /**
+     * Asynchronously sends an embed request to a healthy host. See
+     * {@link OllamaAPI#embedAsFloatsAsync(OllamaEmbedRequestModel, Executor)}.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @param executor     executor to complete the returned future with, may be null
+     * @return future completing with the embeddings
+     */
+    public CompletableFuture<OllamaEmbedFloatResponseModel> embedAsFloatsAsync(OllamaEmbedRequestModel modelRequest, Executor executor) {
+        return executeAsync(modelRequest.getModel(), api -> api.embedAsFloatsAsync(modelRequest, executor));
+    }
+
+    /**
+     * Makes any call on the API of a healthy host and records its outcome in the host's health state.
+     *
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return the result of the call
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public <T> T execute(OllamaClusterCall<T> call) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(null, call);
+    }
+
+    /**
+     * Makes a call using the given model on the API of a healthy host, preferring hosts that have the model loaded,
+     * and records its outcome in the host's health state.
+     *
+     * @param model name of the model the call uses, or null if it does not use a model
+     * @param call  the call to make
+     * @param <T>   the result type
+     * @return the result of the call
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public <T> T execute(String model, OllamaClusterCall<T> call) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(selectHost(model), model, call);
+    }
+
+    /**
+     * Makes a call of a session on the API of the host of the session, see
+     * {@link #chatInSession(String, OllamaChatRequest, OllamaTokenHandler)}, and records its outcome in the host's
+     * health state.
+     *
+     * @param sessionId id of the session
+     * @param call      the call to make
+     * @param <T>       the result type
+     * @return the result of the call
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public <T> T executeInSession(String sessionId, OllamaClusterCall<T> call) throws OllamaBaseException, IOException, InterruptedException {
+        return execute(selectSessionHost(sessionId), null, call);
+    }
+
+    private <T> T execute(OllamaClusterHost host, String model, OllamaClusterCall<T> call) throws OllamaBaseException, IOException, InterruptedException {
+        host.requestStarted();
+        try {
+            T result = call.call(host.getApi());
+            recordSuccess(host, model);
+            return result;
+        } catch (OllamaBaseException | IOException | InterruptedException | RuntimeException e) {
+            recordFailure(host, e);
+            throw e;
+        } finally {
+            host.requestFinished();
+        }
+    }
+
+    /**
+     * Makes any asynchronous call on the API of a healthy host and records its outcome in the host's health state.
+     *
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return the future returned by the call
+     */
+    public <T> CompletableFuture<T> executeAsync(Function<OllamaAPI, CompletableFuture<T>> call) {
+        return executeAsync(null, call);
+    }
+
+    /**
+     * Makes an asynchronous call using the given model on the API of a healthy host, preferring hosts that have the
+     * model loaded, and records its outcome in the host's health state.
+     *
+     * @param model name of the model the call uses, or null if it does not use a model
+     * @param call  the call to make
+     * @param <T>   the result type
+     * @return the future returned by the call
+     */
+    public <T> CompletableFuture<T> executeAsync(String model, Function<OllamaAPI, CompletableFuture<T>> call) {
+        return executeAsync(selectHost(model), model, call);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(OllamaClusterHost host, String model, Function<OllamaAPI, CompletableFuture<T>> call) {
+        host.requestStarted();
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(host.getApi());
+        } catch (RuntimeException e) {
+            host.requestFinished();
+            throw e;
+        }
+        future.whenComplete((result, throwable) -> {
+            host.requestFinished();
+            if (throwable == null) {
+                recordSuccess(host, model);
+            } else {
+                recordFailure(host, throwable);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Selects the host for the next request with the cluster's {@link LoadBalancingStrategy}.
+     *
+     * @param model name of the model of the request, or null to ignore which models the hosts have loaded
+     * @return a healthy host whose circuit of the model is closed, or any host if there is none
+     */
+    public OllamaClusterHost selectHost(String model) {
+        List<OllamaClusterHost> candidates = availableHosts(hosts, model);
+        if (model != null && !modelPollInterval.isZero()) {
+            List<OllamaClusterHost> resident = new ArrayList<>(candidates.size());
+            for (OllamaClusterHost host : candidates) {
+                if (host.isResident(model)) {
+                    resident.add(host);
+                }
+            }
+            if (!resident.isEmpty()) {
+                OllamaClusterHost host = pickLeastLoaded(resident);
+                if (host.getOutstandingRequests() < modelSpilloverThreshold || resident.size() == candidates.size()) {
+                    return host;
+                }
+            }
+        }
+        return pickLeastLoaded(candidates);
+    }
+
+    /**
+     * Selects the host for the next request of a session: the owner of the session on the hash ring, or the next
+     * healthy host on the ring if the owner is ejected or has more than its bounded share of the requests in flight.
+     *
+     * @param sessionId id of the session
+     * @return the host of the session
+     */
+    public OllamaClusterHost selectSessionHost(String sessionId) {
+        return selectSessionHost(sessionId, null);
+    }
+
+    private OllamaClusterHost selectSessionHost(String sessionId, String model) {
+        List<OllamaClusterHost> successors = ring.successors(sessionId);
+        List<OllamaClusterHost> available = availableHosts(successors, model);
+        long outstanding = 0;
+        for (OllamaClusterHost host : available) {
+            outstanding += host.getOutstandingRequests();
+        }
+        // counting the new request, no host may get more than the load factor times the average
+        long capacity = (long) Math.ceil(sessionLoadFactor * (outstanding + 1) / available.size());
+        for (OllamaClusterHost host : available) {
+            if (host.getOutstandingRequests() + 1 <= capacity) {
+                return host;
+            }
+        }
+        return available.get(0);
+    }
+
+    /**
+     * @param candidates hosts in order of preference
+     * @param model      name of the model of the request, or null if it does not use a model
+     * @return the candidates that are not ejected and whose circuit of the model lets calls through, else those that
+     * are not ejected, else all candidates
+     */
+    private List<OllamaClusterHost> availableHosts(List<OllamaClusterHost> candidates, String model) {
+        List<OllamaClusterHost> healthy = new ArrayList<>(candidates.size());
+        for (OllamaClusterHost host : candidates) {
+            if (isAvailable(host)) {
+                healthy.add(host);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return candidates;
+        }
+        if (model == null) {
+            return healthy;
+        }
+        List<OllamaClusterHost> permitted = new ArrayList<>(healthy.size());
+        for (OllamaClusterHost host : healthy) {
+            if (host.getApi().getCircuitBreaker().isCallPermitted(model)) {
+                permitted.add(host);
+            }
+        }
+        return permitted.isEmpty() ? healthy : permitted;
+    }
+
+    private boolean isAvailable(OllamaClusterHost host) {
+        if (host.isEjected() && healthCheckInterval.isZero() && host.isEjectionOver()) {
+            // without health checks, the host gets a second chance once the ejection period has passed
+            host.reinstate();
+        }
+        return !host.isEjected();
+    }
+
+    private OllamaClusterHost pickLeastLoaded(List<OllamaClusterHost> candidates) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        if (strategy == LoadBalancingStrategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            OllamaClusterHost a = candidates.get(first);
+            OllamaClusterHost b = candidates.get(second);
+            return isLessLoaded(b, a) ? b : a;
+        }
+        // start at a random host, so that ties do not always go to the first one
+        int start = random.nextInt(size);
+        OllamaClusterHost best = null;
+        for (int i = 0; i < size; i++) {
+            OllamaClusterHost host = candidates.get((start + i) % size);
+            if (best == null || isLessLoaded(host, best)) {
+                best = host;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return true if the first host has fewer requests in flight, or as many and more memory left for models
+     */
+    private static boolean isLessLoaded(OllamaClusterHost host, OllamaClusterHost other) {
+        int outstanding = host.getOutstandingRequests();
+        int otherOutstanding = other.getOutstandingRequests();
+        return outstanding < otherOutstanding || (outstanding == otherOutstanding && host.getResidentBytes() < other.getResidentBytes());
+    }
+
+    private void recordSuccess(OllamaClusterHost host, String model) {
+        host.recordSuccess();
+        if (model != null) {
+            // the host has loaded the model to answer, which the next poll would only tell later
+            host.markResident(model);
+        }
+    }
+
+    private void recordFailure(OllamaClusterHost host, Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (OllamaCircuitBreaker.isFailure(cause)) {
+            if (host.recordFailure(this)) {
+                logger.warn("Ejected {} after failed request: {}", host, throwable.toString());
+            }
+        } else if (!(cause instanceof InterruptedException) && !(cause instanceof OllamaCancelledException)
+                && !(cause instanceof OllamaCircuitOpenException)) {
+            // the host answered, the request was at fault
+            host.recordSuccess();
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(Math.min(hosts.size(), 4), runnable -> {
+            Thread thread = new Thread(runnable, "ollama4j-cluster-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private synchronized void startPolling(OllamaClusterHost host) {
+        if (scheduler == null) {
+            return;
+        }
+        List<ScheduledFuture<?>> polls = new ArrayList<>(2);
+        if (!healthCheckInterval.isZero()) {
+            // spread the health checks of the hosts over the interval
+            long interval = healthCheckInterval.toNanos();
+            polls.add(scheduler.scheduleWithFixedDelay(() -> checkHealth(host), ThreadLocalRandom.current().nextLong(interval), interval, TimeUnit.NANOSECONDS));
+        }
+        if (!modelPollInterval.isZero()) {
+            long interval = modelPollInterval.toNanos();
+            polls.add(scheduler.scheduleWithFixedDelay(() -> pollModels(host), 0, interval, TimeUnit.NANOSECONDS));
+        }
+        scheduledPolls.put(host, polls);
+    }
+
+    private void pollModels(OllamaClusterHost host) {
+        if (host.isEjected()) {
+            return;
+        }
+        try {
+            host.updateResidentModels(host.getApi().ps());
+        } catch (OllamaBaseException | IOException | RuntimeException e) {
+            // failures of the host are detected by its requests and health checks
+            logger.debug("Could not list the loaded models of {}: {}", host, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkHealth(OllamaClusterHost host) {
+        if (host.isEjected() && !host.isEjectionOver()) {
+            return;
+        }
+        boolean reachable;
+        try {
+            reachable = host.getApi().ping();
+        } catch (RuntimeException e) {
+            reachable = false;
+        }
+        if (reachable && host.isEjected()) {
+            host.reinstate();
+            logger.info("Reinstated {}", host);
+        } else if (!reachable) {
+            if (!host.isEjected()) {
+                logger.warn("Ejected {} after failed health check", host);
+            }
+            host.eject(this);
+        }
+    }
+
+    /**
+     * Stops the health checks and model polls and closes the API instances created for host addresses.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        List<OllamaAPI> apis;
+        synchronized (this) {
+            apis = new ArrayList<>(ownedApis);
+            ownedApis.clear();
+        }
+        apis.forEach(OllamaAPI::close);
+    }
+}
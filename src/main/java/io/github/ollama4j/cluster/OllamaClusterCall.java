@@ -0,0 +1,17 @@
+package io.github.ollama4j.cluster;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+
+import java.io.IOException;
+
+/**
+ * A call an {@link OllamaCluster} makes on the {@link OllamaAPI} of the host it selected.
+ *
+ * @param <T> the result type
+ */
+@FunctionalInterface
+public interface OllamaClusterCall<T> {
+
+    T call(OllamaAPI api) throws OllamaBaseException, IOException, InterruptedException;
+}
@@ -0,0 +1,201 @@
+package io.github.ollama4j.cluster;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.models.ps.ModelsProcessResponse;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One host of an {@link OllamaCluster} together with its load and health state.
+ * <p>
+ * A host is ejected, i.e. no longer selected, once {@link OllamaCluster#getFailureThreshold()} requests in a row have
+ * failed, once its error rate exceeds {@link OllamaCluster#getMaxErrorRate()}, or once a health check fails. It stays
+ * ejected for {@link OllamaCluster#getEjectionDuration()} times the number of ejections since it last answered
+ * successfully, and is reinstated afterwards by the next successful health check (or right away if health checks are
+ * disabled).
+ */
+@Getter
+public class OllamaClusterHost {
+
+    /**
+     * Weight of the newest request in the error rate, which makes the rate follow roughly the last 20 requests.
+     */
+    private static final double ERROR_RATE_WEIGHT = 0.1;
+
+    /**
+     * Minimum number of requests before the error rate may eject a host.
+     */
+    private static final int MIN_REQUESTS_FOR_ERROR_RATE = 10;
+
+    private final OllamaAPI api;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+
+    /**
+     * Number of failed requests since the last successful one.
+     */
+    private int consecutiveFailures;
+
+    /**
+     * Exponentially weighted share of failed requests.
+     */
+    private double errorRate;
+
+    /**
+     * Number of ejections since the host last answered successfully.
+     */
+    private int ejections;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private long requests;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private long ejectedUntilNanos;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private volatile boolean ejected;
+
+    /**
+     * Sizes of the models loaded on the host by model name, as of the last poll.
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private volatile Map<String, Long> residentModels = Collections.emptyMap();
+
+    /**
+     * Total size of the models loaded on the host, as of the last poll.
+     */
+    private volatile long residentBytes;
+
+    OllamaClusterHost(OllamaAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * @return the host address of the Ollama server
+     */
+    public String getHost() {
+        return api.getHost();
+    }
+
+    /**
+     * @return the number of requests currently in flight to this host
+     */
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+    /**
+     * @return true if this host is not selected for requests because it failed
+     */
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * @return the names of the models loaded on this host, as of the last poll
+     */
+    public Set<String> getResidentModels() {
+        return residentModels.keySet();
+    }
+
+    /**
+     * @param model name of the model, with or without tag
+     * @return true if the model is loaded on this host, as of the last poll
+     */
+    public boolean isResident(String model) {
+        return residentModels.containsKey(withTag(model));
+    }
+
+    synchronized void updateResidentModels(ModelsProcessResponse response) {
+        Map<String, Long> models = new HashMap<>();
+        long bytes = 0;
+        if (response.getModels() != null) {
+            for (ModelsProcessResponse.ModelProcess model : response.getModels()) {
+                String name = model.getName() != null ? model.getName() : model.getModel();
+                if (name != null) {
+                    models.put(withTag(name), model.getSize());
+                    bytes += model.getSize();
+                }
+            }
+        }
+        residentModels = Collections.unmodifiableMap(models);
+        residentBytes = bytes;
+    }
+
+    /**
+     * Records that a model has been loaded to answer a request, without knowing its size until the next poll.
+     */
+    synchronized void markResident(String model) {
+        String name = withTag(model);
+        if (!residentModels.containsKey(name)) {
+            Map<String, Long> models = new HashMap<>(residentModels);
+            models.put(name, 0L);
+            residentModels = Collections.unmodifiableMap(models);
+        }
+    }
+
+    private static String withTag(String model) {
+        return model.indexOf(':') < 0 ? model + ":latest" : model;
+    }
+
+    void requestStarted() {
+        outstandingRequests.incrementAndGet();
+    }
+
+    void requestFinished() {
+        outstandingRequests.decrementAndGet();
+    }
+
+    synchronized void recordSuccess() {
+        requests++;
+        consecutiveFailures = 0;
+        ejections = 0;
+        errorRate *= 1 - ERROR_RATE_WEIGHT;
+    }
+
+    /**
+     * @return true if the failure ejected the host
+     */
+    synchronized boolean recordFailure(OllamaCluster cluster) {
+        requests++;
+        consecutiveFailures++;
+        errorRate = errorRate * (1 - ERROR_RATE_WEIGHT) + ERROR_RATE_WEIGHT;
+        if (!ejected && (consecutiveFailures >= cluster.getFailureThreshold()
+                || (requests >= MIN_REQUESTS_FOR_ERROR_RATE && errorRate > cluster.getMaxErrorRate()))) {
+            eject(cluster);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void eject(OllamaCluster cluster) {
+        ejections++;
+        ejected = true;
+        ejectedUntilNanos = System.nanoTime() + cluster.getEjectionDuration().toNanos() * Math.min(ejections, 10);
+    }
+
+    /**
+     * @return true if the ejection period of this ejected host has passed
+     */
+    synchronized boolean isEjectionOver() {
+        return ejected && System.nanoTime() - ejectedUntilNanos >= 0;
+    }
+
+    synchronized void reinstate() {
+        ejected = false;
+        consecutiveFailures = 0;
+        errorRate = 0;
+        requests = 0;
+    }
+
+    @Override
+    public String toString() {
+        return getHost();
+    }
+}
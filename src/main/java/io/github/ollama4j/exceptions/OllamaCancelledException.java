@@ -0,0 +1,44 @@
+package io.github.ollama4j.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown if a request has been cancelled via its {@link io.github.ollama4j.models.request.OllamaCancellationHandle},
+ * either explicitly or because one of its deadlines has passed.
+ */
+@Getter
+public class OllamaCancelledException extends OllamaBaseException {
+
+    public enum Reason {
+        /**
+         * The request was cancelled explicitly.
+         */
+        CANCELLED,
+        /**
+         * No part of the response arrived within the time-to-first-token deadline.
+         */
+        FIRST_TOKEN_DEADLINE_EXCEEDED,
+        /**
+         * The response was not complete within the total deadline.
+         */
+        TOTAL_DEADLINE_EXCEEDED
+    }
+
+    private final Reason reason;
+
+    public OllamaCancelledException(Reason reason) {
+        super(messageFor(reason));
+        this.reason = reason;
+    }
+
+    private static String messageFor(Reason reason) {
+        switch (reason) {
+            case FIRST_TOKEN_DEADLINE_EXCEEDED:
+                return "Request cancelled: no response within the time-to-first-token deadline";
+            case TOTAL_DEADLINE_EXCEEDED:
+                return "Request cancelled: response not complete within the total deadline";
+            default:
+                return "Request cancelled";
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.ollama4j.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown without sending the request if the circuit breaker of the host and model is open, because too many recent
+ * requests failed or were slow. See {@link io.github.ollama4j.models.request.OllamaCircuitBreaker}.
+ */
+@Getter
+public class OllamaCircuitOpenException extends OllamaBaseException {
+
+    private final String host;
+    private final String model;
+
+    public OllamaCircuitOpenException(String host, String model) {
+        super("Circuit breaker open for model " + model + " on " + host);
+        this.host = host;
+        this.model = model;
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.ollama4j.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown if the server responded with an error status, e.g. 404 for an unknown model or 503 while it is overloaded.
+ */
+@Getter
+public class OllamaResponseException extends OllamaBaseException {
+
+    private final int statusCode;
+
+    public OllamaResponseException(int statusCode, String s) {
+        super(s);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return true for 5xx statuses, which indicate a problem of the server rather than of the request
+     */
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+}
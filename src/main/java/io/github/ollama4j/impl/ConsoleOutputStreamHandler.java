@@ -1,8 +1,10 @@
 package io.github.ollama4j.impl;
 
 import io.github.ollama4j.models.generate.OllamaStreamHandler;
+import io.github.ollama4j.models.generate.OllamaStreamToken;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
 
-public class ConsoleOutputStreamHandler implements OllamaStreamHandler {
+public class ConsoleOutputStreamHandler implements OllamaStreamHandler, OllamaTokenHandler {
     private final StringBuffer response = new StringBuffer();
 
     @Override
@@ -11,4 +13,9 @@ public class ConsoleOutputStreamHandler implements OllamaStreamHandler {
         response.append(substr);
         System.out.print(substr);
     }
+
+    @Override
+    public void accept(OllamaStreamToken token) {
+        System.out.print(token.getContent());
+    }
 }
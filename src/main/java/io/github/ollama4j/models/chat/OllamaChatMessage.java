@@ -2,27 +2,39 @@ package io.github.ollama4j.models.chat;
 
 import static io.github.ollama4j.utils.Utils.getObjectMapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
+import io.github.ollama4j.models.request.OllamaImageSource;
 import io.github.ollama4j.utils.FileToBase64Serializer;
+import io.github.ollama4j.utils.Utils;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * Defines a single Message to be used inside a chat request against the ollama /api/chat endpoint.
+ * <p>
+ * As a chat sends its whole history with every request, the JSON of a message is cached when the request is written
+ * and reused until the message is changed through one of its setters. Changing the list of tool calls in place is not
+ * detected; set a new list instead. Messages with images are not cached, so their base64 encoding is not kept in
+ * memory for the lifetime of the chat but written from the images for every request.
  *
  * @see <a href="https://github.com/ollama/ollama/blob/main/docs/api.md#generate-a-chat-completion">Generate chat completion</a>
  */
 @Data
-@AllArgsConstructor
 @RequiredArgsConstructor
 @NoArgsConstructor
 public class OllamaChatMessage {
@@ -35,9 +47,90 @@ public class OllamaChatMessage {
 
     private @JsonProperty("tool_calls") List<OllamaChatToolCalls> toolCalls;
 
-    @JsonSerialize(using = FileToBase64Serializer.class)
     private List<byte[]> images;
 
+    /**
+     * Images that are read and base64-encoded while the request is written. They are sent after the {@link #images}.
+     */
+    @JsonIgnore
+    private List<OllamaImageSource> imageSources;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile CachedJson json;
+
+    public OllamaChatMessage(@NonNull OllamaChatMessageRole role, @NonNull String content, List<OllamaChatToolCalls> toolCalls, List<byte[]> images) {
+        this.role = role;
+        this.content = content;
+        this.toolCalls = toolCalls;
+        this.images = images;
+    }
+
+    public void setRole(@NonNull OllamaChatMessageRole role) {
+        this.role = role;
+        this.json = null;
+    }
+
+    public void setContent(@NonNull String content) {
+        this.content = content;
+        this.json = null;
+    }
+
+    public void setToolCalls(List<OllamaChatToolCalls> toolCalls) {
+        this.toolCalls = toolCalls;
+        this.json = null;
+    }
+
+    public void setImages(List<byte[]> images) {
+        this.images = images;
+        this.json = null;
+    }
+
+    public void setImageSources(List<OllamaImageSource> imageSources) {
+        this.imageSources = imageSources;
+        this.json = null;
+    }
+
+    /**
+     * Returns the cached JSON of this message. The JSON is written by {@link Utils#getObjectMapper()}, so it can only
+     * be copied into output written with the same serialization config. Like Jackson's own serializer caches, this
+     * assumes that the shared mapper is configured before it is first used.
+     *
+     * @param config serialization config of the output the JSON is copied into
+     * @return the UTF-8 encoded JSON of this message, which must not be modified, or null if the message has images or
+     * the config is not the one of {@link Utils#getObjectMapper()}, so that the message has to be serialized as usual
+     * @throws JsonProcessingException if the message cannot be serialized
+     */
+    public byte[] getCachedJson(SerializationConfig config) throws JsonProcessingException {
+        if (images != null && !images.isEmpty() || imageSources != null && !imageSources.isEmpty()) {
+            return null;
+        }
+        ObjectMapper mapper = getObjectMapper();
+        if (config != mapper.getSerializationConfig()) {
+            return null;
+        }
+        CachedJson current = json;
+        if (current == null || current.config != config) {
+            current = new CachedJson(config, mapper.writeValueAsBytes(this));
+            json = current;
+        }
+        return current.utf8;
+    }
+
+    @JsonProperty("images")
+    @JsonSerialize(using = FileToBase64Serializer.class)
+    private List<Object> getSerializedImages() {
+        if (imageSources == null || imageSources.isEmpty()) {
+            return images == null ? null : new ArrayList<>(images);
+        }
+        List<Object> serializedImages = new ArrayList<>();
+        if (images != null) {
+            serializedImages.addAll(images);
+        }
+        serializedImages.addAll(imageSources);
+        return serializedImages;
+    }
+
     @Override
     public String toString() {
         try {
@@ -46,4 +139,18 @@ public class OllamaChatMessage {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * JSON of a message and the serialization config it was written with.
+     */
+    private static class CachedJson {
+
+        private final SerializationConfig config;
+        private final byte[] utf8;
+
+        CachedJson(SerializationConfig config, byte[] utf8) {
+            this.config = config;
+            this.utf8 = utf8;
+        }
+    }
 }
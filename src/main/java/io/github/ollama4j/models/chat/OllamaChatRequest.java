@@ -2,8 +2,11 @@ package io.github.ollama4j.models.chat;
 
 import java.util.List;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import io.github.ollama4j.models.request.OllamaCommonRequest;
 import io.github.ollama4j.tools.Tools;
+import io.github.ollama4j.utils.ChatMessageSerializer;
 import io.github.ollama4j.utils.OllamaRequestBody;
 
 import lombok.Getter;
@@ -20,6 +23,7 @@ import lombok.Setter;
 @Setter
 public class OllamaChatRequest extends OllamaCommonRequest implements OllamaRequestBody {
 
+  @JsonSerialize(contentUsing = ChatMessageSerializer.class)
   private List<OllamaChatMessage> messages;
 
   private List<Tools.PromptFuncDefinition> tools;
@@ -1,5 +1,6 @@
 package io.github.ollama4j.models.chat;
 
+import io.github.ollama4j.models.request.OllamaImageSource;
 import io.github.ollama4j.utils.Options;
 import io.github.ollama4j.utils.Utils;
 import org.slf4j.Logger;
@@ -12,7 +13,6 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Helper class for creating {@link OllamaChatRequest} objects using the builder-pattern.
@@ -43,19 +43,29 @@ public class OllamaChatRequestBuilder {
         return withMessage(role,content, Collections.emptyList());
     }
 
+    /**
+     * Adds a message with image files. The files are read and base64-encoded in chunks while the request is sent, so
+     * they are not held in memory.
+     */
     public OllamaChatRequestBuilder withMessage(OllamaChatMessageRole role, String content, List<OllamaChatToolCalls> toolCalls,List<File> images) {
-        List<OllamaChatMessage> messages = this.request.getMessages();
-
-        List<byte[]> binaryImages = images.stream().map(file -> {
-            try {
-                return Files.readAllBytes(file.toPath());
-            } catch (IOException e) {
-                LOG.warn("File '{}' could not be accessed, will not add to message!", file.toPath(), e);
-                return new byte[0];
+        List<OllamaImageSource> imageSources = new ArrayList<>();
+        for (File file : images) {
+            if (Files.isReadable(file.toPath())) {
+                imageSources.add(OllamaImageSource.ofFile(file));
+            } else {
+                LOG.warn("File '{}' could not be accessed, will not add to message!", file.toPath());
             }
-        }).collect(Collectors.toList());
+        }
+        return withMessageAndImages(role, content, toolCalls, imageSources);
+    }
 
-        messages.add(new OllamaChatMessage(role, content,toolCalls, binaryImages));
+    /**
+     * Adds a message with images that are read from the given sources while the request is sent.
+     */
+    public OllamaChatRequestBuilder withMessageAndImages(OllamaChatMessageRole role, String content, List<OllamaChatToolCalls> toolCalls, List<OllamaImageSource> images) {
+        OllamaChatMessage message = new OllamaChatMessage(role, content, toolCalls, null);
+        message.setImageSources(images);
+        this.request.getMessages().add(message);
         return this;
     }
 
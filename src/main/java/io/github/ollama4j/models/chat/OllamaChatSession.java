@@ -0,0 +1,210 @@
+package io.github.ollama4j.models.chat;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
+import io.github.ollama4j.tokenizer.Tokenizers;
+import io.github.ollama4j.utils.Options;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Conversation with a model that keeps its own bounded chat history.
+ * <p>
+ * Every call appends the new message to the history, trims the history with the session's
+ * {@link OllamaChatTrimmingPolicy} and sends it via {@link OllamaAPI#chatStreaming(OllamaChatRequest, OllamaTokenHandler)};
+ * tool results and the answer of the model are appended afterwards. If the call fails, the history is left as it was
+ * before the call, including the messages trimming would have dropped. The session records the token counts the server
+ * reports for every response: the size of answers is known exactly from their {@code eval_count}, the size of all
+ * other messages is estimated with the session's token estimator. Calls of one session are serialized.
+ * <pre>{@code
+ * OllamaChatSession session = OllamaChatSession.builder()
+ *         .api(ollamaAPI)
+ *         .model("llama3")
+ *         .systemPrompt("You are a concise assistant.")
+ *         .trimmingPolicy(OllamaChatTrimmingPolicy.builder().maxTokens(3000).build())
+ *         .build();
+ * session.chat("What is the capital of France?");
+ * OllamaChatResult result = session.chat("And of Germany?");
+ * }</pre>
+ */
+@Getter
+public class OllamaChatSession {
+
+    private final OllamaAPI api;
+
+    private final String model;
+
+    private final OllamaChatTrimmingPolicy trimmingPolicy;
+
+    /**
+     * Options sent with every request, or null for the model's defaults.
+     */
+    private final Options options;
+
+    /**
+     * Estimates the number of tokens of messages whose size has not been reported by the server. Defaults to the
+     * tokenizer {@link Tokenizers#forModel(String)} returns for the model.
+     */
+    private final ToIntFunction<OllamaChatMessage> tokenEstimator;
+
+    /**
+     * Number of prompt tokens the server evaluated for the last response, which excludes tokens it could reuse
+     * from its cache.
+     */
+    private int lastPromptTokens;
+
+    /**
+     * Number of tokens of the last response.
+     */
+    private int lastCompletionTokens;
+
+    private long totalPromptTokens;
+
+    private long totalCompletionTokens;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final List<OllamaChatMessage> history = new ArrayList<>();
+
+    @Getter(lombok.AccessLevel.NONE)
+    private Map<OllamaChatMessage, Integer> reportedTokens = new IdentityHashMap<>();
+
+    @Builder
+    private OllamaChatSession(@NonNull OllamaAPI api, @NonNull String model, String systemPrompt, OllamaChatTrimmingPolicy trimmingPolicy,
+                              Options options, ToIntFunction<OllamaChatMessage> tokenEstimator) {
+        this.api = api;
+        this.model = model;
+        this.trimmingPolicy = trimmingPolicy != null ? trimmingPolicy : OllamaChatTrimmingPolicy.unbounded();
+        this.options = options;
+        this.tokenEstimator = tokenEstimator != null ? tokenEstimator : Tokenizers.forModel(model)::countMessageTokens;
+        if (systemPrompt != null) {
+            history.add(new OllamaChatMessage(OllamaChatMessageRole.SYSTEM, systemPrompt));
+        }
+    }
+
+    /**
+     * Sends a user message and waits for the complete answer.
+     *
+     * @param message the user message
+     * @return the result, whose chat history is the trimmed history of this session
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public OllamaChatResult chat(String message) throws OllamaBaseException, IOException, InterruptedException {
+        return chatStreaming(message, null);
+    }
+
+    /**
+     * Sends a user message and streams the answer to the given handler.
+     *
+     * @param message      the user message
+     * @param tokenHandler callback handler that receives every streamed response part, or null to not stream the response
+     * @return the result, whose chat history is the trimmed history of this session
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public synchronized OllamaChatResult chatStreaming(String message, OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        OllamaChatMessage userMessage = new OllamaChatMessage(OllamaChatMessageRole.USER, message);
+        history.add(userMessage);
+        try {
+            return send(tokenHandler);
+        } catch (OllamaBaseException | IOException | InterruptedException | RuntimeException e) {
+            // leave the history as it was, so the message can be sent again
+            if (!history.isEmpty() && history.get(history.size() - 1) == userMessage) {
+                history.remove(history.size() - 1);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a message to the history without sending it, e.g. a message with images or a result of a tool the
+     * application invoked itself. It is sent with the next call.
+     *
+     * @param message the message to append
+     */
+    public synchronized void addMessage(@NonNull OllamaChatMessage message) {
+        history.add(message);
+    }
+
+    /**
+     * @return a copy of the current history, oldest message first
+     */
+    public synchronized List<OllamaChatMessage> getHistory() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
+    /**
+     * Removes all messages except the system prompt.
+     */
+    public synchronized void clear() {
+        history.removeIf(message -> !OllamaChatMessageRole.SYSTEM.getRoleName().equals(message.getRole().getRoleName()));
+        retainReportedTokens();
+    }
+
+    /**
+     * @return the estimated number of tokens of the current history
+     */
+    public synchronized int estimateHistoryTokens() {
+        int tokens = 0;
+        for (OllamaChatMessage message : history) {
+            tokens += estimateTokens(message);
+        }
+        return tokens;
+    }
+
+    private int estimateTokens(OllamaChatMessage message) {
+        Integer reported = reportedTokens.get(message);
+        return reported != null ? reported : tokenEstimator.applyAsInt(message);
+    }
+
+    private OllamaChatResult send(OllamaTokenHandler tokenHandler) throws OllamaBaseException, IOException, InterruptedException {
+        // trim a copy, the history only changes once the request succeeded
+        List<OllamaChatMessage> messages = new ArrayList<>(history);
+        trimmingPolicy.trim(messages, this::estimateTokens);
+        OllamaChatRequest request = OllamaChatRequestBuilder.getInstance(model).withMessages(messages).build();
+        if (options != null) {
+            request.setOptions(options.getOptionsMap());
+        }
+        OllamaChatResult result = api.chatStreaming(request, tokenHandler);
+
+        OllamaChatResponseModel response = result.getResponseModel();
+        lastPromptTokens = response.getPromptEvalCount() != null ? response.getPromptEvalCount() : 0;
+        lastCompletionTokens = response.getEvalCount() != null ? response.getEvalCount() : 0;
+        totalPromptTokens += lastPromptTokens;
+        totalCompletionTokens += lastCompletionTokens;
+        // the request's history now holds the tool results and the answer as well
+        history.clear();
+        history.addAll(result.getChatHistory());
+        retainReportedTokens();
+        if (response.getEvalCount() != null && response.getMessage() != null) {
+            reportedTokens.put(response.getMessage(), response.getEvalCount());
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the reported token counts of messages that are no longer part of the history.
+     */
+    private void retainReportedTokens() {
+        Map<OllamaChatMessage, Integer> retained = new IdentityHashMap<>();
+        for (OllamaChatMessage message : history) {
+            Integer tokens = reportedTokens.get(message);
+            if (tokens != null) {
+                retained.put(message, tokens);
+            }
+        }
+        reportedTokens = retained;
+    }
+}
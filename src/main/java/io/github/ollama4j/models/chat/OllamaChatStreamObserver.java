@@ -1,30 +1,38 @@
 package io.github.ollama4j.models.chat;
 
+import io.github.ollama4j.models.generate.CumulativeStreamHandlerAdapter;
 import io.github.ollama4j.models.generate.OllamaStreamHandler;
-
-import java.util.ArrayList;
-import java.util.List;
+import io.github.ollama4j.models.generate.OllamaStreamToken;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
 
 public class OllamaChatStreamObserver {
 
-    private OllamaStreamHandler streamHandler;
-
-    private List<OllamaChatResponseModel> responseParts = new ArrayList<>();
-
-    private String message = "";
+    private final OllamaTokenHandler tokenHandler;
 
     public OllamaChatStreamObserver(OllamaStreamHandler streamHandler) {
-        this.streamHandler = streamHandler;
+        this(new CumulativeStreamHandlerAdapter(streamHandler));
+    }
+
+    public OllamaChatStreamObserver(OllamaTokenHandler tokenHandler) {
+        this.tokenHandler = tokenHandler;
     }
 
     public void notify(OllamaChatResponseModel currentResponsePart) {
-        responseParts.add(currentResponsePart);
         handleCurrentResponsePart(currentResponsePart);
     }
 
     protected void handleCurrentResponsePart(OllamaChatResponseModel currentResponsePart) {
-        message = message + currentResponsePart.getMessage().getContent();
-        streamHandler.accept(message);
+        tokenHandler.accept(OllamaStreamToken.builder()
+                .model(currentResponsePart.getModel())
+                .content(currentResponsePart.getMessage().getContent())
+                .done(currentResponsePart.isDone())
+                .doneReason(currentResponsePart.getDoneReason())
+                .promptEvalCount(currentResponsePart.getPromptEvalCount())
+                .evalCount(currentResponsePart.getEvalCount())
+                .promptEvalDuration(currentResponsePart.getPromptEvalDuration())
+                .evalDuration(currentResponsePart.getEvalDuration())
+                .totalDuration(currentResponsePart.getTotalDuration())
+                .build());
     }
 
 
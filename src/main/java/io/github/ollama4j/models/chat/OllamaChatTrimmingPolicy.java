@@ -0,0 +1,131 @@
+package io.github.ollama4j.models.chat;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Policy bounding the chat history an {@link OllamaChatSession} sends to the model.
+ * <p>
+ * The oldest messages are dropped first (a sliding window) until the history holds at most {@link #getMaxMessages()}
+ * messages and its estimated size is at most {@link #getMaxTokens()} tokens. The system prompt and, if enabled, tool
+ * results are never dropped, and neither is the newest message. An assistant message requesting tool calls and the
+ * tool results following it are dropped or kept together, so the model never sees a result without its call or a
+ * call without its results. Keeping the history below the model's context window ({@code num_ctx}) avoids that the
+ * server silently cuts off the start of the prompt.
+ */
+@Getter
+public class OllamaChatTrimmingPolicy {
+
+    /**
+     * Maximum number of messages of the history, or 0 for no limit.
+     */
+    private final int maxMessages;
+
+    /**
+     * Maximum estimated number of tokens of the history, or 0 for no limit. Leave room for the response and the
+     * model's prompt template when deriving it from {@code num_ctx}.
+     */
+    private final int maxTokens;
+
+    /**
+     * Whether system messages are kept.
+     */
+    private final boolean keepSystemPrompt;
+
+    /**
+     * Whether tool results, and the assistant messages requesting them, are kept, e.g. because the conversation keeps
+     * referring to the data they returned.
+     */
+    private final boolean pinToolResults;
+
+    @Builder
+    private OllamaChatTrimmingPolicy(Integer maxMessages, Integer maxTokens, Boolean keepSystemPrompt, Boolean pinToolResults) {
+        this.maxMessages = maxMessages != null ? maxMessages : 0;
+        this.maxTokens = maxTokens != null ? maxTokens : 0;
+        this.keepSystemPrompt = keepSystemPrompt != null ? keepSystemPrompt : true;
+        this.pinToolResults = pinToolResults != null ? pinToolResults : false;
+        if (this.maxMessages < 0 || this.maxTokens < 0) {
+            throw new IllegalArgumentException("maxMessages and maxTokens must not be negative.");
+        }
+    }
+
+    /**
+     * @return policy that does not drop any message
+     */
+    public static OllamaChatTrimmingPolicy unbounded() {
+        return OllamaChatTrimmingPolicy.builder().build();
+    }
+
+    /**
+     * Drops messages from the given history until it satisfies this policy or only messages that must be kept are
+     * left.
+     *
+     * @param history the history to trim in place, oldest message first
+     * @param tokens  estimates the number of tokens of a message
+     * @return the number of dropped messages
+     */
+    public int trim(List<OllamaChatMessage> history, ToIntFunction<OllamaChatMessage> tokens) {
+        long totalTokens = 0;
+        if (maxTokens > 0) {
+            for (OllamaChatMessage message : history) {
+                totalTokens += tokens.applyAsInt(message);
+            }
+        }
+        int dropped = 0;
+        int index = 0;
+        while (index < history.size() && exceedsLimits(history.size(), totalTokens)) {
+            int end = turnEnd(history, index);
+            // the newest message is the one that is about to be answered, so it is never dropped
+            if (end >= history.size()) {
+                break;
+            }
+            if (isPinned(history.get(index))) {
+                index = end;
+                continue;
+            }
+            for (int i = index; i < end; i++) {
+                OllamaChatMessage message = history.remove(index);
+                if (maxTokens > 0) {
+                    totalTokens -= tokens.applyAsInt(message);
+                }
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * @return the index after the messages that have to be dropped together with the message at the given index: the
+     * tool results following an assistant message that requested tool calls
+     */
+    private static int turnEnd(List<OllamaChatMessage> history, int index) {
+        int end = index + 1;
+        if (hasToolCalls(history.get(index))) {
+            while (end < history.size() && hasRole(history.get(end), OllamaChatMessageRole.TOOL)) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    private boolean exceedsLimits(int messages, long tokens) {
+        return (maxMessages > 0 && messages > maxMessages) || (maxTokens > 0 && tokens > maxTokens);
+    }
+
+    private boolean isPinned(OllamaChatMessage message) {
+        return (keepSystemPrompt && hasRole(message, OllamaChatMessageRole.SYSTEM))
+                || (pinToolResults && (hasRole(message, OllamaChatMessageRole.TOOL) || hasToolCalls(message)));
+    }
+
+    private static boolean hasToolCalls(OllamaChatMessage message) {
+        return message.getToolCalls() != null && !message.getToolCalls().isEmpty();
+    }
+
+    private static boolean hasRole(OllamaChatMessage message, OllamaChatMessageRole role) {
+        // deserialized messages have their own role instances, so roles are compared by name
+        return role.getRoleName().equals(message.getRole().getRoleName());
+    }
+}
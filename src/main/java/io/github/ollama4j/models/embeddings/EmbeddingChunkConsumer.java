@@ -0,0 +1,15 @@
+package io.github.ollama4j.models.embeddings;
+
+/**
+ * Receives the embeddings of one chunk of a batch embedding run, see {@link OllamaBatchEmbedder}.
+ */
+@FunctionalInterface
+public interface EmbeddingChunkConsumer {
+
+    /**
+     * @param offset     index of the chunk's first input in the list of all inputs
+     * @param embeddings the embeddings of the chunk's inputs, in input order; row {@code i} belongs to input
+     *                   {@code offset + i}
+     */
+    void accept(int offset, EmbeddingMatrix embeddings);
+}
@@ -0,0 +1,135 @@
+package io.github.ollama4j.models.embeddings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only on-disk tier of the {@link OllamaEmbeddingCache}, stored in memory-mapped segment files.
+ * <p>
+ * A segment starts with a magic number and is followed by records of the form {@code dimensions (int), key
+ * (32 bytes), vector (dimensions floats)}. The dimensions are written last, so a record torn by a crash reads as the
+ * zero-filled end of the segment. The index from keys to records is rebuilt by scanning the segments when opened.
+ */
+class EmbeddingDiskStore implements Closeable {
+
+    private static final int MAGIC = 0x4f454d31; // "OEM1"
+    private static final int HEADER_LENGTH = Integer.BYTES;
+    private static final int RECORD_HEADER_LENGTH = Integer.BYTES + OllamaEmbeddingCache.Key.LENGTH;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<OllamaEmbeddingCache.Key, Long> index = new HashMap<>();
+    private int writePosition;
+
+    EmbeddingDiskStore(Path directory, long segmentSize) throws IOException {
+        if (segmentSize <= HEADER_LENGTH + RECORD_HEADER_LENGTH || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().matches("segment-\\d{5}\\.bin")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            MappedByteBuffer segment = map(file, Files.size(file));
+            if (segment.capacity() < HEADER_LENGTH || segment.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an embedding cache segment.");
+            }
+            segments.add(segment);
+            writePosition = scan(segments.size() - 1, segment);
+        }
+    }
+
+    /**
+     * @return the position after the last complete record of the segment
+     */
+    private int scan(int segmentIndex, MappedByteBuffer segment) {
+        int position = HEADER_LENGTH;
+        while (position + RECORD_HEADER_LENGTH <= segment.capacity()) {
+            int dimensions = segment.getInt(position);
+            if (dimensions <= 0 || position + RECORD_HEADER_LENGTH + (long) dimensions * Float.BYTES > segment.capacity()) {
+                break;
+            }
+            byte[] hash = new byte[OllamaEmbeddingCache.Key.LENGTH];
+            segment.duplicate().position(position + Integer.BYTES).get(hash);
+            index.put(new OllamaEmbeddingCache.Key(hash), location(segmentIndex, position));
+            position += RECORD_HEADER_LENGTH + dimensions * Float.BYTES;
+        }
+        return position;
+    }
+
+    synchronized float[] get(OllamaEmbeddingCache.Key key) {
+        Long location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        int position = (int) (long) location;
+        float[] embedding = new float[segment.getInt(position)];
+        segment.duplicate().position(position + RECORD_HEADER_LENGTH).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    synchronized void put(OllamaEmbeddingCache.Key key, float[] embedding) throws IOException {
+        if (embedding.length == 0 || index.containsKey(key)) {
+            return;
+        }
+        long recordLength = RECORD_HEADER_LENGTH + (long) embedding.length * Float.BYTES;
+        if (segments.isEmpty() || writePosition + recordLength > segments.get(segments.size() - 1).capacity()) {
+            newSegment(Math.max(segmentSize, HEADER_LENGTH + recordLength));
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        segment.duplicate().position(writePosition + Integer.BYTES).put(key.hash);
+        segment.duplicate().position(writePosition + RECORD_HEADER_LENGTH).asFloatBuffer().put(embedding);
+        segment.putInt(writePosition, embedding.length);
+        index.put(key, location(segments.size() - 1, writePosition));
+        writePosition += (int) recordLength;
+    }
+
+    private void newSegment(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Embedding of " + size + " bytes does not fit into a segment.");
+        }
+        Path file = directory.resolve(String.format("segment-%05d.bin", segments.size()));
+        MappedByteBuffer segment = map(file, size);
+        segment.putInt(0, MAGIC);
+        segments.add(segment);
+        writePosition = HEADER_LENGTH;
+    }
+
+    synchronized void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping beyond the end of the file extends it with zeros; the mapping stays valid after closing the channel
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long location(int segmentIndex, int position) {
+        return (long) segmentIndex << 32 | position;
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.ollama4j.models.embeddings;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.ollama4j.utils.EmbeddingMatrixDeserializer;
+import lombok.Getter;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Batch of embedding vectors stored row by row in one contiguous {@code float[]}.
+ * <p>
+ * Compared to {@code List<List<Double>>}, a 1024-dimensional vector takes 4 KB instead of about 24 KB of boxed
+ * doubles, and a batch is a single allocation. Ollama computes embeddings in 32-bit floats, so no precision is lost.
+ */
+@JsonDeserialize(using = EmbeddingMatrixDeserializer.class)
+public class EmbeddingMatrix {
+
+    /**
+     * Number of embedding vectors, one per input.
+     */
+    @Getter
+    private final int rows;
+
+    /**
+     * Number of dimensions of each embedding vector.
+     */
+    @Getter
+    private final int dimensions;
+
+    private final float[] data;
+
+    /**
+     * @param data       the vectors, row by row; the array is used as is, not copied
+     * @param rows       number of vectors
+     * @param dimensions number of dimensions of each vector
+     */
+    public EmbeddingMatrix(float[] data, int rows, int dimensions) {
+        if (rows < 0 || dimensions < 0 || (long) rows * dimensions > data.length) {
+            throw new IllegalArgumentException("A " + rows + "x" + dimensions + " matrix does not fit into " + data.length + " floats.");
+        }
+        this.data = data;
+        this.rows = rows;
+        this.dimensions = dimensions;
+    }
+
+    public float get(int row, int dimension) {
+        return data[offset(row) + checkDimension(dimension)];
+    }
+
+    /**
+     * @return a copy of the given row
+     */
+    public float[] row(int row) {
+        int offset = offset(row);
+        return Arrays.copyOfRange(data, offset, offset + dimensions);
+    }
+
+    /**
+     * @return a read-only view of the given row, without copying it
+     */
+    public FloatBuffer rowBuffer(int row) {
+        return FloatBuffer.wrap(data, offset(row), dimensions).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the backing array holding all rows back to back, e.g. to copy them into an index in bulk. Row {@code i}
+     * starts at {@code i * getDimensions()}. Changes to the array are visible in this matrix.
+     *
+     * @return the backing array
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    private int offset(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rows + " rows");
+        }
+        return row * dimensions;
+    }
+
+    private int checkDimension(int dimension) {
+        if (dimension < 0 || dimension >= dimensions) {
+            throw new IndexOutOfBoundsException("Dimension " + dimension + " out of bounds for " + dimensions + " dimensions");
+        }
+        return dimension;
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingMatrix{rows=" + rows + ", dimensions=" + dimensions + "}";
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.ollama4j.models.embeddings;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Singular;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeds large lists of inputs by splitting them into chunks that are sent as separate '/api/embed' requests.
+ * <p>
+ * At most {@link #getMaxConcurrentChunks()} chunks of a run are in flight at the same time. If several API instances
+ * (hosts) are configured, every chunk goes to the host with the fewest chunks of this embedder in flight. Chunk
+ * responses are parsed into {@link EmbeddingMatrix}es and handed to a consumer as soon as each chunk completes, so the
+ * embeddings of the whole input never have to be held in memory at once. No thread is blocked while waiting for the
+ * servers.
+ * <pre>{@code
+ * OllamaBatchEmbedder embedder = OllamaBatchEmbedder.builder().api(ollamaAPI).chunkSize(128).maxConcurrentChunks(4).build();
+ * embedder.embed(new OllamaEmbedRequestModel("all-minilm", documents), (offset, embeddings) -> store(offset, embeddings)).join();
+ * }</pre>
+ */
+public class OllamaBatchEmbedder {
+
+    @Getter
+    private final List<OllamaAPI> apis;
+
+    /**
+     * Maximum number of inputs sent in one request.
+     */
+    @Getter
+    private final int chunkSize;
+
+    /**
+     * Maximum number of chunk requests of one run in flight at the same time, over all hosts.
+     */
+    @Getter
+    private final int maxConcurrentChunks;
+
+    /**
+     * Executor to parse the responses and to call the consumers on, or null to use the hosts' HTTP transport executors.
+     */
+    @Getter
+    private final Executor executor;
+
+    private final List<Host> hosts = new ArrayList<>();
+
+    @Builder
+    private OllamaBatchEmbedder(@NonNull @Singular("api") List<OllamaAPI> apis, Integer chunkSize, Integer maxConcurrentChunks, Executor executor) {
+        if (apis.isEmpty()) {
+            throw new IllegalArgumentException("At least one OllamaAPI instance is required.");
+        }
+        this.apis = apis;
+        this.chunkSize = chunkSize != null ? chunkSize : 64;
+        this.maxConcurrentChunks = maxConcurrentChunks != null ? maxConcurrentChunks : 4;
+        if (this.chunkSize <= 0 || this.maxConcurrentChunks <= 0) {
+            throw new IllegalArgumentException("chunkSize and maxConcurrentChunks must be positive.");
+        }
+        this.executor = executor;
+        for (OllamaAPI api : apis) {
+            hosts.add(new Host(api));
+        }
+    }
+
+    /**
+     * Embeds all inputs of the given request, handing the embeddings of each chunk to the consumer as it completes.
+     * Chunks may complete out of order; the offset passed to the consumer tells which inputs a chunk's rows belong to.
+     * The consumer is never called concurrently.
+     *
+     * @param modelRequest request with all inputs; its model, options, keep alive and truncate settings are used for
+     *                     every chunk
+     * @param consumer     consumer of the chunk embeddings
+     * @return future completing once all chunks have been consumed, or exceptionally with the first failure, after
+     * which no further chunks are sent
+     */
+    public CompletableFuture<Void> embed(OllamaEmbedRequestModel modelRequest, EmbeddingChunkConsumer consumer) {
+        return new Run(modelRequest, consumer).start();
+    }
+
+    /**
+     * Embeds all inputs of the given request and collects the embeddings into one matrix, in input order.
+     *
+     * @param modelRequest request with all inputs
+     * @return future completing with the embeddings, one row per input
+     */
+    public CompletableFuture<EmbeddingMatrix> embedAll(OllamaEmbedRequestModel modelRequest) {
+        int inputCount = modelRequest.getInput().size();
+        float[][] data = new float[1][];
+        int[] dimensions = new int[1];
+        return embed(modelRequest, (offset, embeddings) -> {
+            if (data[0] == null) {
+                dimensions[0] = embeddings.getDimensions();
+                data[0] = new float[inputCount * dimensions[0]];
+            } else if (embeddings.getDimensions() != dimensions[0]) {
+                throw new IllegalStateException("Chunks returned " + dimensions[0] + " and " + embeddings.getDimensions() + " dimensions.");
+            }
+            System.arraycopy(embeddings.getData(), 0, data[0], offset * dimensions[0], embeddings.getRows() * dimensions[0]);
+        }).thenApply(ignored -> new EmbeddingMatrix(data[0] != null ? data[0] : new float[0], data[0] != null ? inputCount : 0, dimensions[0]));
+    }
+
+    private Host leastLoadedHost() {
+        Host best = hosts.get(0);
+        for (Host host : hosts) {
+            if (host.inFlight.get() < best.inFlight.get()) {
+                best = host;
+            }
+        }
+        return best;
+    }
+
+    private static OllamaEmbedRequestModel chunkRequest(OllamaEmbedRequestModel modelRequest, List<String> input) {
+        OllamaEmbedRequestModel chunk = new OllamaEmbedRequestModel(modelRequest.getModel(), input);
+        chunk.setOptions(modelRequest.getOptions());
+        chunk.setKeepAlive(modelRequest.getKeepAlive());
+        chunk.setTruncate(modelRequest.getTruncate());
+        return chunk;
+    }
+
+    private static final class Host {
+        private final OllamaAPI api;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Host(OllamaAPI api) {
+            this.api = api;
+        }
+    }
+
+    /**
+     * State of one {@link #embed(OllamaEmbedRequestModel, EmbeddingChunkConsumer)} call.
+     */
+    private final class Run {
+        private final OllamaEmbedRequestModel modelRequest;
+        private final EmbeddingChunkConsumer consumer;
+        private final int chunkCount;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger remainingChunks;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Run(OllamaEmbedRequestModel modelRequest, EmbeddingChunkConsumer consumer) {
+            this.modelRequest = modelRequest;
+            this.consumer = consumer;
+            this.chunkCount = (modelRequest.getInput().size() + chunkSize - 1) / chunkSize;
+            this.remainingChunks = new AtomicInteger(chunkCount);
+        }
+
+        private CompletableFuture<Void> start() {
+            if (chunkCount == 0) {
+                result.complete(null);
+            }
+            for (int i = 0; i < Math.min(maxConcurrentChunks, chunkCount); i++) {
+                sendNextChunk();
+            }
+            return result;
+        }
+
+        private void sendNextChunk() {
+            if (result.isDone()) {
+                return;
+            }
+            int chunk = nextChunk.getAndIncrement();
+            if (chunk >= chunkCount) {
+                return;
+            }
+            int from = chunk * chunkSize;
+            int to = Math.min(from + chunkSize, modelRequest.getInput().size());
+            Host host = leastLoadedHost();
+            host.inFlight.incrementAndGet();
+            host.api.embedAsFloatsAsync(chunkRequest(modelRequest, modelRequest.getInput().subList(from, to)), executor)
+                    .whenComplete((response, throwable) -> {
+                        host.inFlight.decrementAndGet();
+                        if (throwable != null) {
+                            result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                            return;
+                        }
+                        EmbeddingMatrix embeddings = response.getEmbeddings();
+                        if (embeddings == null || embeddings.getRows() != to - from) {
+                            result.completeExceptionally(new OllamaBaseException("Expected " + (to - from) + " embeddings for inputs "
+                                    + from + " to " + (to - 1) + ", got " + (embeddings == null ? 0 : embeddings.getRows()) + "."));
+                            return;
+                        }
+                        try {
+                            synchronized (this) {
+                                if (result.isDone()) {
+                                    return;
+                                }
+                                consumer.accept(from, embeddings);
+                            }
+                        } catch (RuntimeException e) {
+                            result.completeExceptionally(e);
+                            return;
+                        }
+                        if (remainingChunks.decrementAndGet() == 0) {
+                            result.complete(null);
+                        } else {
+                            sendNextChunk();
+                        }
+                    });
+        }
+    }
+}
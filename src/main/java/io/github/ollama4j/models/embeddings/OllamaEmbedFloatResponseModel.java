@@ -0,0 +1,26 @@
+package io.github.ollama4j.models.embeddings;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Response of the '/api/embed' endpoint with the embeddings held in a primitive {@link EmbeddingMatrix}.
+ */
+@SuppressWarnings("unused")
+@Data
+public class OllamaEmbedFloatResponseModel {
+    @JsonProperty("model")
+    private String model;
+
+    @JsonProperty("embeddings")
+    private EmbeddingMatrix embeddings;
+
+    @JsonProperty("total_duration")
+    private long totalDuration;
+
+    @JsonProperty("load_duration")
+    private long loadDuration;
+
+    @JsonProperty("prompt_eval_count")
+    private int promptEvalCount;
+}
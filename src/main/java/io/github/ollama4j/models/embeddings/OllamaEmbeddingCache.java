@@ -0,0 +1,305 @@
+package io.github.ollama4j.models.embeddings;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.utils.Utils;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache in front of the '/api/embed' endpoint that only sends the inputs whose embeddings are not cached yet.
+ * <p>
+ * Embeddings are keyed by the SHA-256 hash of the model, the truncate flag, the options and the input text. They are
+ * kept in a bounded in-memory LRU tier and, if a directory is configured, in an unbounded on-disk tier of memory-mapped
+ * segment files that survives process restarts. Embeddings evicted from memory are still found on disk.
+ * <pre>{@code
+ * try (OllamaEmbeddingCache cache = OllamaEmbeddingCache.builder().api(ollamaAPI).diskDirectory(Paths.get("cache")).build()) {
+ *     EmbeddingMatrix embeddings = cache.embed(new OllamaEmbedRequestModel("all-minilm", chunks));
+ * }
+ * }</pre>
+ */
+public class OllamaEmbeddingCache implements AutoCloseable {
+
+    private final OllamaAPI api;
+    private final int maxMemoryEntries;
+    private final Executor executor;
+    private final Map<Key, float[]> memory;
+    private final EmbeddingDiskStore disk;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param api              API instance to send cache misses to
+     * @param maxMemoryEntries maximum number of embeddings held in memory, 10000 if not set
+     * @param diskDirectory    directory of the on-disk tier, or null to only cache in memory
+     * @param segmentSize      size in bytes of the memory-mapped segment files of the on-disk tier, 64 MB if not set
+     * @param executor         executor to parse responses on in {@link #embedAsync(OllamaEmbedRequestModel)}, or null
+     *                         to use the API instance's HTTP transport executor
+     * @throws UncheckedIOException if the on-disk tier cannot be opened
+     */
+    @Builder
+    private OllamaEmbeddingCache(@NonNull OllamaAPI api, Integer maxMemoryEntries, Path diskDirectory, Long segmentSize, Executor executor) {
+        this.api = api;
+        this.maxMemoryEntries = maxMemoryEntries != null ? maxMemoryEntries : 10_000;
+        this.executor = executor;
+        this.memory = new LinkedHashMap<Key, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                return size() > OllamaEmbeddingCache.this.maxMemoryEntries;
+            }
+        };
+        try {
+            this.disk = diskDirectory != null ? new EmbeddingDiskStore(diskDirectory, segmentSize != null ? segmentSize : 64L << 20) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the embedding cache in " + diskDirectory, e);
+        }
+    }
+
+    /**
+     * Returns the embeddings of all inputs of the request, sending only the inputs missing from the cache.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @return embeddings, one row per input
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public EmbeddingMatrix embed(OllamaEmbedRequestModel modelRequest) throws IOException, InterruptedException, OllamaBaseException {
+        Lookup lookup = lookup(modelRequest);
+        if (lookup.missingInputs.isEmpty()) {
+            return lookup.complete(null);
+        }
+        return lookup.complete(api.embedAsFloats(lookup.missesRequest()).getEmbeddings());
+    }
+
+    /**
+     * Asynchronous variant of {@link #embed(OllamaEmbedRequestModel)}.
+     *
+     * @param modelRequest request for '/api/embed' endpoint
+     * @return future completing with the embeddings, one row per input
+     */
+    public CompletableFuture<EmbeddingMatrix> embedAsync(OllamaEmbedRequestModel modelRequest) {
+        Lookup lookup;
+        try {
+            lookup = lookup(modelRequest);
+            if (lookup.missingInputs.isEmpty()) {
+                return CompletableFuture.completedFuture(lookup.complete(null));
+            }
+        } catch (IOException | OllamaBaseException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return api.embedAsFloatsAsync(lookup.missesRequest(), executor).thenApply(response -> {
+            try {
+                return lookup.complete(response.getEmbeddings());
+            } catch (IOException | OllamaBaseException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * @return number of inputs found in the in-memory tier
+     */
+    public long getMemoryHitCount() {
+        return memoryHits.sum();
+    }
+
+    /**
+     * @return number of inputs found in the on-disk tier, but not in memory
+     */
+    public long getDiskHitCount() {
+        return diskHits.sum();
+    }
+
+    /**
+     * @return number of inputs found in the cache
+     */
+    public long getHitCount() {
+        return memoryHits.sum() + diskHits.sum();
+    }
+
+    /**
+     * @return number of inputs sent to the server
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Writes the on-disk tier to disk. Embeddings added afterward are only guaranteed to survive a crash after the next
+     * flush or close.
+     */
+    public void flush() {
+        if (disk != null) {
+            disk.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    private Lookup lookup(OllamaEmbedRequestModel modelRequest) throws IOException, OllamaBaseException {
+        MessageDigest requestDigest = requestDigest(modelRequest);
+        List<String> inputs = modelRequest.getInput();
+        Lookup lookup = new Lookup(modelRequest);
+        for (int i = 0; i < inputs.size(); i++) {
+            Key key = key(requestDigest, inputs.get(i));
+            lookup.keys[i] = key;
+            float[] embedding;
+            synchronized (memory) {
+                embedding = memory.get(key);
+            }
+            if (embedding != null) {
+                memoryHits.increment();
+            } else if (disk != null && (embedding = disk.get(key)) != null) {
+                diskHits.increment();
+                synchronized (memory) {
+                    memory.put(key, embedding);
+                }
+            } else {
+                misses.increment();
+                lookup.missingInputs.putIfAbsent(key, inputs.get(i));
+            }
+            lookup.embeddings[i] = embedding;
+        }
+        return lookup;
+    }
+
+    private static MessageDigest requestDigest(OllamaEmbedRequestModel modelRequest) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        digest.update(modelRequest.getModel().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update((byte) (Boolean.FALSE.equals(modelRequest.getTruncate()) ? 0 : 1));
+        if (modelRequest.getOptions() != null) {
+            digest.update(Utils.getObjectMapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(modelRequest.getOptions()));
+        }
+        digest.update((byte) 0);
+        return digest;
+    }
+
+    private static Key key(MessageDigest requestDigest, String input) {
+        try {
+            MessageDigest digest = (MessageDigest) requestDigest.clone();
+            return new Key(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digests cannot be cloned.", e);
+        }
+    }
+
+    /**
+     * SHA-256 hash identifying an embedding.
+     */
+    static final class Key {
+        static final int LENGTH = 32;
+
+        final byte[] hash;
+        private final int hashCode;
+
+        Key(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Cached embeddings of one request, and the inputs that have to be sent.
+     */
+    private final class Lookup {
+        private final OllamaEmbedRequestModel modelRequest;
+        private final Key[] keys;
+        private final float[][] embeddings;
+        private final Map<Key, String> missingInputs = new LinkedHashMap<>();
+
+        private Lookup(OllamaEmbedRequestModel modelRequest) {
+            this.modelRequest = modelRequest;
+            this.keys = new Key[modelRequest.getInput().size()];
+            this.embeddings = new float[keys.length][];
+        }
+
+        private OllamaEmbedRequestModel missesRequest() {
+            OllamaEmbedRequestModel request = new OllamaEmbedRequestModel(modelRequest.getModel(), new ArrayList<>(missingInputs.values()));
+            request.setOptions(modelRequest.getOptions());
+            request.setKeepAlive(modelRequest.getKeepAlive());
+            request.setTruncate(modelRequest.getTruncate());
+            return request;
+        }
+
+        /**
+         * Caches the embeddings of the missing inputs and assembles the embeddings of all inputs.
+         */
+        private EmbeddingMatrix complete(EmbeddingMatrix missingEmbeddings) throws IOException, OllamaBaseException {
+            if (!missingInputs.isEmpty()) {
+                if (missingEmbeddings == null || missingEmbeddings.getRows() != missingInputs.size()) {
+                    throw new OllamaBaseException("Expected " + missingInputs.size() + " embeddings, got "
+                            + (missingEmbeddings == null ? 0 : missingEmbeddings.getRows()) + ".");
+                }
+                Map<Key, float[]> fetched = new LinkedHashMap<>();
+                int row = 0;
+                for (Key key : missingInputs.keySet()) {
+                    float[] embedding = missingEmbeddings.row(row++);
+                    fetched.put(key, embedding);
+                    if (disk != null) {
+                        disk.put(key, embedding);
+                    }
+                }
+                synchronized (memory) {
+                    memory.putAll(fetched);
+                }
+                for (int i = 0; i < keys.length; i++) {
+                    if (embeddings[i] == null) {
+                        embeddings[i] = fetched.get(keys[i]);
+                    }
+                }
+            }
+            int dimensions = embeddings.length > 0 ? embeddings[0].length : 0;
+            float[] data = new float[embeddings.length * dimensions];
+            for (int i = 0; i < embeddings.length; i++) {
+                if (embeddings[i].length != dimensions) {
+                    throw new OllamaBaseException("Embeddings of model " + modelRequest.getModel() + " have "
+                            + dimensions + " and " + embeddings[i].length + " dimensions.");
+                }
+                System.arraycopy(embeddings[i], 0, data, i * dimensions, dimensions);
+            }
+            return new EmbeddingMatrix(data, embeddings.length, dimensions);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.ollama4j.models.embeddings;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent single-input embedding calls for the same model into batched '/api/embed' requests.
+ * <p>
+ * A batch is sent once it holds {@link #getMaxBatchSize()} inputs or {@link #getMaxWait()} after its first input
+ * arrived, whichever comes first. Every caller gets its own vector back. This trades a little latency for far fewer
+ * requests when many threads embed one text each, e.g. queries of concurrent user requests.
+ * <pre>{@code
+ * OllamaEmbeddingCoalescer coalescer = OllamaEmbeddingCoalescer.builder().api(ollamaAPI).build();
+ * float[] embedding = coalescer.embed("all-minilm", query);
+ * }</pre>
+ */
+@Getter
+public class OllamaEmbeddingCoalescer {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final OllamaAPI api;
+
+    /**
+     * Maximum number of inputs sent in one request.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Maximum time an input waits for further inputs before its batch is sent.
+     */
+    private final Duration maxWait;
+
+    /**
+     * Executor to parse the responses and to complete the callers' futures on, or null to use the API instance's
+     * HTTP transport executor.
+     */
+    private final Executor executor;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<String, Batch> pendingBatches = new HashMap<>();
+
+    @Builder
+    private OllamaEmbeddingCoalescer(@NonNull OllamaAPI api, Integer maxBatchSize, Duration maxWait, Executor executor) {
+        this.api = api;
+        this.maxBatchSize = maxBatchSize != null ? maxBatchSize : 32;
+        this.maxWait = maxWait != null ? maxWait : Duration.ofMillis(2);
+        if (this.maxBatchSize <= 0 || this.maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxBatchSize must be positive and maxWait must not be negative.");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Embeds a single input, batched together with concurrent calls for the same model.
+     *
+     * @param model name of model to generate the embedding from
+     * @param input text to generate the embedding for
+     * @return future completing with the embedding, or exceptionally if the batch request fails
+     */
+    public CompletableFuture<float[]> embedAsync(@NonNull String model, @NonNull String input) {
+        CompletableFuture<float[]> embedding = new CompletableFuture<>();
+        Batch batchToSend = null;
+        synchronized (pendingBatches) {
+            Batch batch = pendingBatches.get(model);
+            if (batch == null) {
+                batch = new Batch(model);
+                pendingBatches.put(model, batch);
+                if (maxBatchSize > 1) {
+                    Batch scheduled = batch;
+                    batch.timer = SCHEDULER.schedule(() -> flush(scheduled), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            batch.inputs.add(input);
+            batch.embeddings.add(embedding);
+            if (batch.inputs.size() >= maxBatchSize) {
+                pendingBatches.remove(model);
+                batchToSend = batch;
+            }
+        }
+        if (batchToSend != null) {
+            if (batchToSend.timer != null) {
+                batchToSend.timer.cancel(false);
+            }
+            send(batchToSend);
+        }
+        return embedding;
+    }
+
+    /**
+     * Blocking variant of {@link #embedAsync(String, String)}.
+     *
+     * @param model name of model to generate the embedding from
+     * @param input text to generate the embedding for
+     * @return the embedding
+     * @throws OllamaBaseException  if the response indicates an error status
+     * @throws IOException          if an I/O error occurs during the HTTP request
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public float[] embed(String model, String input) throws IOException, InterruptedException, OllamaBaseException {
+        try {
+            return embedAsync(model, input).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OllamaBaseException) {
+                throw (OllamaBaseException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (pendingBatches) {
+            if (pendingBatches.get(batch.model) != batch) {
+                // already sent because it was full
+                return;
+            }
+            pendingBatches.remove(batch.model);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        api.embedAsFloatsAsync(new OllamaEmbedRequestModel(batch.model, batch.inputs), executor).whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                batch.embeddings.forEach(embedding -> embedding.completeExceptionally(cause));
+                return;
+            }
+            EmbeddingMatrix embeddings = response.getEmbeddings();
+            if (embeddings == null || embeddings.getRows() != batch.inputs.size()) {
+                OllamaBaseException exception = new OllamaBaseException("Expected " + batch.inputs.size() + " embeddings, got "
+                        + (embeddings == null ? 0 : embeddings.getRows()) + ".");
+                batch.embeddings.forEach(embedding -> embedding.completeExceptionally(exception));
+                return;
+            }
+            for (int i = 0; i < batch.embeddings.size(); i++) {
+                batch.embeddings.get(i).complete(embeddings.row(i));
+            }
+        });
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ollama4j-embed-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Inputs collected for one request. Only modified while it is pending, i.e. while holding the pending batches lock.
+     */
+    private static final class Batch {
+        private final String model;
+        private final List<String> inputs = new ArrayList<>();
+        private final List<CompletableFuture<float[]>> embeddings = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+
+        private Batch(String model) {
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.ollama4j.models.generate;
+
+/**
+ * Adapts an {@link OllamaStreamHandler}, which expects the accumulated response on every call, to the delta based
+ * {@link OllamaTokenHandler}. The accumulated response is reset after a part flagged as done, so that the adapter can
+ * be reused for consecutive requests.
+ */
+public class CumulativeStreamHandlerAdapter implements OllamaTokenHandler {
+
+    private final OllamaStreamHandler streamHandler;
+
+    private final StringBuilder message = new StringBuilder();
+
+    public CumulativeStreamHandlerAdapter(OllamaStreamHandler streamHandler) {
+        this.streamHandler = streamHandler;
+    }
+
+    @Override
+    public void accept(OllamaStreamToken token) {
+        if (token.getContent() != null) {
+            message.append(token.getContent());
+        }
+        streamHandler.accept(message.toString());
+        if (token.isDone()) {
+            message.setLength(0);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package io.github.ollama4j.models.generate;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.github.ollama4j.models.request.OllamaCommonRequest;
+import io.github.ollama4j.models.request.OllamaImageSource;
+import io.github.ollama4j.utils.FileToBase64Serializer;
 import io.github.ollama4j.utils.OllamaRequestBody;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.Getter;
@@ -15,6 +21,11 @@ public class OllamaGenerateRequest extends OllamaCommonRequest implements Ollama
 
   private String prompt;
   private List<String> images;
+  /**
+   * Images that are read and base64-encoded while the request is written. They are sent after the {@link #images}.
+   */
+  @JsonIgnore
+  private List<OllamaImageSource> imageSources;
 
   private String system;
   private String context;
@@ -34,6 +45,20 @@ public class OllamaGenerateRequest extends OllamaCommonRequest implements Ollama
     this.images = images;
   }
 
+  @JsonProperty("images")
+  @JsonSerialize(using = FileToBase64Serializer.class)
+  private List<Object> getSerializedImages() {
+    if (imageSources == null || imageSources.isEmpty()) {
+      return images == null ? null : new ArrayList<>(images);
+    }
+    List<Object> serializedImages = new ArrayList<>();
+    if (images != null) {
+      serializedImages.addAll(images);
+    }
+    serializedImages.addAll(imageSources);
+    return serializedImages;
+  }
+
     @Override
   public boolean equals(Object o) {
     if (!(o instanceof OllamaGenerateRequest)) {
@@ -1,28 +1,32 @@
 package io.github.ollama4j.models.generate;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class OllamaGenerateStreamObserver {
 
-    private OllamaStreamHandler streamHandler;
-
-    private List<OllamaGenerateResponseModel> responseParts = new ArrayList<>();
-
-    private String message = "";
+    private final OllamaTokenHandler tokenHandler;
 
     public OllamaGenerateStreamObserver(OllamaStreamHandler streamHandler) {
-        this.streamHandler = streamHandler;
+        this(new CumulativeStreamHandlerAdapter(streamHandler));
+    }
+
+    public OllamaGenerateStreamObserver(OllamaTokenHandler tokenHandler) {
+        this.tokenHandler = tokenHandler;
     }
 
     public void notify(OllamaGenerateResponseModel currentResponsePart) {
-        responseParts.add(currentResponsePart);
         handleCurrentResponsePart(currentResponsePart);
     }
 
     protected void handleCurrentResponsePart(OllamaGenerateResponseModel currentResponsePart) {
-        message = message + currentResponsePart.getResponse();
-        streamHandler.accept(message);
+        tokenHandler.accept(OllamaStreamToken.builder()
+                .model(currentResponsePart.getModel())
+                .content(currentResponsePart.getResponse())
+                .done(currentResponsePart.isDone())
+                .promptEvalCount(currentResponsePart.getPromptEvalCount())
+                .evalCount(currentResponsePart.getEvalCount())
+                .promptEvalDuration(currentResponsePart.getPromptEvalDuration())
+                .evalDuration(currentResponsePart.getEvalDuration())
+                .totalDuration(currentResponsePart.getTotalDuration())
+                .build());
     }
 
 
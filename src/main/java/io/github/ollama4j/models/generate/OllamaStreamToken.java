@@ -0,0 +1,22 @@
+package io.github.ollama4j.models.generate;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A single part of a streamed chat or generate response as delivered to an {@link OllamaTokenHandler}. Unlike the
+ * string passed to an {@link OllamaStreamHandler}, {@link #getContent()} only holds the newly generated text.
+ */
+@Data
+@Builder
+public class OllamaStreamToken {
+    private String model;
+    private String content;
+    private boolean done;
+    private String doneReason;
+    private Integer promptEvalCount;
+    private Integer evalCount;
+    private Long promptEvalDuration;
+    private Long evalDuration;
+    private Long totalDuration;
+}
@@ -0,0 +1,10 @@
+package io.github.ollama4j.models.generate;
+
+/**
+ * Handler for streamed responses that receives every response part as a delta, together with its metadata. This
+ * avoids re-building the whole accumulated response for every part, as {@link OllamaStreamHandler} does.
+ */
+@FunctionalInterface
+public interface OllamaTokenHandler {
+    void accept(OllamaStreamToken token);
+}
@@ -0,0 +1,78 @@
+package io.github.ollama4j.models.request;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Fair permit pool that can be acquired both blocking and asynchronously, so that synchronous and
+ * {@link CompletableFuture} based calls share the same connection limit without parking a thread per waiting
+ * asynchronous request.
+ */
+class ConnectionLimiter {
+
+    private final int maxPermits;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int permitsInUse;
+
+    ConnectionLimiter(int maxPermits) {
+        this.maxPermits = maxPermits;
+    }
+
+    /**
+     * Acquires a permit asynchronously.
+     *
+     * @return a future that completes once a permit has been handed to the caller
+     */
+    CompletableFuture<Void> acquireAsync() {
+        synchronized (this) {
+            if (permitsInUse < maxPermits) {
+                permitsInUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Acquires a permit, blocking until one is available.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting; no permit is held in that case
+     */
+    void acquire() throws InterruptedException {
+        CompletableFuture<Void> waiter = acquireAsync();
+        try {
+            waiter.get();
+        } catch (InterruptedException e) {
+            boolean stillWaiting;
+            synchronized (this) {
+                stillWaiting = waiters.remove(waiter);
+            }
+            if (!stillWaiting) {
+                // the permit was handed over concurrently, give it back
+                release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Releases a permit, handing it directly to the longest waiting caller if there is one.
+     */
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                permitsInUse--;
+                return;
+            }
+        }
+        next.complete(null);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.ollama4j.models.request;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaResponseException;
+import io.github.ollama4j.models.response.OllamaErrorResponse;
+import io.github.ollama4j.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collects the body of a response with an error status. Ollama answers with one or more {@code {"error": "..."}}
+ * objects, but a proxy or load balancer in front of it may answer with an HTML or plain text page, which is then used
+ * as the error message as is.
+ */
+class ErrorResponseBody {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OllamaAPI.class);
+
+    /**
+     * Number of bytes of an error body that are kept; the rest of a longer body is dropped.
+     */
+    static final int MAX_LENGTH = 64 * 1024;
+
+    private final int statusCode;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    ErrorResponseBody(int statusCode) {
+        this.statusCode = statusCode;
+        if (statusCode == 401) {
+            LOG.warn("Status code: 401 (Unauthorized)");
+        } else if (statusCode == 404) {
+            LOG.warn("Status code: 404 (Not Found)");
+        } else if (statusCode == 400) {
+            LOG.warn("Status code: 400 (Bad Request)");
+        }
+    }
+
+    /**
+     * @param chunk the next bytes of the body, which are consumed
+     * @return false if the body has reached {@link #MAX_LENGTH} bytes, so that further chunks are dropped
+     */
+    boolean append(ByteBuffer chunk) {
+        int length = Math.min(chunk.remaining(), MAX_LENGTH - bytes.size());
+        byte[] part = new byte[length];
+        chunk.get(part);
+        bytes.write(part, 0, length);
+        chunk.position(chunk.limit());
+        return bytes.size() < MAX_LENGTH;
+    }
+
+    /**
+     * Reads the body from a stream, up to {@link #MAX_LENGTH} bytes.
+     *
+     * @param in the body, which is not closed
+     * @throws IOException if the body cannot be read
+     */
+    void append(InputStream in) throws IOException {
+        bytes.write(in.readNBytes(MAX_LENGTH - bytes.size()));
+    }
+
+    /**
+     * @return the exception describing the error response
+     */
+    OllamaResponseException toException() {
+        LOG.error("Status code " + statusCode);
+        return new OllamaResponseException(statusCode, statusCode == 401 ? "Unauthorized" : message());
+    }
+
+    private String message() {
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        StringBuilder errors = new StringBuilder();
+        try (MappingIterator<OllamaErrorResponse> responses = Utils.getObjectMapper().readerFor(OllamaErrorResponse.class).readValues(text)) {
+            while (responses.hasNextValue()) {
+                OllamaErrorResponse response = responses.nextValue();
+                if (response == null || response.getError() == null) {
+                    return text.strip();
+                }
+                errors.append(response.getError());
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Ollama's JSON, e.g. the error page of a proxy
+            return text.strip();
+        }
+        return errors.toString();
+    }
+}
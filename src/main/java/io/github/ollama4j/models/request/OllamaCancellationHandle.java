@@ -0,0 +1,198 @@
+package io.github.ollama4j.models.request;
+
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.exceptions.OllamaCancelledException.Reason;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle to cancel an in-flight chat or generate request and to bound it by deadlines.
+ * <p>
+ * Set the handle on a request via {@link OllamaCommonRequest#setCancellationHandle(OllamaCancellationHandle)}.
+ * Cancelling it closes the response stream, which frees the connection and makes the Ollama server stop generating
+ * right away; the call then fails with an {@link OllamaCancelledException}. The deadlines start when the first
+ * request using the handle is sent and span all requests of one call, e.g. the follow-up requests after tool calls.
+ * A handle is meant for a single call: once cancelled, it stays cancelled.
+ */
+public class OllamaCancellationHandle {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final Duration firstTokenTimeout;
+    private final Duration totalTimeout;
+    private final List<Runnable> cancelActions = new ArrayList<>();
+
+    private volatile Reason reason;
+    private volatile boolean firstTokenReceived;
+    private long startNanos;
+    private ScheduledFuture<?> firstTokenTimer;
+    private ScheduledFuture<?> totalTimer;
+
+    /**
+     * Creates a handle without deadlines, which is only cancelled explicitly.
+     */
+    public OllamaCancellationHandle() {
+        this(null, null);
+    }
+
+    /**
+     * @param firstTokenTimeout maximum time until the first part of the response arrives, or null for no limit
+     * @param totalTimeout      maximum time until the response is complete, or null for no limit
+     */
+    public OllamaCancellationHandle(Duration firstTokenTimeout, Duration totalTimeout) {
+        this.firstTokenTimeout = firstTokenTimeout;
+        this.totalTimeout = totalTimeout;
+    }
+
+    public static OllamaCancellationHandle withDeadlines(Duration firstTokenTimeout, Duration totalTimeout) {
+        return new OllamaCancellationHandle(firstTokenTimeout, totalTimeout);
+    }
+
+    /**
+     * Cancels the request. Has no effect if the handle has already been cancelled.
+     */
+    public void cancel() {
+        cancel(Reason.CANCELLED);
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /**
+     * @return why the handle has been cancelled, or null if it has not been cancelled
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the exception describing the cancellation
+     * @throws IllegalStateException if the handle has not been cancelled
+     */
+    public OllamaCancelledException toException() {
+        if (reason == null) {
+            throw new IllegalStateException("The request has not been cancelled.");
+        }
+        return new OllamaCancelledException(reason);
+    }
+
+    /**
+     * Registers the action that aborts a request which is about to be sent. Starts the deadlines on first use, and
+     * restarts their timers for the remaining time if they have been stopped in between, see {@link Registration}.
+     *
+     * @param cancelAction action closing the request's response stream, run at most once
+     * @return registration to close once the response has been handled
+     * @throws OllamaCancelledException if the handle has already been cancelled or the total deadline has passed
+     */
+    public synchronized Registration register(Runnable cancelAction) throws OllamaCancelledException {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (reason == null && totalTimeout != null && elapsedNanos >= totalTimeout.toNanos()) {
+            cancel(Reason.TOTAL_DEADLINE_EXCEEDED);
+        }
+        if (reason != null) {
+            throw toException();
+        }
+        if (firstTokenTimer == null && firstTokenTimeout != null && !firstTokenReceived && elapsedNanos < firstTokenTimeout.toNanos()) {
+            firstTokenTimer = schedule(firstTokenTimeout.toNanos() - elapsedNanos, Reason.FIRST_TOKEN_DEADLINE_EXCEEDED);
+        }
+        if (totalTimer == null && totalTimeout != null) {
+            totalTimer = schedule(totalTimeout.toNanos() - elapsedNanos, Reason.TOTAL_DEADLINE_EXCEEDED);
+        }
+        cancelActions.add(cancelAction);
+        return () -> {
+            synchronized (this) {
+                if (cancelActions.remove(cancelAction) && cancelActions.isEmpty()) {
+                    stopTimers();
+                }
+            }
+        };
+    }
+
+    /**
+     * Marks that the first part of the response has arrived, which satisfies the time-to-first-token deadline.
+     */
+    public void firstTokenReceived() {
+        if (firstTokenReceived) {
+            return;
+        }
+        synchronized (this) {
+            firstTokenReceived = true;
+            if (firstTokenTimer != null) {
+                firstTokenTimer.cancel(false);
+            }
+        }
+    }
+
+    private ScheduledFuture<?> schedule(long timeoutNanos, Reason deadlineReason) {
+        return SCHEDULER.schedule(() -> expire(deadlineReason), timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void stopTimers() {
+        if (firstTokenTimer != null) {
+            firstTokenTimer.cancel(false);
+            firstTokenTimer = null;
+        }
+        if (totalTimer != null) {
+            totalTimer.cancel(false);
+            totalTimer = null;
+        }
+    }
+
+    private void expire(Reason deadlineReason) {
+        synchronized (this) {
+            if (deadlineReason == Reason.FIRST_TOKEN_DEADLINE_EXCEEDED && firstTokenReceived) {
+                return;
+            }
+            if (cancelActions.isEmpty()) {
+                // nothing in flight (e.g. the call has completed); a later request still checks the total deadline
+                return;
+            }
+        }
+        cancel(deadlineReason);
+    }
+
+    private void cancel(Reason cancelReason) {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (reason != null) {
+                return;
+            }
+            reason = cancelReason;
+            actions = new ArrayList<>(cancelActions);
+            cancelActions.clear();
+            stopTimers();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ollama4j-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Registration of an in-flight request with a handle. Closing the last registration of a handle stops its timers,
+     * so a completed call does not keep them scheduled until the deadlines pass.
+     */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -1,26 +1,19 @@
 package io.github.ollama4j.models.request;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import io.github.ollama4j.exceptions.OllamaBaseException;
 import io.github.ollama4j.models.chat.*;
-import io.github.ollama4j.models.response.OllamaErrorResponse;
 import io.github.ollama4j.models.generate.OllamaStreamHandler;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
 import io.github.ollama4j.tools.Tools;
-import io.github.ollama4j.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Specialization class for requests
@@ -31,44 +24,43 @@ public class OllamaChatEndpointCaller extends OllamaEndpointCaller {
 
     private OllamaChatStreamObserver streamObserver;
 
+    /**
+     * @deprecated use {@link #OllamaChatEndpointCaller(String, BasicAuth, long, boolean, OllamaHttpTransport)} with the transport of an
+     * {@link io.github.ollama4j.OllamaAPI} instance; this caller creates a transport for every request and closes it
+     * when the request ends, so connections are not reused
+     */
+    @Deprecated
     public OllamaChatEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose) {
         super(host, basicAuth, requestTimeoutSeconds, verbose);
     }
 
+    public OllamaChatEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose, OllamaHttpTransport httpTransport) {
+        super(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+    }
+
     @Override
     protected String getEndpointSuffix() {
         return "/api/chat";
     }
 
     /**
-     * Parses streamed Response line from ollama chat.
-     * Using {@link com.fasterxml.jackson.databind.ObjectMapper#readValue(String, TypeReference)} should throw
-     * {@link IllegalArgumentException} in case of null line or {@link com.fasterxml.jackson.core.JsonParseException}
-     * in case the JSON Object cannot be parsed to a {@link OllamaChatResponseModel}. Thus, the ResponseModel should
-     * never be null.
+     * Adds a streamed part of the ollama chat response to the response buffer and notifies the stream observer.
      *
-     * @param line streamed line of ollama stream response
+     * @param responsePart streamed part of ollama stream response
      * @param responseBuffer Stringbuffer to add latest response message part to
      * @return TRUE, if ollama-Response has 'done' state
      */
-    @Override
-    protected boolean parseResponseAndAddToBuffer(String line, StringBuilder responseBuffer) {
-        try {
-            OllamaChatResponseModel ollamaResponseModel = Utils.getObjectMapper().readValue(line, OllamaChatResponseModel.class);
-            // it seems that under heavy load ollama responds with an empty chat message part in the streamed response
-            // thus, we null check the message and hope that the next streamed response has some message content again
-            OllamaChatMessage message = ollamaResponseModel.getMessage();
-            if(message != null) {
-                responseBuffer.append(message.getContent());
-                if (streamObserver != null) {
-                    streamObserver.notify(ollamaResponseModel);
-                }
+    protected boolean addResponsePartToBuffer(OllamaChatResponseModel responsePart, StringBuilder responseBuffer) {
+        // it seems that under heavy load ollama responds with an empty chat message part in the streamed response
+        // thus, we null check the message and hope that the next streamed response has some message content again
+        OllamaChatMessage message = responsePart.getMessage();
+        if(message != null) {
+            responseBuffer.append(message.getContent());
+            if (streamObserver != null) {
+                streamObserver.notify(responsePart);
             }
-            return ollamaResponseModel.isDone();
-        } catch (JsonProcessingException e) {
-            LOG.error("Error parsing the Ollama chat response!", e);
-            return true;
         }
+        return responsePart.isDone();
     }
 
     public OllamaChatResult call(OllamaChatRequest body, OllamaStreamHandler streamHandler)
@@ -77,67 +69,109 @@ public class OllamaChatEndpointCaller extends OllamaEndpointCaller {
         return callSync(body);
     }
 
+    /**
+     * Calls the endpoint with a streamed response, handing every response part to the given handler as a delta.
+     *
+     * @param body         request to send
+     * @param tokenHandler handler for streamed response parts
+     * @return the result, holding the complete response
+     * @throws OllamaBaseException  any response code than 200 has been returned
+     * @throws IOException          in case the responseStream can not be read
+     * @throws InterruptedException in case the server is not reachable or network issues happen
+     */
+    public OllamaChatResult callStreaming(OllamaChatRequest body, OllamaTokenHandler tokenHandler)
+            throws OllamaBaseException, IOException, InterruptedException {
+        streamObserver = new OllamaChatStreamObserver(tokenHandler);
+        return callSync(body);
+    }
+
     public OllamaChatResult callSync(OllamaChatRequest body) throws OllamaBaseException, IOException, InterruptedException {
-        // Create Request
-        HttpClient httpClient = HttpClient.newHttpClient();
+        return send(buildRequest(body), body, OllamaChatResponseModel.class, () -> new ChatResponseAccumulator(body));
+    }
+
+    /**
+     * Asynchronously calls the chat endpoint. The streamed response is processed as it arrives without blocking a
+     * thread; the token handler is invoked on the threads of the HTTP transport's executor.
+     *
+     * @param body          request to send
+     * @param tokenHandler optional handler for streamed message parts, may be null
+     * @return future completing with the chat result, or exceptionally with an {@link OllamaBaseException}
+     */
+    public CompletableFuture<OllamaChatResult> callAsync(OllamaChatRequest body, OllamaTokenHandler tokenHandler) {
+        return callAsync(body, tokenHandler, body.getCancellationHandle());
+    }
+
+    /**
+     * Like {@link #callAsync(OllamaChatRequest, OllamaTokenHandler)}, with a cancellation handle passed alongside the
+     * request instead of the one set on it.
+     *
+     * @param body               request to send
+     * @param tokenHandler       optional handler for streamed message parts, may be null
+     * @param cancellationHandle handle to cancel the call with, may be null
+     * @return future completing with the chat result, or exceptionally with an {@link OllamaBaseException}
+     */
+    public CompletableFuture<OllamaChatResult> callAsync(OllamaChatRequest body, OllamaTokenHandler tokenHandler,
+                                                         OllamaCancellationHandle cancellationHandle) {
+        if (tokenHandler != null) {
+            streamObserver = new OllamaChatStreamObserver(tokenHandler);
+        }
+        return sendAsync(buildRequest(body), body, cancellationHandle, OllamaChatResponseModel.class, () -> new ChatResponseAccumulator(body));
+    }
+
+    /**
+     * Calls the chat endpoint with a streamed response once the returned publisher is subscribed to. Response parts
+     * are only read from the connection as requested by the subscriber; cancelling the subscription closes the
+     * connection, which stops the generation on the server.
+     *
+     * @param body request to send, its stream parameter has to be set
+     * @return publisher of the streamed response parts
+     */
+    public Flow.Publisher<OllamaChatResponseModel> callPublisher(OllamaChatRequest body) {
+        return publish(buildRequest(body), body, OllamaChatResponseModel.class);
+    }
+
+    private HttpRequest buildRequest(OllamaChatRequest body) {
         URI uri = URI.create(getHost() + getEndpointSuffix());
         HttpRequest.Builder requestBuilder =
                 getRequestBuilderDefault(uri)
                         .POST(
-                                body.getBodyPublisher());
-        HttpRequest request = requestBuilder.build();
+                                body.getBodyPublisher(getBodyWriterExecutor()));
         if (isVerbose()) LOG.info("Asking model: " + body.toString());
-        HttpResponse<InputStream> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-
-        int statusCode = response.statusCode();
-        InputStream responseBodyStream = response.body();
-        StringBuilder responseBuffer = new StringBuilder();
-        OllamaChatResponseModel ollamaChatResponseModel = null;
-        List<OllamaChatToolCalls> wantedToolsForStream = null;
-        try (BufferedReader reader =
-                     new BufferedReader(new InputStreamReader(responseBodyStream, StandardCharsets.UTF_8))) {
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (statusCode == 404) {
-                    LOG.warn("Status code: 404 (Not Found)");
-                    OllamaErrorResponse ollamaResponseModel =
-                            Utils.getObjectMapper().readValue(line, OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else if (statusCode == 401) {
-                    LOG.warn("Status code: 401 (Unauthorized)");
-                    OllamaErrorResponse ollamaResponseModel =
-                            Utils.getObjectMapper()
-                                    .readValue("{\"error\":\"Unauthorized\"}", OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else if (statusCode == 400) {
-                    LOG.warn("Status code: 400 (Bad Request)");
-                    OllamaErrorResponse ollamaResponseModel = Utils.getObjectMapper().readValue(line,
-                            OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else {
-                    boolean finished = parseResponseAndAddToBuffer(line, responseBuffer);
-                        ollamaChatResponseModel = Utils.getObjectMapper().readValue(line, OllamaChatResponseModel.class);
-                    if(body.stream && ollamaChatResponseModel.getMessage().getToolCalls() != null){
-                        wantedToolsForStream = ollamaChatResponseModel.getMessage().getToolCalls();
-                    }
-                    if (finished && body.stream) {
-                        ollamaChatResponseModel.getMessage().setContent(responseBuffer.toString());
-                        break;
-                    }
-                }
+        return requestBuilder.build();
+    }
+
+    private class ChatResponseAccumulator implements ResponseAccumulator<OllamaChatResponseModel, OllamaChatResult> {
+
+        private final OllamaChatRequest body;
+        private final StringBuilder responseBuffer = new StringBuilder();
+        private OllamaChatResponseModel ollamaChatResponseModel = null;
+        private List<OllamaChatToolCalls> wantedToolsForStream = null;
+
+        ChatResponseAccumulator(OllamaChatRequest body) {
+            this.body = body;
+        }
+
+        @Override
+        public boolean accept(OllamaChatResponseModel responsePart) {
+            boolean finished = addResponsePartToBuffer(responsePart, responseBuffer);
+            ollamaChatResponseModel = responsePart;
+            if (body.stream && responsePart.getMessage() != null && responsePart.getMessage().getToolCalls() != null) {
+                wantedToolsForStream = responsePart.getMessage().getToolCalls();
             }
+            if (finished && body.stream) {
+                ollamaChatResponseModel.getMessage().setContent(responseBuffer.toString());
+                return true;
+            }
+            return false;
         }
-        if (statusCode != 200) {
-            LOG.error("Status code " + statusCode);
-            throw new OllamaBaseException(responseBuffer.toString());
-        } else {
-            if(wantedToolsForStream != null) {
+
+        @Override
+        public OllamaChatResult getResult() {
+            if (wantedToolsForStream != null) {
                 ollamaChatResponseModel.getMessage().setToolCalls(wantedToolsForStream);
             }
             OllamaChatResult ollamaResult =
-                    new OllamaChatResult(ollamaChatResponseModel,body.getMessages());
+                    new OllamaChatResult(ollamaChatResponseModel, body.getMessages());
             if (isVerbose()) LOG.info("Model response: " + ollamaResult);
             return ollamaResult;
         }
@@ -0,0 +1,289 @@
+package io.github.ollama4j.models.request;
+
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.exceptions.OllamaCircuitOpenException;
+import io.github.ollama4j.exceptions.OllamaResponseException;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breakers of the chat and generate calls made through one {@link OllamaHttpTransport}, i.e. to one host,
+ * with one circuit per model.
+ * <p>
+ * A circuit records the outcomes of the last {@link OllamaCircuitBreakerConfig#getSlidingWindowSize()} calls of its
+ * model. Calls fail if the server cannot be reached, answers with a 5xx status or misses the time-to-first-token
+ * deadline of the request. Streamed calls are slow if their first response part arrives later than
+ * {@link OllamaCircuitBreakerConfig#getSlowCallDuration()}; non-streamed calls are never slow, as their only response
+ * part arrives with the complete answer. When too many calls failed or were slow, the circuit opens
+ * and further calls fail right away with an {@link OllamaCircuitOpenException} instead of waiting for a server that
+ * is stuck, e.g. reloading a model after running out of memory. After
+ * {@link OllamaCircuitBreakerConfig#getOpenDuration()} the circuit is half-open: a few trial calls are let through,
+ * and the circuit closes if all of them succeed in time, or opens again if one of them does not.
+ */
+public class OllamaCircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OllamaCircuitBreaker.class);
+
+    public enum State {
+        /**
+         * Calls are sent and their outcomes recorded.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+        /**
+         * A limited number of trial calls is sent to find out if the server has recovered.
+         */
+        HALF_OPEN
+    }
+
+    private enum Outcome {
+        SUCCESS, FAILURE, IGNORED
+    }
+
+    @Getter
+    private final OllamaCircuitBreakerConfig config;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public OllamaCircuitBreaker(OllamaCircuitBreakerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @param model name of the model
+     * @return the state of the circuit of the model
+     */
+    public State getState(String model) {
+        Circuit circuit = model != null ? circuits.get(withTag(model)) : null;
+        return circuit != null ? circuit.getState() : State.CLOSED;
+    }
+
+    /**
+     * Tells whether a call of the model would be let through right now, without reserving a trial call of a
+     * half-open circuit.
+     *
+     * @param model name of the model, or null for calls that do not use a model
+     * @return false if the circuit of the model is open, or half-open with all trial calls taken
+     */
+    public boolean isCallPermitted(String model) {
+        if (!config.isEnabled() || model == null) {
+            return true;
+        }
+        Circuit circuit = circuits.get(withTag(model));
+        return circuit == null || circuit.isCallPermitted();
+    }
+
+    /**
+     * Starts a call of the model, whose outcome has to be reported via {@link Call#complete(Throwable)}.
+     *
+     * @param model    name of the model, or null for calls that are not tracked
+     * @param streamed true if the response is streamed, so that the time to its first part tells if the call is slow
+     * @return the started call, or null if the circuit of the model rejects it
+     */
+    Call tryAcquire(String model, boolean streamed) {
+        if (!config.isEnabled() || model == null) {
+            return new Call(null, 0, false);
+        }
+        return circuits.computeIfAbsent(withTag(model), Circuit::new).tryAcquire(streamed);
+    }
+
+    /**
+     * @return true if the error indicates a problem of the server rather than of the request or the caller
+     */
+    public static boolean isFailure(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof OllamaResponseException) {
+            return ((OllamaResponseException) cause).isServerError();
+        }
+        if (cause instanceof OllamaCancelledException) {
+            // a server that does not start answering in time is overloaded or stuck, a long answer is not its fault
+            return ((OllamaCancelledException) cause).getReason() == OllamaCancelledException.Reason.FIRST_TOKEN_DEADLINE_EXCEEDED;
+        }
+        return cause instanceof IOException;
+    }
+
+    private static Outcome outcomeOf(Throwable throwable) {
+        if (throwable == null) {
+            return Outcome.SUCCESS;
+        }
+        if (isFailure(throwable)) {
+            return Outcome.FAILURE;
+        }
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof OllamaBaseException && !(cause instanceof OllamaCancelledException) && !(cause instanceof OllamaCircuitOpenException)) {
+            // the server answered, the request was at fault
+            return Outcome.SUCCESS;
+        }
+        // cancelled or interrupted by the caller
+        return Outcome.IGNORED;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private static String withTag(String model) {
+        return model.indexOf(':') < 0 ? model + ":latest" : model;
+    }
+
+    /**
+     * One call let through by a circuit.
+     */
+    final class Call {
+
+        private final Circuit circuit;
+        private final long generation;
+        private final boolean streamed;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean responseStarted;
+        private volatile long firstResponseNanos;
+
+        private Call(Circuit circuit, long generation, boolean streamed) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.streamed = streamed;
+        }
+
+        /**
+         * Records the arrival of the first response part.
+         */
+        void responseStarted() {
+            if (!responseStarted) {
+                firstResponseNanos = System.nanoTime();
+                responseStarted = true;
+            }
+        }
+
+        /**
+         * Records the outcome of the call; only the first outcome reported counts.
+         *
+         * @param throwable the error the call failed with, or null if it succeeded
+         */
+        void complete(Throwable throwable) {
+            if (circuit == null || !completed.compareAndSet(false, true)) {
+                return;
+            }
+            long responseNanos = (responseStarted ? firstResponseNanos : System.nanoTime()) - startNanos;
+            circuit.record(generation, outcomeOf(throwable), streamed && responseNanos > config.getSlowCallDuration().toNanos());
+        }
+    }
+
+    /**
+     * State of the circuit of one model. Every state change starts a new generation, and outcomes of calls started in
+     * an earlier generation are discarded.
+     */
+    private class Circuit {
+
+        private final String model;
+        private final boolean[] failed = new boolean[config.getSlidingWindowSize()];
+        private final boolean[] slow = new boolean[config.getSlidingWindowSize()];
+        private int recorded;
+        private int next;
+        private int failures;
+        private int slowCalls;
+        private State state = State.CLOSED;
+        private long generation;
+        private long openedAtNanos;
+        private int trialsInFlight;
+        private int trialSuccesses;
+
+        Circuit(String model) {
+            this.model = model;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        synchronized boolean isCallPermitted() {
+            switch (state) {
+                case OPEN:
+                    return System.nanoTime() - openedAtNanos >= config.getOpenDuration().toNanos();
+                case HALF_OPEN:
+                    return trialsInFlight + trialSuccesses < config.getHalfOpenCalls();
+                default:
+                    return true;
+            }
+        }
+
+        synchronized Call tryAcquire(boolean streamed) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < config.getOpenDuration().toNanos()) {
+                    return null;
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsInFlight + trialSuccesses >= config.getHalfOpenCalls()) {
+                    return null;
+                }
+                trialsInFlight++;
+            }
+            return new Call(this, generation, streamed);
+        }
+
+        synchronized void record(long callGeneration, Outcome outcome, boolean isSlow) {
+            if (callGeneration != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                trialsInFlight--;
+                if (outcome == Outcome.FAILURE || outcome == Outcome.SUCCESS && isSlow) {
+                    transition(State.OPEN);
+                } else if (outcome == Outcome.SUCCESS && ++trialSuccesses >= config.getHalfOpenCalls()) {
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            if (outcome == Outcome.IGNORED) {
+                return;
+            }
+            boolean callFailed = outcome == Outcome.FAILURE;
+            boolean callSlow = !callFailed && isSlow;
+            if (recorded == failed.length) {
+                failures -= failed[next] ? 1 : 0;
+                slowCalls -= slow[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            failed[next] = callFailed;
+            slow[next] = callSlow;
+            failures += callFailed ? 1 : 0;
+            slowCalls += callSlow ? 1 : 0;
+            next = (next + 1) % failed.length;
+            if (recorded >= config.getMinimumNumberOfCalls()
+                    && (failures >= config.getFailureRateThreshold() * recorded || slowCalls >= config.getSlowCallRateThreshold() * recorded)) {
+                transition(State.OPEN);
+            }
+        }
+
+        private void transition(State newState) {
+            if (newState != State.HALF_OPEN) {
+                LOG.warn("Circuit of model {} changed from {} to {}", model, state, newState);
+            }
+            state = newState;
+            generation++;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+            if (newState == State.OPEN) {
+                openedAtNanos = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.ollama4j.models.request;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the {@link OllamaCircuitBreaker} of an {@link OllamaHttpTransport}. Circuit breakers are opt-in:
+ * use {@link #defaults()}, or the builder with {@code enabled(true)}.
+ */
+@Getter
+public class OllamaCircuitBreakerConfig {
+
+    /**
+     * True to reject calls while the circuit of their model is open; false (the default) to send every request
+     * regardless of the outcome of earlier ones.
+     */
+    private final boolean enabled;
+
+    /**
+     * Number of most recent calls of a model whose outcomes decide whether its circuit opens.
+     */
+    private final int slidingWindowSize;
+
+    /**
+     * Number of calls of a model that have to be recorded before its circuit can open.
+     */
+    private final int minimumNumberOfCalls;
+
+    /**
+     * Share of failed calls in the window at which the circuit opens, between 0 and 1.
+     */
+    private final double failureRateThreshold;
+
+    /**
+     * Share of slow calls in the window at which the circuit opens, between 0 and 1.
+     */
+    private final double slowCallRateThreshold;
+
+    /**
+     * Time to the first response part above which a streamed call counts as slow. Non-streamed responses consist of
+     * one part that arrives with the complete answer, so their duration says nothing about the health of the server
+     * and they are never counted as slow.
+     */
+    private final Duration slowCallDuration;
+
+    /**
+     * Time an open circuit rejects calls before it lets trial calls through.
+     */
+    private final Duration openDuration;
+
+    /**
+     * Number of trial calls that have to succeed, neither failing nor being slow, to close a half-open circuit.
+     */
+    private final int halfOpenCalls;
+
+    @Builder
+    private OllamaCircuitBreakerConfig(Boolean enabled, Integer slidingWindowSize, Integer minimumNumberOfCalls, Double failureRateThreshold,
+                                       Double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration, Integer halfOpenCalls) {
+        this.enabled = enabled != null ? enabled : false;
+        this.slidingWindowSize = slidingWindowSize != null ? slidingWindowSize : 20;
+        this.minimumNumberOfCalls = minimumNumberOfCalls != null ? minimumNumberOfCalls : 10;
+        this.failureRateThreshold = failureRateThreshold != null ? failureRateThreshold : 0.5;
+        this.slowCallRateThreshold = slowCallRateThreshold != null ? slowCallRateThreshold : 0.5;
+        this.slowCallDuration = slowCallDuration != null ? slowCallDuration : Duration.ofSeconds(30);
+        this.openDuration = openDuration != null ? openDuration : Duration.ofSeconds(30);
+        this.halfOpenCalls = halfOpenCalls != null ? halfOpenCalls : 3;
+        if (this.slidingWindowSize <= 0 || this.minimumNumberOfCalls <= 0 || this.minimumNumberOfCalls > this.slidingWindowSize
+                || this.failureRateThreshold <= 0 || this.failureRateThreshold > 1 || this.slowCallRateThreshold <= 0
+                || this.slowCallRateThreshold > 1 || this.slowCallDuration.isNegative() || this.openDuration.isNegative()
+                || this.halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("slidingWindowSize, minimumNumberOfCalls and halfOpenCalls must be positive, minimumNumberOfCalls "
+                    + "must not exceed slidingWindowSize, thresholds must be in (0, 1] and durations must not be negative.");
+        }
+    }
+
+    /**
+     * @return enabled circuit breakers with the default thresholds: a circuit opens when half of the last 20 calls, and
+     * at least 10 calls, failed or took more than 30 seconds to the first streamed response part, and lets 3 trial
+     * calls through after 30 seconds
+     */
+    public static OllamaCircuitBreakerConfig defaults() {
+        return OllamaCircuitBreakerConfig.builder().enabled(true).build();
+    }
+
+    /**
+     * @return configuration that never rejects calls, the default
+     */
+    public static OllamaCircuitBreakerConfig disabled() {
+        return OllamaCircuitBreakerConfig.builder().build();
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.ollama4j.models.request;
 
 import java.util.Map;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -9,6 +10,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.github.ollama4j.utils.BooleanToJsonFormatFlagSerializer;
 import io.github.ollama4j.utils.Utils;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 @Data
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -23,6 +25,12 @@ public abstract class OllamaCommonRequest {
   protected boolean stream;
   @JsonProperty(value = "keep_alive")
   protected String keepAlive;
+  /**
+   * Optional handle to cancel the request and to apply deadlines to it. Not sent to the server.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  protected OllamaCancellationHandle cancellationHandle;
 
   
   public String toString() {
@@ -1,26 +1,29 @@
 package io.github.ollama4j.models.request;
 
-import io.github.ollama4j.OllamaAPI;
 import io.github.ollama4j.exceptions.OllamaBaseException;
-import io.github.ollama4j.models.response.OllamaErrorResponse;
-import io.github.ollama4j.models.response.OllamaResult;
-import io.github.ollama4j.utils.OllamaRequestBody;
-import io.github.ollama4j.utils.Utils;
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.exceptions.OllamaCircuitOpenException;
+import io.github.ollama4j.utils.NdJsonDecoder;
+import io.github.ollama4j.utils.NdJsonReader;
 import lombok.Getter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Abstract helperclass to call the ollama api server.
@@ -28,23 +31,263 @@ import java.util.Base64;
 @Getter
 public abstract class OllamaEndpointCaller {
 
-    private static final Logger LOG = LoggerFactory.getLogger(OllamaAPI.class);
-
     private final String host;
     private final BasicAuth basicAuth;
     private final long requestTimeoutSeconds;
     private final boolean verbose;
+    private final OllamaHttpTransport httpTransport;
 
+    /**
+     * @deprecated use {@link #OllamaEndpointCaller(String, BasicAuth, long, boolean, OllamaHttpTransport)} with the
+     * transport of an {@link io.github.ollama4j.OllamaAPI} instance; this caller creates a transport for every request
+     * and closes it when the request ends, so connections are not reused
+     */
+    @Deprecated
     public OllamaEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose) {
+        this(host, basicAuth, requestTimeoutSeconds, verbose, null);
+    }
+
+    /**
+     * @param httpTransport the transport to send the requests with, usually the one shared by all calls of an
+     *                      {@link io.github.ollama4j.OllamaAPI} instance; it is not closed by the caller. If null, a
+     *                      transport is created for every request and closed when the request ends.
+     */
+    public OllamaEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose, OllamaHttpTransport httpTransport) {
         this.host = host;
         this.basicAuth = basicAuth;
         this.requestTimeoutSeconds = requestTimeoutSeconds;
         this.verbose = verbose;
+        this.httpTransport = httpTransport;
     }
 
     protected abstract String getEndpointSuffix();
 
-    protected abstract boolean parseResponseAndAddToBuffer(String line, StringBuilder responseBuffer);
+    /**
+     * Sends the request and feeds the streamed response objects into an accumulator. Every object of the response is
+     * parsed exactly once, directly from the bytes of the response body. The call is rejected right away if the
+     * circuit breaker of the model is open, and its outcome is recorded otherwise.
+     *
+     * @param request            the request to send
+     * @param body               the body of the request, whose model, stream flag and cancellation handle apply
+     * @param responsePartType   type the streamed JSON objects of a successful response are deserialized to
+     * @param accumulatorFactory creates the accumulator for a successful response
+     * @param <T>                the response part type
+     * @param <R>                the result type
+     * @return the accumulated result
+     * @throws OllamaBaseException  if the response indicates an error status, an {@link OllamaCancelledException} if
+     *                              the request has been cancelled, or an {@link OllamaCircuitOpenException} if the
+     *                              circuit of the model is open
+     * @throws IOException          in case the responseStream can not be read
+     * @throws InterruptedException in case the server is not reachable or network issues happen
+     */
+    protected <T, R> R send(HttpRequest request, Object body, Class<T> responsePartType, Supplier<ResponseAccumulator<T, R>> accumulatorFactory)
+            throws OllamaBaseException, IOException, InterruptedException {
+        if (httpTransport != null) {
+            return send(httpTransport, request, body, responsePartType, accumulatorFactory);
+        }
+        try (OllamaHttpTransport transport = new OllamaHttpTransport()) {
+            return send(transport, request, body, responsePartType, accumulatorFactory);
+        }
+    }
+
+    private <T, R> R send(OllamaHttpTransport transport, HttpRequest request, Object body, Class<T> responsePartType,
+                          Supplier<ResponseAccumulator<T, R>> accumulatorFactory)
+            throws OllamaBaseException, IOException, InterruptedException {
+        OllamaCircuitBreaker.Call call = acquireCall(transport, body);
+        try {
+            R result = send(transport, request, cancellationHandleOf(body), responsePartType,
+                    () -> new CallRecordingAccumulator<>(accumulatorFactory.get(), call));
+            call.complete(null);
+            return result;
+        } catch (OllamaBaseException | IOException | InterruptedException | RuntimeException e) {
+            call.complete(e);
+            throw e;
+        }
+    }
+
+    private <T, R> R send(OllamaHttpTransport transport, HttpRequest request, OllamaCancellationHandle cancellationHandle,
+                          Class<T> responsePartType, Supplier<ResponseAccumulator<T, R>> accumulatorFactory)
+            throws OllamaBaseException, IOException, InterruptedException {
+        HttpResponse<InputStream> response = transport.sendStreaming(request, cancellationHandle);
+        int statusCode = response.statusCode();
+        try (InputStream body = response.body()) {
+            if (statusCode == 200) {
+                return accumulate(new NdJsonReader<>(body, responsePartType), accumulatorFactory.get(), cancellationHandle);
+            }
+            ErrorResponseBody errorBody = new ErrorResponseBody(statusCode);
+            errorBody.append(body);
+            throw errorBody.toException();
+        } catch (IOException e) {
+            // cancelling closes the response stream, which fails the blocked read
+            if (cancellationHandle != null && cancellationHandle.isCancelled()) {
+                throw cancellationHandle.toException();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #send(HttpRequest, Object, Class, Supplier)}.
+     * Response objects are decoded from the body chunks and pushed into the accumulator as they arrive, so no thread
+     * is blocked while the model is generating. Cancelling the returned future aborts the request.
+     *
+     * @param request            the request to send
+     * @param body               the body of the request, whose model, stream flag and cancellation handle apply
+     * @param responsePartType   type the streamed JSON objects of a successful response are deserialized to
+     * @param accumulatorFactory creates the accumulator for a successful response
+     * @param <T>                the response part type
+     * @param <R>                the result type
+     * @return a future completing with the accumulated result, or exceptionally with an {@link OllamaBaseException} if
+     * the response indicates an error status, an {@link OllamaCancelledException} if the request has been cancelled or
+     * an {@link OllamaCircuitOpenException} if the circuit of the model is open
+     */
+    protected <T, R> CompletableFuture<R> sendAsync(HttpRequest request, Object body, Class<T> responsePartType,
+                                                    Supplier<ResponseAccumulator<T, R>> accumulatorFactory) {
+        return sendAsync(request, body, cancellationHandleOf(body), responsePartType, accumulatorFactory);
+    }
+
+    /**
+     * Like {@link #sendAsync(HttpRequest, Object, Class, Supplier)}, but aborts the request with the given cancellation
+     * handle instead of the one of the request body. This lets concurrent calls with the same body be cancelled one by
+     * one.
+     *
+     * @param cancellationHandle the handle to abort the request with, may be null
+     */
+    protected <T, R> CompletableFuture<R> sendAsync(HttpRequest request, Object body, OllamaCancellationHandle cancellationHandle,
+                                                    Class<T> responsePartType, Supplier<ResponseAccumulator<T, R>> accumulatorFactory) {
+        if (httpTransport != null) {
+            return sendAsync(httpTransport, request, body, cancellationHandle, responsePartType, accumulatorFactory);
+        }
+        OllamaHttpTransport transport = new OllamaHttpTransport();
+        CompletableFuture<R> result = sendAsync(transport, request, body, cancellationHandle, responsePartType, accumulatorFactory);
+        result.whenComplete((value, throwable) -> transport.close());
+        return result;
+    }
+
+    private <T, R> CompletableFuture<R> sendAsync(OllamaHttpTransport transport, HttpRequest request, Object body,
+                                                  OllamaCancellationHandle cancellationHandle, Class<T> responsePartType,
+                                                  Supplier<ResponseAccumulator<T, R>> accumulatorFactory) {
+        OllamaCircuitBreaker.Call call;
+        try {
+            call = acquireCall(transport, body);
+        } catch (OllamaCircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<R> result = sendAsync(transport, request, cancellationHandle, responsePartType,
+                () -> new CallRecordingAccumulator<>(accumulatorFactory.get(), call));
+        result.whenComplete((value, throwable) -> call.complete(throwable));
+        return result;
+    }
+
+    private <T, R> CompletableFuture<R> sendAsync(OllamaHttpTransport transport, HttpRequest request, OllamaCancellationHandle cancellationHandle,
+                                                  Class<T> responsePartType, Supplier<ResponseAccumulator<T, R>> accumulatorFactory) {
+        AtomicReference<AbortableBodySubscriber<R>> bodySubscriber = new AtomicReference<>();
+        CompletableFuture<HttpResponse<R>> exchange = transport.sendAsync(request, responseInfo -> {
+            AbortableBodySubscriber<R> subscriber = responseInfo.statusCode() == 200
+                    ? new AccumulatingBodySubscriber<>(responsePartType, accumulatorFactory.get(), cancellationHandle)
+                    : new ErrorBodySubscriber<>(new ErrorResponseBody(responseInfo.statusCode()));
+            bodySubscriber.set(subscriber);
+            return subscriber;
+        });
+        Runnable abort = () -> {
+            exchange.cancel(true);
+            AbortableBodySubscriber<R> subscriber = bodySubscriber.get();
+            if (subscriber != null) {
+                subscriber.abort(cancellationHandle != null ? cancellationHandle.toException() : new CancellationException());
+            }
+        };
+        OllamaCancellationHandle.Registration registration;
+        try {
+            registration = cancellationHandle != null ? cancellationHandle.register(abort) : () -> {
+            };
+        } catch (OllamaCancelledException e) {
+            exchange.cancel(true);
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<R> result = exchange.handle((response, throwable) -> {
+            registration.close();
+            if (throwable == null) {
+                return response.body();
+            }
+            if (cancellationHandle != null && cancellationHandle.isCancelled()) {
+                throw new CompletionException(cancellationHandle.toException());
+            }
+            throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+        });
+        result.whenComplete((body, throwable) -> {
+            if (result.isCancelled()) {
+                if (cancellationHandle != null) {
+                    cancellationHandle.cancel();
+                } else {
+                    abort.run();
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Creates a publisher that sends the request once subscribed to and publishes the streamed response objects.
+     *
+     * Like {@link #send(HttpRequest, Object, Class, Supplier)}, a subscription fails right away with an
+     * {@link OllamaCircuitOpenException} if the circuit of the model is open, and the outcome is recorded otherwise.
+     *
+     * @param request          the request to send
+     * @param body             the body of the request, whose model, stream flag and cancellation handle apply
+     * @param responsePartType type the streamed JSON objects of the response are deserialized to
+     * @param <T>              the response part type
+     * @return the publisher
+     */
+    protected <T> Flow.Publisher<T> publish(HttpRequest request, Object body, Class<T> responsePartType) {
+        if (httpTransport != null) {
+            return new OllamaStreamPublisher<>(httpTransport, request, responsePartType, cancellationHandleOf(body), () -> acquireCall(httpTransport, body));
+        }
+        return subscriber -> {
+            OllamaHttpTransport transport = new OllamaHttpTransport();
+            new OllamaStreamPublisher<>(transport, request, responsePartType, cancellationHandleOf(body), () -> acquireCall(transport, body))
+                    .subscribe(new TransportClosingSubscriber<>(subscriber, transport));
+        };
+    }
+
+    /**
+     * @return the executor request bodies are serialized on while they are sent, or null to serialize them on the
+     * HTTP client's thread if this caller creates a transport for every request
+     */
+    protected Executor getBodyWriterExecutor() {
+        return httpTransport != null ? httpTransport.getBodyWriterExecutor() : null;
+    }
+
+    /**
+     * @return the cancellation handle of the request body, or null if it has none
+     */
+    protected static OllamaCancellationHandle cancellationHandleOf(Object body) {
+        return body instanceof OllamaCommonRequest ? ((OllamaCommonRequest) body).getCancellationHandle() : null;
+    }
+
+    /**
+     * @return the model of the request body, or null if it has none
+     */
+    private static String modelOf(Object body) {
+        return body instanceof OllamaCommonRequest ? ((OllamaCommonRequest) body).getModel() : null;
+    }
+
+    private static boolean isStreamed(Object body) {
+        return body instanceof OllamaCommonRequest && ((OllamaCommonRequest) body).isStream();
+    }
+
+    private static <T, R> R accumulate(NdJsonReader<T> reader, ResponseAccumulator<T, R> accumulator, OllamaCancellationHandle cancellationHandle)
+            throws IOException, OllamaBaseException {
+        T responsePart;
+        while ((responsePart = reader.next()) != null) {
+            if (cancellationHandle != null) {
+                cancellationHandle.firstTokenReceived();
+            }
+            if (accumulator.accept(responsePart)) {
+                break;
+            }
+        }
+        return accumulator.getResult();
+    }
 
 
     /**
@@ -83,4 +326,289 @@ public abstract class OllamaEndpointCaller {
         return this.basicAuth != null;
     }
 
+    /**
+     * Collects the streamed parts of one successful response into a result.
+     *
+     * @param <T> the response part type
+     * @param <R> the result type
+     */
+    protected interface ResponseAccumulator<T, R> {
+
+        /**
+         * @param responsePart streamed part of the response
+         * @return TRUE, if no further parts need to be read
+         */
+        boolean accept(T responsePart);
+
+        /**
+         * @return the result built from all accepted parts
+         * @throws OllamaBaseException if the response represents an error
+         */
+        R getResult() throws OllamaBaseException;
+    }
+
+    private OllamaCircuitBreaker.Call acquireCall(OllamaHttpTransport transport, Object body) throws OllamaCircuitOpenException {
+        String model = modelOf(body);
+        OllamaCircuitBreaker.Call call = transport.getCircuitBreaker().tryAcquire(model, isStreamed(body));
+        if (call == null) {
+            throw new OllamaCircuitOpenException(host, model);
+        }
+        return call;
+    }
+
+    /**
+     * Passes the signals of a publisher on to a subscriber and closes the transport of the publisher once the stream
+     * terminates or the subscription is cancelled.
+     */
+    private static class TransportClosingSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final Flow.Subscriber<? super T> downstream;
+        private final OllamaHttpTransport transport;
+
+        TransportClosingSubscriber(Flow.Subscriber<? super T> downstream, OllamaHttpTransport transport) {
+            this.downstream = downstream;
+            this.transport = transport;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    transport.close();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(T item) {
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            transport.close();
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            transport.close();
+            downstream.onComplete();
+        }
+    }
+
+    /**
+     * Passes the parts of a successful response on to another accumulator, recording the arrival of the first part
+     * for the circuit breaker.
+     */
+    private static class CallRecordingAccumulator<T, R> implements ResponseAccumulator<T, R> {
+
+        private final ResponseAccumulator<T, R> delegate;
+        private final OllamaCircuitBreaker.Call call;
+
+        CallRecordingAccumulator(ResponseAccumulator<T, R> delegate, OllamaCircuitBreaker.Call call) {
+            this.delegate = delegate;
+            this.call = call;
+        }
+
+        @Override
+        public boolean accept(T responsePart) {
+            call.responseStarted();
+            return delegate.accept(responsePart);
+        }
+
+        @Override
+        public R getResult() throws OllamaBaseException {
+            return delegate.getResult();
+        }
+    }
+
+    /**
+     * Body subscriber whose reading can be stopped, failing its body with the given exception.
+     */
+    private interface AbortableBodySubscriber<R> extends HttpResponse.BodySubscriber<R> {
+
+        void abort(Throwable throwable);
+    }
+
+    /**
+     * Collects the body of a response with an error status and fails with it.
+     */
+    private static class ErrorBodySubscriber<R> implements AbortableBodySubscriber<R> {
+
+        private final ErrorResponseBody errorBody;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean aborted;
+        private boolean truncated;
+
+        ErrorBodySubscriber(ErrorResponseBody errorBody) {
+            this.errorBody = errorBody;
+        }
+
+        @Override
+        public void abort(Throwable throwable) {
+            aborted = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public CompletionStage<R> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (aborted) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (truncated) {
+                return;
+            }
+            for (ByteBuffer chunk : chunks) {
+                if (!errorBody.append(chunk)) {
+                    // the rest of an overlong body is not needed
+                    truncated = true;
+                    subscription.cancel();
+                    result.completeExceptionally(errorBody.toException());
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.completeExceptionally(errorBody.toException());
+        }
+    }
+
+    private static class AccumulatingBodySubscriber<T, R> implements AbortableBodySubscriber<R> {
+
+        private final Class<T> responsePartType;
+        private final ResponseAccumulator<T, R> accumulator;
+        private final OllamaCancellationHandle cancellationHandle;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean aborted;
+        private NdJsonDecoder<T> decoder;
+        private boolean finished;
+
+        AccumulatingBodySubscriber(Class<T> responsePartType, ResponseAccumulator<T, R> accumulator, OllamaCancellationHandle cancellationHandle) {
+            this.responsePartType = responsePartType;
+            this.accumulator = accumulator;
+            this.cancellationHandle = cancellationHandle;
+        }
+
+        /**
+         * Stops reading the response body, which closes the connection, and fails with the given exception.
+         */
+        @Override
+        public void abort(Throwable throwable) {
+            aborted = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public CompletionStage<R> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            try {
+                decoder = new NdJsonDecoder<>(responsePartType);
+            } catch (IOException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            this.subscription = subscription;
+            if (aborted) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (finished || aborted) {
+                return;
+            }
+            try {
+                for (ByteBuffer chunk : chunks) {
+                    decoder.feed(chunk);
+                    if (drain()) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                finished = true;
+                subscription.cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                if (!finished) {
+                    decoder.endOfInput();
+                    drain();
+                }
+                result.complete(accumulator.getResult());
+            } catch (IOException | OllamaBaseException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * @return true, if the accumulator does not need further parts
+         */
+        private boolean drain() throws IOException {
+            T responsePart;
+            while ((responsePart = decoder.next()) != null) {
+                if (cancellationHandle != null) {
+                    cancellationHandle.firstTokenReceived();
+                }
+                if (accumulator.accept(responsePart)) {
+                    finished = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -1,26 +1,20 @@
 package io.github.ollama4j.models.request;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.ollama4j.exceptions.OllamaBaseException;
-import io.github.ollama4j.models.response.OllamaErrorResponse;
 import io.github.ollama4j.models.response.OllamaResult;
 import io.github.ollama4j.models.generate.OllamaGenerateResponseModel;
 import io.github.ollama4j.models.generate.OllamaGenerateStreamObserver;
 import io.github.ollama4j.models.generate.OllamaStreamHandler;
+import io.github.ollama4j.models.generate.OllamaTokenHandler;
 import io.github.ollama4j.utils.OllamaRequestBody;
-import io.github.ollama4j.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 public class OllamaGenerateEndpointCaller extends OllamaEndpointCaller {
 
@@ -28,28 +22,31 @@ public class OllamaGenerateEndpointCaller extends OllamaEndpointCaller {
 
     private OllamaGenerateStreamObserver streamObserver;
 
+    /**
+     * @deprecated use {@link #OllamaGenerateEndpointCaller(String, BasicAuth, long, boolean, OllamaHttpTransport)} with the transport of an
+     * {@link io.github.ollama4j.OllamaAPI} instance; this caller creates a transport for every request and closes it
+     * when the request ends, so connections are not reused
+     */
+    @Deprecated
     public OllamaGenerateEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose) {
         super(host, basicAuth, requestTimeoutSeconds, verbose);
     }
 
+    public OllamaGenerateEndpointCaller(String host, BasicAuth basicAuth, long requestTimeoutSeconds, boolean verbose, OllamaHttpTransport httpTransport) {
+        super(host, basicAuth, requestTimeoutSeconds, verbose, httpTransport);
+    }
+
     @Override
     protected String getEndpointSuffix() {
         return "/api/generate";
     }
 
-    @Override
-    protected boolean parseResponseAndAddToBuffer(String line, StringBuilder responseBuffer) {
-        try {
-            OllamaGenerateResponseModel ollamaResponseModel = Utils.getObjectMapper().readValue(line, OllamaGenerateResponseModel.class);
-            responseBuffer.append(ollamaResponseModel.getResponse());
-            if (streamObserver != null) {
-                streamObserver.notify(ollamaResponseModel);
-            }
-            return ollamaResponseModel.isDone();
-        } catch (JsonProcessingException e) {
-            LOG.error("Error parsing the Ollama chat response!", e);
-            return true;
+    protected boolean addResponsePartToBuffer(OllamaGenerateResponseModel responsePart, StringBuilder responseBuffer) {
+        responseBuffer.append(responsePart.getResponse());
+        if (streamObserver != null) {
+            streamObserver.notify(responsePart);
         }
+        return responsePart.isDone();
     }
 
     public OllamaResult call(OllamaRequestBody body, OllamaStreamHandler streamHandler)
@@ -58,6 +55,22 @@ public class OllamaGenerateEndpointCaller extends OllamaEndpointCaller {
         return callSync(body);
     }
 
+    /**
+     * Calls the endpoint with a streamed response, handing every response part to the given handler as a delta.
+     *
+     * @param body         request to send
+     * @param tokenHandler handler for streamed response parts
+     * @return the result, holding the complete response
+     * @throws OllamaBaseException  any response code than 200 has been returned
+     * @throws IOException          in case the responseStream can not be read
+     * @throws InterruptedException in case the server is not reachable or network issues happen
+     */
+    public OllamaResult callStreaming(OllamaRequestBody body, OllamaTokenHandler tokenHandler)
+            throws OllamaBaseException, IOException, InterruptedException {
+        streamObserver = new OllamaGenerateStreamObserver(tokenHandler);
+        return callSync(body);
+    }
+
     /**
      * Calls the api server on the given host and endpoint suffix asynchronously, aka waiting for the response.
      *
@@ -68,58 +81,81 @@ public class OllamaGenerateEndpointCaller extends OllamaEndpointCaller {
      * @throws InterruptedException in case the server is not reachable or network issues happen
      */
     public OllamaResult callSync(OllamaRequestBody body) throws OllamaBaseException, IOException, InterruptedException {
-        // Create Request
         long startTime = System.currentTimeMillis();
-        HttpClient httpClient = HttpClient.newHttpClient();
+        return send(buildRequest(body), body, OllamaGenerateResponseModel.class, () -> new GenerateResponseAccumulator(startTime));
+    }
+
+    /**
+     * Asynchronously calls the generate endpoint. The streamed response is processed as it arrives without blocking a
+     * thread; the token handler is invoked on the threads of the HTTP transport's executor.
+     *
+     * @param body          POST body payload
+     * @param tokenHandler  optional handler for streamed response parts, may be null
+     * @return future completing with the result, or exceptionally with an {@link OllamaBaseException}
+     */
+    public CompletableFuture<OllamaResult> callAsync(OllamaRequestBody body, OllamaTokenHandler tokenHandler) {
+        return callAsync(body, tokenHandler, cancellationHandleOf(body));
+    }
+
+    /**
+     * Like {@link #callAsync(OllamaRequestBody, OllamaTokenHandler)}, with a cancellation handle passed alongside the
+     * request instead of the one set on it.
+     *
+     * @param body               POST body payload
+     * @param tokenHandler       optional handler for streamed response parts, may be null
+     * @param cancellationHandle handle to cancel the call with, may be null
+     * @return future completing with the result, or exceptionally with an {@link OllamaBaseException}
+     */
+    public CompletableFuture<OllamaResult> callAsync(OllamaRequestBody body, OllamaTokenHandler tokenHandler,
+                                                     OllamaCancellationHandle cancellationHandle) {
+        if (tokenHandler != null) {
+            streamObserver = new OllamaGenerateStreamObserver(tokenHandler);
+        }
+        long startTime = System.currentTimeMillis();
+        return sendAsync(buildRequest(body), body, cancellationHandle, OllamaGenerateResponseModel.class, () -> new GenerateResponseAccumulator(startTime));
+    }
+
+    /**
+     * Calls the generate endpoint with a streamed response once the returned publisher is subscribed to. Response parts
+     * are only read from the connection as requested by the subscriber; cancelling the subscription closes the
+     * connection, which stops the generation on the server.
+     *
+     * @param body request to send, its stream parameter has to be set
+     * @return publisher of the streamed response parts
+     */
+    public Flow.Publisher<OllamaGenerateResponseModel> callPublisher(OllamaRequestBody body) {
+        return publish(buildRequest(body), body, OllamaGenerateResponseModel.class);
+    }
+
+    private HttpRequest buildRequest(OllamaRequestBody body) {
         URI uri = URI.create(getHost() + getEndpointSuffix());
         HttpRequest.Builder requestBuilder =
                 getRequestBuilderDefault(uri)
                         .POST(
-                                body.getBodyPublisher());
-        HttpRequest request = requestBuilder.build();
+                                body.getBodyPublisher(getBodyWriterExecutor()));
         if (isVerbose()) LOG.info("Asking model: " + body.toString());
-        HttpResponse<InputStream> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-
-        int statusCode = response.statusCode();
-        InputStream responseBodyStream = response.body();
-        StringBuilder responseBuffer = new StringBuilder();
-        try (BufferedReader reader =
-                     new BufferedReader(new InputStreamReader(responseBodyStream, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (statusCode == 404) {
-                    LOG.warn("Status code: 404 (Not Found)");
-                    OllamaErrorResponse ollamaResponseModel =
-                            Utils.getObjectMapper().readValue(line, OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else if (statusCode == 401) {
-                    LOG.warn("Status code: 401 (Unauthorized)");
-                    OllamaErrorResponse ollamaResponseModel =
-                            Utils.getObjectMapper()
-                                    .readValue("{\"error\":\"Unauthorized\"}", OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else if (statusCode == 400) {
-                    LOG.warn("Status code: 400 (Bad Request)");
-                    OllamaErrorResponse ollamaResponseModel = Utils.getObjectMapper().readValue(line,
-                            OllamaErrorResponse.class);
-                    responseBuffer.append(ollamaResponseModel.getError());
-                } else {
-                    boolean finished = parseResponseAndAddToBuffer(line, responseBuffer);
-                    if (finished) {
-                        break;
-                    }
-                }
-            }
+        return requestBuilder.build();
+    }
+
+    private class GenerateResponseAccumulator implements ResponseAccumulator<OllamaGenerateResponseModel, OllamaResult> {
+
+        private final long startTime;
+        private final StringBuilder responseBuffer = new StringBuilder();
+
+        GenerateResponseAccumulator(long startTime) {
+            this.startTime = startTime;
+        }
+
+        @Override
+        public boolean accept(OllamaGenerateResponseModel responsePart) {
+            return addResponsePartToBuffer(responsePart, responseBuffer);
         }
 
-        if (statusCode != 200) {
-            LOG.error("Status code " + statusCode);
-            throw new OllamaBaseException(responseBuffer.toString());
-        } else {
+        @Override
+        public OllamaResult getResult() {
             long endTime = System.currentTimeMillis();
             OllamaResult ollamaResult =
-                    new OllamaResult(responseBuffer.toString().trim(), endTime - startTime, statusCode);
+                    new OllamaResult(responseBuffer.toString().trim(), endTime - startTime, 200);
             if (isVerbose()) LOG.info("Model response: " + ollamaResult);
             return ollamaResult;
         }
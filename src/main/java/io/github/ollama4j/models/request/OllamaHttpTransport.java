@@ -0,0 +1,483 @@
+package io.github.ollama4j.models.request;
+
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.utils.VirtualThreads;
+import lombok.Getter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Long-lived HTTP transport owned by an {@link io.github.ollama4j.OllamaAPI} instance.
+ * <p>
+ * All endpoint calls of an API instance go through one {@link HttpClient}, so they share its selector thread and
+ * connection pool instead of paying for a new client (and TCP handshake) on every request. The transport is closed
+ * together with the API instance.
+ * <p>
+ * Requests that fail before any part of the response reaches the caller are retried according to the
+ * {@link OllamaHttpTransportConfig#getRetryPolicy()}.
+ */
+public class OllamaHttpTransport implements AutoCloseable {
+
+    /**
+     * Paths of the {@code POST} endpoints that do not change the server's state and may thus be sent again after the
+     * connection failed mid-request.
+     */
+    private static final Set<String> IDEMPOTENT_POST_PATHS = Set.of("/api/chat", "/api/generate", "/api/embed", "/api/embeddings", "/api/show");
+
+    @Getter
+    private final HttpClient httpClient;
+
+    @Getter
+    private final OllamaHttpTransportConfig config;
+
+    /**
+     * The executor used for asynchronous work of this transport and the API instance owning it, or null if the
+     * defaults of the {@link HttpClient} and the common pool are used.
+     */
+    @Getter
+    private final Executor executor;
+
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * The executor request bodies are serialized on while they are sent, see
+     * {@link io.github.ollama4j.utils.JsonBodyPublisher}. It is the {@link #getExecutor()} if there is one, and
+     * otherwise a cached pool of daemon threads owned by this transport. A writer occupies one of its threads while it
+     * waits for the HTTP client to send a large body.
+     */
+    @Getter
+    private final Executor bodyWriterExecutor;
+
+    private final ExecutorService ownedBodyWriterExecutor;
+
+    private final ConnectionLimiter connectionLimiter;
+
+    private final OllamaRetryPolicy retryPolicy;
+
+    private final RetryBudget retryBudget;
+
+    /**
+     * The circuit breakers of the chat and generate calls made through this transport.
+     */
+    @Getter
+    private final OllamaCircuitBreaker circuitBreaker;
+
+    private volatile boolean closed;
+
+    public OllamaHttpTransport() {
+        this(OllamaHttpTransportConfig.defaults());
+    }
+
+    public OllamaHttpTransport(OllamaHttpTransportConfig config) {
+        this.config = config;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(config.getHttpVersion())
+                .connectTimeout(config.getConnectTimeout());
+        if (config.getExecutor() != null) {
+            this.ownedExecutor = null;
+            this.executor = config.getExecutor();
+        } else if (config.isVirtualThreads()) {
+            this.ownedExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = null;
+        }
+        if (executor != null) {
+            builder.executor(executor);
+            this.ownedBodyWriterExecutor = null;
+            this.bodyWriterExecutor = executor;
+        } else {
+            this.ownedBodyWriterExecutor = createBodyWriterExecutor();
+            this.bodyWriterExecutor = ownedBodyWriterExecutor;
+        }
+        this.httpClient = builder.build();
+        this.connectionLimiter = config.getMaxConnections() > 0 ? new ConnectionLimiter(config.getMaxConnections()) : null;
+        this.retryPolicy = config.getRetryPolicy() != null ? config.getRetryPolicy() : OllamaRetryPolicy.none();
+        this.retryBudget = new RetryBudget(retryPolicy.getBudgetRatio(), retryPolicy.getMinRetriesPerSecond());
+        this.circuitBreaker = new OllamaCircuitBreaker(config.getCircuitBreaker() != null ? config.getCircuitBreaker() : OllamaCircuitBreakerConfig.disabled());
+    }
+
+    /**
+     * Sends a request whose response body is fully consumed by the given handler before this method returns.
+     *
+     * @param request     the request to send
+     * @param bodyHandler the response body handler
+     * @param <T>         the response body type
+     * @return the response
+     * @throws IOException          if an I/O error occurs when sending or receiving
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        return sendWithRetries(request, bodyHandler, true);
+    }
+
+    /**
+     * Sends a request and returns the response body as a stream. The connection stays reserved until the returned
+     * stream is closed, so callers must always close it.
+     *
+     * @param request the request to send
+     * @return the response with a streaming body
+     * @throws IOException          if an I/O error occurs when sending or receiving
+     * @throws InterruptedException if the operation is interrupted
+     */
+    public HttpResponse<InputStream> sendStreaming(HttpRequest request) throws IOException, InterruptedException {
+        return sendWithRetries(request, responseInfo -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(), in -> new ReleasingInputStream(in, null)), false);
+    }
+
+    /**
+     * @param releaseOnCompletion true if the body has been handled once the response is returned, false if the body is
+     *                            a {@link ReleasingInputStream} that releases the connection slot when closed
+     */
+    private <T> HttpResponse<T> sendWithRetries(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, boolean releaseOnCompletion)
+            throws IOException, InterruptedException {
+        retryBudget.recordRequest();
+        for (int attempt = 1; ; attempt++) {
+            RetryingBodyHandler<T> handler = new RetryingBodyHandler<>(bodyHandler, attempt);
+            HttpResponse<T> response;
+            acquire();
+            try {
+                response = httpClient.send(request, handler);
+            } catch (IOException e) {
+                release();
+                if (!shouldRetry(request, handler, e)) {
+                    throw e;
+                }
+                Thread.sleep(retryPolicy.backoff(attempt).toMillis());
+                continue;
+            } catch (InterruptedException | RuntimeException e) {
+                release();
+                throw e;
+            }
+            if (releaseOnCompletion || handler.retryDelay != null) {
+                release();
+            }
+            if (handler.retryDelay == null) {
+                return response;
+            }
+            Thread.sleep(handler.retryDelay.toMillis());
+        }
+    }
+
+    /**
+     * Sends a request whose response body is streamed, aborting it when the given handle is cancelled. Like
+     * {@link #sendStreaming(HttpRequest)}, callers must always close the returned body stream.
+     *
+     * @param request            the request to send
+     * @param cancellationHandle handle to abort the request with, may be null
+     * @return the response with a streaming body, which is closed when the handle is cancelled
+     * @throws IOException              if an I/O error occurs when sending or receiving
+     * @throws InterruptedException     if the operation is interrupted
+     * @throws OllamaCancelledException if the handle is cancelled before the response arrives
+     */
+    public HttpResponse<InputStream> sendStreaming(HttpRequest request, OllamaCancellationHandle cancellationHandle)
+            throws IOException, InterruptedException, OllamaCancelledException {
+        if (cancellationHandle == null) {
+            return sendStreaming(request);
+        }
+        AtomicReference<CompletableFuture<HttpResponse<InputStream>>> exchange = new AtomicReference<>();
+        OllamaCancellationHandle.Registration registration = cancellationHandle.register(() -> {
+            CompletableFuture<HttpResponse<InputStream>> pending = exchange.get();
+            if (pending != null) {
+                abort(pending);
+            }
+        });
+        CompletableFuture<HttpResponse<InputStream>> pending = exchange(request,
+                responseInfo -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                        in -> new ReleasingInputStream(in, registration)),
+                false);
+        exchange.set(pending);
+        if (cancellationHandle.isCancelled()) {
+            abort(pending);
+        }
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            abort(pending);
+            registration.close();
+            throw e;
+        } catch (CancellationException | ExecutionException e) {
+            registration.close();
+            if (cancellationHandle.isCancelled()) {
+                throw cancellationHandle.toException();
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends a request asynchronously. The connection slot is held until the response body has been fully handled by
+     * the given body handler; waiting for a free slot does not block any thread. Cancelling the returned future aborts
+     * the exchange (on JDK 16 and later; on older JDKs the response is discarded once it arrives).
+     *
+     * @param request     the request to send
+     * @param bodyHandler the response body handler
+     * @param <T>         the response body type
+     * @return a future completing with the response once the body has been handled
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        return exchange(request, bodyHandler, true);
+    }
+
+    /**
+     * @param releaseOnCompletion true if the body has been handled once the exchange completes, false if the body is a
+     *                            {@link ReleasingInputStream} that releases the connection slot when closed
+     */
+    private <T> CompletableFuture<HttpResponse<T>> exchange(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, boolean releaseOnCompletion) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The Ollama HTTP transport has been closed."));
+        }
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        retryBudget.recordRequest();
+        exchangeAttempt(request, bodyHandler, releaseOnCompletion, result, 1);
+        return result;
+    }
+
+    private <T> void exchangeAttempt(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, boolean releaseOnCompletion,
+                                     CompletableFuture<HttpResponse<T>> result, int attempt) {
+        CompletableFuture<Void> permit = connectionLimiter != null ? connectionLimiter.acquireAsync() : CompletableFuture.completedFuture(null);
+        permit.thenRun(() -> {
+            if (result.isDone() || closed) {
+                // cancelled while waiting for a connection slot or for the backoff to pass
+                release();
+                result.completeExceptionally(new IllegalStateException("The Ollama HTTP transport has been closed."));
+                return;
+            }
+            RetryingBodyHandler<T> handler = new RetryingBodyHandler<>(bodyHandler, attempt);
+            CompletableFuture<HttpResponse<T>> pending;
+            try {
+                pending = httpClient.sendAsync(request, handler);
+            } catch (RuntimeException e) {
+                release();
+                result.completeExceptionally(e);
+                return;
+            }
+            pending.whenComplete((response, throwable) -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                Duration retryDelay = cause != null
+                        ? cause instanceof IOException && shouldRetry(request, handler, (IOException) cause) ? retryPolicy.backoff(attempt) : null
+                        : handler.retryDelay;
+                if (throwable != null || releaseOnCompletion || retryDelay != null) {
+                    release();
+                }
+                if (retryDelay != null) {
+                    Executor delayed = executor != null
+                            ? CompletableFuture.delayedExecutor(retryDelay.toNanos(), TimeUnit.NANOSECONDS, executor)
+                            : CompletableFuture.delayedExecutor(retryDelay.toNanos(), TimeUnit.NANOSECONDS);
+                    delayed.execute(() -> exchangeAttempt(request, bodyHandler, releaseOnCompletion, result, attempt + 1));
+                } else if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else if (!result.complete(response) && !releaseOnCompletion) {
+                    closeQuietly((InputStream) response.body());
+                }
+            });
+            result.whenComplete((response, throwable) -> {
+                if (result.isCancelled()) {
+                    pending.cancel(true);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return true if the request may be sent again after it failed with the given exception
+     */
+    private boolean shouldRetry(HttpRequest request, RetryingBodyHandler<?> handler, IOException e) {
+        if (handler.responseStarted || handler.attempt >= retryPolicy.getMaxAttempts() || closed) {
+            return false;
+        }
+        boolean retryable = e instanceof ConnectException || e instanceof HttpConnectTimeoutException
+                || !(e instanceof HttpTimeoutException) && isIdempotent(request);
+        return retryable && retryBudget.tryRetry();
+    }
+
+    private static boolean isIdempotent(HttpRequest request) {
+        switch (request.method()) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+                return true;
+            case "POST":
+                return IDEMPOTENT_POST_PATHS.contains(request.uri().getPath());
+            default:
+                return false;
+        }
+    }
+
+    private static void abort(CompletableFuture<HttpResponse<InputStream>> pending) {
+        pending.cancel(true);
+        pending.thenAccept(response -> closeQuietly(response.body()));
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // the connection is discarded anyway
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the transport. Further calls fail with an {@link IllegalStateException}. On JDK 21 and later the
+     * underlying {@link HttpClient} is closed as well, which releases its selector thread and pooled connections
+     * right away; on older JDKs they are released once the client becomes unreachable. An executor created for
+     * {@link OllamaHttpTransportConfig#isVirtualThreads()} or for the {@link #getBodyWriterExecutor()} is shut down,
+     * an executor passed in by the caller is not.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) httpClient).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not close the HTTP client.", e);
+            }
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        if (ownedBodyWriterExecutor != null) {
+            ownedBodyWriterExecutor.shutdown();
+        }
+    }
+
+    private static ExecutorService createBodyWriterExecutor() {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ollama4j-request-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void acquire() throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("The Ollama HTTP transport has been closed.");
+        }
+        if (connectionLimiter != null) {
+            connectionLimiter.acquire();
+        }
+    }
+
+    private void release() {
+        if (connectionLimiter != null) {
+            connectionLimiter.release();
+        }
+    }
+
+    /**
+     * Body handler of one attempt of a request. A response with a retryable status is discarded instead of being
+     * handed to the caller's handler, as long as attempts and retry budget are left.
+     */
+    private class RetryingBodyHandler<T> implements HttpResponse.BodyHandler<T> {
+
+        private final HttpResponse.BodyHandler<T> delegate;
+        private final int attempt;
+
+        /**
+         * True once the response has been handed to the caller's handler; the request must not be retried from then
+         * on.
+         */
+        private volatile boolean responseStarted;
+
+        /**
+         * Delay before the next attempt if the response has been discarded, null otherwise.
+         */
+        private volatile Duration retryDelay;
+
+        RetryingBodyHandler(HttpResponse.BodyHandler<T> delegate, int attempt) {
+            this.delegate = delegate;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public HttpResponse.BodySubscriber<T> apply(HttpResponse.ResponseInfo responseInfo) {
+            if (attempt < retryPolicy.getMaxAttempts() && !closed
+                    && retryPolicy.getRetryableStatusCodes().contains(responseInfo.statusCode()) && retryBudget.tryRetry()) {
+                retryDelay = retryAfter(responseInfo).orElseGet(() -> retryPolicy.backoff(attempt));
+                return HttpResponse.BodySubscribers.replacing(null);
+            }
+            responseStarted = true;
+            return delegate.apply(responseInfo);
+        }
+
+        private Optional<Duration> retryAfter(HttpResponse.ResponseInfo responseInfo) {
+            return responseInfo.headers().firstValue("Retry-After").flatMap(value -> {
+                try {
+                    long seconds = Long.parseLong(value.trim());
+                    return Optional.of(seconds > 0 ? Duration.ofSeconds(seconds) : Duration.ZERO);
+                } catch (NumberFormatException e) {
+                    // an HTTP date, fall back to the backoff
+                    return Optional.empty();
+                }
+            }).map(delay -> delay.compareTo(retryPolicy.getMaxBackoff()) > 0 ? retryPolicy.getMaxBackoff() : delay);
+        }
+    }
+
+    /**
+     * Body stream that releases the connection slot, and the registration with a cancellation handle if any, when
+     * closed.
+     */
+    private class ReleasingInputStream extends FilterInputStream {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final OllamaCancellationHandle.Registration registration;
+
+        ReleasingInputStream(InputStream in, OllamaCancellationHandle.Registration registration) {
+            super(in);
+            this.registration = registration;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                    if (registration != null) {
+                        registration.close();
+                    }
+                }
+            }
+        }
+    }
+}
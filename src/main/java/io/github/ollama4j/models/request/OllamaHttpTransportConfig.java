@@ -0,0 +1,78 @@
+package io.github.ollama4j.models.request;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration of the {@link OllamaHttpTransport} that is shared by all calls made through one
+ * {@link io.github.ollama4j.OllamaAPI} instance.
+ */
+@Data
+@Builder
+public class OllamaHttpTransportConfig {
+
+    /**
+     * Maximum number of exchanges that may be in flight at the same time. As every HTTP/1.1 exchange occupies one
+     * pooled connection until its body is consumed, this effectively caps the size of the connection pool.
+     * A value of 0 or less means unbounded.
+     */
+    @Builder.Default
+    private int maxConnections = 0;
+
+    /**
+     * HTTP protocol version to use. Ollama speaks plain HTTP/1.1, so the default avoids a useless h2c upgrade attempt.
+     */
+    @Builder.Default
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_1_1;
+
+    /**
+     * Executor used by the underlying {@link HttpClient} for asynchronous and dependent tasks, and by the API instance
+     * for tool invocations and {@link io.github.ollama4j.models.response.OllamaAsyncResultStreamer}s. If not set, the
+     * client's default executor is used. The executor is not shut down when the transport is closed.
+     */
+    private Executor executor;
+
+    /**
+     * Opt-in: if no {@link #executor} is set, run the HTTP client's tasks, streamed response handling, tool
+     * invocations and {@link io.github.ollama4j.models.response.OllamaAsyncResultStreamer}s on virtual threads.
+     * Requires JDK 21 or later.
+     */
+    @Builder.Default
+    private boolean virtualThreads = false;
+
+    /**
+     * Timeout for establishing a new connection to the server.
+     */
+    @Builder.Default
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Opt-in: policy for retrying requests that failed before any part of the response was received, e.g. with
+     * connection refused or 503, such as {@link OllamaRetryPolicy#defaults()}. As a retried chat or generate request
+     * may be generated again, requests are not retried by default.
+     */
+    @Builder.Default
+    private OllamaRetryPolicy retryPolicy = OllamaRetryPolicy.none();
+
+    /**
+     * Opt-in: configuration of the per-model circuit breakers of chat and generate calls, such as
+     * {@link OllamaCircuitBreakerConfig#defaults()}. Disabled by default, so requests are always sent.
+     */
+    @Builder.Default
+    private OllamaCircuitBreakerConfig circuitBreaker = OllamaCircuitBreakerConfig.disabled();
+
+    public static OllamaHttpTransportConfig defaults() {
+        return OllamaHttpTransportConfig.builder().build();
+    }
+
+    /**
+     * @return the default configuration with {@link #virtualThreads} enabled
+     */
+    public static OllamaHttpTransportConfig withVirtualThreads() {
+        return OllamaHttpTransportConfig.builder().virtualThreads(true).build();
+    }
+}
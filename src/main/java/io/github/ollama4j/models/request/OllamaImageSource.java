@@ -0,0 +1,59 @@
+package io.github.ollama4j.models.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Source of an image that is attached to a chat message or generate request.
+ * <p>
+ * The image is read and base64-encoded in small chunks while the request is written, instead of being loaded into a
+ * {@code byte[]} and encoded into a {@code String} up front, so attaching large images does not need memory
+ * proportional to their size. Sources are opened every time the request is serialized, e.g. for each turn of a chat
+ * that keeps the message in its history, and for every retry of a request.
+ */
+@FunctionalInterface
+public interface OllamaImageSource {
+
+    /**
+     * @return a stream of the raw image bytes, closed by the caller
+     * @throws IOException if the image cannot be read
+     */
+    InputStream openStream() throws IOException;
+
+    static OllamaImageSource ofFile(File file) {
+        return ofPath(file.toPath());
+    }
+
+    static OllamaImageSource ofPath(Path path) {
+        return () -> Files.newInputStream(path);
+    }
+
+    static OllamaImageSource ofBytes(byte[] bytes) {
+        return () -> new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Creates a source that reads the remaining bytes of a channel. As a channel can only be read once, the request
+     * can only be serialized once: a second attempt to send it, e.g. a retry, fails with an {@link IOException}. The
+     * channel is closed after it has been read.
+     *
+     * @param channel the channel to read the image from
+     * @return the image source
+     */
+    static OllamaImageSource ofChannel(ReadableByteChannel channel) {
+        AtomicBoolean opened = new AtomicBoolean();
+        return () -> {
+            if (!opened.compareAndSet(false, true)) {
+                throw new IOException("The image channel has already been read.");
+            }
+            return Channels.newInputStream(channel);
+        };
+    }
+}
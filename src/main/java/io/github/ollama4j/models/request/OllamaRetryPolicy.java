@@ -0,0 +1,112 @@
+package io.github.ollama4j.models.request;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy of the {@link OllamaHttpTransport} for retrying requests that failed before the server started answering,
+ * e.g. with connection refused or 503 while Ollama swaps models. Retries are opt-in via
+ * {@link OllamaHttpTransportConfig#getRetryPolicy()}.
+ * <p>
+ * A request is only retried as long as no part of the response has been handed to the caller, so streamed tokens are
+ * never delivered twice. It is retried if
+ * <ul>
+ *     <li>the connection could not be established,</li>
+ *     <li>the server answered with one of the {@link #getRetryableStatusCodes()}, or</li>
+ *     <li>the connection failed after the request was sent, and the request is idempotent: a {@code GET},
+ *     {@code HEAD}, {@code PUT} or {@code DELETE}, or a {@code POST} to an endpoint that does not change the server's
+ *     state (chat, generate, embed and show). Timeouts are not retried.</li>
+ * </ul>
+ * Retries wait for an exponentially growing backoff with full jitter, or as long as the server asks for in a
+ * {@code Retry-After} header, up to {@link #getMaxBackoff()}. To avoid retry storms when a server is down, the retries
+ * of a transport are limited to {@link #getBudgetRatio()} of its requests in the last 10 seconds, plus
+ * {@link #getMinRetriesPerSecond()}.
+ */
+@Getter
+public class OllamaRetryPolicy {
+
+    /**
+     * Maximum number of attempts of a request, including the first one; 1 disables retries.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Upper bound of the backoff before the first retry.
+     */
+    private final Duration initialBackoff;
+
+    /**
+     * Upper bound of the backoff before any retry.
+     */
+    private final Duration maxBackoff;
+
+    /**
+     * Factor by which the upper bound of the backoff grows with every retry.
+     */
+    private final double backoffMultiplier;
+
+    /**
+     * Response statuses with which the server rejects a request it has not processed.
+     */
+    private final Set<Integer> retryableStatusCodes;
+
+    /**
+     * Maximum number of retries per request, averaged over the last 10 seconds.
+     */
+    private final double budgetRatio;
+
+    /**
+     * Number of retries per second that are allowed in addition to the {@link #budgetRatio}, so that a client with
+     * few requests can still retry.
+     */
+    private final double minRetriesPerSecond;
+
+    @Builder
+    private OllamaRetryPolicy(Integer maxAttempts, Duration initialBackoff, Duration maxBackoff, Double backoffMultiplier,
+                              Set<Integer> retryableStatusCodes, Double budgetRatio, Double minRetriesPerSecond) {
+        this.maxAttempts = maxAttempts != null ? maxAttempts : 3;
+        this.initialBackoff = initialBackoff != null ? initialBackoff : Duration.ofMillis(250);
+        this.maxBackoff = maxBackoff != null ? maxBackoff : Duration.ofSeconds(5);
+        this.backoffMultiplier = backoffMultiplier != null ? backoffMultiplier : 2;
+        this.retryableStatusCodes = retryableStatusCodes != null
+                ? Collections.unmodifiableSet(new HashSet<>(retryableStatusCodes))
+                : Set.of(429, 502, 503, 504);
+        this.budgetRatio = budgetRatio != null ? budgetRatio : 0.2;
+        this.minRetriesPerSecond = minRetriesPerSecond != null ? minRetriesPerSecond : 1;
+        if (this.maxAttempts < 1 || this.initialBackoff.isNegative() || this.maxBackoff.isNegative() || this.backoffMultiplier < 1
+                || this.budgetRatio < 0 || this.minRetriesPerSecond < 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive, backoffs, budgetRatio and minRetriesPerSecond must not be "
+                    + "negative and backoffMultiplier must be at least 1.");
+        }
+    }
+
+    /**
+     * @return the default policy: up to 3 attempts with a backoff of up to 250 ms, 500 ms, ...
+     */
+    public static OllamaRetryPolicy defaults() {
+        return OllamaRetryPolicy.builder().build();
+    }
+
+    /**
+     * @return policy that never retries
+     */
+    public static OllamaRetryPolicy none() {
+        return OllamaRetryPolicy.builder().maxAttempts(1).build();
+    }
+
+    /**
+     * @param retry number of the retry, starting at 1
+     * @return a random backoff between 0 and the upper bound for the retry
+     */
+    public Duration backoff(int retry) {
+        double bound = initialBackoff.toNanos() * Math.pow(backoffMultiplier, retry - 1);
+        long boundNanos = (long) Math.min(bound, maxBackoff.toNanos());
+        return Duration.ofNanos(boundNanos > 0 ? ThreadLocalRandom.current().nextLong(boundNanos + 1) : 0);
+    }
+}
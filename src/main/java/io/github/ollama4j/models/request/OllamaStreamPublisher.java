@@ -0,0 +1,367 @@
+package io.github.ollama4j.models.request;
+
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.exceptions.OllamaCircuitOpenException;
+import io.github.ollama4j.utils.NdJsonDecoder;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} of the parts of a streamed Ollama response.
+ * <p>
+ * The request is sent when a subscriber subscribes. Response bytes are only read from the connection while the
+ * subscriber has outstanding demand, so a slow subscriber slows down reading instead of buffering the whole response.
+ * Cancelling the subscription closes the HTTP stream, which makes the Ollama server stop generating. A response with
+ * an error status is signalled as {@link OllamaBaseException}, a cancellation via the request's
+ * {@link OllamaCancellationHandle} (e.g. an exceeded deadline) as {@link OllamaCancelledException}, and an open
+ * circuit breaker of the model as {@link OllamaCircuitOpenException}. The publisher supports a single subscriber.
+ *
+ * @param <T> the response part type
+ */
+public class OllamaStreamPublisher<T> implements Flow.Publisher<T> {
+
+    private final OllamaHttpTransport httpTransport;
+    private final HttpRequest request;
+    private final Class<T> responsePartType;
+    private final OllamaCancellationHandle cancellationHandle;
+    private final Callable<OllamaCircuitBreaker.Call> callAcquirer;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public OllamaStreamPublisher(OllamaHttpTransport httpTransport, HttpRequest request, Class<T> responsePartType) {
+        this(httpTransport, request, responsePartType, null);
+    }
+
+    public OllamaStreamPublisher(OllamaHttpTransport httpTransport, HttpRequest request, Class<T> responsePartType,
+                                 OllamaCancellationHandle cancellationHandle) {
+        this(httpTransport, request, responsePartType, cancellationHandle, () -> null);
+    }
+
+    /**
+     * @param callAcquirer starts the circuit breaker call of the request on subscription; returns null if the request
+     *                     is not tracked and throws an {@link OllamaCircuitOpenException} if the circuit is open
+     */
+    OllamaStreamPublisher(OllamaHttpTransport httpTransport, HttpRequest request, Class<T> responsePartType,
+                          OllamaCancellationHandle cancellationHandle, Callable<OllamaCircuitBreaker.Call> callAcquirer) {
+        this.httpTransport = httpTransport;
+        this.request = request;
+        this.responsePartType = responsePartType;
+        this.cancellationHandle = cancellationHandle;
+        this.callAcquirer = callAcquirer;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            reject(subscriber, new IllegalStateException("OllamaStreamPublisher supports a single subscriber."));
+            return;
+        }
+        OllamaCircuitBreaker.Call call;
+        try {
+            call = callAcquirer.call();
+        } catch (Exception e) {
+            reject(subscriber, e);
+            return;
+        }
+        StreamSubscription subscription = new StreamSubscription(subscriber, call);
+        subscriber.onSubscribe(subscription);
+        if (cancellationHandle != null) {
+            try {
+                subscription.registration = cancellationHandle.register(() -> subscription.abort(cancellationHandle.toException()));
+            } catch (OllamaCancelledException e) {
+                subscription.onError(e);
+                return;
+            }
+        }
+        CompletableFuture<HttpResponse<Void>> exchange = httpTransport.sendAsync(request, subscription::bodySubscriber);
+        subscription.exchange = exchange;
+        if (subscription.cancelled || subscription.upstreamDone) {
+            exchange.cancel(true);
+        }
+        exchange.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                subscription.onError(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        });
+    }
+
+    private static void reject(Flow.Subscriber<?> subscriber, Throwable error) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(error);
+    }
+
+    /**
+     * Bridges the body of the HTTP response to the downstream subscriber. All signals to the downstream subscriber are
+     * emitted from {@link #drain()}, which is never run concurrently.
+     */
+    private class StreamSubscription implements Flow.Subscription, HttpResponse.BodySubscriber<Void> {
+
+        private final Flow.Subscriber<? super T> downstream;
+        private final OllamaCircuitBreaker.Call call;
+        private final Queue<T> responseParts = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final CompletableFuture<Void> body = new CompletableFuture<>();
+
+        private volatile Flow.Subscription upstream;
+        private volatile CompletableFuture<HttpResponse<Void>> exchange;
+        private volatile OllamaCancellationHandle.Registration registration;
+        private volatile boolean awaitingChunk;
+        private volatile boolean upstreamDone;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        private int statusCode;
+        private NdJsonDecoder<T> decoder;
+        private ErrorResponseBody errorBody;
+        private boolean terminated;
+
+        StreamSubscription(Flow.Subscriber<? super T> downstream, OllamaCircuitBreaker.Call call) {
+            this.downstream = downstream;
+            this.call = call;
+        }
+
+        HttpResponse.BodySubscriber<Void> bodySubscriber(HttpResponse.ResponseInfo responseInfo) {
+            statusCode = responseInfo.statusCode();
+            return this;
+        }
+
+        // downstream subscription
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // rule 3.9 of reactive streams: signal the error, and stop the server from generating further parts
+                abort(new IllegalArgumentException("Demand must be positive, was " + n));
+                return;
+            }
+            requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        // upstream body subscriber
+
+        @Override
+        public CompletionStage<Void> getBody() {
+            return body;
+        }
+
+        /**
+         * Stops reading the response, which closes the connection, and signals the given error.
+         */
+        void abort(Throwable throwable) {
+            if (error == null) {
+                error = throwable;
+            }
+            upstreamDone = true;
+            cancelUpstream();
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (cancelled || upstreamDone) {
+                subscription.cancel();
+                return;
+            }
+            if (statusCode == 200) {
+                try {
+                    decoder = new NdJsonDecoder<>(responsePartType);
+                } catch (IOException e) {
+                    subscription.cancel();
+                    onError(e);
+                    return;
+                }
+            } else {
+                errorBody = new ErrorResponseBody(statusCode);
+            }
+            upstream = subscription;
+            drain();
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            try {
+                for (ByteBuffer chunk : chunks) {
+                    decode(chunk);
+                }
+            } catch (IOException e) {
+                upstream.cancel();
+                onError(e);
+                return;
+            }
+            awaitingChunk = false;
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (error == null) {
+                error = throwable;
+            }
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                decode(null);
+            } catch (IOException e) {
+                onError(e);
+                return;
+            }
+            if (statusCode != 200) {
+                onError(errorBody.toException());
+                return;
+            }
+            upstreamDone = true;
+            drain();
+        }
+
+        /**
+         * Decodes a chunk of the response body, or the end of the body if the chunk is null.
+         */
+        private void decode(ByteBuffer chunk) throws IOException {
+            if (decoder != null) {
+                if (chunk != null) {
+                    decoder.feed(chunk);
+                } else {
+                    decoder.endOfInput();
+                }
+                T responsePart;
+                while ((responsePart = decoder.next()) != null) {
+                    if (cancellationHandle != null) {
+                        cancellationHandle.firstTokenReceived();
+                    }
+                    if (call != null) {
+                        call.responseStarted();
+                    }
+                    responseParts.add(responsePart);
+                }
+            } else if (chunk != null && !errorBody.append(chunk)) {
+                // the rest of an overlong error body is not needed
+                upstream.cancel();
+                onError(errorBody.toException());
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    terminated = true;
+                    responseParts.clear();
+                    cancelUpstream();
+                    completeCall(new CancellationException());
+                } else if (terminated) {
+                    responseParts.clear();
+                } else {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            long emitted = 0;
+            long demand = requested.get();
+            while (emitted < demand && !cancelled) {
+                T responsePart = responseParts.poll();
+                if (responsePart == null) {
+                    break;
+                }
+                downstream.onNext(responsePart);
+                emitted++;
+            }
+            if (emitted > 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (cancelled) {
+                return;
+            }
+            if (upstreamDone && (responseParts.isEmpty() || error != null)) {
+                terminated = true;
+                responseParts.clear();
+                closeRegistration();
+                completeCall(error);
+                if (error != null) {
+                    body.completeExceptionally(error);
+                    downstream.onError(error);
+                } else {
+                    body.complete(null);
+                    downstream.onComplete();
+                }
+                return;
+            }
+            Flow.Subscription subscription = upstream;
+            if (subscription != null && !upstreamDone && !awaitingChunk && responseParts.isEmpty()
+                    && (requested.get() > 0 || statusCode != 200)) {
+                awaitingChunk = true;
+                subscription.request(1);
+            }
+        }
+
+        private void cancelUpstream() {
+            Flow.Subscription subscription = upstream;
+            // if the response has not arrived yet, onSubscribe cancels it as soon as it does
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            CompletableFuture<HttpResponse<Void>> pending = exchange;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+            body.complete(null);
+            closeRegistration();
+        }
+
+        /**
+         * Records the outcome of the request for the circuit breaker.
+         */
+        private void completeCall(Throwable throwable) {
+            if (call != null) {
+                call.complete(throwable);
+            }
+        }
+
+        private void closeRegistration() {
+            OllamaCancellationHandle.Registration current = registration;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.ollama4j.models.request;
+
+/**
+ * Limits the retries of a transport to a share of its requests over a sliding window of 10 seconds, so that a failing
+ * server does not receive several times the normal load from retries.
+ */
+class RetryBudget {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private final double ratio;
+    private final double minRetriesPerSecond;
+    private final long[] requests = new long[WINDOW_SECONDS];
+    private final long[] retries = new long[WINDOW_SECONDS];
+    private long currentSecond;
+
+    RetryBudget(double ratio, double minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.currentSecond = System.nanoTime() / 1_000_000_000L;
+    }
+
+    /**
+     * Records the first attempt of a request.
+     */
+    synchronized void recordRequest() {
+        requests[advance()]++;
+    }
+
+    /**
+     * Takes one retry from the budget.
+     *
+     * @return true if the budget allows another retry
+     */
+    synchronized boolean tryRetry() {
+        int bucket = advance();
+        long requestsInWindow = 0;
+        long retriesInWindow = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            requestsInWindow += requests[i];
+            retriesInWindow += retries[i];
+        }
+        if (retriesInWindow + 1 > ratio * requestsInWindow + minRetriesPerSecond * WINDOW_SECONDS) {
+            return false;
+        }
+        retries[bucket]++;
+        return true;
+    }
+
+    /**
+     * Clears the buckets of the seconds that have passed since the last call.
+     *
+     * @return the bucket of the current second
+     */
+    private int advance() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long elapsed = Math.min(second - currentSecond, WINDOW_SECONDS);
+        for (long i = 1; i <= elapsed; i++) {
+            int bucket = (int) Math.floorMod(currentSecond + i, (long) WINDOW_SECONDS);
+            requests[bucket] = 0;
+            retries[bucket] = 0;
+        }
+        currentSecond = Math.max(currentSecond, second);
+        return (int) Math.floorMod(currentSecond, (long) WINDOW_SECONDS);
+    }
+}
@@ -3,21 +3,22 @@ package io.github.ollama4j.models.response;
 import io.github.ollama4j.exceptions.OllamaBaseException;
 import io.github.ollama4j.models.generate.OllamaGenerateRequest;
 import io.github.ollama4j.models.generate.OllamaGenerateResponseModel;
+import io.github.ollama4j.models.request.OllamaCancellationHandle;
+import io.github.ollama4j.models.request.OllamaHttpTransport;
+import io.github.ollama4j.utils.NdJsonReader;
 import io.github.ollama4j.utils.Utils;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -26,6 +27,8 @@ public class OllamaAsyncResultStreamer extends Thread {
     private final HttpRequest.Builder requestBuilder;
     private final OllamaGenerateRequest ollamaRequestModel;
     private final OllamaResultStream stream = new OllamaResultStream();
+    private final OllamaHttpTransport httpTransport;
+    private final OllamaCancellationHandle cancellationHandle;
     private String completeResponse;
 
 
@@ -53,21 +56,90 @@ public class OllamaAsyncResultStreamer extends Thread {
     @Getter
     private long responseTime = 0;
 
+    @Setter(AccessLevel.NONE)
+    private volatile boolean running;
+
     public OllamaAsyncResultStreamer(
             HttpRequest.Builder requestBuilder,
             OllamaGenerateRequest ollamaRequestModel,
             long requestTimeoutSeconds) {
+        this(requestBuilder, ollamaRequestModel, requestTimeoutSeconds, null);
+    }
+
+    /**
+     * @param httpTransport the transport to send the request with, usually the one shared by all calls of an
+     *                      {@link io.github.ollama4j.OllamaAPI} instance, which is not closed by the streamer; if null,
+     *                      a transport is created for the request and closed when the stream ends
+     */
+    public OllamaAsyncResultStreamer(
+            HttpRequest.Builder requestBuilder,
+            OllamaGenerateRequest ollamaRequestModel,
+            long requestTimeoutSeconds,
+            OllamaHttpTransport httpTransport) {
         this.requestBuilder = requestBuilder;
+        this.httpTransport = httpTransport;
         this.ollamaRequestModel = ollamaRequestModel;
+        this.cancellationHandle = ollamaRequestModel != null && ollamaRequestModel.getCancellationHandle() != null
+                ? ollamaRequestModel.getCancellationHandle() : new OllamaCancellationHandle();
         this.completeResponse = "";
         this.stream.add("");
         this.requestTimeoutSeconds = requestTimeoutSeconds;
     }
 
+    /**
+     * Runs this streamer as a task of the given executor (e.g. one backed by virtual threads) instead of starting it as
+     * a dedicated platform thread. Use {@link #isRunning()} instead of {@link #isAlive()} to poll for completion.
+     *
+     * @param executor the executor to run the request on
+     */
+    public void start(Executor executor) {
+        running = true;
+        try {
+            executor.execute(this);
+        } catch (RuntimeException e) {
+            running = false;
+            throw e;
+        }
+    }
+
+    /**
+     * @return true while the request is in progress, regardless of whether it was started via {@link #start()} or
+     * {@link #start(Executor)}
+     */
+    public boolean isRunning() {
+        return running || isAlive();
+    }
+
+    /**
+     * Aborts the request. The response stream is closed right away, so that the server stops generating, and the
+     * streamer finishes as failed.
+     */
+    public void cancel() {
+        cancellationHandle.cancel();
+    }
+
     @Override
     public void run() {
+        running = true;
+        try {
+            stream();
+        } finally {
+            running = false;
+        }
+    }
+
+    private void stream() {
+        if (httpTransport != null) {
+            stream(httpTransport);
+            return;
+        }
+        try (OllamaHttpTransport transport = new OllamaHttpTransport()) {
+            stream(transport);
+        }
+    }
+
+    private void stream(OllamaHttpTransport transport) {
         ollamaRequestModel.setStream(true);
-        HttpClient httpClient = HttpClient.newHttpClient();
         try {
             long startTime = System.currentTimeMillis();
             HttpRequest request =
@@ -78,25 +150,24 @@ public class OllamaAsyncResultStreamer extends Thread {
                             .header("Content-Type", "application/json")
                             .timeout(Duration.ofSeconds(requestTimeoutSeconds))
                             .build();
-            HttpResponse<InputStream> response =
-                    httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<InputStream> response = transport.sendStreaming(request, cancellationHandle);
             int statusCode = response.statusCode();
             this.httpStatusCode = statusCode;
 
-            InputStream responseBodyStream = response.body();
-            try (BufferedReader reader =
-                         new BufferedReader(new InputStreamReader(responseBodyStream, StandardCharsets.UTF_8))) {
-                String line;
-                StringBuilder responseBuffer = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    if (statusCode == 404) {
-                        OllamaErrorResponse ollamaResponseModel =
-                                Utils.getObjectMapper().readValue(line, OllamaErrorResponse.class);
+            StringBuilder responseBuffer = new StringBuilder();
+            try (InputStream responseBodyStream = response.body()) {
+                if (statusCode == 404) {
+                    NdJsonReader<OllamaErrorResponse> reader = new NdJsonReader<>(responseBodyStream, OllamaErrorResponse.class);
+                    OllamaErrorResponse ollamaResponseModel;
+                    while ((ollamaResponseModel = reader.next()) != null) {
                         stream.add(ollamaResponseModel.getError());
                         responseBuffer.append(ollamaResponseModel.getError());
-                    } else {
-                        OllamaGenerateResponseModel ollamaResponseModel =
-                                Utils.getObjectMapper().readValue(line, OllamaGenerateResponseModel.class);
+                    }
+                } else {
+                    NdJsonReader<OllamaGenerateResponseModel> reader = new NdJsonReader<>(responseBodyStream, OllamaGenerateResponseModel.class);
+                    OllamaGenerateResponseModel ollamaResponseModel;
+                    while ((ollamaResponseModel = reader.next()) != null) {
+                        cancellationHandle.firstTokenReceived();
                         String res = ollamaResponseModel.getResponse();
                         stream.add(res);
                         if (!ollamaResponseModel.isDone()) {
@@ -109,6 +180,11 @@ public class OllamaAsyncResultStreamer extends Thread {
                 this.completeResponse = responseBuffer.toString();
                 long endTime = System.currentTimeMillis();
                 responseTime = endTime - startTime;
+            } catch (IOException e) {
+                if (cancellationHandle.isCancelled()) {
+                    throw cancellationHandle.toException();
+                }
+                throw e;
             }
             if (statusCode != 200) {
                 throw new OllamaBaseException(this.completeResponse);
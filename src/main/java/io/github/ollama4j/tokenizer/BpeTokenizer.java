@@ -0,0 +1,306 @@
+package io.github.ollama4j.tokenizer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.ollama4j.utils.Utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Byte-level BPE tokenizer as used by GPT-2 and most current models (e.g. Llama 3, Qwen, Mistral Nemo), loaded from a
+ * model's vocabulary and merges.
+ * <p>
+ * Text is split into pieces with the model's pre-tokenization pattern; the UTF-8 bytes of every piece are then merged
+ * pairwise in the order of the merge list. The tokens of a piece are cached, so the common words of a text are only
+ * merged once. Special tokens of chat templates are not recognized in the text.
+ */
+public class BpeTokenizer implements Tokenizer {
+
+    /**
+     * Pre-tokenization pattern of GPT-2, used if a tokenizer file does not specify one.
+     */
+    public static final Pattern GPT2_PATTERN = Pattern.compile("'s|'t|'re|'ve|'m|'ll|'d| ?\\p{L}+| ?\\p{N}+| ?[^\\s\\p{L}\\p{N}]+|\\s+(?!\\S)|\\s+");
+
+    private static final int MAX_CACHED_PIECES = 100_000;
+
+    private final Pattern pattern;
+    private final int vocabularySize;
+    private final int[] byteTokens = new int[256];
+    private final MergeTable merges;
+    private final Map<String, int[]> cache = new ConcurrentHashMap<>();
+
+    private BpeTokenizer(Map<String, Integer> vocabulary, List<String[]> mergePairs, Pattern pattern) throws IOException {
+        this.pattern = pattern;
+        this.vocabularySize = vocabulary.size();
+        char[] byteChars = byteToUnicode();
+        for (int b = 0; b < 256; b++) {
+            Integer token = vocabulary.get(String.valueOf(byteChars[b]));
+            if (token == null) {
+                throw new IOException("Not a byte-level BPE vocabulary, it has no token for byte " + b);
+            }
+            byteTokens[b] = token;
+        }
+        this.merges = new MergeTable(mergePairs.size());
+        int rank = 0;
+        for (String[] pair : mergePairs) {
+            Integer left = vocabulary.get(pair[0]);
+            Integer right = vocabulary.get(pair[1]);
+            Integer merged = vocabulary.get(pair[0] + pair[1]);
+            if (left != null && right != null && merged != null) {
+                merges.put(left, right, rank, merged);
+            }
+            rank++;
+        }
+    }
+
+    /**
+     * Loads a tokenizer from a Hugging Face {@code tokenizer.json}. The pre-tokenization pattern is taken from the
+     * file if it contains one.
+     *
+     * @param tokenizerJson path of the {@code tokenizer.json}
+     * @return the tokenizer
+     * @throws IOException if the file cannot be read or does not describe a byte-level BPE model
+     */
+    public static BpeTokenizer fromHuggingFace(Path tokenizerJson) throws IOException {
+        JsonNode root = Utils.getObjectMapper().readTree(tokenizerJson.toFile());
+        JsonNode model = root.path("model");
+        if (model.has("type") && !"BPE".equals(model.path("type").asText())) {
+            throw new IOException("Not a BPE tokenizer: " + model.path("type").asText());
+        }
+        Map<String, Integer> vocabulary = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> tokens = model.path("vocab").fields(); tokens.hasNext(); ) {
+            Map.Entry<String, JsonNode> token = tokens.next();
+            vocabulary.put(token.getKey(), token.getValue().asInt());
+        }
+        List<String[]> mergePairs = new ArrayList<>();
+        for (JsonNode merge : model.path("merges")) {
+            // older files list merges as "left right", newer ones as ["left", "right"]
+            String[] pair = merge.isArray() ? new String[]{merge.path(0).asText(), merge.path(1).asText()} : splitMerge(merge.asText());
+            if (pair != null) {
+                mergePairs.add(pair);
+            }
+        }
+        Pattern pattern = GPT2_PATTERN;
+        JsonNode regex = root.path("pre_tokenizer").findValue("Regex");
+        if (regex != null) {
+            try {
+                pattern = Pattern.compile(regex.asText());
+            } catch (PatternSyntaxException e) {
+                throw new IOException("Unsupported pre-tokenization pattern: " + regex.asText(), e);
+            }
+        }
+        return new BpeTokenizer(vocabulary, mergePairs, pattern);
+    }
+
+    /**
+     * Loads a tokenizer from a GPT-2 style {@code vocab.json} and {@code merges.txt}, splitting text with the
+     * {@link #GPT2_PATTERN}.
+     *
+     * @param vocabJson path of the {@code vocab.json}, mapping tokens to ids
+     * @param mergesTxt path of the {@code merges.txt}, one merge per line in order of priority
+     * @return the tokenizer
+     * @throws IOException if the files cannot be read or do not describe a byte-level BPE model
+     */
+    public static BpeTokenizer fromVocabAndMerges(Path vocabJson, Path mergesTxt) throws IOException {
+        return fromVocabAndMerges(vocabJson, mergesTxt, GPT2_PATTERN);
+    }
+
+    /**
+     * Loads a tokenizer from a GPT-2 style {@code vocab.json} and {@code merges.txt}.
+     *
+     * @param vocabJson path of the {@code vocab.json}, mapping tokens to ids
+     * @param mergesTxt path of the {@code merges.txt}, one merge per line in order of priority
+     * @param pattern   the model's pre-tokenization pattern
+     * @return the tokenizer
+     * @throws IOException if the files cannot be read or do not describe a byte-level BPE model
+     */
+    public static BpeTokenizer fromVocabAndMerges(Path vocabJson, Path mergesTxt, Pattern pattern) throws IOException {
+        Map<String, Integer> vocabulary = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> tokens = Utils.getObjectMapper().readTree(vocabJson.toFile()).fields(); tokens.hasNext(); ) {
+            Map.Entry<String, JsonNode> token = tokens.next();
+            vocabulary.put(token.getKey(), token.getValue().asInt());
+        }
+        List<String[]> mergePairs = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(mergesTxt, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] pair = line.startsWith("#version") ? null : splitMerge(line);
+                if (pair != null) {
+                    mergePairs.add(pair);
+                }
+            }
+        }
+        return new BpeTokenizer(vocabulary, mergePairs, pattern);
+    }
+
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    /**
+     * @param text the text to tokenize
+     * @return the ids of the tokens of the text
+     */
+    public int[] encode(CharSequence text) {
+        int[] ids = new int[Math.max(16, text.length() / 3)];
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            int[] pieceTokens = tokensOf(text.subSequence(matcher.start(), matcher.end()).toString());
+            if (count + pieceTokens.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, count + pieceTokens.length));
+            }
+            System.arraycopy(pieceTokens, 0, ids, count, pieceTokens.length);
+            count += pieceTokens.length;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            count += tokensOf(text.subSequence(matcher.start(), matcher.end()).toString()).length;
+        }
+        return count;
+    }
+
+    private int[] tokensOf(String piece) {
+        int[] tokens = cache.get(piece);
+        if (tokens == null) {
+            tokens = merge(piece.getBytes(StandardCharsets.UTF_8));
+            if (cache.size() >= MAX_CACHED_PIECES) {
+                cache.clear();
+            }
+            cache.put(piece, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Applies the merges to the bytes of a piece, always merging the adjacent pair with the lowest rank first.
+     */
+    private int[] merge(byte[] bytes) {
+        int[] symbols = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            symbols[i] = byteTokens[bytes[i] & 0xff];
+        }
+        int length = symbols.length;
+        while (length > 1) {
+            int bestRank = Integer.MAX_VALUE;
+            int bestIndex = -1;
+            int bestToken = 0;
+            for (int i = 0; i < length - 1; i++) {
+                long merge = merges.get(symbols[i], symbols[i + 1]);
+                if (merge != MergeTable.MISSING && (int) (merge >>> 32) < bestRank) {
+                    bestRank = (int) (merge >>> 32);
+                    bestIndex = i;
+                    bestToken = (int) merge;
+                }
+            }
+            if (bestIndex < 0) {
+                break;
+            }
+            symbols[bestIndex] = bestToken;
+            System.arraycopy(symbols, bestIndex + 2, symbols, bestIndex + 1, length - bestIndex - 2);
+            length--;
+        }
+        return length == symbols.length ? symbols : Arrays.copyOf(symbols, length);
+    }
+
+    private static String[] splitMerge(String merge) {
+        int separator = merge.indexOf(' ', 1);
+        if (merge.isEmpty() || separator < 0) {
+            return null;
+        }
+        return new String[]{merge.substring(0, separator), merge.substring(separator + 1)};
+    }
+
+    /**
+     * The mapping of GPT-2 from bytes to printable characters, which byte-level vocabularies are written in.
+     */
+    private static char[] byteToUnicode() {
+        char[] chars = new char[256];
+        int next = 256;
+        for (int b = 0; b < 256; b++) {
+            boolean printable = (b >= '!' && b <= '~') || (b >= 0xA1 && b <= 0xAC) || (b >= 0xAE && b <= 0xFF);
+            chars[b] = (char) (printable ? b : next++);
+        }
+        return chars;
+    }
+
+    /**
+     * Open addressing hash table from a pair of token ids to the rank of their merge and the merged token.
+     */
+    private static class MergeTable {
+
+        static final long MISSING = -1;
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final long[] values;
+        private final int mask;
+
+        MergeTable(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            mask = capacity - 1;
+        }
+
+        void put(int left, int right, int rank, int merged) {
+            long key = key(left, right);
+            int slot = slot(key);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                // the first listed merge of a pair takes precedence
+                keys[slot] = key;
+                values[slot] = ((long) rank << 32) | (merged & 0xffffffffL);
+            }
+        }
+
+        /**
+         * @return the rank in the upper and the merged token in the lower 32 bits, or {@link #MISSING}
+         */
+        long get(int left, int right) {
+            long key = key(left, right);
+            int slot = slot(key);
+            while (true) {
+                long current = keys[slot];
+                if (current == key) {
+                    return values[slot];
+                }
+                if (current == EMPTY) {
+                    return MISSING;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static long key(int left, int right) {
+            return ((long) left << 32) | (right & 0xffffffffL);
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+}
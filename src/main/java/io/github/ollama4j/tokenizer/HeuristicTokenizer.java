@@ -0,0 +1,41 @@
+package io.github.ollama4j.tokenizer;
+
+/**
+ * Estimates token counts without a vocabulary, in a single pass over the text.
+ * <p>
+ * Every run of letters or digits counts as one token per started four characters, every other visible character as
+ * one token, and characters outside the Latin scripts (e.g. CJK) as one token each. Whitespace is assumed to be merged
+ * into the following token. For English text this is usually within 10 to 20 percent of the count of common BPE
+ * vocabularies; use a {@link BpeTokenizer} when exact counts are needed.
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    public static final HeuristicTokenizer INSTANCE = new HeuristicTokenizer();
+
+    private static final int CHARACTERS_PER_TOKEN = 4;
+
+    @Override
+    public int countTokens(CharSequence text) {
+        int tokens = 0;
+        int runLength = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80 ? isAsciiLetterOrDigit(c) : c < 0x2E80 && Character.isLetterOrDigit(c)) {
+                runLength++;
+                continue;
+            }
+            if (runLength > 0) {
+                tokens += (runLength + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+                runLength = 0;
+            }
+            if (!Character.isWhitespace(c) && !Character.isLowSurrogate(c)) {
+                tokens++;
+            }
+        }
+        return tokens + (runLength + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
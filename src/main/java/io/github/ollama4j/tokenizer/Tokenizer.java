@@ -0,0 +1,56 @@
+package io.github.ollama4j.tokenizer;
+
+import io.github.ollama4j.models.chat.OllamaChatMessage;
+import io.github.ollama4j.models.generate.OllamaGenerateRequest;
+
+import java.util.List;
+
+/**
+ * Counts the tokens of text on the client, e.g. to size {@code num_ctx} or to trim a chat history without asking the
+ * server. Implementations must be thread-safe.
+ *
+ * @see Tokenizers#forModel(String)
+ */
+public interface Tokenizer {
+
+    /**
+     * Tokens a typical chat template adds around every message for its role markers.
+     */
+    int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * @param text the text to count the tokens of
+     * @return the number of tokens of the text
+     */
+    int countTokens(CharSequence text);
+
+    /**
+     * @return the number of tokens of the content of the message plus the overhead of the chat template; images are
+     * not counted
+     */
+    default int countMessageTokens(OllamaChatMessage message) {
+        return MESSAGE_OVERHEAD_TOKENS + countTokens(message.getContent());
+    }
+
+    /**
+     * @return the number of tokens of all messages of a chat history
+     */
+    default int countHistoryTokens(List<OllamaChatMessage> messages) {
+        int tokens = 0;
+        for (OllamaChatMessage message : messages) {
+            tokens += countMessageTokens(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the number of tokens of the prompt and the system prompt of a generate request
+     */
+    default int countPromptTokens(OllamaGenerateRequest request) {
+        int tokens = request.getPrompt() != null ? countTokens(request.getPrompt()) : 0;
+        if (request.getSystem() != null) {
+            tokens += MESSAGE_OVERHEAD_TOKENS + countTokens(request.getSystem());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.ollama4j.tokenizer;
+
+/**
+ * Service provider of tokenizers, registered in {@code META-INF/services/io.github.ollama4j.tokenizer.TokenizerProvider}
+ * and looked up by {@link Tokenizers#forModel(String)}.
+ */
+public interface TokenizerProvider {
+
+    /**
+     * @param model name of the model, e.g. {@code llama3.1:8b}
+     * @return the tokenizer of the model, or null if this provider does not know the model
+     */
+    Tokenizer forModel(String model);
+}
@@ -0,0 +1,69 @@
+package io.github.ollama4j.tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the tokenizers of models.
+ * <p>
+ * {@link #forModel(String)} returns the tokenizer {@link #register(String, Tokenizer) registered} for the model, else
+ * the first tokenizer a {@link TokenizerProvider} found by the {@link ServiceLoader} offers, else the
+ * {@link HeuristicTokenizer}. A tokenizer registered for a model name without tag (e.g. {@code llama3}) is used for
+ * all tags of the model (e.g. {@code llama3:8b}).
+ */
+public final class Tokenizers {
+
+    private static final Map<String, Tokenizer> REGISTERED = new ConcurrentHashMap<>();
+
+    private static volatile List<TokenizerProvider> providers;
+
+    private Tokenizers() {
+    }
+
+    /**
+     * Registers the tokenizer of a model, e.g. a {@link BpeTokenizer} loaded from the model's tokenizer files.
+     *
+     * @param model     name of the model, with or without tag
+     * @param tokenizer the tokenizer of the model
+     */
+    public static void register(String model, Tokenizer tokenizer) {
+        REGISTERED.put(model, tokenizer);
+    }
+
+    /**
+     * @param model name of the model
+     * @return the tokenizer of the model, or the {@link HeuristicTokenizer} if none is known
+     */
+    public static Tokenizer forModel(String model) {
+        Tokenizer tokenizer = REGISTERED.get(model);
+        int tagStart = model.indexOf(':');
+        if (tokenizer == null && tagStart >= 0) {
+            tokenizer = REGISTERED.get(model.substring(0, tagStart));
+        }
+        if (tokenizer != null) {
+            return tokenizer;
+        }
+        for (TokenizerProvider provider : providers()) {
+            tokenizer = provider.forModel(model);
+            if (tokenizer != null) {
+                return tokenizer;
+            }
+        }
+        return HeuristicTokenizer.INSTANCE;
+    }
+
+    private static List<TokenizerProvider> providers() {
+        List<TokenizerProvider> loaded = providers;
+        if (loaded == null) {
+            loaded = new ArrayList<>();
+            for (TokenizerProvider provider : ServiceLoader.load(TokenizerProvider.class)) {
+                loaded.add(provider);
+            }
+            providers = loaded;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.ollama4j.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import io.github.ollama4j.models.chat.OllamaChatMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes chat messages from their {@link OllamaChatMessage#getCachedJson(com.fasterxml.jackson.databind.SerializationConfig)
+ * cached JSON}, so the history of a chat is copied into the request body instead of being serialized again for every
+ * turn. The cached JSON is written by {@link Utils#getObjectMapper()}; output of writers with a different config, e.g.
+ * other inclusion rules, and pretty printed output are serialized as usual.
+ */
+public class ChatMessageSerializer extends JsonSerializer<OllamaChatMessage> {
+
+    @Override
+    public void serialize(OllamaChatMessage message, JsonGenerator jsonGenerator, SerializerProvider serializers) throws IOException {
+        // the cached JSON is compact, so pretty printed output (e.g. of toString) is serialized as usual
+        byte[] json = jsonGenerator.getPrettyPrinter() == null ? message.getCachedJson(serializers.getConfig()) : null;
+        if (json == null) {
+            serializers.defaultSerializeValue(message, jsonGenerator);
+        } else {
+            jsonGenerator.writeRawValue(new RawJson(json));
+        }
+    }
+
+    /**
+     * UTF-8 encoded JSON, which a UTF-8 generator copies into its output buffer as is. Only generators writing
+     * characters (e.g. for {@code writeValueAsString}) decode it into a {@code String}.
+     */
+    private static class RawJson implements SerializableString {
+
+        private final byte[] utf8;
+
+        RawJson(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public String getValue() {
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return JsonStringEncoder.getInstance().quoteAsString(getValue());
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return utf8;
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return append(asQuotedUTF8(), buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            char[] quoted = asQuotedChars();
+            if (offset + quoted.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(quoted, 0, buffer, offset, quoted.length);
+            return quoted.length;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            return append(utf8, buffer, offset);
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String value = getValue();
+            if (offset + value.length() > buffer.length) {
+                return -1;
+            }
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            byte[] quoted = asQuotedUTF8();
+            out.write(quoted);
+            return quoted.length;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            return put(asQuotedUTF8(), buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            return put(utf8, buffer);
+        }
+
+        private static int append(byte[] source, byte[] buffer, int offset) {
+            if (offset + source.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(source, 0, buffer, offset, source.length);
+            return source.length;
+        }
+
+        private static int put(byte[] source, ByteBuffer buffer) {
+            if (source.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(source);
+            return source.length;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.ollama4j.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Deserializes an array of number arrays, like the {@code embeddings} of an '/api/embed' response, into an
+ * {@link EmbeddingMatrix}. Numbers are read straight from the parser into a growing {@code float[]}, so no
+ * {@link Double} or list is allocated per value.
+ */
+public class EmbeddingMatrixDeserializer extends JsonDeserializer<EmbeddingMatrix> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @Override
+    public EmbeddingMatrix deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            return (EmbeddingMatrix) context.handleUnexpectedToken(EmbeddingMatrix.class, parser);
+        }
+        float[] data = new float[INITIAL_CAPACITY];
+        int size = 0;
+        int rows = 0;
+        int dimensions = -1;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_ARRAY) {
+                return (EmbeddingMatrix) context.handleUnexpectedToken(EmbeddingMatrix.class, parser);
+            }
+            int rowStart = size;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                    return (EmbeddingMatrix) context.handleUnexpectedToken(float.class, parser);
+                }
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                data[size++] = parser.getFloatValue();
+            }
+            int rowLength = size - rowStart;
+            if (dimensions == -1) {
+                dimensions = rowLength;
+            } else if (rowLength != dimensions) {
+                return context.reportInputMismatch(EmbeddingMatrix.class,
+                        "Embedding %d has %d dimensions, expected %d", rows, rowLength, dimensions);
+            }
+            rows++;
+        }
+        return new EmbeddingMatrix(size == data.length ? data : Arrays.copyOf(data, size), rows, Math.max(dimensions, 0));
+    }
+}
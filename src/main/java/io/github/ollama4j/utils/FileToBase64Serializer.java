@@ -1,21 +1,35 @@
 package io.github.ollama4j.utils;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.io.InputStream;
 import java.util.Collection;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
-public class FileToBase64Serializer extends JsonSerializer<Collection<byte[]>> {
+import io.github.ollama4j.models.request.OllamaImageSource;
+
+/**
+ * Writes images as an array of base64 strings. Raw images ({@code byte[]} and {@link OllamaImageSource}) are encoded
+ * directly into the output of the generator in chunks; strings are expected to be base64-encoded already.
+ */
+public class FileToBase64Serializer extends JsonSerializer<Collection<?>> {
 
     @Override
-    public void serialize(Collection<byte[]> value, JsonGenerator jsonGenerator, SerializerProvider serializers) throws IOException {
+    public void serialize(Collection<?> value, JsonGenerator jsonGenerator, SerializerProvider serializers) throws IOException {
         jsonGenerator.writeStartArray();
-        for (byte[] file : value) {
-            jsonGenerator.writeString(Base64.getEncoder().encodeToString(file));
+        for (Object image : value) {
+            if (image instanceof byte[]) {
+                jsonGenerator.writeBinary((byte[]) image);
+            } else if (image instanceof OllamaImageSource) {
+                try (InputStream in = ((OllamaImageSource) image).openStream()) {
+                    jsonGenerator.writeBinary(in, -1);
+                }
+            } else {
+                jsonGenerator.writeString((String) image);
+            }
         }
         jsonGenerator.writeEndArray();
     }
-}
\ No newline at end of file
+}
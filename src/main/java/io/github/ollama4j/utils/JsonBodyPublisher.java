@@ -0,0 +1,305 @@
+package io.github.ollama4j.utils;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HttpRequest.BodyPublisher} that writes the JSON representation of a value straight into the buffers handed
+ * to the HTTP client.
+ * <p>
+ * {@link java.net.http.HttpRequest.BodyPublishers#ofString(String)} needs the request as a {@code String} and then
+ * encodes it into a second, equally large {@code byte[]}. This publisher lets Jackson write UTF-8 into fixed-size
+ * chunks instead, while the HTTP client sends them: a writer task on the given executor serializes the value once the
+ * client asks for data, and blocks whenever {@link #MAX_QUEUED_CHUNKS} chunks wait to be taken. The memory needed for
+ * a request is thereby bounded by a few chunks, whatever the size of the chat history or of the images streamed from an
+ * {@link io.github.ollama4j.models.request.OllamaImageSource}, and reading image files does not block the threads of
+ * the HTTP client. The value is serialized anew for every subscription, i.e. for every attempt to send the request,
+ * and sent with chunked transfer encoding.
+ * <p>
+ * Without an executor the value is serialized on the thread that first asks for data, and all of its chunks are
+ * queued at once, like {@link java.net.http.HttpRequest.BodyPublishers#ofByteArray(byte[])} would hold them.
+ */
+public class JsonBodyPublisher implements HttpRequest.BodyPublisher {
+
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * Number of serialized chunks that may wait for the HTTP client before the writer task blocks.
+     */
+    static final int MAX_QUEUED_CHUNKS = 4;
+
+    private final Object value;
+    private final ObjectWriter writer;
+    private final Executor executor;
+
+    public JsonBodyPublisher(Object value) {
+        this(value, Utils.getObjectMapper().writer(), null);
+    }
+
+    public JsonBodyPublisher(Object value, Executor executor) {
+        this(value, Utils.getObjectMapper().writer(), executor);
+    }
+
+    public JsonBodyPublisher(Object value, ObjectWriter writer) {
+        this(value, writer, null);
+    }
+
+    /**
+     * @param value    the value to write
+     * @param writer   the writer to serialize the value with
+     * @param executor the executor running the writer task, usually the one of the
+     *                 {@link io.github.ollama4j.models.request.OllamaHttpTransport} sending the request; null to
+     *                 serialize the value on the thread that first asks for data
+     */
+    public JsonBodyPublisher(Object value, ObjectWriter writer, Executor executor) {
+        this.value = value;
+        this.writer = writer;
+        this.executor = executor;
+    }
+
+    /**
+     * @return -1, as the length is only known once the value has been serialized
+     */
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+
+    /**
+     * Starts the writer task on the first request for data and emits the chunks it produces as demanded. All signals
+     * are emitted from {@link #drain()}, which is never run concurrently.
+     */
+    private class ChunkSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        /**
+         * Free places in the queue of chunks, or null if the value is serialized on the subscriber's thread, which
+         * must not wait for itself to take a chunk.
+         */
+        private final Semaphore freeSlots = executor != null ? new Semaphore(MAX_QUEUED_CHUNKS) : null;
+
+        private volatile boolean cancelled;
+        private volatile boolean written;
+        private volatile Throwable error;
+
+        private boolean started;
+        private boolean terminated;
+
+        ChunkSubscription(Flow.Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand must be positive, was " + n);
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            // wake up a writer waiting for a free slot, so it sees the cancellation
+            releaseSlots(MAX_QUEUED_CHUNKS);
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled || terminated) {
+                    chunks.clear();
+                } else {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (error != null) {
+                terminate(error);
+                return;
+            }
+            long demand = requested.get();
+            if (demand == 0) {
+                return;
+            }
+            if (!started) {
+                started = true;
+                if (executor == null) {
+                    write();
+                    if (error != null) {
+                        terminate(error);
+                        return;
+                    }
+                } else {
+                    try {
+                        executor.execute(this::write);
+                    } catch (RejectedExecutionException e) {
+                        terminate(e);
+                        return;
+                    }
+                }
+            }
+            // read before polling: once the writer is done, all of its chunks are in the queue
+            boolean complete = written;
+            long emitted = 0;
+            while (emitted < demand && !cancelled) {
+                ByteBuffer chunk = chunks.poll();
+                if (chunk == null) {
+                    break;
+                }
+                releaseSlots(1);
+                downstream.onNext(chunk);
+                emitted++;
+            }
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (!cancelled && complete && chunks.isEmpty()) {
+                terminate(null);
+            }
+        }
+
+        private void terminate(Throwable throwable) {
+            terminated = true;
+            // stop a writer that is still running, e.g. after an invalid request for data
+            cancelled = true;
+            releaseSlots(MAX_QUEUED_CHUNKS);
+            chunks.clear();
+            if (throwable != null) {
+                downstream.onError(throwable);
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+        private void releaseSlots(int slots) {
+            if (freeSlots != null) {
+                freeSlots.release(slots);
+            }
+        }
+
+        /**
+         * Serializes the value on the writer thread, or on the subscriber's thread without an executor, see
+         * {@link ChunkOutputStream}.
+         */
+        private void write() {
+            try (ChunkOutputStream out = new ChunkOutputStream(this)) {
+                writer.writeValue(out, value);
+            } catch (IOException | RuntimeException e) {
+                if (!cancelled) {
+                    error = e;
+                }
+                drain();
+                return;
+            }
+            written = true;
+            drain();
+        }
+
+        /**
+         * Hands a full chunk to the subscriber, waiting while {@link #MAX_QUEUED_CHUNKS} chunks have not been taken.
+         *
+         * @throws IOException if the subscription has been cancelled, to abort the serialization
+         */
+        void offer(ByteBuffer chunk) throws IOException {
+            if (freeSlots != null) {
+                try {
+                    freeSlots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while writing the request body.");
+                }
+            }
+            if (cancelled) {
+                throw new IOException("The request body subscription has been cancelled.");
+            }
+            chunks.offer(chunk);
+            drain();
+        }
+    }
+
+    /**
+     * Output stream handing the written bytes to a {@link ChunkSubscription} in chunks of {@link #CHUNK_SIZE} bytes.
+     */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private final ChunkSubscription subscription;
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int position;
+
+        ChunkOutputStream(ChunkSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position == chunk.length) {
+                nextChunk();
+            }
+            chunk[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (position == chunk.length) {
+                    nextChunk();
+                }
+                int n = Math.min(length, chunk.length - position);
+                System.arraycopy(bytes, offset, chunk, position, n);
+                position += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * Hands over the last, partly filled chunk. Closing the stream again, as Jackson does when it finishes the
+         * value, has no effect.
+         */
+        @Override
+        public void close() throws IOException {
+            if (chunk != null && position > 0) {
+                subscription.offer(ByteBuffer.wrap(chunk, 0, position));
+            }
+            chunk = null;
+            position = 0;
+        }
+
+        private void nextChunk() throws IOException {
+            subscription.offer(ByteBuffer.wrap(chunk));
+            chunk = new byte[CHUNK_SIZE];
+            position = 0;
+        }
+    }
+}
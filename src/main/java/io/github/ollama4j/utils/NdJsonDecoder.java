@@ -0,0 +1,74 @@
+package io.github.ollama4j.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking counterpart of {@link NdJsonReader} for newline delimited JSON arriving in arbitrary byte chunks, e.g.
+ * from an asynchronous HTTP body subscriber.
+ * <p>
+ * The bytes are tokenized once by a non-blocking {@link JsonParser} that keeps its state across chunks, so an object
+ * may span any number of chunks. The tokens of an object are collected until it is complete and then bound to the
+ * value type.
+ *
+ * @param <T> the type every JSON object of the stream is deserialized to
+ */
+public class NdJsonDecoder<T> {
+
+    private final ObjectReader reader;
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private TokenBuffer pendingValue;
+
+    public NdJsonDecoder(Class<T> valueType) throws IOException {
+        this.reader = Utils.getObjectMapper().readerFor(valueType);
+        this.parser = reader.getFactory().createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next chunk of bytes. All values decodable so far have to be taken with {@link #next()} before the next
+     * chunk can be fed.
+     *
+     * @param chunk the bytes, which are consumed by subsequent calls of {@link #next()}
+     * @throws IOException if the previous chunk has not been consumed yet
+     */
+    public void feed(ByteBuffer chunk) throws IOException {
+        feeder.feedInput(chunk);
+    }
+
+    /**
+     * Signals that no further bytes will be fed.
+     */
+    public void endOfInput() {
+        feeder.endOfInput();
+    }
+
+    /**
+     * @return the next complete value, or null if more input is needed (or the end of input has been reached)
+     * @throws IOException if the input holds malformed JSON
+     */
+    public T next() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (pendingValue == null) {
+                pendingValue = new TokenBuffer(parser);
+            }
+            pendingValue.copyCurrentEvent(parser);
+            if (parser.getParsingContext().inRoot()) {
+                TokenBuffer value = pendingValue;
+                pendingValue = null;
+                try (JsonParser valueParser = value.asParser(parser.getCodec())) {
+                    return reader.readValue(valueParser);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.ollama4j.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Blocking reader for newline delimited JSON (NDJSON) streams as returned by the streaming endpoints of Ollama.
+ * <p>
+ * A single {@link JsonParser} runs directly over the bytes of the stream, so every object is parsed exactly once
+ * and the parser's buffers are reused for all objects, instead of decoding every line into a {@link String} first.
+ *
+ * @param <T> the type every JSON object of the stream is deserialized to
+ */
+public class NdJsonReader<T> implements Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+
+    public NdJsonReader(InputStream inputStream, Class<T> valueType) throws IOException {
+        this.reader = Utils.getObjectMapper().readerFor(valueType);
+        this.parser = reader.getFactory().createParser(inputStream);
+    }
+
+    /**
+     * @return the next object of the stream, or null if the end of the stream has been reached
+     * @throws IOException if the stream cannot be read or holds malformed JSON
+     */
+    public T next() throws IOException {
+        if (parser.nextToken() == null) {
+            return null;
+        }
+        return reader.readValue(parser);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -1,28 +1,36 @@
 package io.github.ollama4j.utils;
 
 import java.net.http.HttpRequest.BodyPublisher;
-import java.net.http.HttpRequest.BodyPublishers;
+import java.util.concurrent.Executor;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.core.JsonProcessingException;
 
 /**
- * Interface to represent a OllamaRequest as HTTP-Request Body via {@link BodyPublishers}.
+ * Interface to represent a OllamaRequest as HTTP-Request Body via a {@link JsonBodyPublisher}.
  */
 public interface OllamaRequestBody {
     
     /**
-     * Transforms the OllamaRequest Object to a JSON Object via Jackson.
+     * Creates a publisher that writes the JSON representation of the OllamaRequest via Jackson when the request is
+     * sent.
      * 
-     * @return JSON representation of a OllamaRequest
+     * @return publisher of the JSON representation of a OllamaRequest
      */
     @JsonIgnore
     default BodyPublisher getBodyPublisher(){
-                try {
-          return BodyPublishers.ofString(
-                      Utils.getObjectMapper().writeValueAsString(this));
-        } catch (JsonProcessingException e) {
-          throw new IllegalArgumentException("Request not Body convertible.",e);
-        }
+        return new JsonBodyPublisher(this);
+    }
+
+    /**
+     * Creates a publisher that writes the JSON representation of the OllamaRequest via Jackson on the given executor
+     * while the request is sent.
+     *
+     * @param executor the executor running the writer task, usually
+     *                 {@link io.github.ollama4j.models.request.OllamaHttpTransport#getBodyWriterExecutor()}
+     * @return publisher of the JSON representation of a OllamaRequest
+     */
+    @JsonIgnore
+    default BodyPublisher getBodyPublisher(Executor executor) {
+        return new JsonBodyPublisher(this, executor);
     }
 }
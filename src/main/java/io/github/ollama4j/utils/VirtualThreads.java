@@ -0,0 +1,48 @@
+package io.github.ollama4j.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads (JDK 21+) while the library itself stays compatible with Java 11.
+ */
+public class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookupFactoryMethod();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return the executor, to be shut down by the caller
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later, running on " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor.", e);
+        }
+    }
+
+    private static Method lookupFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.ollama4j.vectorstore;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary embedding files written by {@link EmbeddingFileWriter} and read by {@link EmbeddingFileReader}.
+ * All values are little-endian.
+ * <pre>
+ * offset  size  content
+ *      0     4  magic "OEMB"
+ *      4     4  format version
+ *      8     4  dimensions
+ *     12     4  length of the model name in bytes
+ *     16     8  number of rows
+ *     24     8  offset of the id table, 0 until the first checkpoint
+ *     32     n  model name (UTF-8), padded with zeros to a multiple of 8 bytes
+ *      …        rows: dimensions float32 values each
+ *      …        id table: per row its id (int64) and the file offset of the row (int64)
+ * </pre>
+ * Every checkpoint of the writer appends a new id table after the rows written since the previous one and then
+ * switches the row count and table offset of the header to it. The rows of later checkpoints therefore follow the
+ * tables of earlier ones, which stay in the file unused, and readers locate rows by their offsets in the table.
+ */
+final class EmbeddingFileFormat {
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int MAGIC = 0x424d454f; // "OEMB" in little-endian
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 32;
+    static final int COUNT_OFFSET = 16;
+    static final int TABLE_OFFSET_OFFSET = 24;
+    static final int TABLE_ENTRY_LENGTH = 2 * Long.BYTES;
+
+    private EmbeddingFileFormat() {
+    }
+
+    /**
+     * @return the offset of the first row for a model name of the given length
+     */
+    static long rowsOffset(int modelNameLength) {
+        return HEADER_LENGTH + ((modelNameLength + 7L) & ~7L);
+    }
+}
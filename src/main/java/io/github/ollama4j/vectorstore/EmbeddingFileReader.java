@@ -0,0 +1,194 @@
+package io.github.ollama4j.vectorstore;
+
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static io.github.ollama4j.vectorstore.EmbeddingFileFormat.*;
+
+/**
+ * Memory-mapped reader of the binary embedding files written by {@link EmbeddingFileWriter}.
+ * <p>
+ * Opening a file reads its header and checks the row offsets of its id table; rows are paged in by the operating system
+ * when they are accessed. {@link #rowBuffer(int)} returns views of the mapped file without copying. The file is mapped
+ * in windows of 1 GB, each extended by one row so that every row starting in a window lies within it, as a single
+ * mapping is limited to 2 GB.
+ */
+public class EmbeddingFileReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+
+    /**
+     * Name of the model the embeddings were generated with.
+     */
+    @Getter
+    private final String model;
+
+    @Getter
+    private final int dimensions;
+
+    private final int count;
+
+    /**
+     * Offset of the id table in the file.
+     */
+    @Getter
+    private final long tableOffset;
+
+    private final int rowBytes;
+    private final long rowsOffset;
+    private final ByteBuffer[] rowWindows;
+    private final LongBuffer table;
+
+    private EmbeddingFileReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_LENGTH)).order(BYTE_ORDER);
+        if (header.capacity() < HEADER_LENGTH || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an embedding file.");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported embedding file version " + header.getInt(4));
+        }
+        this.dimensions = header.getInt(8);
+        int modelNameLength = header.getInt(12);
+        long rowCount = header.getLong(COUNT_OFFSET);
+        this.tableOffset = header.getLong(TABLE_OFFSET_OFFSET);
+        if (tableOffset == 0) {
+            throw new IOException("The embedding file is incomplete; it has not been closed or checkpointed by its writer.");
+        }
+        this.rowsOffset = rowsOffset(modelNameLength);
+        if (dimensions <= 0 || (long) dimensions * Float.BYTES > WINDOW_BYTES || modelNameLength < 0 || rowCount < 0
+                || rowCount > Integer.MAX_VALUE || tableOffset < rowsOffset || rowCount > (channel.size() - tableOffset) / TABLE_ENTRY_LENGTH) {
+            throw new IOException("The embedding file is corrupt.");
+        }
+        this.rowBytes = dimensions * Float.BYTES;
+        this.count = (int) rowCount;
+        ByteBuffer modelName = ByteBuffer.allocate(modelNameLength);
+        channel.read(modelName, HEADER_LENGTH);
+        this.model = new String(modelName.array(), StandardCharsets.UTF_8);
+
+        // the table is 16 bytes per row, so it fits into one mapping for up to 134M rows
+        this.table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, (long) count * TABLE_ENTRY_LENGTH).order(BYTE_ORDER).asLongBuffer();
+        for (int row = 0; row < count; row++) {
+            long offset = table.get(2 * row + 1);
+            // rows lie before the current table, but may follow the tables of earlier checkpoints
+            if (offset < rowsOffset || offset > tableOffset - rowBytes || (offset - rowsOffset) % Float.BYTES != 0) {
+                throw new IOException("The embedding file is corrupt.");
+            }
+        }
+
+        long rowsLength = tableOffset - rowsOffset;
+        this.rowWindows = new ByteBuffer[(int) ((rowsLength + WINDOW_BYTES - 1) / WINDOW_BYTES)];
+        for (int window = 0; window < rowWindows.length; window++) {
+            long start = window * WINDOW_BYTES;
+            long length = Math.min(WINDOW_BYTES + rowBytes, rowsLength - start);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, rowsOffset + start, length);
+            rowWindows[window] = mapped.order(BYTE_ORDER);
+        }
+    }
+
+    /**
+     * Opens a complete embedding file.
+     *
+     * @param file the file to read
+     * @return the reader
+     * @throws IOException if the file cannot be read, is incomplete or is not an embedding file
+     */
+    public static EmbeddingFileReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new EmbeddingFileReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return a read-only view of the given row in the mapped file
+     */
+    public FloatBuffer rowBuffer(int row) {
+        long offset = getOffset(row) - rowsOffset;
+        ByteBuffer window = rowWindows[(int) (offset / WINDOW_BYTES)].duplicate();
+        int position = (int) (offset % WINDOW_BYTES);
+        window.position(position).limit(position + rowBytes);
+        return window.slice().order(BYTE_ORDER).asFloatBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a copy of the given row
+     */
+    public float[] row(int row) {
+        float[] vector = new float[dimensions];
+        rowBuffer(row).get(vector);
+        return vector;
+    }
+
+    /**
+     * @return the id the row was appended with
+     */
+    public long getId(int row) {
+        checkRow(row);
+        return table.get(2 * row);
+    }
+
+    /**
+     * @return the offset of the row in the file
+     */
+    public long getOffset(int row) {
+        checkRow(row);
+        return table.get(2 * row + 1);
+    }
+
+    /**
+     * Copies rows into an embedding matrix, e.g. to add them to a {@link VectorIndex} in bulk.
+     *
+     * @param from index of the first row to copy
+     * @param to   index after the last row to copy
+     * @return the rows
+     */
+    public EmbeddingMatrix toMatrix(int from, int to) {
+        if (from < 0 || to > count || from > to || (long) (to - from) * dimensions > Integer.MAX_VALUE - 8) {
+            throw new IndexOutOfBoundsException("Cannot copy rows " + from + " to " + to + " of " + count + " rows");
+        }
+        float[] data = new float[(to - from) * dimensions];
+        for (int row = from; row < to; row++) {
+            rowBuffer(row).get(data, (row - from) * dimensions, dimensions);
+        }
+        return new EmbeddingMatrix(data, to - from, dimensions);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + count + " rows");
+        }
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage collected, so buffers returned by
+     * {@link #rowBuffer(int)} can still be read.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
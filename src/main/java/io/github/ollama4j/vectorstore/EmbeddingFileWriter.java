@@ -0,0 +1,260 @@
+package io.github.ollama4j.vectorstore;
+
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static io.github.ollama4j.vectorstore.EmbeddingFileFormat.*;
+
+/**
+ * Streaming appender of embeddings to a compact binary file, see {@link EmbeddingFileFormat} for the layout.
+ * <p>
+ * Rows are written through a buffer as they are appended, so memory use does not grow with the file except for the
+ * ids and row offsets (16 bytes per row). The id table and row count are written by {@link #checkpoint()} and
+ * {@link #close()}; after either, the file can be read with an {@link EmbeddingFileReader} or continued with
+ * {@link #resume(Path)}. Rows appended later are written after the table, which stays valid, and the next checkpoint
+ * writes a new table at the end of the file and switches the header to it with a single write. A crash therefore only
+ * loses the rows appended since the last checkpoint, and readers see the file as of that checkpoint.
+ * <pre>{@code
+ * try (EmbeddingFileWriter writer = EmbeddingFileWriter.create(path, "all-minilm", 384)) {
+ *     for (List<String> batch : batches) {
+ *         writer.append(writer.size(), ollamaAPI.embedAsFloats(new OllamaEmbedRequestModel("all-minilm", batch)).getEmbeddings());
+ *     }
+ * }
+ * }</pre>
+ */
+public class EmbeddingFileWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+
+    @Getter
+    private final String model;
+
+    @Getter
+    private final int dimensions;
+
+    private final ByteBuffer buffer;
+    private long[] ids;
+    private long[] offsets;
+    private int count;
+    /**
+     * Offset in the file at which the buffered rows are written.
+     */
+    private long writePosition;
+    private boolean checkpointed;
+    private boolean closed;
+
+    private EmbeddingFileWriter(FileChannel channel, String model, int dimensions, long[] ids, long[] offsets, int count,
+                                long writePosition, boolean checkpointed) {
+        this.channel = channel;
+        this.model = model;
+        this.dimensions = dimensions;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.count = count;
+        this.writePosition = writePosition;
+        this.checkpointed = checkpointed;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, dimensions * Float.BYTES)).order(BYTE_ORDER);
+    }
+
+    /**
+     * Creates a new file, replacing an existing one.
+     *
+     * @param file       the file to write
+     * @param model      name of the model the embeddings were generated with
+     * @param dimensions number of dimensions of the embeddings
+     * @return the writer
+     * @throws IOException if the file cannot be written
+     */
+    public static EmbeddingFileWriter create(Path file, String model, int dimensions) throws IOException {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive.");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            byte[] modelName = model.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate((int) rowsOffset(modelName.length)).order(BYTE_ORDER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(modelName.length).putLong(0).putLong(0).put(modelName);
+            header.clear();
+            writeFully(channel, header, 0);
+            return new EmbeddingFileWriter(channel, model, dimensions, new long[1024], new long[1024], 0, header.capacity(), false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file written by a writer that was closed or checkpointed to append further rows. Rows appended after the
+     * last checkpoint of the previous writer are discarded.
+     *
+     * @param file the file to continue
+     * @return the writer
+     * @throws IOException if the file cannot be read or written, or is not an embedding file
+     */
+    public static EmbeddingFileWriter resume(Path file) throws IOException {
+        String model;
+        int dimensions;
+        long[] ids;
+        long[] offsets;
+        int count;
+        long tableOffset;
+        try (EmbeddingFileReader reader = EmbeddingFileReader.open(file)) {
+            model = reader.getModel();
+            dimensions = reader.getDimensions();
+            count = reader.size();
+            ids = new long[Math.max(1024, count)];
+            offsets = new long[ids.length];
+            for (int row = 0; row < count; row++) {
+                ids[row] = reader.getId(row);
+                offsets[row] = reader.getOffset(row);
+            }
+            tableOffset = reader.getTableOffset();
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // new rows go after the current table, over anything written after the last checkpoint
+        return new EmbeddingFileWriter(channel, model, dimensions, ids, offsets, count,
+                tableOffset + (long) count * TABLE_ENTRY_LENGTH, true);
+    }
+
+    /**
+     * @return number of rows appended, including those of a resumed file
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Appends one embedding.
+     *
+     * @param id     id of the embedding, e.g. the index of the input or the id of a document
+     * @param vector the embedding
+     * @throws IOException if the file cannot be written
+     */
+    public void append(long id, float[] vector) throws IOException {
+        checkOpen();
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + vector.length);
+        }
+        if (buffer.remaining() < vector.length * Float.BYTES) {
+            flushBuffer();
+        }
+        addRow(id);
+        buffer.asFloatBuffer().put(vector);
+        buffer.position(buffer.position() + vector.length * Float.BYTES);
+    }
+
+    /**
+     * Appends all rows of an embedding matrix with consecutive ids.
+     *
+     * @param firstId    id of the first row; row {@code i} gets id {@code firstId + i}
+     * @param embeddings the embeddings
+     * @throws IOException if the file cannot be written
+     */
+    public void append(long firstId, EmbeddingMatrix embeddings) throws IOException {
+        checkOpen();
+        if (embeddings.getDimensions() != dimensions) {
+            throw new IllegalArgumentException("Expected vectors of " + dimensions + " dimensions, got " + embeddings.getDimensions());
+        }
+        float[] data = embeddings.getData();
+        for (int row = 0; row < embeddings.getRows(); row++) {
+            if (buffer.remaining() < dimensions * Float.BYTES) {
+                flushBuffer();
+            }
+            addRow(firstId + row);
+            buffer.asFloatBuffer().put(data, row * dimensions, dimensions);
+            buffer.position(buffer.position() + dimensions * Float.BYTES);
+        }
+    }
+
+    /**
+     * Writes the buffered rows and a new id table at the end of the file and forces them to disk, then switches the
+     * header to the new table, so the file is readable with all rows appended so far. Appending continues after the
+     * new table.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void checkpoint() throws IOException {
+        checkOpen();
+        if (checkpointed) {
+            return;
+        }
+        flushBuffer();
+        long tableOffset = writePosition;
+        long position = tableOffset;
+        for (int row = 0; row < count; row++) {
+            if (buffer.remaining() < TABLE_ENTRY_LENGTH) {
+                buffer.flip();
+                position += writeFully(channel, buffer, position);
+                buffer.clear();
+            }
+            buffer.putLong(ids[row]).putLong(offsets[row]);
+        }
+        buffer.flip();
+        position += writeFully(channel, buffer, position);
+        buffer.clear();
+        channel.force(false);
+        // the header last and in one write, so a crash before it leaves the previous checkpoint in place
+        ByteBuffer header = ByteBuffer.allocate(2 * Long.BYTES).order(BYTE_ORDER);
+        header.putLong(count).putLong(tableOffset).flip();
+        writeFully(channel, header, COUNT_OFFSET);
+        channel.force(false);
+        writePosition = position;
+        checkpointed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            checkpoint();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void addRow(long id) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            offsets = Arrays.copyOf(offsets, ids.length);
+        }
+        ids[count] = id;
+        offsets[count] = writePosition + buffer.position();
+        count++;
+        checkpointed = false;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writePosition += writeFully(channel, buffer, writePosition);
+        buffer.clear();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The embedding file writer has been closed.");
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException {
+        int written = 0;
+        while (source.hasRemaining()) {
+            written += channel.write(source, position + written);
+        }
+        return written;
+    }
+}
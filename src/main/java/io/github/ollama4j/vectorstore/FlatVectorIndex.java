@@ -0,0 +1,225 @@
+package io.github.ollama4j.vectorstore;
+
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Exact {@link VectorIndex} that compares the query with every vector.
+ * <p>
+ * Vectors are stored row by row in direct (off-heap) buffers, so millions of vectors neither count against the Java heap
+ * nor are scanned by the garbage collector. The first buffer holds 1024 rows, and every further buffer is allocated
+ * once the previous one is full, twice as large up to 256 MB, so a small index only takes as much memory as it needs. Large searches are split into slices that are
+ * scanned in parallel on the given executor, each keeping its own top k, which are merged at the end. A scan copies
+ * each row into a scratch array with a bulk get, which is a plain memory copy, as computing on the array is
+ * considerably faster than reading the buffer float by float.
+ */
+public class FlatVectorIndex implements VectorIndex {
+
+    private static final int SEGMENT_BYTES = 1 << 28;
+    private static final int FIRST_SEGMENT_ROWS = 1024;
+    private static final int MIN_ROWS_PER_SLICE = 16 * 1024;
+
+    @Getter
+    private final int dimensions;
+
+    @Getter
+    private final SimilarityMetric metric;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int firstSegmentRows;
+    private final int maxRowsPerSegment;
+    /**
+     * Number of segments that are smaller than {@link #maxRowsPerSegment}, i.e. before the growth reaches the cap.
+     */
+    private final int growingSegments;
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private int allocatedRows;
+    private volatile FloatBuffer[] segmentArray = new FloatBuffer[0];
+    private volatile int size;
+
+    /**
+     * Creates an index whose searches run on the common fork join pool.
+     */
+    public FlatVectorIndex(int dimensions, SimilarityMetric metric) {
+        this(dimensions, metric, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param dimensions  number of dimensions of the vectors
+     * @param metric      similarity metric
+     * @param executor    executor to scan slices of large indexes on
+     * @param parallelism maximum number of slices a search is split into; 1 scans on the calling thread only
+     */
+    public FlatVectorIndex(int dimensions, SimilarityMetric metric, Executor executor, int parallelism) {
+        if (dimensions <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("dimensions and parallelism must be positive.");
+        }
+        this.dimensions = dimensions;
+        this.metric = metric;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.maxRowsPerSegment = Math.max(1, SEGMENT_BYTES / (dimensions * Float.BYTES));
+        this.firstSegmentRows = Math.min(FIRST_SEGMENT_ROWS, maxRowsPerSegment);
+        int growing = 0;
+        while (((long) firstSegmentRows << growing) < maxRowsPerSegment) {
+            growing++;
+        }
+        this.growingSegments = growing;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized int add(float[] vector) {
+        checkDimensions(vector);
+        int id = size;
+        if (id == allocatedRows) {
+            int rows = segmentRows(segments.size());
+            segments.add(ByteBuffer.allocateDirect(rows * dimensions * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer());
+            segmentArray = segments.toArray(new FloatBuffer[0]);
+            allocatedRows += rows;
+        }
+        int segment = segmentOf(id);
+        FloatBuffer rows = segments.get(segment).duplicate();
+        rows.position((id - segmentStart(segment)) * dimensions);
+        rows.put(metric == SimilarityMetric.COSINE ? VectorMath.normalize(vector) : vector);
+        // publishes the row to searches, which read the size first
+        size = id + 1;
+        return id;
+    }
+
+    @Override
+    public synchronized int addAll(EmbeddingMatrix embeddings) {
+        return VectorIndex.super.addAll(embeddings);
+    }
+
+    /**
+     * @return a copy of the vector with the given id; normalized if the metric is {@link SimilarityMetric#COSINE}
+     */
+    public float[] get(int id) {
+        float[] vector = new float[dimensions];
+        copy(id, vector);
+        return vector;
+    }
+
+    void copy(int id, float[] target) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Id " + id + " out of bounds for " + size + " vectors");
+        }
+        int segment = segmentOf(id);
+        FloatBuffer rows = segmentArray[segment].duplicate();
+        rows.position((id - segmentStart(segment)) * dimensions);
+        rows.get(target);
+    }
+
+    /**
+     * Computes the similarity of a prepared query with a stored vector.
+     *
+     * @param scratch array of {@link #getDimensions()} floats the vector is copied into
+     */
+    float score(float[] preparedQuery, int id, float[] scratch) {
+        copy(id, scratch);
+        return VectorMath.dot(preparedQuery, scratch);
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k) {
+        checkDimensions(query);
+        int count = size;
+        int limit = TopK.limit(k, count);
+        FloatBuffer[] rows = segmentArray;
+        float[] preparedQuery = prepareQuery(query);
+        int slices = Math.min(parallelism, Math.max(1, count / MIN_ROWS_PER_SLICE));
+        if (slices == 1) {
+            return scan(rows, preparedQuery, limit, 0, count).toResults();
+        }
+        int rowsPerSlice = (count + slices - 1) / slices;
+        List<CompletableFuture<TopK>> futures = new ArrayList<>(slices - 1);
+        for (int slice = 1; slice < slices; slice++) {
+            int from = slice * rowsPerSlice;
+            int to = Math.min(count, from + rowsPerSlice);
+            futures.add(CompletableFuture.supplyAsync(() -> scan(rows, preparedQuery, limit, from, to), executor));
+        }
+        TopK topK = scan(rows, preparedQuery, limit, 0, rowsPerSlice);
+        for (CompletableFuture<TopK> future : futures) {
+            topK.addAll(future.join());
+        }
+        return topK.toResults();
+    }
+
+    /**
+     * @return the query as compared with the stored vectors, i.e. normalized for {@link SimilarityMetric#COSINE}
+     */
+    float[] prepareQuery(float[] query) {
+        return metric == SimilarityMetric.COSINE ? VectorMath.normalize(query) : query;
+    }
+
+    private TopK scan(FloatBuffer[] rows, float[] query, int k, int from, int to) {
+        TopK topK = new TopK(k);
+        float[] row = new float[dimensions];
+        int id = from;
+        while (id < to) {
+            int segmentIndex = segmentOf(id);
+            int segmentStart = segmentStart(segmentIndex);
+            FloatBuffer segment = rows[segmentIndex].duplicate();
+            int segmentEnd = Math.min(to, segmentStart + segmentRows(segmentIndex));
+            segment.position((id - segmentStart) * dimensions);
+            for (; id < segmentEnd; id++) {
+                segment.get(row);
+                float score = VectorMath.dot(query, row);
+                if (score > topK.threshold()) {
+                    topK.offer(id, score);
+                }
+            }
+        }
+        return topK;
+    }
+
+    /**
+     * @return the number of rows of the segment with the given index
+     */
+    private int segmentRows(int segment) {
+        return segment < growingSegments ? firstSegmentRows << segment : maxRowsPerSegment;
+    }
+
+    /**
+     * @return the id of the first row of the segment with the given index
+     */
+    private int segmentStart(int segment) {
+        if (segment <= growingSegments) {
+            return firstSegmentRows * ((1 << segment) - 1);
+        }
+        return segmentStart(growingSegments) + (segment - growingSegments) * maxRowsPerSegment;
+    }
+
+    /**
+     * @return the index of the segment holding the row with the given id
+     */
+    private int segmentOf(int id) {
+        int growingRows = segmentStart(growingSegments);
+        if (id < growingRows) {
+            // segment s of the growing ones starts at firstSegmentRows * (2^s - 1)
+            return 31 - Integer.numberOfLeadingZeros(id / firstSegmentRows + 1);
+        }
+        return growingSegments + (id - growingRows) / maxRowsPerSegment;
+    }
+
+    private void checkDimensions(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + vector.length);
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package io.github.ollama4j.vectorstore;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate {@link VectorIndex} based on a hierarchical navigable small world (HNSW) graph.
+ * <p>
+ * Every vector is a node linked to up to {@link #getM()} similar nodes per layer (twice as many on the bottom layer).
+ * A search descends greedily through the sparse upper layers and then explores the bottom layer, keeping the
+ * {@link #getEfSearch()} best candidates, so it only compares the query with a small fraction of the vectors. Higher
+ * {@code efSearch} values increase recall at the cost of latency. Vectors can be added from several threads at the
+ * same time, also while searching. The vectors themselves are stored off-heap like in a {@link FlatVectorIndex}.
+ * <p>
+ * {@link #save(Path)} writes the index to a file through a memory mapping and {@link #load(Path)} maps it back, which
+ * avoids rebuilding the graph on restart.
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final int MAGIC = 0x484e5357; // "HNSW"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 10;
+    // levels are drawn as -ln(u) / ln(m) for a double u in (0, 1] and m >= 2, so they stay below 64
+    private static final int MAX_LEVEL = 64;
+
+    @Getter
+    private final int dimensions;
+
+    @Getter
+    private final SimilarityMetric metric;
+
+    /**
+     * Maximum number of links of a node per upper layer; the bottom layer allows twice as many.
+     */
+    @Getter
+    private final int m;
+
+    /**
+     * Number of candidates considered when linking a new node. Higher values build a better graph, more slowly.
+     */
+    @Getter
+    private final int efConstruction;
+
+    /**
+     * Number of candidates kept while searching; at least k are kept.
+     */
+    @Getter
+    private volatile int efSearch;
+
+    private final double levelMultiplier;
+    private final FlatVectorIndex vectors;
+    private final Object nodesLock = new Object();
+    private final Object entryLock = new Object();
+    // adding vectors holds the read lock, so adds run concurrently and only saving is exclusive
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private volatile Node[] nodes = new Node[64];
+    private volatile EntryPoint entryPoint;
+
+    /**
+     * @param dimensions     number of dimensions of the vectors
+     * @param metric         similarity metric
+     * @param m              maximum number of links per node and upper layer, 16 if not set
+     * @param efConstruction number of candidates considered when linking a new node, 200 if not set
+     * @param efSearch       number of candidates kept while searching, 50 if not set
+     */
+    @Builder
+    private HnswIndex(int dimensions, @NonNull SimilarityMetric metric, Integer m, Integer efConstruction, Integer efSearch) {
+        this.dimensions = dimensions;
+        this.metric = metric;
+        this.m = m != null ? m : 16;
+        this.efConstruction = efConstruction != null ? efConstruction : 200;
+        this.efSearch = efSearch != null ? efSearch : 50;
+        if (dimensions <= 0 || this.m < 2 || this.efConstruction <= 0 || this.efSearch <= 0) {
+            throw new IllegalArgumentException("dimensions, efConstruction and efSearch must be positive and m at least 2.");
+        }
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.vectors = new FlatVectorIndex(dimensions, metric, Runnable::run, 1);
+    }
+
+    public void setEfSearch(int efSearch) {
+        if (efSearch <= 0) {
+            throw new IllegalArgumentException("efSearch must be positive.");
+        }
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public int size() {
+        return vectors.size();
+    }
+
+    @Override
+    public int add(float[] vector) {
+        snapshotLock.readLock().lock();
+        try {
+            int id = vectors.add(vector);
+            int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+            Node node = new Node(level, m);
+            register(id, node);
+            link(id, node, vectors.prepareQuery(vector));
+            return id;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + query.length);
+        }
+        int limit = TopK.limit(k, vectors.size());
+        EntryPoint entry = entryPoint;
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        float[] preparedQuery = vectors.prepareQuery(query);
+        float[] scratch = new float[dimensions];
+        int current = entry.id;
+        float currentScore = vectors.score(preparedQuery, current, scratch);
+        for (int layer = entry.level; layer > 0; layer--) {
+            TopK best = searchLayer(preparedQuery, current, currentScore, 1, layer, scratch);
+            current = best.id(0);
+            currentScore = best.score(0);
+        }
+        int ef = Math.min(Math.max(efSearch, limit), vectors.size());
+        List<SearchResult> results = searchLayer(preparedQuery, current, currentScore, ef, 0, scratch).toResults();
+        return results.size() > limit ? results.subList(0, limit) : results;
+    }
+
+    /**
+     * Links a registered node into the graph.
+     */
+    private void link(int id, Node node, float[] preparedVector) {
+        EntryPoint entry;
+        synchronized (entryLock) {
+            entry = entryPoint;
+            if (entry == null) {
+                entryPoint = new EntryPoint(id, node.level());
+                return;
+            }
+        }
+        float[] scratch = new float[dimensions];
+        int current = entry.id;
+        float currentScore = vectors.score(preparedVector, current, scratch);
+        for (int layer = entry.level; layer > node.level(); layer--) {
+            TopK best = searchLayer(preparedVector, current, currentScore, 1, layer, scratch);
+            current = best.id(0);
+            currentScore = best.score(0);
+        }
+        for (int layer = Math.min(node.level(), entry.level); layer >= 0; layer--) {
+            TopK candidates = searchLayer(preparedVector, current, currentScore, efConstruction, layer, scratch);
+            int[] ids = new int[candidates.size()];
+            float[] scores = new float[candidates.size()];
+            int best = 0;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = candidates.id(i);
+                scores[i] = candidates.score(i);
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            // the next layer down is searched from the most similar node found
+            current = ids[best];
+            currentScore = scores[best];
+            int[] neighbors = selectNeighbors(ids, scores, ids.length, m, scratch);
+            node.setNeighbors(layer, neighbors, neighbors.length);
+            for (int neighbor : neighbors) {
+                addLink(neighbor, id, layer, scratch);
+            }
+        }
+        if (node.level() > entry.level) {
+            synchronized (entryLock) {
+                if (node.level() > entryPoint.level) {
+                    entryPoint = new EntryPoint(id, node.level());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a link from a node to a new node, pruning the node's links if it has too many.
+     */
+    private void addLink(int from, int to, int layer, float[] scratch) {
+        Node node = nodes[from];
+        synchronized (node) {
+            int[] links = node.neighbors[layer];
+            int count = node.counts[layer];
+            if (count < links.length) {
+                links[count] = to;
+                node.counts[layer] = count + 1;
+                return;
+            }
+            float[] base = vectors.get(from);
+            int[] ids = Arrays.copyOf(links, count + 1);
+            ids[count] = to;
+            float[] scores = new float[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                scores[i] = vectors.score(base, ids[i], scratch);
+            }
+            int[] selected = selectNeighbors(ids, scores, ids.length, links.length, scratch);
+            node.setNeighbors(layer, selected, selected.length);
+        }
+    }
+
+    /**
+     * Selects up to max neighbors among the candidates with the heuristic of the HNSW paper: a candidate is skipped if
+     * it is more similar to an already selected neighbor than to the base node, which keeps links pointing in
+     * different directions and the graph navigable.
+     *
+     * @param scores similarity of each candidate to the base node
+     */
+    private int[] selectNeighbors(int[] ids, float[] scores, int count, int max, float[] scratch) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] selected = new int[Math.min(max, count)];
+        float[][] selectedVectors = new float[selected.length][];
+        int selectedCount = 0;
+        for (int i = 0; i < count && selectedCount < selected.length; i++) {
+            int candidate = ids[order[i]];
+            float[] candidateVector = vectors.get(candidate);
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount && diverse; j++) {
+                diverse = VectorMath.dot(candidateVector, selectedVectors[j]) <= scores[order[i]];
+            }
+            if (diverse) {
+                selected[selectedCount] = candidate;
+                selectedVectors[selectedCount++] = candidateVector;
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * Best-first search of one layer starting at the entry node.
+     *
+     * @return the up to ef most similar nodes found
+     */
+    private TopK searchLayer(float[] query, int entry, float entryScore, int ef, int layer, float[] scratch) {
+        TopK results = new TopK(ef);
+        results.offer(entry, entryScore);
+        Candidates candidates = new Candidates();
+        candidates.push(entry, entryScore);
+        IntHashSet visited = new IntHashSet();
+        visited.add(entry);
+        while (!candidates.isEmpty()) {
+            if (candidates.peekScore() < results.threshold()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            for (int neighbor : nodes[candidate].neighbors(layer)) {
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float score = vectors.score(query, neighbor, scratch);
+                if (score > results.threshold()) {
+                    candidates.push(neighbor, score);
+                    results.offer(neighbor, score);
+                }
+            }
+        }
+        return results;
+    }
+
+    private void register(int id, Node node) {
+        synchronized (nodesLock) {
+            Node[] current = nodes;
+            if (id >= current.length) {
+                current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+            }
+            current[id] = node;
+            // republishes the array, also when only an element changed
+            nodes = current;
+        }
+    }
+
+    /**
+     * Writes the index to a file, replacing it if it exists. Vectors added concurrently wait until the file is written.
+     * The index is written to a temporary file next to the target, which then replaces the target in one atomic move,
+     * so a crash while saving leaves the previous file intact.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        snapshotLock.writeLock().lock();
+        try {
+            int size = vectors.size();
+            Node[] graph = nodes;
+            long ints = HEADER_INTS + (long) size * dimensions;
+            for (int id = 0; id < size; id++) {
+                ints += 1;
+                for (int layer = 0; layer <= graph[id].level(); layer++) {
+                    ints += 1 + graph[id].counts[layer];
+                }
+            }
+            EntryPoint entry = entryPoint;
+            Path directory = file.toAbsolutePath().getParent();
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                write(temporary, ints * Integer.BYTES, size, graph, entry);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    private void write(Path file, long length, int size, Node[] graph, EntryPoint entry) throws IOException {
+        try (MappedFileCursor out = MappedFileCursor.create(file, length)) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(dimensions);
+            out.putInt(metric.ordinal());
+            out.putInt(m);
+            out.putInt(efConstruction);
+            out.putInt(efSearch);
+            out.putInt(size);
+            out.putInt(entry != null ? entry.id : -1);
+            out.putInt(entry != null ? entry.level : -1);
+            float[] vector = new float[dimensions];
+            for (int id = 0; id < size; id++) {
+                vectors.copy(id, vector);
+                out.putFloats(vector);
+            }
+            for (int id = 0; id < size; id++) {
+                Node node = graph[id];
+                out.putInt(node.level());
+                for (int layer = 0; layer <= node.level(); layer++) {
+                    int[] neighbors = node.neighbors(layer);
+                    out.putInt(neighbors.length);
+                    for (int neighbor : neighbors) {
+                        out.putInt(neighbor);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #save(Path)}.
+     *
+     * @param file the file to read
+     * @return the index, to which further vectors can be added
+     * @throws IOException if the file cannot be read, is not an HNSW index or is corrupt
+     */
+    public static HnswIndex load(Path file) throws IOException {
+        try (MappedFileCursor in = MappedFileCursor.open(file)) {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException(file + " is not an HNSW index of a supported version.");
+            }
+            int dimensions = in.getInt();
+            int metricOrdinal = in.getInt();
+            int m = in.getInt();
+            int efConstruction = in.getInt();
+            int efSearch = in.getInt();
+            int size = in.getInt();
+            int entryId = in.getInt();
+            int entryLevel = in.getInt();
+            if (dimensions <= 0 || metricOrdinal < 0 || metricOrdinal >= SimilarityMetric.values().length || m < 2
+                    || efConstruction <= 0 || efSearch <= 0 || size < 0 || entryId < -1 || entryId >= size
+                    || entryId >= 0 && (entryLevel < 0 || entryLevel > MAX_LEVEL)
+                    || HEADER_INTS + (long) size * dimensions > in.length() / Integer.BYTES) {
+                throw new IOException(file + " is a corrupt HNSW index.");
+            }
+            HnswIndex index = HnswIndex.builder().dimensions(dimensions).metric(SimilarityMetric.values()[metricOrdinal])
+                    .m(m).efConstruction(efConstruction).efSearch(efSearch).build();
+            float[] vector = new float[dimensions];
+            for (int id = 0; id < size; id++) {
+                in.getFloats(vector);
+                index.vectors.add(vector);
+            }
+            Node[] graph = new Node[Math.max(64, size)];
+            for (int id = 0; id < size; id++) {
+                int level = in.getInt();
+                if (level < 0 || level > MAX_LEVEL) {
+                    throw new IOException(file + " is a corrupt HNSW index.");
+                }
+                Node node = new Node(level, index.m);
+                for (int layer = 0; layer <= level; layer++) {
+                    int count = in.getInt();
+                    if (count < 0 || count > node.neighbors[layer].length) {
+                        throw new IOException(file + " is a corrupt HNSW index.");
+                    }
+                    for (int i = 0; i < count; i++) {
+                        int neighbor = in.getInt();
+                        if (neighbor < 0 || neighbor >= size) {
+                            throw new IOException(file + " is a corrupt HNSW index.");
+                        }
+                        node.neighbors[layer][i] = neighbor;
+                    }
+                    node.counts[layer] = count;
+                }
+                graph[id] = node;
+            }
+            if (entryId >= 0 && graph[entryId].level() < entryLevel) {
+                throw new IOException(file + " is a corrupt HNSW index.");
+            }
+            index.nodes = graph;
+            index.entryPoint = entryId >= 0 ? new EntryPoint(entryId, entryLevel) : null;
+            return index;
+        }
+    }
+
+    private static final class EntryPoint {
+        private final int id;
+        private final int level;
+
+        private EntryPoint(int id, int level) {
+            this.id = id;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Links of a node per layer. Guarded by the node's monitor.
+     */
+    private static final class Node {
+        private final int[][] neighbors;
+        private final int[] counts;
+
+        private Node(int level, int m) {
+            neighbors = new int[level + 1][];
+            for (int layer = 0; layer <= level; layer++) {
+                neighbors[layer] = new int[layer == 0 ? 2 * m : m];
+            }
+            counts = new int[level + 1];
+        }
+
+        private int level() {
+            return neighbors.length - 1;
+        }
+
+        private synchronized int[] neighbors(int layer) {
+            return Arrays.copyOf(neighbors[layer], counts[layer]);
+        }
+
+        private synchronized void setNeighbors(int layer, int[] ids, int count) {
+            System.arraycopy(ids, 0, neighbors[layer], 0, count);
+            counts[layer] = count;
+        }
+    }
+
+    /**
+     * Max-heap of candidates to explore, ordered by score.
+     */
+    private static final class Candidates {
+        private int[] ids = new int[64];
+        private float[] scores = new float[64];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private float peekScore() {
+            return scores[0];
+        }
+
+        private void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (scores[parent] >= score) {
+                    break;
+                }
+                ids[index] = ids[parent];
+                scores[index] = scores[parent];
+                index = parent;
+            }
+            ids[index] = id;
+            scores[index] = score;
+        }
+
+        private int pop() {
+            int top = ids[0];
+            int lastId = ids[--size];
+            float lastScore = scores[size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[child + 1] > scores[child]) {
+                    child++;
+                }
+                if (scores[child] <= lastScore) {
+                    break;
+                }
+                ids[index] = ids[child];
+                scores[index] = scores[child];
+                index = child;
+            }
+            ids[index] = lastId;
+            scores[index] = lastScore;
+            return top;
+        }
+    }
+
+    /**
+     * Open addressing set of non-negative ints, for the nodes visited by a search.
+     */
+    private static final class IntHashSet {
+        private int[] slots = new int[256];
+        private int size;
+
+        /**
+         * @return true if the value was not in the set yet
+         */
+        private boolean add(int value) {
+            if (2 * (size + 1) > slots.length) {
+                grow();
+            }
+            if (insert(slots, value + 1)) {
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @param stored the value plus one, as 0 marks empty slots
+         */
+        private static boolean insert(int[] table, int stored) {
+            int mask = table.length - 1;
+            int hash = stored * 0x9E3779B9;
+            int index = (hash ^ hash >>> 16) & mask;
+            while (table[index] != 0) {
+                if (table[index] == stored) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            table[index] = stored;
+            return true;
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            for (int stored : old) {
+                if (stored != 0) {
+                    insert(slots, stored);
+                }
+            }
+        }
+    }
+}
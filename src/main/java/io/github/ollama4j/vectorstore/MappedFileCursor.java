@@ -0,0 +1,115 @@
+package io.github.ollama4j.vectorstore;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader and writer of ints and floats in a memory-mapped file of any size.
+ * <p>
+ * The file is mapped in windows of 256 MB, as a single mapping is limited to 2 GB. All values are 4 bytes and the
+ * window size is a multiple of 4, so no value spans two windows. Reading beyond the last complete value, e.g. of a
+ * truncated file whose length is not a multiple of 4, throws an {@link EOFException}.
+ */
+final class MappedFileCursor implements Closeable {
+
+    private static final long WINDOW_BYTES = 1L << 28;
+
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long length;
+    private MappedByteBuffer window;
+    private long windowEnd;
+
+    private MappedFileCursor(FileChannel channel, FileChannel.MapMode mode, long length) {
+        this.channel = channel;
+        this.mode = mode;
+        this.length = length;
+    }
+
+    /**
+     * Creates or truncates a file of the given length to write to.
+     */
+    static MappedFileCursor create(Path file, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new MappedFileCursor(channel, FileChannel.MapMode.READ_WRITE, length);
+    }
+
+    static MappedFileCursor open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new MappedFileCursor(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+    }
+
+    /**
+     * @return the length of the file in bytes
+     */
+    long length() {
+        return length;
+    }
+
+    void putInt(int value) throws IOException {
+        window().putInt(value);
+    }
+
+    void putFloats(float[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            MappedByteBuffer current = window();
+            FloatBuffer floats = current.asFloatBuffer();
+            int count = Math.min(values.length - offset, floats.remaining());
+            floats.put(values, offset, count);
+            current.position(current.position() + count * Float.BYTES);
+            offset += count;
+        }
+    }
+
+    int getInt() throws IOException {
+        return window().getInt();
+    }
+
+    void getFloats(float[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            MappedByteBuffer current = window();
+            FloatBuffer floats = current.asFloatBuffer();
+            int count = Math.min(values.length - offset, floats.remaining());
+            floats.get(values, offset, count);
+            current.position(current.position() + count * Float.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * @return the current window with at least one value left, mapping the next one if the current one is exhausted
+     * @throws EOFException if the file has no complete value left
+     */
+    private MappedByteBuffer window() throws IOException {
+        // only the last window can end with less than a value, if the file length is not a multiple of 4
+        if (window == null || window.remaining() < Integer.BYTES) {
+            if (window != null && mode == FileChannel.MapMode.READ_WRITE) {
+                window.force();
+            }
+            if (length - windowEnd < Integer.BYTES) {
+                throw new EOFException("End of mapped file reached");
+            }
+            long size = Math.min(WINDOW_BYTES, length - windowEnd);
+            window = channel.map(mode, windowEnd, size);
+            windowEnd += size;
+        }
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (window != null && mode == FileChannel.MapMode.READ_WRITE) {
+            window.force();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.ollama4j.vectorstore;
+
+/**
+ * Compressed representation of the vectors of a {@link QuantizedVectorIndex}.
+ */
+public enum Quantization {
+    /**
+     * One signed byte per dimension plus a scale factor per vector, about 4x smaller than 32-bit floats. Recall is
+     * usually close to exact search even without rescoring.
+     */
+    INT8,
+    /**
+     * One bit per dimension (its sign), 32x smaller than 32-bit floats and very fast to scan. Similarity is estimated
+     * from the Hamming distance, which is coarse: it needs high-dimensional embeddings and rescoring with a generous
+     * oversampling to reach a useful recall.
+     */
+    BINARY
+}
@@ -0,0 +1,179 @@
+package io.github.ollama4j.vectorstore;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Exact-scan {@link VectorIndex} over quantized vectors, which hold 4x ({@link Quantization#INT8}) to 32x
+ * ({@link Quantization#BINARY}) more vectors in the same memory than 32-bit floats and are faster to scan.
+ * <p>
+ * The scan ranks all vectors by the similarity estimated from their codes. Rescoring is optional and disabled by
+ * default: with an {@code oversampling} greater than 0, the best {@code k * oversampling} candidates are ranked again
+ * by their exact similarity, which restores most of the recall lost by quantization. It keeps the full vectors in
+ * off-heap memory in addition to the codes, so the index then takes more memory than a {@link FlatVectorIndex} and
+ * only saves scan time. Large scans are split into slices that run in parallel, like in {@link FlatVectorIndex}.
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    private static final int SEGMENT_BYTES = 1 << 26;
+    private static final int MIN_ROWS_PER_SLICE = 64 * 1024;
+
+    @Getter
+    private final int dimensions;
+
+    @Getter
+    private final SimilarityMetric metric;
+
+    @Getter
+    private final Quantization quantization;
+
+    /**
+     * Number of candidates per requested result that are rescored, or 0 if rescoring is disabled.
+     */
+    @Getter
+    private final int oversampling;
+
+    private final VectorCodec codec;
+    private final FlatVectorIndex fullVectors;
+    private final Executor executor;
+    private final int parallelism;
+    private final int rowsPerSegment;
+    private final List<byte[]> segments = new ArrayList<>();
+    private volatile byte[][] segmentArray = new byte[0][];
+    private volatile int size;
+
+    /**
+     * @param dimensions   number of dimensions of the vectors
+     * @param metric       similarity metric
+     * @param quantization how vectors are compressed
+     * @param oversampling number of candidates per requested result to rescore with the full vectors, or 0 (the
+     *                     default) to not keep the full vectors and rank by the estimated similarity only
+     * @param executor     executor to scan slices of large indexes on, the common pool if not set
+     * @param parallelism  maximum number of slices a search is split into, the number of processors if not set
+     */
+    @Builder
+    private QuantizedVectorIndex(int dimensions, @NonNull SimilarityMetric metric, @NonNull Quantization quantization,
+                                 Integer oversampling, Executor executor, Integer parallelism) {
+        this.dimensions = dimensions;
+        this.metric = metric;
+        this.quantization = quantization;
+        this.oversampling = oversampling != null ? oversampling : 0;
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        this.parallelism = parallelism != null ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (dimensions <= 0 || this.oversampling < 0 || this.parallelism <= 0) {
+            throw new IllegalArgumentException("dimensions and parallelism must be positive and oversampling must not be negative.");
+        }
+        this.codec = VectorCodec.of(quantization, dimensions);
+        // receives prepared vectors, so they are not normalized twice
+        this.fullVectors = this.oversampling > 0 ? new FlatVectorIndex(dimensions, SimilarityMetric.DOT_PRODUCT, Runnable::run, 1) : null;
+        this.rowsPerSegment = Math.max(1, SEGMENT_BYTES / codec.codeLength());
+    }
+
+    /**
+     * @return bytes of memory taken per vector by its code, plus its full vector of 4 bytes per dimension if rescoring
+     * is enabled
+     */
+    public int getBytesPerVector() {
+        return codec.codeLength() + (fullVectors != null ? dimensions * Float.BYTES : 0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized int add(float[] vector) {
+        checkDimensions(vector);
+        int id = size;
+        int segment = id / rowsPerSegment;
+        if (segment == segments.size()) {
+            segments.add(new byte[rowsPerSegment * codec.codeLength()]);
+            segmentArray = segments.toArray(new byte[0][]);
+        }
+        float[] prepared = prepare(vector);
+        codec.encode(prepared, segments.get(segment), (id % rowsPerSegment) * codec.codeLength());
+        if (fullVectors != null) {
+            fullVectors.add(prepared);
+        }
+        // publishes the code to searches, which read the size first
+        size = id + 1;
+        return id;
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k) {
+        checkDimensions(query);
+        int count = size;
+        int limit = TopK.limit(k, count);
+        byte[][] codes = segmentArray;
+        float[] preparedQuery = prepare(query);
+        VectorCodec.Query codecQuery = codec.prepare(preparedQuery);
+        // the oversampled candidates cannot outnumber the vectors either
+        int candidates = fullVectors != null ? (int) Math.min(count, (long) limit * oversampling) : limit;
+        TopK topK = scanInSlices(codes, codecQuery, candidates, count);
+        if (fullVectors == null) {
+            return topK.toResults();
+        }
+        TopK rescored = new TopK(limit);
+        float[] scratch = new float[dimensions];
+        for (int i = 0; i < topK.size(); i++) {
+            rescored.offer(topK.id(i), fullVectors.score(preparedQuery, topK.id(i), scratch));
+        }
+        return rescored.toResults();
+    }
+
+    private TopK scanInSlices(byte[][] codes, VectorCodec.Query query, int k, int count) {
+        int slices = Math.min(parallelism, Math.max(1, count / MIN_ROWS_PER_SLICE));
+        if (slices == 1) {
+            return scan(codes, query, k, 0, count);
+        }
+        int rowsPerSlice = (count + slices - 1) / slices;
+        List<CompletableFuture<TopK>> futures = new ArrayList<>(slices - 1);
+        for (int slice = 1; slice < slices; slice++) {
+            int from = slice * rowsPerSlice;
+            int to = Math.min(count, from + rowsPerSlice);
+            futures.add(CompletableFuture.supplyAsync(() -> scan(codes, query, k, from, to), executor));
+        }
+        TopK topK = scan(codes, query, k, 0, rowsPerSlice);
+        for (CompletableFuture<TopK> future : futures) {
+            topK.addAll(future.join());
+        }
+        return topK;
+    }
+
+    private TopK scan(byte[][] codes, VectorCodec.Query query, int k, int from, int to) {
+        TopK topK = new TopK(k);
+        int codeLength = codec.codeLength();
+        int id = from;
+        while (id < to) {
+            byte[] segment = codes[id / rowsPerSegment];
+            int segmentEnd = Math.min(to, (id / rowsPerSegment + 1) * rowsPerSegment);
+            int offset = (id % rowsPerSegment) * codeLength;
+            for (; id < segmentEnd; id++, offset += codeLength) {
+                float score = query.score(segment, offset);
+                if (score > topK.threshold()) {
+                    topK.offer(id, score);
+                }
+            }
+        }
+        return topK;
+    }
+
+    private float[] prepare(float[] vector) {
+        return metric == SimilarityMetric.COSINE ? VectorMath.normalize(vector) : vector;
+    }
+
+    private void checkDimensions(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + vector.length);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.ollama4j.vectorstore;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A vector found by a {@link VectorIndex} search.
+ */
+@Data
+@AllArgsConstructor
+public class SearchResult {
+    /**
+     * Id of the vector, as returned when it was added.
+     */
+    private int id;
+
+    /**
+     * Similarity of the vector to the query according to the index's {@link SimilarityMetric}.
+     */
+    private float score;
+}
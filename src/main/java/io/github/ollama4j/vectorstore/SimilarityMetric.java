@@ -0,0 +1,16 @@
+package io.github.ollama4j.vectorstore;
+
+/**
+ * Similarity between two vectors. Higher scores mean more similar vectors.
+ */
+public enum SimilarityMetric {
+    /**
+     * Cosine of the angle between the vectors. Vectors are normalized when added, so searching costs the same as
+     * {@link #DOT_PRODUCT}.
+     */
+    COSINE,
+    /**
+     * Dot product of the vectors, for embeddings that are already normalized or whose magnitude matters.
+     */
+    DOT_PRODUCT
+}
@@ -0,0 +1,125 @@
+package io.github.ollama4j.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the k highest scoring ids in a min-heap of primitives, so offering a candidate allocates nothing.
+ */
+final class TopK {
+
+    private final int k;
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.k = k;
+        this.ids = new int[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * Validates the k of a search and limits it to the number of candidates, so that no more slots are allocated than
+     * can be filled.
+     *
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    static int limit(int k, int candidates) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1, was " + k);
+        }
+        return Math.min(k, candidates);
+    }
+
+    /**
+     * @return the lowest score that still gets into the top k, or negative infinity while fewer than k ids are held
+     */
+    float threshold() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int id, float score) {
+        if (size < k) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (k > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the id at the given heap position; position 0 holds the lowest score
+     */
+    int id(int position) {
+        return ids[position];
+    }
+
+    float score(int position) {
+        return scores[position];
+    }
+
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * @return the collected results, highest score first
+     */
+    List<SearchResult> toResults() {
+        List<SearchResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(new SearchResult(ids[i], scores[i]));
+        }
+        results.sort((a, b) -> a.getScore() != b.getScore() ? Float.compare(b.getScore(), a.getScore()) : Integer.compare(a.getId(), b.getId()));
+        return results;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(smallest, index);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
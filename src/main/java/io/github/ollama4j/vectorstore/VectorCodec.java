@@ -0,0 +1,145 @@
+package io.github.ollama4j.vectorstore;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes vectors into fixed-length byte codes of a {@link Quantization} and scores queries against the codes.
+ */
+abstract class VectorCodec {
+
+    private static final VarHandle FLOATS = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    final int dimensions;
+
+    VectorCodec(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    static VectorCodec of(Quantization quantization, int dimensions) {
+        switch (quantization) {
+            case INT8:
+                return new Int8Codec(dimensions);
+            case BINARY:
+                return new BinaryCodec(dimensions);
+            default:
+                throw new IllegalArgumentException("Unsupported quantization " + quantization);
+        }
+    }
+
+    /**
+     * @return number of bytes of the code of one vector
+     */
+    abstract int codeLength();
+
+    abstract void encode(float[] vector, byte[] codes, int offset);
+
+    /**
+     * @param query the query, normalized if the metric is {@link SimilarityMetric#COSINE}
+     * @return the query in the form scored against codes
+     */
+    abstract Query prepare(float[] query);
+
+    interface Query {
+        /**
+         * @return the estimated similarity of the query with the vector encoded at the offset
+         */
+        float score(byte[] codes, int offset);
+    }
+
+    /**
+     * Symmetric scalar quantization with a scale per vector: {@code code = round(value / scale)} with
+     * {@code scale = max(|value|) / 127}. The code starts with the scale, followed by one byte per dimension. Queries
+     * are quantized the same way, so the estimate is an integer dot product of the codes times both scales.
+     */
+    static final class Int8Codec extends VectorCodec {
+
+        Int8Codec(int dimensions) {
+            super(dimensions);
+        }
+
+        @Override
+        int codeLength() {
+            return Float.BYTES + dimensions;
+        }
+
+        @Override
+        void encode(float[] vector, byte[] codes, int offset) {
+            float maxAbs = 0;
+            for (float value : vector) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+            float scale = maxAbs > 0 ? maxAbs / 127 : 1;
+            FLOATS.set(codes, offset, scale);
+            for (int i = 0; i < vector.length; i++) {
+                codes[offset + Float.BYTES + i] = (byte) Math.round(vector[i] / scale);
+            }
+        }
+
+        @Override
+        Query prepare(float[] query) {
+            byte[] queryCode = new byte[codeLength()];
+            encode(query, queryCode, 0);
+            float queryScale = (float) FLOATS.get(queryCode, 0);
+            return (codes, offset) -> {
+                // integer multiply-adds are associative, which lets HotSpot vectorize this loop
+                int sum = 0;
+                for (int i = Float.BYTES; i < queryCode.length; i++) {
+                    sum += queryCode[i] * codes[offset + i];
+                }
+                return sum * queryScale * (float) FLOATS.get(codes, offset);
+            };
+        }
+    }
+
+    /**
+     * Sign bit quantization. The similarity is estimated as {@code 1 - 2 * hamming / dimensions}, which is the
+     * fraction of dimensions whose signs agree minus the fraction whose signs differ.
+     */
+    static final class BinaryCodec extends VectorCodec {
+
+        private final int words;
+
+        BinaryCodec(int dimensions) {
+            super(dimensions);
+            this.words = (dimensions + 63) / 64;
+        }
+
+        @Override
+        int codeLength() {
+            return words * Long.BYTES;
+        }
+
+        @Override
+        void encode(float[] vector, byte[] codes, int offset) {
+            long[] bits = signBits(vector);
+            for (int word = 0; word < words; word++) {
+                LONGS.set(codes, offset + word * Long.BYTES, bits[word]);
+            }
+        }
+
+        @Override
+        Query prepare(float[] query) {
+            long[] queryBits = signBits(query);
+            return (codes, offset) -> {
+                int hamming = 0;
+                for (int word = 0; word < words; word++) {
+                    hamming += Long.bitCount(queryBits[word] ^ (long) LONGS.get(codes, offset + word * Long.BYTES));
+                }
+                return 1 - 2f * hamming / dimensions;
+            };
+        }
+
+        private long[] signBits(float[] vector) {
+            long[] bits = new long[words];
+            for (int i = 0; i < vector.length; i++) {
+                if (vector[i] > 0) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            return bits;
+        }
+    }
+}
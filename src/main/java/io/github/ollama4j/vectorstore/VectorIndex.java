@@ -0,0 +1,87 @@
+package io.github.ollama4j.vectorstore;
+
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import io.github.ollama4j.models.embeddings.OllamaEmbedResponseModel;
+
+import java.util.List;
+
+/**
+ * In-process index of embedding vectors supporting top-k similarity queries.
+ * <p>
+ * Vectors are identified by ids assigned consecutively from 0 in the order they are added, so callers can keep the
+ * documents belonging to the vectors in a plain list. Implementations are safe for concurrent use.
+ */
+public interface VectorIndex {
+
+    /**
+     * @return number of dimensions of every vector in this index
+     */
+    int getDimensions();
+
+    SimilarityMetric getMetric();
+
+    /**
+     * @return number of vectors in this index
+     */
+    int size();
+
+    /**
+     * Adds a vector.
+     *
+     * @param vector the vector, which is copied
+     * @return the id of the vector
+     * @throws IllegalArgumentException if the vector does not have {@link #getDimensions()} dimensions
+     */
+    int add(float[] vector);
+
+    /**
+     * Adds all rows of an embedding matrix, e.g. the result of
+     * {@link io.github.ollama4j.OllamaAPI#embedAsFloats(io.github.ollama4j.models.embeddings.OllamaEmbedRequestModel)}.
+     *
+     * @param embeddings the vectors to add
+     * @return the id of the first row; the other rows get the following ids, unless vectors are added concurrently
+     */
+    default int addAll(EmbeddingMatrix embeddings) {
+        int firstId = -1;
+        for (int row = 0; row < embeddings.getRows(); row++) {
+            int id = add(embeddings.row(row));
+            if (firstId == -1) {
+                firstId = id;
+            }
+        }
+        return firstId;
+    }
+
+    /**
+     * Adds all embeddings of a response of {@link io.github.ollama4j.OllamaAPI#embed(io.github.ollama4j.models.embeddings.OllamaEmbedRequestModel)}.
+     *
+     * @param response the response whose embeddings to add
+     * @return the id of the first embedding; the other embeddings get the following ids, unless vectors are added
+     * concurrently
+     */
+    default int addAll(OllamaEmbedResponseModel response) {
+        int firstId = -1;
+        for (List<Double> embedding : response.getEmbeddings()) {
+            float[] vector = new float[embedding.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = embedding.get(i).floatValue();
+            }
+            int id = add(vector);
+            if (firstId == -1) {
+                firstId = id;
+            }
+        }
+        return firstId;
+    }
+
+    /**
+     * Finds the vectors most similar to the query.
+     *
+     * @param query the query vector
+     * @param k     maximum number of results, at least 1
+     * @return up to k results, most similar first
+     * @throws IllegalArgumentException if the query does not have {@link #getDimensions()} dimensions, or k is less
+     *                                  than 1
+     */
+    List<SearchResult> search(float[] query, int k);
+}
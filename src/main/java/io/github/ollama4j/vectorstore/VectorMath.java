@@ -0,0 +1,44 @@
+package io.github.ollama4j.vectorstore;
+
+/**
+ * Similarity kernels shared by the vector indexes.
+ * <p>
+ * The loops are unrolled by four with independent accumulators. As floating point addition is not associative,
+ * HotSpot cannot reorder a single-accumulator reduction; independent accumulators let the CPU overlap the
+ * multiply-adds instead of waiting for each one to complete.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    static float dot(float[] a, float[] b) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = a.length;
+        int i = 0;
+        for (int upper = n & ~3; i < upper; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * @return a copy of the vector scaled to length 1, or an unscaled copy if its length is 0
+     */
+    static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] /= norm;
+            }
+        }
+        return normalized;
+    }
+}
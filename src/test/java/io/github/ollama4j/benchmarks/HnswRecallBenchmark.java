@@ -0,0 +1,98 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.vectorstore.FlatVectorIndex;
+import io.github.ollama4j.vectorstore.HnswIndex;
+import io.github.ollama4j.vectorstore.SearchResult;
+import io.github.ollama4j.vectorstore.SimilarityMetric;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures recall@k and latency of {@link HnswIndex} searches for increasing {@code efSearch} values, using the exact
+ * results of a {@link FlatVectorIndex} as ground truth. The vectors are drawn around random cluster centers, which
+ * resembles real embeddings more than uniformly random vectors.
+ * <p>
+ * Usage: {@code HnswRecallBenchmark [vectors] [dimensions] [queries] [k]}, e.g. via {@code make benchmark-hnsw}.
+ */
+public class HnswRecallBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int dimensions = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int k = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Random random = new Random(42);
+        float[][] centers = new float[Math.max(1, size / 1000)][];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = gaussian(random, dimensions, 1);
+        }
+        FlatVectorIndex exact = new FlatVectorIndex(dimensions, SimilarityMetric.COSINE);
+        HnswIndex hnsw = HnswIndex.builder().dimensions(dimensions).metric(SimilarityMetric.COSINE).build();
+        long buildNanos = 0;
+        for (int i = 0; i < size; i++) {
+            float[] vector = around(random, centers[random.nextInt(centers.length)]);
+            exact.add(vector);
+            long start = System.nanoTime();
+            hnsw.add(vector);
+            buildNanos += System.nanoTime() - start;
+        }
+        System.out.printf("%d vectors, %d dimensions, M=%d, efConstruction=%d, built in %d ms%n",
+                size, dimensions, hnsw.getM(), hnsw.getEfConstruction(), buildNanos / 1_000_000);
+
+        float[][] queries = new float[queryCount][];
+        List<?>[] groundTruth = new List<?>[queryCount];
+        long exactNanos = 0;
+        for (int q = 0; q < queryCount; q++) {
+            queries[q] = around(random, centers[random.nextInt(centers.length)]);
+            long start = System.nanoTime();
+            groundTruth[q] = exact.search(queries[q], k);
+            exactNanos += System.nanoTime() - start;
+        }
+        System.out.printf("%-10s %12s %12s%n", "efSearch", "recall@" + k, "latency us");
+        System.out.printf("%-10s %12.4f %12.1f%n", "exact", 1.0, exactNanos / 1000.0 / queryCount);
+        for (int efSearch : new int[]{10, 20, 40, 80, 160, 320}) {
+            hnsw.setEfSearch(efSearch);
+            // warm up
+            for (float[] query : queries) {
+                hnsw.search(query, k);
+            }
+            int hits = 0;
+            long nanos = 0;
+            for (int q = 0; q < queryCount; q++) {
+                long start = System.nanoTime();
+                List<SearchResult> results = hnsw.search(queries[q], k);
+                nanos += System.nanoTime() - start;
+                Set<Integer> expected = new HashSet<>();
+                for (Object result : groundTruth[q]) {
+                    expected.add(((SearchResult) result).getId());
+                }
+                for (SearchResult result : results) {
+                    if (expected.contains(result.getId())) {
+                        hits++;
+                    }
+                }
+            }
+            System.out.printf("%-10d %12.4f %12.1f%n", efSearch, hits / (double) (k * queryCount), nanos / 1000.0 / queryCount);
+        }
+    }
+
+    private static float[] gaussian(Random random, int dimensions, double scale) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (random.nextGaussian() * scale);
+        }
+        return vector;
+    }
+
+    private static float[] around(Random random, float[] center) {
+        float[] vector = gaussian(random, center.length, 0.5);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += center[i];
+        }
+        return vector;
+    }
+}
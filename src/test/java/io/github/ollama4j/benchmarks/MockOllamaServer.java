@@ -0,0 +1,71 @@
+package io.github.ollama4j.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.utils.VirtualThreads;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process stand-in for an Ollama server that streams a fixed number of tokens with a fixed delay, used to
+ * benchmark the client without a GPU.
+ */
+public class MockOllamaServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int tokens;
+    private final long tokenDelayMillis;
+
+    private MockOllamaServer(int tokens, long tokenDelayMillis) throws IOException {
+        this.tokens = tokens;
+        this.tokenDelayMillis = tokenDelayMillis;
+        this.executor = VirtualThreads.isSupported() ? VirtualThreads.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/chat", exchange -> stream(exchange, true));
+        this.server.createContext("/api/generate", exchange -> stream(exchange, false));
+        this.server.start();
+    }
+
+    public static MockOllamaServer start(int tokens, long tokenDelayMillis) throws IOException {
+        return new MockOllamaServer(tokens, tokenDelayMillis);
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void stream(HttpExchange exchange, boolean chat) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i <= tokens; i++) {
+                boolean done = i == tokens;
+                String content = done ? "" : "token" + i + " ";
+                String line = chat
+                        ? "{\"model\":\"mock\",\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"},\"done\":" + done
+                        : "{\"model\":\"mock\",\"response\":\"" + content + "\",\"done\":" + done;
+                line += done ? ",\"eval_count\":" + tokens + "}\n" : "}\n";
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (!done && tokenDelayMillis > 0) {
+                    Thread.sleep(tokenDelayMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.ollama4j.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.ollama4j.models.chat.OllamaChatResponseModel;
+import io.github.ollama4j.utils.NdJsonDecoder;
+import io.github.ollama4j.utils.NdJsonReader;
+import io.github.ollama4j.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a streamed chat response of {@link #tokens} parts, comparing the former line based parsing (every line
+ * decoded to a String and deserialized twice) with {@link NdJsonReader} and {@link NdJsonDecoder}.
+ * <p>
+ * Run with {@code make benchmark-ndjson}; the {@code gc.alloc.rate.norm} column of the GC profiler shows the bytes
+ * allocated per parsed response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NdJsonParsingBenchmark {
+
+    @Param({"500"})
+    public int tokens;
+
+    private byte[] response;
+
+    private final ObjectMapper objectMapper = Utils.getObjectMapper();
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            builder.append("{\"model\":\"llama3\",\"created_at\":\"2024-08-01T10:00:00.000000Z\",\"message\":{\"role\":\"assistant\",\"content\":\"token")
+                    .append(i).append(" \"},\"done\":false}\n");
+        }
+        builder.append("{\"model\":\"llama3\",\"created_at\":\"2024-08-01T10:00:00.000000Z\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},")
+                .append("\"done_reason\":\"stop\",\"done\":true,\"total_duration\":1000,\"eval_count\":").append(tokens).append("}\n");
+        response = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void lineBasedDoubleParse(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(objectMapper.readValue(line, OllamaChatResponseModel.class));
+                blackhole.consume(objectMapper.readValue(line, OllamaChatResponseModel.class));
+            }
+        }
+    }
+
+    @Benchmark
+    public void blockingReader(Blackhole blackhole) throws IOException {
+        try (NdJsonReader<OllamaChatResponseModel> reader = new NdJsonReader<>(new ByteArrayInputStream(response), OllamaChatResponseModel.class)) {
+            OllamaChatResponseModel part;
+            while ((part = reader.next()) != null) {
+                blackhole.consume(part);
+            }
+        }
+    }
+
+    @Benchmark
+    public void nonBlockingDecoder(Blackhole blackhole) throws IOException {
+        NdJsonDecoder<OllamaChatResponseModel> decoder = new NdJsonDecoder<>(OllamaChatResponseModel.class);
+        // chunks of the size the HttpClient typically hands to body subscribers
+        for (int offset = 0; offset < response.length; offset += 16 * 1024) {
+            decoder.feed(ByteBuffer.wrap(response, offset, Math.min(16 * 1024, response.length - offset)));
+            OllamaChatResponseModel part;
+            while ((part = decoder.next()) != null) {
+                blackhole.consume(part);
+            }
+        }
+        decoder.endOfInput();
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.vectorstore.FlatVectorIndex;
+import io.github.ollama4j.vectorstore.Quantization;
+import io.github.ollama4j.vectorstore.QuantizedVectorIndex;
+import io.github.ollama4j.vectorstore.SearchResult;
+import io.github.ollama4j.vectorstore.SimilarityMetric;
+import io.github.ollama4j.vectorstore.VectorIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares a {@link FlatVectorIndex} of 32-bit floats with {@link QuantizedVectorIndex}es, with and without rescoring,
+ * by memory per vector, search latency (i.e. scan throughput) and recall@k against the exact results. The memory of the
+ * rescoring variants includes the full vectors they keep next to the codes, so they take more than the float32 index. The vectors are
+ * drawn around random cluster centers, which resembles real embeddings more than uniformly random vectors.
+ * <p>
+ * Usage: {@code QuantizationBenchmark [vectors] [dimensions] [queries] [k]}, e.g. via {@code make benchmark-quantization}.
+ */
+public class QuantizationBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int dimensions = args.length > 1 ? Integer.parseInt(args[1]) : 768;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int k = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Random random = new Random(42);
+        float[][] centers = new float[Math.max(1, size / 1000)][];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = gaussian(random, dimensions, 1);
+        }
+        FlatVectorIndex exact = new FlatVectorIndex(dimensions, SimilarityMetric.COSINE);
+        QuantizedVectorIndex[] quantized = {
+                quantized(Quantization.INT8, 0, dimensions),
+                quantized(Quantization.INT8, 4, dimensions),
+                quantized(Quantization.BINARY, 0, dimensions),
+                quantized(Quantization.BINARY, 10, dimensions)
+        };
+        for (int i = 0; i < size; i++) {
+            float[] vector = around(random, centers[random.nextInt(centers.length)]);
+            exact.add(vector);
+            for (QuantizedVectorIndex index : quantized) {
+                index.add(vector);
+            }
+        }
+        float[][] queries = new float[queryCount][];
+        for (int q = 0; q < queryCount; q++) {
+            queries[q] = around(random, centers[random.nextInt(centers.length)]);
+        }
+
+        System.out.printf("%d vectors, %d dimensions, %d queries, recall@%d%n", size, dimensions, queryCount, k);
+        System.out.printf("%-22s %14s %14s %12s%n", "index", "bytes/vector", "latency ms", "recall");
+        List<?>[] groundTruth = new List<?>[queryCount];
+        for (int q = 0; q < queryCount; q++) {
+            groundTruth[q] = exact.search(queries[q], k);
+        }
+        report("float32", dimensions * Float.BYTES, exact, queries, groundTruth, k);
+        for (QuantizedVectorIndex index : quantized) {
+            String name = index.getQuantization() + (index.getOversampling() > 0 ? " + rescore x" + index.getOversampling() : "");
+            report(name, index.getBytesPerVector(), index, queries, groundTruth, k);
+        }
+    }
+
+    private static QuantizedVectorIndex quantized(Quantization quantization, int oversampling, int dimensions) {
+        return QuantizedVectorIndex.builder().dimensions(dimensions).metric(SimilarityMetric.COSINE)
+                .quantization(quantization).oversampling(oversampling).build();
+    }
+
+    private static void report(String name, int bytesPerVector, VectorIndex index, float[][] queries, List<?>[] groundTruth, int k) {
+        // warm up
+        for (float[] query : queries) {
+            index.search(query, k);
+        }
+        int hits = 0;
+        long nanos = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            List<SearchResult> results = index.search(queries[q], k);
+            nanos += System.nanoTime() - start;
+            Set<Integer> expected = new HashSet<>();
+            for (Object result : groundTruth[q]) {
+                expected.add(((SearchResult) result).getId());
+            }
+            for (SearchResult result : results) {
+                if (expected.contains(result.getId())) {
+                    hits++;
+                }
+            }
+        }
+        System.out.printf("%-22s %14d %14.2f %12.4f%n", name, bytesPerVector, nanos / 1e6 / queries.length, hits / (double) (k * queries.length));
+    }
+
+    private static float[] gaussian(Random random, int dimensions, double scale) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (random.nextGaussian() * scale);
+        }
+        return vector;
+    }
+
+    private static float[] around(Random random, float[] center) {
+        float[] vector = gaussian(random, center.length, 0.5);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += center[i];
+        }
+        return vector;
+    }
+}
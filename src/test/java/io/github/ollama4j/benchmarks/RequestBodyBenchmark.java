@@ -0,0 +1,97 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.models.chat.OllamaChatMessage;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Produces the request body of a chat with a history of {@link #messages} messages, comparing the former
+ * serialization to a {@code String} published with {@link HttpRequest.BodyPublishers#ofString(String)} with
+ * {@link io.github.ollama4j.utils.JsonBodyPublisher}, once with the JSON of every message serialized anew (as for the
+ * first request of a chat) and once with the cached JSON of the messages (as for every further turn).
+ * <p>
+ * Run with {@code make benchmark-request-body}; the {@code gc.alloc.rate.norm} column of the GC profiler shows the
+ * bytes allocated per request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyBenchmark {
+
+    @Param({"200"})
+    public int messages;
+
+    private OllamaChatRequest request;
+
+    @Setup
+    public void setUp() {
+        OllamaChatRequestBuilder builder = OllamaChatRequestBuilder.getInstance("llama3");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            content.append("Some sentence of a longer chat message, with \"quotes\" and a line break.\n");
+        }
+        for (int i = 0; i < messages; i++) {
+            builder.withMessage(i % 2 == 0 ? OllamaChatMessageRole.USER : OllamaChatMessageRole.ASSISTANT, i + ": " + content);
+        }
+        request = builder.build();
+    }
+
+    @Benchmark
+    public void serializeToString(Blackhole blackhole) throws IOException {
+        invalidateCachedJson();
+        drain(HttpRequest.BodyPublishers.ofString(Utils.getObjectMapper().writeValueAsString(request)), blackhole);
+    }
+
+    @Benchmark
+    public void jsonBodyPublisher(Blackhole blackhole) {
+        invalidateCachedJson();
+        drain(request.getBodyPublisher(), blackhole);
+    }
+
+    @Benchmark
+    public void jsonBodyPublisherCachedHistory(Blackhole blackhole) {
+        drain(request.getBodyPublisher(), blackhole);
+    }
+
+    private void invalidateCachedJson() {
+        for (OllamaChatMessage message : request.getMessages()) {
+            message.setContent(message.getContent());
+        }
+    }
+
+    private static void drain(HttpRequest.BodyPublisher publisher, Blackhole blackhole) {
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                blackhole.consume(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.tokenizer.BpeTokenizer;
+import io.github.ollama4j.tokenizer.HeuristicTokenizer;
+import io.github.ollama4j.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the tokens of a text of {@link #characters} characters with a {@link BpeTokenizer} and the
+ * {@link HeuristicTokenizer}. The BPE vocabulary is trained on a synthetic corpus during setup, so the benchmark does
+ * not need the tokenizer files of a real model; its words are drawn from a Zipf-like distribution like the words of
+ * natural text.
+ * <p>
+ * Run with {@code make benchmark-tokenizer}; the tokens of the text are printed during setup, so tokens per second are
+ * the operations per second times that count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private static final String[] SYLLABLES = {"the", "an", "con", "tion", "ing", "er", "pro", "re", "st", "al", "ex",
+            "ma", "de", "in", "ver", "com", "ly", "ment", "ity", "ous", "ca", "po", "li", "ter", "ent"};
+
+    @Param({"100000"})
+    public int characters;
+
+    @Param({"2000"})
+    public int merges;
+
+    private BpeTokenizer bpe;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 1 + random.nextInt(4); s > 0; s--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < characters) {
+            // rank ~ 1/u, roughly Zipf-distributed
+            int rank = (int) Math.min(words.size() - 1, 1 / (random.nextDouble() + 1e-4) - 1);
+            builder.append(words.get(rank)).append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        text = builder.toString();
+
+        Path directory = Files.createTempDirectory("tokenizer-benchmark");
+        train(text, merges, directory.resolve("vocab.json"), directory.resolve("merges.txt"));
+        bpe = BpeTokenizer.fromVocabAndMerges(directory.resolve("vocab.json"), directory.resolve("merges.txt"));
+        System.out.printf("%n%d characters, %d BPE tokens, %d heuristic tokens%n", text.length(), bpe.countTokens(text),
+                HeuristicTokenizer.INSTANCE.countTokens(text));
+    }
+
+    @Benchmark
+    public int bpe() {
+        return bpe.countTokens(text);
+    }
+
+    @Benchmark
+    public int heuristic() {
+        return HeuristicTokenizer.INSTANCE.countTokens(text);
+    }
+
+    /**
+     * Trains a byte-level BPE vocabulary on the words of the corpus by repeatedly merging the most frequent pair.
+     */
+    private static void train(String corpus, int mergeCount, Path vocabJson, Path mergesTxt) throws IOException {
+        char[] byteChars = new char[256];
+        int next = 256;
+        Map<String, Integer> vocabulary = new LinkedHashMap<>();
+        for (int b = 0; b < 256; b++) {
+            boolean printable = (b >= '!' && b <= '~') || (b >= 0xA1 && b <= 0xAC) || (b >= 0xAE && b <= 0xFF);
+            byteChars[b] = (char) (printable ? b : next++);
+            vocabulary.put(String.valueOf(byteChars[b]), b);
+        }
+        Map<List<String>, Integer> wordCounts = new HashMap<>();
+        for (String word : corpus.split("(?= )")) {
+            List<String> symbols = new ArrayList<>();
+            for (byte b : word.getBytes(StandardCharsets.UTF_8)) {
+                symbols.add(String.valueOf(byteChars[b & 0xff]));
+            }
+            wordCounts.merge(symbols, 1, Integer::sum);
+        }
+        StringBuilder mergeLines = new StringBuilder("#version: 0.2\n");
+        for (int m = 0; m < mergeCount; m++) {
+            Map<String, Integer> pairCounts = new HashMap<>();
+            for (Map.Entry<List<String>, Integer> word : wordCounts.entrySet()) {
+                List<String> symbols = word.getKey();
+                for (int i = 0; i < symbols.size() - 1; i++) {
+                    pairCounts.merge(symbols.get(i) + " " + symbols.get(i + 1), word.getValue(), Integer::sum);
+                }
+            }
+            String best = pairCounts.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+            if (best == null) {
+                break;
+            }
+            String left = best.substring(0, best.indexOf(' '));
+            String right = best.substring(best.indexOf(' ') + 1);
+            mergeLines.append(best).append('\n');
+            vocabulary.putIfAbsent(left + right, vocabulary.size());
+            Map<List<String>, Integer> mergedCounts = new HashMap<>();
+            for (Map.Entry<List<String>, Integer> word : wordCounts.entrySet()) {
+                List<String> symbols = new ArrayList<>(word.getKey());
+                for (int i = 0; i < symbols.size() - 1; i++) {
+                    if (symbols.get(i).equals(left) && symbols.get(i + 1).equals(right)) {
+                        symbols.set(i, left + right);
+                        symbols.remove(i + 1);
+                    }
+                }
+                mergedCounts.merge(symbols, word.getValue(), Integer::sum);
+            }
+            wordCounts = mergedCounts;
+        }
+        Utils.getObjectMapper().writeValue(vocabJson.toFile(), vocabulary);
+        Files.writeString(mergesTxt, mergeLines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.vectorstore.FlatVectorIndex;
+import io.github.ollama4j.vectorstore.SimilarityMetric;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 cosine search in a {@link FlatVectorIndex} of {@link #size} vectors with {@link #dimensions} dimensions,
+ * scanned in up to {@link #parallelism} slices on the common pool.
+ * <p>
+ * Run with {@code make benchmark-vector-index}. The default 1M x 768 index takes 3 GB of direct memory; pass e.g.
+ * {@code -p size=100000} in the JMH arguments for a smaller one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorIndexBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"768"})
+    public int dimensions;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private FlatVectorIndex index;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        index = new FlatVectorIndex(dimensions, SimilarityMetric.COSINE, ForkJoinPool.commonPool(), parallelism);
+        Random random = new Random(42);
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < size; i++) {
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            index.add(vector);
+        }
+        query = vector.clone();
+    }
+
+    @TearDown
+    public void tearDown() {
+        // lets the direct buffers of this trial be freed before the next one allocates its own
+        index = null;
+        System.gc();
+    }
+
+    @Benchmark
+    public Object search() {
+        return index.search(query, 10);
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.ollama4j.benchmarks;
+
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.request.OllamaHttpTransportConfig;
+import io.github.ollama4j.utils.VirtualThreads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares running many concurrent blocking streaming chats on platform threads versus virtual threads against a
+ * local {@link MockOllamaServer}.
+ * <p>
+ * Usage: {@code VirtualThreadBenchmark [concurrentChats] [tokensPerChat] [tokenDelayMillis]}, e.g. via
+ * {@code make benchmark-virtual-threads}. The virtual thread run is skipped on JDKs older than 21.
+ */
+public class VirtualThreadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int concurrentChats = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int tokens = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long tokenDelayMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        try (MockOllamaServer server = MockOllamaServer.start(tokens, tokenDelayMillis)) {
+            System.out.printf("%d concurrent streaming chats, %d tokens each, %d ms per token%n", concurrentChats, tokens, tokenDelayMillis);
+            System.out.printf("%-18s %12s %18s %16s%n", "mode", "elapsed ms", "peak platform thr.", "heap used MB");
+            run("platform threads", server.getUrl(), OllamaHttpTransportConfig.defaults(), Executors.newCachedThreadPool(), concurrentChats);
+            if (VirtualThreads.isSupported()) {
+                run("virtual threads", server.getUrl(), OllamaHttpTransportConfig.withVirtualThreads(), VirtualThreads.newVirtualThreadPerTaskExecutor(), concurrentChats);
+            } else {
+                System.out.printf("%-18s skipped, requires JDK 21+ (running %s)%n", "virtual threads", Runtime.version());
+            }
+        }
+    }
+
+    private static void run(String mode, String url, OllamaHttpTransportConfig transportConfig, ExecutorService callers, int concurrentChats) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        AtomicLong streamedParts = new AtomicLong();
+        long start = System.nanoTime();
+        long heapUsed;
+        try (OllamaAPI ollamaAPI = new OllamaAPI(url, transportConfig)) {
+            ollamaAPI.setVerbose(false);
+            ollamaAPI.setRequestTimeoutSeconds(120);
+            List<Future<?>> chats = new ArrayList<>(concurrentChats);
+            for (int i = 0; i < concurrentChats; i++) {
+                chats.add(callers.submit(() -> {
+                    OllamaChatRequest request = OllamaChatRequestBuilder.getInstance("mock")
+                            .withMessage(OllamaChatMessageRole.USER, "Hello").build();
+                    return ollamaAPI.chat(request, part -> streamedParts.incrementAndGet());
+                }));
+            }
+            heapUsed = 0;
+            for (Future<?> chat : chats) {
+                chat.get();
+                heapUsed = Math.max(heapUsed, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+            }
+        } finally {
+            callers.shutdown();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-18s %12d %18d %16d%n", mode, elapsedMillis, threads.getPeakThreadCount(), heapUsed / (1024 * 1024));
+    }
+}
@@ -0,0 +1,353 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.chat.OllamaChatResponseModel;
+import io.github.ollama4j.models.chat.OllamaChatResult;
+import io.github.ollama4j.models.embeddings.OllamaEmbedResponseModel;
+import io.github.ollama4j.models.generate.OllamaGenerateRequest;
+import io.github.ollama4j.models.generate.OllamaGenerateResponseModel;
+import io.github.ollama4j.models.request.OllamaChatEndpointCaller;
+import io.github.ollama4j.models.request.OllamaHttpTransport;
+import io.github.ollama4j.models.request.OllamaHttpTransportConfig;
+import io.github.ollama4j.models.response.OllamaAsyncResultStreamer;
+import io.github.ollama4j.tools.Tools;
+import io.github.ollama4j.utils.OptionsBuilder;
+import io.github.ollama4j.utils.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestAsyncAPIs {
+
+    private static final String CHAT_STREAM =
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"Hel\"},\"done\":false}\n" +
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"lo\"},\"done\":false}\n" +
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true,\"eval_count\":2}\n";
+
+    private HttpServer server;
+    private OllamaAPI ollamaAPI;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/chat", exchange -> respond(exchange, 200, CHAT_STREAM));
+        server.createContext("/api/generate", exchange -> respond(exchange, 404, "{\"error\":\"model 'm' not found\"}"));
+        server.createContext("/api/embed", exchange -> respond(exchange, 200,
+                "{\"model\":\"m\",\"embeddings\":[[0.1,0.2],[0.3,0.4]]}"));
+        server.start();
+        ollamaAPI = new OllamaAPI("http://localhost:" + server.getAddress().getPort());
+        ollamaAPI.setVerbose(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ollamaAPI.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testChatAsyncStreamsAndCompletes() throws Exception {
+        List<String> streamed = new ArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            OllamaChatResult result = ollamaAPI.chatAsync(
+                    OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build(),
+                    token -> streamed.add(token.getContent()), executor).get(10, TimeUnit.SECONDS);
+            assertEquals("Hello", result.getResponseModel().getMessage().getContent());
+            assertEquals(List.of("Hel", "lo", ""), streamed);
+            assertEquals(2, result.getChatHistory().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testChatWithStreamHandlerReceivesAccumulatedMessage() throws Exception {
+        List<String> streamed = new ArrayList<>();
+        OllamaChatResult result = ollamaAPI.chat(
+                OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build(),
+                streamed::add);
+        assertEquals("Hello", result.getResponseModel().getMessage().getContent());
+        assertEquals(List.of("Hel", "Hello", "Hello"), streamed);
+    }
+
+    @Test
+    void testGenerateAsyncCompletesExceptionallyOnErrorStatus() {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> ollamaAPI.generateAsync(
+                "m", "Hi", false, new OptionsBuilder().build(), null).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(OllamaBaseException.class, exception.getCause());
+        assertEquals("model 'm' not found", exception.getCause().getMessage());
+    }
+
+    @Test
+    void testChatPublisherHonorsDemandAndCompletes() throws Exception {
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        ollamaAPI.chatPublisher(OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build())
+                .subscribe(new Flow.Subscriber<>() {
+                    private Flow.Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onNext(OllamaChatResponseModel item) {
+                        received.add(item.getMessage().getContent());
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        completed.completeExceptionally(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.complete(null);
+                    }
+                });
+        completed.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("Hel", "lo", ""), received);
+    }
+
+    @Test
+    void testGeneratePublisherSignalsErrorStatus() {
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        ollamaAPI.generatePublisher("m", "Hi", false, new OptionsBuilder().build()).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(OllamaGenerateResponseModel item) {
+                completed.completeExceptionally(new AssertionError("unexpected item " + item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> completed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(OllamaBaseException.class, exception.getCause());
+        assertEquals("model 'm' not found", exception.getCause().getMessage());
+    }
+
+    @Test
+    void testEmbedAsync() throws Exception {
+        OllamaEmbedResponseModel response = ollamaAPI.embedAsync("m", List.of("a", "b")).get(10, TimeUnit.SECONDS);
+        assertEquals(2, response.getEmbeddings().size());
+        assertEquals(0.4, response.getEmbeddings().get(1).get(1));
+    }
+
+    @Test
+    void testCallsShareOneTransportUntilClosed() throws Exception {
+        OllamaChatRequest request = OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build();
+        ollamaAPI.chat(request);
+        ollamaAPI.chatAsync(request, null, null).get(10, TimeUnit.SECONDS);
+        ollamaAPI.embedAsync("m", List.of("a")).get(10, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> ollamaAPI.generateAsync("m", "Hi", false, new OptionsBuilder().build(), null)
+                .get(10, TimeUnit.SECONDS));
+        OllamaAsyncResultStreamer streamer = ollamaAPI.generateAsync("m", "Hi", false);
+        streamer.join(10_000);
+        assertFalse(streamer.isRunning());
+        // one pooled connection, kept alive between the sequential requests, served all of them
+        assertEquals(1, clientPorts.size());
+
+        ollamaAPI.close();
+        assertThrows(IllegalStateException.class, () -> ollamaAPI.chat(request));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> ollamaAPI.chatAsync(request, null, null).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testCallerWithoutTransportUsesOneTransportPerRequest() throws Exception {
+        OllamaChatEndpointCaller caller = new OllamaChatEndpointCaller("http://localhost:" + server.getAddress().getPort(), null, 10, false);
+        OllamaChatRequest request = OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build();
+        request.setStream(true);
+        assertEquals("Hello", caller.call(request, message -> {
+        }).getResponseModel().getMessage().getContent());
+        assertEquals("Hello", caller.callAsync(request, null).get(10, TimeUnit.SECONDS).getResponseModel().getMessage().getContent());
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        caller.callPublisher(request).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(OllamaChatResponseModel item) {
+                received.add(item.getMessage().getContent());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        completed.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("Hel", "lo", ""), received);
+        // every request had its own transport, and so its own connection
+        assertEquals(3, clientPorts.size());
+    }
+
+    @Test
+    void testStreamerRunsAsTaskOfExecutor() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        try (OllamaHttpTransport transport = new OllamaHttpTransport()) {
+            OllamaAsyncResultStreamer streamer = new OllamaAsyncResultStreamer(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/api/generate")),
+                    new OllamaGenerateRequest("m", "Hi"), 10, transport);
+            streamer.start(tasks::add);
+            // queued but not started yet, the streamer's own thread is never started
+            assertEquals(1, tasks.size());
+            assertTrue(streamer.isRunning());
+            assertFalse(streamer.isAlive());
+
+            tasks.get(0).run();
+            assertFalse(streamer.isRunning());
+            assertFalse(streamer.isSucceeded());
+            assertEquals(404, streamer.getHttpStatusCode());
+
+            OllamaAsyncResultStreamer rejected = new OllamaAsyncResultStreamer(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/api/generate")),
+                    new OllamaGenerateRequest("m", "Hi"), 10, transport);
+            Executor rejecting = task -> {
+                throw new RejectedExecutionException("shut down");
+            };
+            assertThrows(RejectedExecutionException.class, () -> rejected.start(rejecting));
+            assertFalse(rejected.isRunning());
+        }
+    }
+
+    @Test
+    void testGenerateAsyncAndToolsRunOnConfiguredExecutor() throws Exception {
+        AtomicInteger chats = new AtomicInteger();
+        server.removeContext("/api/chat");
+        server.createContext("/api/chat", exchange -> respond(exchange, 200, chats.getAndIncrement() == 0
+                ? "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"\",\"tool_calls\":"
+                + "[{\"function\":{\"name\":\"current-thread\",\"arguments\":{}}}]},\"done\":true}"
+                : "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"done\"},\"done\":true}"));
+        ExecutorService executor = Executors.newCachedThreadPool(task -> new Thread(task, "configured-executor"));
+        List<String> toolThreads = new ArrayList<>();
+        try (OllamaAPI api = new OllamaAPI("http://localhost:" + server.getAddress().getPort(),
+                OllamaHttpTransportConfig.builder().executor(executor).build())) {
+            api.setVerbose(false);
+            api.registerTool(Tools.ToolSpecification.builder()
+                    .functionName("current-thread")
+                    .functionDescription("Name of the thread the tool runs on")
+                    .toolPrompt(Tools.PromptFuncDefinition.builder().type("function").function(
+                            Tools.PromptFuncDefinition.PromptFuncSpec.builder()
+                                    .name("current-thread")
+                                    .description("Name of the thread the tool runs on")
+                                    .parameters(Tools.PromptFuncDefinition.Parameters.builder().type("object")
+                                            .properties(new Tools.PropsBuilder().build()).required(List.of()).build())
+                                    .build())
+                            .build())
+                    .toolFunction(arguments -> {
+                        String name = Thread.currentThread().getName();
+                        toolThreads.add(name);
+                        return name;
+                    })
+                    .build());
+
+            List<String> writerThreads = new ArrayList<>();
+            OllamaChatResult result = api.chatAsync(OllamaChatRequestBuilder.getInstance("m")
+                            .withMessageAndImages(OllamaChatMessageRole.USER, "Hi", null, List.of(() -> {
+                                writerThreads.add(Thread.currentThread().getName());
+                                return new ByteArrayInputStream(new byte[]{1, 2, 3});
+                            })).build(), null, null)
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals("done", result.getResponseModel().getMessage().getContent());
+            assertEquals(List.of("configured-executor"), toolThreads);
+            // the request body is written on the executor as well, once for every request of the tool loop
+            assertEquals(List.of("configured-executor", "configured-executor"), writerThreads);
+
+            OllamaAsyncResultStreamer streamer = api.generateAsync("m", "Hi", false);
+            // run as a task of the executor instead of on the streamer's own thread
+            assertFalse(streamer.isAlive());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (streamer.isRunning() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(streamer.isRunning());
+            assertEquals(404, streamer.getHttpStatusCode());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testVirtualThreadsAreLookedUpReflectively() throws Exception {
+        assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isSupported());
+        if (!VirtualThreads.isSupported()) {
+            assertThrows(UnsupportedOperationException.class, VirtualThreads::newVirtualThreadPerTaskExecutor);
+            assertThrows(UnsupportedOperationException.class,
+                    () -> new OllamaHttpTransport(OllamaHttpTransportConfig.builder().virtualThreads(true).build()));
+            return;
+        }
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            assertEquals(Boolean.TRUE, executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                    .get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
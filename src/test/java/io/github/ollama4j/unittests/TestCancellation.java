@@ -0,0 +1,224 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaCancelledException;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.chat.OllamaChatResponseModel;
+import io.github.ollama4j.models.chat.OllamaChatResult;
+import io.github.ollama4j.models.request.OllamaCancellationHandle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCancellation {
+
+    private static final String PART = "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"token \"},\"done\":false}\n";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OllamaAPI ollamaAPI;
+    private final CountDownLatch clientDisconnected = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/api/chat", this::streamEndlessly);
+        server.start();
+        ollamaAPI = new OllamaAPI("http://localhost:" + server.getAddress().getPort());
+        ollamaAPI.setVerbose(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ollamaAPI.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testFirstTokenDeadlineAbortsWaitingRequest() {
+        OllamaChatRequest request = request("slow");
+        request.setCancellationHandle(OllamaCancellationHandle.withDeadlines(Duration.ofMillis(300), null));
+        long start = System.nanoTime();
+        OllamaCancelledException exception = assertThrows(OllamaCancelledException.class, () -> ollamaAPI.chat(request));
+        assertEquals(OllamaCancelledException.Reason.FIRST_TOKEN_DEADLINE_EXCEEDED, exception.getReason());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    void testTotalDeadlineClosesStreamMidGeneration() throws Exception {
+        OllamaChatRequest request = request("fast");
+        request.setCancellationHandle(OllamaCancellationHandle.withDeadlines(Duration.ofSeconds(2), Duration.ofMillis(500)));
+        OllamaCancelledException exception = assertThrows(OllamaCancelledException.class,
+                () -> ollamaAPI.chatStreaming(request, token -> {
+                }));
+        assertEquals(OllamaCancelledException.Reason.TOTAL_DEADLINE_EXCEEDED, exception.getReason());
+        assertTrue(clientDisconnected.await(5, TimeUnit.SECONDS), "server did not notice the closed stream");
+    }
+
+    @Test
+    void testCancellingAsyncFutureClosesStream() throws Exception {
+        CountDownLatch firstToken = new CountDownLatch(1);
+        CompletableFuture<OllamaChatResult> future = ollamaAPI.chatAsync(request("fast"), token -> firstToken.countDown(), null);
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertTrue(clientDisconnected.await(5, TimeUnit.SECONDS), "server did not notice the closed stream");
+    }
+
+    @Test
+    void testCancelledHandleFailsAsyncCall() throws Exception {
+        OllamaChatRequest request = request("fast");
+        OllamaCancellationHandle cancellationHandle = new OllamaCancellationHandle();
+        request.setCancellationHandle(cancellationHandle);
+        CountDownLatch firstToken = new CountDownLatch(1);
+        CompletableFuture<OllamaChatResult> future = ollamaAPI.chatAsync(request, token -> firstToken.countDown(), null);
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+        cancellationHandle.cancel();
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OllamaCancelledException.class, exception.getCause());
+        assertTrue(clientDisconnected.await(5, TimeUnit.SECONDS), "server did not notice the closed stream");
+    }
+
+    @Test
+    void testConcurrentAsyncCallsWithSameRequestAreCancelledSeparately() throws Exception {
+        OllamaChatRequest request = request("fast");
+        CountDownLatch firstTokens = new CountDownLatch(2);
+        AtomicInteger secondTokens = new AtomicInteger();
+        CompletableFuture<OllamaChatResult> first = ollamaAPI.chatAsync(request, token -> firstTokens.countDown(), null);
+        CompletableFuture<OllamaChatResult> second = ollamaAPI.chatAsync(request, token -> {
+            firstTokens.countDown();
+            secondTokens.incrementAndGet();
+        }, null);
+        assertTrue(firstTokens.await(5, TimeUnit.SECONDS));
+        // the handles of the calls are not set on the shared request
+        assertNull(request.getCancellationHandle());
+
+        first.cancel(true);
+        assertTrue(clientDisconnected.await(5, TimeUnit.SECONDS), "server did not notice the closed stream");
+        int tokens = secondTokens.get();
+        Thread.sleep(200);
+        assertTrue(secondTokens.get() > tokens, "the second call has been aborted as well");
+        assertFalse(second.isDone());
+        second.cancel(true);
+    }
+
+    @Test
+    void testCompletedCallStopsDeadlineTimers() throws Exception {
+        ScheduledThreadPoolExecutor scheduler = deadlineScheduler();
+        int scheduled = scheduler.getQueue().size();
+        OllamaCancellationHandle cancellationHandle = OllamaCancellationHandle.withDeadlines(Duration.ofSeconds(30), Duration.ofSeconds(30));
+        OllamaCancellationHandle.Registration first = cancellationHandle.register(() -> {
+        });
+        OllamaCancellationHandle.Registration second = cancellationHandle.register(() -> {
+        });
+        assertEquals(scheduled + 2, scheduler.getQueue().size());
+        first.close();
+        assertEquals(scheduled + 2, scheduler.getQueue().size());
+        second.close();
+        assertEquals(scheduled, scheduler.getQueue().size());
+        assertFalse(cancellationHandle.isCancelled());
+    }
+
+    @Test
+    void testTotalDeadlineSpansRequestsOfOneCall() throws Exception {
+        OllamaCancellationHandle cancellationHandle = OllamaCancellationHandle.withDeadlines(null, Duration.ofMillis(300));
+        cancellationHandle.register(() -> {
+        }).close();
+        // e.g. the follow-up request after a tool call restarts the timer for the remaining time
+        CountDownLatch aborted = new CountDownLatch(1);
+        cancellationHandle.register(aborted::countDown);
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+        assertEquals(OllamaCancelledException.Reason.TOTAL_DEADLINE_EXCEEDED, cancellationHandle.getReason());
+    }
+
+    @Test
+    void testInvalidDemandFailsPublisherAndClosesStream() throws Exception {
+        CompletableFuture<Throwable> failed = new CompletableFuture<>();
+        ollamaAPI.chatPublisher(request("fast")).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(OllamaChatResponseModel item) {
+                subscription.request(0);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failed.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                failed.complete(null);
+            }
+        });
+        assertInstanceOf(IllegalArgumentException.class, failed.get(5, TimeUnit.SECONDS));
+        assertTrue(clientDisconnected.await(5, TimeUnit.SECONDS), "server did not notice the closed stream");
+    }
+
+    private static ScheduledThreadPoolExecutor deadlineScheduler() throws ReflectiveOperationException {
+        Field scheduler = OllamaCancellationHandle.class.getDeclaredField("SCHEDULER");
+        scheduler.setAccessible(true);
+        return (ScheduledThreadPoolExecutor) scheduler.get(null);
+    }
+
+    private static OllamaChatRequest request(String model) {
+        return OllamaChatRequestBuilder.getInstance(model).withMessage(OllamaChatMessageRole.USER, "Hi").build();
+    }
+
+    /**
+     * Streams response parts until the client goes away; the "slow" model waits 5 seconds before responding.
+     */
+    private void streamEndlessly(HttpExchange exchange) throws IOException {
+        String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if (requestBody.contains("\"slow\"")) {
+                Thread.sleep(5000);
+            }
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            for (int i = 0; i < 500; i++) {
+                out.write(PART.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(20);
+            }
+            out.close();
+        } catch (IOException e) {
+            clientDisconnected.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+}
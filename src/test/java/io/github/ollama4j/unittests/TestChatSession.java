@@ -0,0 +1,160 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.models.chat.OllamaChatMessage;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatSession;
+import io.github.ollama4j.models.chat.OllamaChatToolCalls;
+import io.github.ollama4j.models.chat.OllamaChatTrimmingPolicy;
+import io.github.ollama4j.tools.OllamaToolCallsFunction;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestChatSession {
+
+    private HttpServer server;
+    private OllamaAPI ollamaAPI;
+    private final List<JSONArray> sentHistories = new ArrayList<>();
+    private volatile boolean failing;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/chat", this::answer);
+        server.start();
+        ollamaAPI = new OllamaAPI("http://localhost:" + server.getAddress().getPort());
+        ollamaAPI.setVerbose(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ollamaAPI.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testSessionTrimsSlidingWindowAndKeepsSystemPrompt() throws Exception {
+        OllamaChatSession session = OllamaChatSession.builder()
+                .api(ollamaAPI)
+                .model("m")
+                .systemPrompt("Be brief.")
+                .trimmingPolicy(OllamaChatTrimmingPolicy.builder().maxMessages(4).build())
+                .build();
+        for (int i = 0; i < 5; i++) {
+            session.chat("question " + i);
+        }
+        assertEquals(List.of("Be brief.", "question 3", "answer 4", "question 4"), contents(sentHistories.get(4)));
+        assertEquals(List.of("Be brief.", "question 3", "answer 4", "question 4", "answer 4"),
+                session.getHistory().stream().map(OllamaChatMessage::getContent).collect(Collectors.toList()));
+        assertEquals(8, session.getLastPromptTokens());
+        assertEquals(3, session.getLastCompletionTokens());
+        assertEquals(5 * 3, session.getTotalCompletionTokens());
+    }
+
+    @Test
+    void testTokenBudgetUsesReportedAnswerSizeAndPinsToolResults() throws Exception {
+        OllamaChatSession session = OllamaChatSession.builder()
+                .api(ollamaAPI)
+                .model("m")
+                .trimmingPolicy(OllamaChatTrimmingPolicy.builder().maxTokens(20).pinToolResults(true).build())
+                .tokenEstimator(message -> 5)
+                .build();
+        session.addMessage(new OllamaChatMessage(OllamaChatMessageRole.TOOL, "weather: sunny"));
+        session.chat("first");
+        // tool result (5) + first (5) + answer (3 as reported) + second (5) fits into 20 tokens
+        session.chat("second");
+        assertEquals(List.of("weather: sunny", "first", "answer 2", "second"), contents(sentHistories.get(1)));
+        assertEquals(21, session.estimateHistoryTokens());
+        // 5 + 5 + 3 + 5 + 3 + 5 exceeds the budget, so the oldest unpinned messages are dropped
+        session.chat("third");
+        assertEquals(List.of("weather: sunny", "second", "answer 4", "third"), contents(sentHistories.get(2)));
+    }
+
+    @Test
+    void testToolCallsAndResultsAreTrimmedTogether() {
+        List<OllamaChatMessage> history = toolTurnHistory();
+        assertEquals(3, OllamaChatTrimmingPolicy.builder().maxMessages(3).build().trim(history, message -> 1));
+        assertEquals(List.of("answer", "next"), history.stream().map(OllamaChatMessage::getContent).collect(Collectors.toList()));
+
+        history = toolTurnHistory();
+        assertEquals(2, OllamaChatTrimmingPolicy.builder().maxMessages(3).pinToolResults(true).build().trim(history, message -> 1));
+        assertEquals(List.of("", "weather: sunny", "next"), history.stream().map(OllamaChatMessage::getContent).collect(Collectors.toList()));
+        assertNotNull(history.get(0).getToolCalls());
+    }
+
+    @Test
+    void testFailedCallKeepsUntrimmedHistory() throws Exception {
+        OllamaChatSession session = OllamaChatSession.builder()
+                .api(ollamaAPI)
+                .model("m")
+                .trimmingPolicy(OllamaChatTrimmingPolicy.builder().maxMessages(2).build())
+                .build();
+        session.chat("first");
+        List<OllamaChatMessage> history = session.getHistory();
+
+        failing = true;
+        assertThrows(OllamaBaseException.class, () -> session.chat("second"));
+        assertEquals(List.of("answer 1", "second"), contents(sentHistories.get(1)));
+        assertEquals(history, session.getHistory());
+
+        failing = false;
+        session.chat("second");
+        assertEquals(List.of("answer 1", "second", "answer 2"),
+                session.getHistory().stream().map(OllamaChatMessage::getContent).collect(Collectors.toList()));
+    }
+
+    private static List<OllamaChatMessage> toolTurnHistory() {
+        OllamaChatToolCalls toolCall = new OllamaChatToolCalls(new OllamaToolCallsFunction("weather", Map.of()));
+        return new ArrayList<>(List.of(
+                new OllamaChatMessage(OllamaChatMessageRole.USER, "question"),
+                new OllamaChatMessage(OllamaChatMessageRole.ASSISTANT, "", List.of(toolCall), null),
+                new OllamaChatMessage(OllamaChatMessageRole.TOOL, "weather: sunny"),
+                new OllamaChatMessage(OllamaChatMessageRole.ASSISTANT, "answer"),
+                new OllamaChatMessage(OllamaChatMessageRole.USER, "next")));
+    }
+
+    private static List<String> contents(JSONArray messages) {
+        List<String> contents = new ArrayList<>();
+        for (int i = 0; i < messages.length(); i++) {
+            contents.add(messages.getJSONObject(i).getString("content"));
+        }
+        return contents;
+    }
+
+    /**
+     * Answers with "answer n" for a history of n messages, reporting n + 4 prompt tokens and 3 response tokens, or with
+     * an error while {@link #failing}.
+     */
+    private void answer(HttpExchange exchange) throws IOException {
+        JSONArray messages = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)).getJSONArray("messages");
+        synchronized (sentHistories) {
+            sentHistories.add(messages);
+        }
+        String body = failing
+                ? "{\"error\":\"model is loading\"}"
+                : "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"answer " + messages.length()
+                + "\"},\"done\":true,\"prompt_eval_count\":" + (messages.length() + 4) + ",\"eval_count\":3}\n";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(failing ? 500 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
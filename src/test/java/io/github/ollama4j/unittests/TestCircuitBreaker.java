@@ -0,0 +1,275 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.cluster.OllamaCluster;
+import io.github.ollama4j.exceptions.OllamaCircuitOpenException;
+import io.github.ollama4j.exceptions.OllamaResponseException;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.request.OllamaCircuitBreaker;
+import io.github.ollama4j.models.request.OllamaCircuitBreakerConfig;
+import io.github.ollama4j.models.request.OllamaHttpTransportConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCircuitBreaker {
+
+    private final List<MockServer> servers = new ArrayList<>();
+    private final List<AutoCloseable> clients = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable client : clients) {
+            client.close();
+        }
+        servers.forEach(server -> server.server.stop(0));
+    }
+
+    @Test
+    void testFailingModelOpensCircuitAndTrialCallClosesIt() throws Exception {
+        MockServer server = startServer();
+        server.status = 503;
+        OllamaAPI api = connect(server, OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(4).minimumNumberOfCalls(4)
+                .openDuration(Duration.ofMillis(200)).halfOpenCalls(1).build());
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(OllamaResponseException.class, () -> api.chat(request("m")));
+        }
+        assertEquals(OllamaCircuitBreaker.State.OPEN, api.getCircuitBreaker().getState("m"));
+        OllamaCircuitOpenException exception = assertThrows(OllamaCircuitOpenException.class, () -> api.chat(request("m")));
+        assertEquals("m", exception.getModel());
+        ExecutionException asyncException = assertThrows(ExecutionException.class, () -> api.chatAsync(request("m:latest"), null, null).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OllamaCircuitOpenException.class, asyncException.getCause());
+        assertEquals(4, server.requests.get());
+
+        // other models of the host are not affected
+        server.status = 200;
+        assertEquals("answer", api.chat(request("other")).getResponseModel().getMessage().getContent());
+
+        Thread.sleep(250);
+        assertTrue(api.getCircuitBreaker().isCallPermitted("m"));
+        api.chat(request("m"));
+        assertEquals(OllamaCircuitBreaker.State.CLOSED, api.getCircuitBreaker().getState("m"));
+    }
+
+    @Test
+    void testSlowStreamedCallsOpenCircuitAndSlowTrialCallReopensIt() throws Exception {
+        MockServer server = startServer();
+        server.delayMillis = 100;
+        OllamaAPI api = connect(server, OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(4).minimumNumberOfCalls(4)
+                .slowCallDuration(Duration.ofMillis(50)).openDuration(Duration.ofMillis(100)).halfOpenCalls(1).build());
+
+        // a non-streamed answer arrives complete, its duration does not make it slow
+        api.chat(request("m"));
+        api.chat(request("m"));
+        assertEquals(OllamaCircuitBreaker.State.CLOSED, api.getCircuitBreaker().getState("m"));
+
+        api.chatStreaming(request("m"), token -> {
+        });
+        assertEquals(OllamaCircuitBreaker.State.CLOSED, api.getCircuitBreaker().getState("m"));
+        api.chatStreaming(request("m"), token -> {
+        });
+        assertEquals(OllamaCircuitBreaker.State.OPEN, api.getCircuitBreaker().getState("m"));
+
+        Thread.sleep(150);
+        api.chatStreaming(request("m"), token -> {
+        });
+        assertEquals(OllamaCircuitBreaker.State.OPEN, api.getCircuitBreaker().getState("m"));
+        assertThrows(OllamaCircuitOpenException.class, () -> api.chat(request("m")));
+    }
+
+    @Test
+    void testPublishersAreRecordedAndRejected() throws Exception {
+        MockServer server = startServer();
+        server.status = 503;
+        OllamaAPI api = connect(server, OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(2).minimumNumberOfCalls(2).build());
+        for (int i = 0; i < 2; i++) {
+            assertInstanceOf(OllamaResponseException.class, subscribe(api.chatPublisher(request("m"))).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(OllamaCircuitBreaker.State.OPEN, api.getCircuitBreaker().getState("m"));
+        assertInstanceOf(OllamaCircuitOpenException.class, subscribe(api.chatPublisher(request("m"))).get(5, TimeUnit.SECONDS));
+        assertEquals(2, server.requests.get());
+    }
+
+    @Test
+    void testCircuitBreakerIsOptIn() {
+        MockServer server = startServer();
+        server.status = 503;
+        OllamaAPI api = new OllamaAPI(server.address());
+        api.setVerbose(false);
+        clients.add(api);
+        for (int i = 0; i < 30; i++) {
+            assertThrows(OllamaResponseException.class, () -> api.chat(request("m")));
+        }
+        assertEquals(OllamaCircuitBreaker.State.CLOSED, api.getCircuitBreaker().getState("m"));
+        assertEquals(30, server.requests.get());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuit() {
+        MockServer server = startServer();
+        server.status = 404;
+        OllamaAPI api = connect(server, OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(2).minimumNumberOfCalls(2).build());
+        for (int i = 0; i < 5; i++) {
+            assertThrows(OllamaResponseException.class, () -> api.chat(request("m")));
+        }
+        assertEquals(OllamaCircuitBreaker.State.CLOSED, api.getCircuitBreaker().getState("m"));
+    }
+
+    @Test
+    void testPlainTextErrorPagesAreServerErrors() throws Exception {
+        MockServer server = startServer();
+        server.status = 502;
+        server.errorBody = "<html><body><h1>502 Bad Gateway</h1></body></html>";
+        OllamaAPI api = connect(server, OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(3).minimumNumberOfCalls(3).build());
+
+        OllamaResponseException exception = assertThrows(OllamaResponseException.class, () -> api.chat(request("m")));
+        assertEquals(502, exception.getStatusCode());
+        assertTrue(exception.getMessage().contains("502 Bad Gateway"));
+        ExecutionException asyncException = assertThrows(ExecutionException.class, () -> api.chatAsync(request("m"), null, null).get(5, TimeUnit.SECONDS));
+        assertEquals(502, assertInstanceOf(OllamaResponseException.class, asyncException.getCause()).getStatusCode());
+        Throwable publisherError = subscribe(api.chatPublisher(request("m"))).get(5, TimeUnit.SECONDS);
+        assertEquals(502, assertInstanceOf(OllamaResponseException.class, publisherError).getStatusCode());
+        assertEquals(OllamaCircuitBreaker.State.OPEN, api.getCircuitBreaker().getState("m"));
+    }
+
+    @Test
+    void testClusterRoutesAroundOpenCircuit() throws Exception {
+        MockServer sick = startServer();
+        MockServer healthy = startServer();
+        sick.status = 503;
+        OllamaCircuitBreakerConfig circuitBreaker = OllamaCircuitBreakerConfig.builder().enabled(true).slidingWindowSize(2).minimumNumberOfCalls(2).build();
+        OllamaAPI sickApi = connect(sick, circuitBreaker);
+        OllamaCluster cluster = OllamaCluster.builder()
+                .apis(List.of(sickApi, connect(healthy, circuitBreaker)))
+                .failureThreshold(100)
+                .maxErrorRate(1.0)
+                .healthCheckInterval(Duration.ZERO)
+                .modelPollInterval(Duration.ZERO)
+                .build();
+        clients.add(cluster);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(OllamaResponseException.class, () -> sickApi.chat(request("m")));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("answer", cluster.chat(request("m")).getResponseModel().getMessage().getContent());
+            assertEquals("answer", cluster.chatInSession("session-" + i, request("m"), null).getResponseModel().getMessage().getContent());
+        }
+        assertEquals(20, healthy.requests.get());
+        assertEquals(2, sick.requests.get());
+        assertFalse(cluster.getHosts().get(0).isEjected());
+    }
+
+    /**
+     * @return future completing with the error the publisher signals, or with null when it completes normally
+     */
+    private static CompletableFuture<Throwable> subscribe(Flow.Publisher<?> publisher) {
+        CompletableFuture<Throwable> terminated = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Object item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                terminated.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                terminated.complete(null);
+            }
+        });
+        return terminated;
+    }
+
+    private OllamaAPI connect(MockServer server, OllamaCircuitBreakerConfig circuitBreaker) {
+        OllamaAPI api = new OllamaAPI(server.address(), OllamaHttpTransportConfig.builder()
+                .circuitBreaker(circuitBreaker)
+                .build());
+        api.setVerbose(false);
+        clients.add(api);
+        return api;
+    }
+
+    private static OllamaChatRequest request(String model) {
+        return OllamaChatRequestBuilder.getInstance(model).withMessage(OllamaChatMessageRole.USER, "Hi").build();
+    }
+
+    private MockServer startServer() {
+        try {
+            MockServer server = new MockServer();
+            servers.add(server);
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Answers chats after {@link #delayMillis}, or with the {@link #errorBody} while {@link #status} is not 200.
+     */
+    private static class MockServer {
+
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int status = 200;
+        private volatile long delayMillis;
+        private volatile String errorBody = "{\"error\":\"unavailable\"}";
+
+        MockServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/api/chat", this::chat);
+            server.start();
+        }
+
+        String address() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        private void chat(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int currentStatus = status;
+            String body = currentStatus != 200
+                    ? errorBody
+                    : "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"answer\"},\"done\":true}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(currentStatus, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
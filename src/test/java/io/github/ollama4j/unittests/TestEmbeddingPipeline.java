@@ -0,0 +1,167 @@
+package io.github.ollama4j.unittests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import io.github.ollama4j.models.embeddings.OllamaBatchEmbedder;
+import io.github.ollama4j.models.embeddings.OllamaEmbedRequestModel;
+import io.github.ollama4j.models.embeddings.OllamaEmbeddingCache;
+import io.github.ollama4j.models.embeddings.OllamaEmbeddingCoalescer;
+import io.github.ollama4j.utils.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the embedding helpers against local servers embedding every input {@code "n"} as {@code [n, -n]}.
+ */
+class TestEmbeddingPipeline {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<OllamaAPI> apis = new ArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        for (int i = 0; i < 2; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(serverExecutor);
+            server.createContext("/api/embed", this::embed);
+            server.start();
+            servers.add(server);
+            OllamaAPI api = new OllamaAPI("http://localhost:" + server.getAddress().getPort());
+            api.setVerbose(false);
+            apis.add(api);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        apis.forEach(OllamaAPI::close);
+        servers.forEach(server -> server.stop(0));
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testBatchEmbedderChunksInputsAndPreservesOrder() {
+        OllamaBatchEmbedder embedder = OllamaBatchEmbedder.builder().apis(apis).chunkSize(3).maxConcurrentChunks(2).build();
+        EmbeddingMatrix embeddings = embedder.embedAll(new OllamaEmbedRequestModel("m", inputs(20))).join();
+        assertEquals(20, embeddings.getRows());
+        assertEquals(2, embeddings.getDimensions());
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(new float[]{i, -i}, embeddings.row(i));
+        }
+        assertEquals(7, requests.get());
+        assertTrue(maxInFlight.get() <= 2, "more chunks in flight than allowed: " + maxInFlight.get());
+    }
+
+    @Test
+    void testBatchEmbedderStreamsChunksToConsumer() {
+        OllamaBatchEmbedder embedder = OllamaBatchEmbedder.builder().api(apis.get(0)).chunkSize(4).build();
+        List<Integer> offsets = new ArrayList<>();
+        embedder.embed(new OllamaEmbedRequestModel("m", inputs(10)), (offset, embeddings) -> {
+            offsets.add(offset);
+            assertEquals(offset, (int) embeddings.get(0, 0));
+        }).join();
+        offsets.sort(null);
+        assertEquals(List.of(0, 4, 8), offsets);
+    }
+
+    @Test
+    void testCoalescerBatchesConcurrentCalls() {
+        OllamaEmbeddingCoalescer coalescer = OllamaEmbeddingCoalescer.builder().api(apis.get(0))
+                .maxBatchSize(4).maxWait(Duration.ofMillis(200)).build();
+        List<CompletableFuture<float[]>> embeddings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            embeddings.add(coalescer.embedAsync("m", String.valueOf(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(new float[]{i, -i}, embeddings.get(i).join());
+        }
+        // two full batches sent right away, the remaining two inputs after the maximum wait
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testCacheOnlySendsMissesAndPersistsToDisk(@TempDir Path directory) throws Exception {
+        try (OllamaEmbeddingCache cache = OllamaEmbeddingCache.builder().api(apis.get(0))
+                .maxMemoryEntries(2).diskDirectory(directory).segmentSize(64L).build()) {
+            EmbeddingMatrix first = cache.embed(new OllamaEmbedRequestModel("m", List.of("1", "2", "1", "3")));
+            assertArrayEquals(new float[]{1, -1, 2, -2, 1, -1, 3, -3}, first.getData());
+            assertEquals(4, cache.getMissCount());
+            // "1" has been evicted from memory, but is still on disk
+            EmbeddingMatrix second = cache.embed(new OllamaEmbedRequestModel("m", List.of("3", "1", "4")));
+            assertArrayEquals(new float[]{3, -3, 1, -1, 4, -4}, second.getData());
+            assertEquals(1, cache.getMemoryHitCount());
+            assertEquals(1, cache.getDiskHitCount());
+            assertEquals(5, cache.getMissCount());
+            assertEquals(2, requests.get());
+        }
+        try (OllamaEmbeddingCache cache = OllamaEmbeddingCache.builder().api(apis.get(0)).diskDirectory(directory).build()) {
+            EmbeddingMatrix embeddings = cache.embedAsync(new OllamaEmbedRequestModel("m", List.of("4", "2"))).join();
+            assertArrayEquals(new float[]{4, -4, 2, -2}, embeddings.getData());
+            assertEquals(2, cache.getDiskHitCount());
+            assertEquals(2, requests.get());
+            // the options are part of the key
+            OllamaEmbedRequestModel withOptions = new OllamaEmbedRequestModel("m", List.of("4"));
+            withOptions.setOptions(Map.of("num_ctx", 512));
+            cache.embed(withOptions);
+            assertEquals(3, requests.get());
+        }
+    }
+
+    static List<String> inputs(int count) {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            inputs.add(String.valueOf(i));
+        }
+        return inputs;
+    }
+
+    private void embed(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            JsonNode request = Utils.getObjectMapper().readTree(exchange.getRequestBody());
+            StringBuilder embeddings = new StringBuilder();
+            for (JsonNode input : request.get("input")) {
+                int value = Integer.parseInt(input.asText());
+                embeddings.append(embeddings.length() == 0 ? "" : ",").append('[').append(value).append(',').append(-value).append(']');
+            }
+            Thread.sleep(20);
+            byte[] response = ("{\"model\":\"m\",\"embeddings\":[" + embeddings + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.cluster.LoadBalancingStrategy;
+import io.github.ollama4j.cluster.OllamaCluster;
+import io.github.ollama4j.cluster.OllamaClusterHost;
+import io.github.ollama4j.exceptions.OllamaBaseException;
+import io.github.ollama4j.exceptions.OllamaResponseException;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.chat.OllamaChatResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestOllamaCluster {
+
+    private final List<MockServer> servers = new ArrayList<>();
+    private OllamaCluster cluster;
+
+    @AfterEach
+    void tearDown() {
+        if (cluster != null) {
+            cluster.close();
+        }
+        servers.forEach(server -> server.server.stop(0));
+    }
+
+    @Test
+    void testFailingHostIsEjectedAndReinstatedByHealthCheck() throws Exception {
+        MockServer good = startServer(0);
+        MockServer bad = startServer(0);
+        bad.status = 503;
+        cluster = OllamaCluster.builder()
+                .hosts(List.of(good.address(), bad.address()))
+                .failureThreshold(2)
+                .ejectionDuration(Duration.ofMillis(100))
+                .healthCheckInterval(Duration.ofMillis(50))
+                .build();
+        OllamaClusterHost badHost = cluster.getHosts().get(1);
+
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                assertEquals("answer", cluster.chat(request()).getResponseModel().getMessage().getContent());
+            } catch (OllamaResponseException e) {
+                assertEquals(503, e.getStatusCode());
+                failures++;
+            }
+        }
+        assertTrue(badHost.isEjected());
+        assertTrue(failures <= 2, "requests kept going to the failing host: " + failures);
+        assertEquals(20 - failures, good.requests.get());
+
+        bad.status = 200;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (badHost.isEjected() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(badHost.isEjected(), "host was not reinstated after it recovered");
+    }
+
+    @Test
+    void testLeastOutstandingRequestsSpreadsConcurrentRequests() throws Exception {
+        MockServer first = startServer(300);
+        MockServer second = startServer(300);
+        cluster = OllamaCluster.builder()
+                .hosts(List.of(first.address(), second.address()))
+                .strategy(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS)
+                .healthCheckInterval(Duration.ZERO)
+                .build();
+        List<CompletableFuture<OllamaChatResult>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(cluster.chatAsync(request(), null, null));
+        }
+        assertEquals(4, cluster.getHosts().get(0).getOutstandingRequests());
+        assertEquals(4, cluster.getHosts().get(1).getOutstandingRequests());
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(4, first.requests.get());
+        assertEquals(4, second.requests.get());
+        assertEquals(0, cluster.getHosts().get(0).getOutstandingRequests());
+    }
+
+    @Test
+    void testPrefersHostsWithModelLoaded() throws Exception {
+        MockServer cold = startServer(0);
+        MockServer warm = startServer(0);
+        MockServer busy = startServer(0);
+        warm.loadedModels = "{\"name\":\"m:latest\",\"model\":\"m:latest\",\"size\":5000000000}";
+        busy.loadedModels = "{\"name\":\"big:latest\",\"model\":\"big:latest\",\"size\":40000000000}";
+        cluster = OllamaCluster.builder()
+                .hosts(List.of(cold.address(), warm.address(), busy.address()))
+                .strategy(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS)
+                .healthCheckInterval(Duration.ZERO)
+                .modelPollInterval(Duration.ofMillis(50))
+                .build();
+        OllamaClusterHost warmHost = cluster.getHosts().get(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!(warmHost.isResident("m") && cluster.getHosts().get(2).isResident("big")) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Set.of("m:latest"), warmHost.getResidentModels());
+
+        for (int i = 0; i < 5; i++) {
+            cluster.chat(request());
+        }
+        assertEquals(5, warm.requests.get());
+        // a model loaded nowhere goes to the idle host with the most memory left
+        cluster.chat(OllamaChatRequestBuilder.getInstance("other").withMessage(OllamaChatMessageRole.USER, "Hi").build());
+        assertEquals(1, cold.requests.get());
+        assertTrue(cluster.getHosts().get(0).isResident("other:latest"));
+    }
+
+    @Test
+    void testSessionsStickToTheirHostAndMoveMinimallyWhenHostsChange() {
+        cluster = OllamaCluster.builder()
+                .hosts(List.of("http://ollama-1:11434", "http://ollama-2:11434", "http://ollama-3:11434", "http://ollama-4:11434"))
+                .healthCheckInterval(Duration.ZERO)
+                .modelPollInterval(Duration.ZERO)
+                .build();
+        int sessions = 2000;
+        Map<String, String> before = sessionHosts(sessions);
+        assertEquals(before, sessionHosts(sessions));
+        Map<String, Long> sessionsPerHost = before.values().stream().collect(Collectors.groupingBy(host -> host, Collectors.counting()));
+        assertEquals(4, sessionsPerHost.size());
+        sessionsPerHost.values().forEach(count -> assertTrue(count > sessions * 0.15 && count < sessions * 0.35, "uneven ring: " + sessionsPerHost));
+
+        assertTrue(cluster.removeHost("http://ollama-3:11434"));
+        Map<String, String> afterRemoval = sessionHosts(sessions);
+        for (Map.Entry<String, String> session : before.entrySet()) {
+            if (!session.getValue().equals("http://ollama-3:11434")) {
+                assertEquals(session.getValue(), afterRemoval.get(session.getKey()));
+            }
+        }
+
+        cluster.addHost("http://ollama-5:11434");
+        Map<String, String> afterAddition = sessionHosts(sessions);
+        int moved = 0;
+        for (Map.Entry<String, String> session : afterRemoval.entrySet()) {
+            if (!session.getValue().equals(afterAddition.get(session.getKey()))) {
+                assertEquals("http://ollama-5:11434", afterAddition.get(session.getKey()));
+                moved++;
+            }
+        }
+        assertTrue(moved > sessions * 0.15 && moved < sessions * 0.35, "moved " + moved);
+    }
+
+    @Test
+    void testSessionLoadIsBounded() throws Exception {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            addresses.add(startServer(300).address());
+        }
+        cluster = OllamaCluster.builder()
+                .hosts(addresses)
+                .healthCheckInterval(Duration.ZERO)
+                .modelPollInterval(Duration.ZERO)
+                .build();
+        OllamaClusterHost owner = cluster.selectSessionHost("session");
+        List<CompletableFuture<OllamaChatResult>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(cluster.chatInSessionAsync("session", request(), null, null));
+        }
+        // at most 1.25 times the average of 2 requests per host
+        assertEquals(3, owner.getOutstandingRequests());
+        cluster.getHosts().forEach(host -> assertTrue(host.getOutstandingRequests() <= 3));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertSame(owner, cluster.selectSessionHost("session"));
+    }
+
+    @Test
+    void testClientErrorsDoNotEjectHost() {
+        MockServer server = startServer(0);
+        server.status = 404;
+        cluster = OllamaCluster.builder()
+                .hosts(List.of(server.address()))
+                .failureThreshold(2)
+                .healthCheckInterval(Duration.ZERO)
+                .build();
+        for (int i = 0; i < 5; i++) {
+            assertThrows(OllamaBaseException.class, () -> cluster.chat(request()));
+        }
+        assertFalse(cluster.getHosts().get(0).isEjected());
+        assertEquals(0, cluster.getHosts().get(0).getConsecutiveFailures());
+    }
+
+    private Map<String, String> sessionHosts(int sessions) {
+        Map<String, String> hosts = new HashMap<>();
+        for (int i = 0; i < sessions; i++) {
+            hosts.put("session-" + i, cluster.selectSessionHost("session-" + i).getHost());
+        }
+        return hosts;
+    }
+
+    private static OllamaChatRequest request() {
+        return OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build();
+    }
+
+    private MockServer startServer(long delayMillis) {
+        try {
+            MockServer server = new MockServer(delayMillis);
+            servers.add(server);
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Answers chats with the given delay, or with an error while {@link #status} is not 200; health checks fail with
+     * the same status. Lists the {@link #loadedModels} as running.
+     */
+    private static class MockServer {
+
+        private final HttpServer server;
+        private final long delayMillis;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int status = 200;
+        private volatile String loadedModels = "";
+
+        MockServer(long delayMillis) throws IOException {
+            this.delayMillis = delayMillis;
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/api/chat", this::chat);
+            server.createContext("/api/tags", exchange -> respond(exchange, status, "{\"models\":[]}"));
+            server.createContext("/api/ps", exchange -> respond(exchange, 200, "{\"models\":[" + loadedModels + "]}"));
+            server.start();
+        }
+
+        String address() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        private void chat(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            int currentStatus = status;
+            if (currentStatus != 200) {
+                respond(exchange, currentStatus, "{\"error\":\"unavailable\"}");
+                return;
+            }
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"answer\"},\"done\":true}");
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
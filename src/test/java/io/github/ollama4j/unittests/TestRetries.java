@@ -0,0 +1,136 @@
+package io.github.ollama4j.unittests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ollama4j.OllamaAPI;
+import io.github.ollama4j.exceptions.OllamaResponseException;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.chat.OllamaChatRequestBuilder;
+import io.github.ollama4j.models.request.OllamaHttpTransportConfig;
+import io.github.ollama4j.models.request.OllamaRetryPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRetries {
+
+    private HttpServer server;
+    private OllamaAPI ollamaAPI;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failures;
+    private volatile int failureStatus = 503;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/chat", this::chat);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ollamaAPI != null) {
+            ollamaAPI.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void testUnavailableServerIsRetried() throws Exception {
+        connect(OllamaRetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).build());
+        failures = 2;
+        assertEquals("answer", ollamaAPI.chat(request()).getResponseModel().getMessage().getContent());
+        assertEquals(3, requests.get());
+
+        failures = 2;
+        assertEquals("answer", ollamaAPI.chatAsync(request(), null, null).get(5, TimeUnit.SECONDS).getResponseModel().getMessage().getContent());
+        assertEquals(6, requests.get());
+    }
+
+    @Test
+    void testRequestsAreNotRetriedByDefault() {
+        ollamaAPI = new OllamaAPI("http://localhost:" + server.getAddress().getPort());
+        ollamaAPI.setVerbose(false);
+        failures = 1;
+        assertThrows(OllamaResponseException.class, () -> ollamaAPI.chat(request()));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        connect(OllamaRetryPolicy.builder().maxAttempts(2).initialBackoff(Duration.ofMillis(1)).build());
+        failures = 5;
+        OllamaResponseException exception = assertThrows(OllamaResponseException.class, () -> ollamaAPI.chat(request()));
+        assertEquals(503, exception.getStatusCode());
+        assertEquals(2, requests.get());
+
+        ExecutionException asyncException = assertThrows(ExecutionException.class,
+                () -> ollamaAPI.chatAsync(request(), null, null).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OllamaResponseException.class, asyncException.getCause());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        connect(OllamaRetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).build());
+        failures = 1;
+        failureStatus = 404;
+        OllamaResponseException exception = assertThrows(OllamaResponseException.class, () -> ollamaAPI.chat(request()));
+        assertEquals(404, exception.getStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testRetryBudgetLimitsRetries() {
+        // no share of the requests, but 0.5 retries per second over the window of 10 seconds
+        connect(OllamaRetryPolicy.builder().maxAttempts(10).initialBackoff(Duration.ofMillis(1)).budgetRatio(0.0)
+                .minRetriesPerSecond(0.5).build());
+        failures = Integer.MAX_VALUE;
+        assertThrows(OllamaResponseException.class, () -> ollamaAPI.chat(request()));
+        assertEquals(6, requests.get());
+        assertThrows(OllamaResponseException.class, () -> ollamaAPI.chat(request()));
+        assertEquals(7, requests.get());
+    }
+
+    private void connect(OllamaRetryPolicy retryPolicy) {
+        ollamaAPI = new OllamaAPI("http://localhost:" + server.getAddress().getPort(),
+                OllamaHttpTransportConfig.builder().retryPolicy(retryPolicy).build());
+        ollamaAPI.setVerbose(false);
+    }
+
+    private static OllamaChatRequest request() {
+        return OllamaChatRequestBuilder.getInstance("m").withMessage(OllamaChatMessageRole.USER, "Hi").build();
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        requests.incrementAndGet();
+        boolean fail;
+        synchronized (this) {
+            fail = failures > 0;
+            if (fail) {
+                failures--;
+            }
+        }
+        String body = fail
+                ? "{\"error\":\"unavailable\"}"
+                : "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"answer\"},\"done\":true}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(fail ? failureStatus : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
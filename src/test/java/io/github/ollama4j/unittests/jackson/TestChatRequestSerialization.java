@@ -1,13 +1,45 @@
 package io.github.ollama4j.unittests.jackson;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.ollama4j.models.chat.OllamaChatMessage;
 import io.github.ollama4j.models.chat.OllamaChatRequest;
+import io.github.ollama4j.models.request.OllamaImageSource;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +81,146 @@ public class TestChatRequestSerialization extends AbstractSerializationTest<Olla
         assertEqualsAfterUnmarshalling(deserialize(jsonRequest, OllamaChatRequest.class), req);
     }
 
+    @Test
+    public void testRequestWithStreamedImageSources() throws Exception {
+        Path image = Path.of("src/test/resources/dog-on-a-boat.jpg");
+        byte[] imageBytes = Files.readAllBytes(image);
+        OllamaChatRequest req = builder.withMessageAndImages(OllamaChatMessageRole.USER, "Some prompt", null,
+                List.of(OllamaImageSource.ofPath(image), OllamaImageSource.ofChannel(Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3}))))).build();
+        JSONArray images = new JSONObject(serialize(req)).getJSONArray("messages").getJSONObject(0).getJSONArray("images");
+        assertEquals(Base64.getEncoder().encodeToString(imageBytes), images.getString(0));
+        assertEquals("AQID", images.getString(1));
+        // the channel has been consumed by the first serialization
+        assertThrows(JsonProcessingException.class, () -> mapper.writeValueAsString(req));
+    }
+
+    @Test
+    public void testBodyPublisherWritesChunkedJson() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            builder.withMessage(i % 2 == 0 ? OllamaChatMessageRole.USER : OllamaChatMessageRole.ASSISTANT, "Message number " + i + " äöü");
+        }
+        OllamaChatRequest req = builder.build();
+        BodySubscriber subscriber = new BodySubscriber();
+        req.getBodyPublisher().subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertNull(subscriber.terminated.get(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.chunks.size() > 1);
+        assertEquals(serialize(req), subscriber.body());
+    }
+
+    @Test
+    public void testBodyPublisherWritesChunksAsDemanded() throws Exception {
+        byte[] imageBytes = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(imageBytes);
+        AtomicLong bytesRead = new AtomicLong();
+        OllamaImageSource image = () -> new FilterInputStream(new ByteArrayInputStream(imageBytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                bytesRead.addAndGet(Math.max(n, 0));
+                return n;
+            }
+        };
+        List<String> writerThreads = Collections.synchronizedList(new ArrayList<>());
+        OllamaChatRequest req = builder.withMessageAndImages(OllamaChatMessageRole.USER, "Some prompt", null, List.of(() -> {
+            writerThreads.add(Thread.currentThread().getName());
+            return image.openStream();
+        })).build();
+        ExecutorService executor = Executors.newCachedThreadPool(task -> new Thread(task, "body-writer"));
+        try {
+            BodySubscriber subscriber = new BodySubscriber();
+            req.getBodyPublisher(executor).subscribe(subscriber);
+            assertEquals(0, bytesRead.get());
+
+            subscriber.subscription.request(1);
+            Thread.sleep(200);
+            // the writer stops after filling the queue instead of reading the whole image
+            assertEquals(1, subscriber.chunks.size());
+            assertTrue(bytesRead.get() < imageBytes.length / 8, "read " + bytesRead.get() + " bytes");
+            assertEquals(List.of("body-writer"), writerThreads);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertNull(subscriber.terminated.get(5, TimeUnit.SECONDS));
+            assertEquals(Base64.getEncoder().encodeToString(imageBytes),
+                    new JSONObject(subscriber.body()).getJSONArray("messages").getJSONObject(0).getJSONArray("images").getString(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBodyPublisherWithoutExecutorWritesOnSubscriberThread() throws Exception {
+        byte[] imageBytes = new byte[256 * 1024];
+        new Random(42).nextBytes(imageBytes);
+        List<String> writerThreads = Collections.synchronizedList(new ArrayList<>());
+        OllamaChatRequest req = builder.withMessageAndImages(OllamaChatMessageRole.USER, "Some prompt", null, List.of(() -> {
+            writerThreads.add(Thread.currentThread().getName());
+            return new ByteArrayInputStream(imageBytes);
+        })).build();
+        BodySubscriber subscriber = new BodySubscriber();
+        req.getBodyPublisher().subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        // the whole body is written before the first chunk is handed over, without waiting for more demand
+        assertEquals(List.of(Thread.currentThread().getName()), writerThreads);
+        assertEquals(1, subscriber.chunks.size());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.isDone());
+        assertNull(subscriber.terminated.get());
+        assertEquals(Base64.getEncoder().encodeToString(imageBytes),
+                new JSONObject(subscriber.body()).getJSONArray("messages").getJSONObject(0).getJSONArray("images").getString(0));
+    }
+
+    @Test
+    public void testChannelImageSourceFailsOnSecondSubscription() throws Exception {
+        OllamaChatRequest req = builder.withMessageAndImages(OllamaChatMessageRole.USER, "Some prompt", null,
+                List.of(OllamaImageSource.ofChannel(Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3}))))).build();
+        // every attempt to send the request, e.g. a retry, serializes the body anew
+        HttpRequest.BodyPublisher publisher = req.getBodyPublisher();
+        BodySubscriber first = new BodySubscriber();
+        publisher.subscribe(first);
+        first.subscription.request(Long.MAX_VALUE);
+        assertNull(first.terminated.get(5, TimeUnit.SECONDS));
+        assertTrue(first.body().contains("\"AQID\""));
+
+        BodySubscriber second = new BodySubscriber();
+        publisher.subscribe(second);
+        second.subscription.request(Long.MAX_VALUE);
+        assertInstanceOf(IOException.class, second.terminated.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMessageJsonIsCachedUntilModified() throws Exception {
+        OllamaChatRequest req = builder.withMessage(OllamaChatMessageRole.USER, "First").build();
+        OllamaChatMessage message = req.getMessages().get(0);
+        byte[] json = message.getCachedJson(mapper.getSerializationConfig());
+        assertSame(json, message.getCachedJson(mapper.getSerializationConfig()));
+        assertEquals("First", new JSONObject(serialize(req)).getJSONArray("messages").getJSONObject(0).getString("content"));
+
+        message.setContent("Second");
+        assertNotSame(json, message.getCachedJson(mapper.getSerializationConfig()));
+        assertEquals("Second", new JSONObject(serialize(req)).getJSONArray("messages").getJSONObject(0).getString("content"));
+        assertEqualsAfterUnmarshalling(deserialize(serialize(req), OllamaChatRequest.class), req);
+    }
+
+    @Test
+    public void testMessagesWithImagesAreNotCached() throws Exception {
+        OllamaChatRequest req = builder.withMessage(OllamaChatMessageRole.USER, "Some prompt", Collections.emptyList(),
+                List.of(new File("src/test/resources/dog-on-a-boat.jpg"))).build();
+        assertNull(req.getMessages().get(0).getCachedJson(mapper.getSerializationConfig()));
+        assertEqualsAfterUnmarshalling(deserialize(serialize(req), OllamaChatRequest.class), req);
+    }
+
+    @Test
+    public void testCachedJsonIsOnlyUsedWithSharedMapperConfig() throws Exception {
+        OllamaChatRequest req = builder.withMessage(OllamaChatMessageRole.USER, "Some prompt").build();
+        assertTrue(new JSONObject(serialize(req)).getJSONArray("messages").getJSONObject(0).has("tool_calls"));
+
+        ObjectMapper nonEmptyMapper = mapper.copy().setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        assertNull(req.getMessages().get(0).getCachedJson(nonEmptyMapper.getSerializationConfig()));
+        assertFalse(new JSONObject(nonEmptyMapper.writeValueAsString(req)).getJSONArray("messages").getJSONObject(0).has("tool_calls"));
+    }
+
     @Test
     public void testRequestWithOptions() {
         OptionsBuilder b = new OptionsBuilder();
@@ -130,4 +302,44 @@ public class TestChatRequestSerialization extends AbstractSerializationTest<Olla
         String jsonRequest = serialize(req);
         assertEquals(deserialize(jsonRequest, OllamaChatRequest.class).getKeepAlive(), expectedKeepAlive);
     }
+
+    /**
+     * Collects the chunks of a request body; requests data only when told to.
+     */
+    private static class BodySubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        private final List<ByteBuffer> chunks = Collections.synchronizedList(new ArrayList<>());
+        private final CompletableFuture<Throwable> terminated = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            chunks.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            terminated.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            terminated.complete(null);
+        }
+
+        String body() {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            synchronized (chunks) {
+                for (ByteBuffer chunk : chunks) {
+                    body.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                }
+            }
+            return body.toString(StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package io.github.ollama4j.unittests.jackson;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import io.github.ollama4j.models.embeddings.OllamaEmbedFloatResponseModel;
+import io.github.ollama4j.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEmbeddingMatrixDeserialization {
+
+    @Test
+    public void testEmbeddingsAreParsedIntoContiguousMatrix() throws Exception {
+        String json = "{\"model\":\"all-minilm\",\"embeddings\":[[-0.034674067,0.030984823,1],[0.5,-2.5E-3,0]]," +
+                "\"total_duration\":14173700,\"load_duration\":1198800,\"prompt_eval_count\":2}";
+        OllamaEmbedFloatResponseModel response = Utils.getObjectMapper().readValue(json, OllamaEmbedFloatResponseModel.class);
+        EmbeddingMatrix embeddings = response.getEmbeddings();
+        assertEquals("all-minilm", response.getModel());
+        assertEquals(2, response.getPromptEvalCount());
+        assertEquals(2, embeddings.getRows());
+        assertEquals(3, embeddings.getDimensions());
+        assertArrayEquals(new float[]{-0.034674067f, 0.030984823f, 1f, 0.5f, -0.0025f, 0f}, embeddings.getData());
+        assertArrayEquals(new float[]{0.5f, -0.0025f, 0f}, embeddings.row(1));
+        assertEquals(0.030984823f, embeddings.rowBuffer(0).get(1));
+        assertEquals(-0.0025f, embeddings.get(1, 1));
+    }
+
+    @Test
+    public void testLargeMatrixGrowsBeyondInitialCapacity() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int row = 0; row < 3; row++) {
+            json.append(row == 0 ? "[" : ",[");
+            for (int i = 0; i < 1000; i++) {
+                json.append(i == 0 ? "" : ",").append(row * 1000 + i);
+            }
+            json.append(']');
+        }
+        json.append(']');
+        EmbeddingMatrix embeddings = Utils.getObjectMapper().readValue(json.toString(), EmbeddingMatrix.class);
+        assertEquals(3, embeddings.getRows());
+        assertEquals(1000, embeddings.getDimensions());
+        assertEquals(3000, embeddings.getData().length);
+        assertEquals(2999f, embeddings.get(2, 999));
+    }
+
+    @Test
+    public void testEmptyAndRaggedMatrices() throws Exception {
+        EmbeddingMatrix empty = Utils.getObjectMapper().readValue("[]", EmbeddingMatrix.class);
+        assertEquals(0, empty.getRows());
+        assertEquals(0, empty.getDimensions());
+        assertThrows(JsonMappingException.class, () -> Utils.getObjectMapper().readValue("[[1,2],[3]]", EmbeddingMatrix.class));
+        assertThrows(JsonMappingException.class, () -> Utils.getObjectMapper().readValue("[[1,\"x\"]]", EmbeddingMatrix.class));
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.ollama4j.unittests.jackson;
+
+import io.github.ollama4j.models.chat.OllamaChatResponseModel;
+import io.github.ollama4j.utils.NdJsonDecoder;
+import io.github.ollama4j.utils.NdJsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNdJsonParsing {
+
+    private static final String CHAT_STREAM =
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"Grüß\"},\"done\":false}\n" +
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\" dich\"},\"done\":false}\n" +
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true,\"eval_count\":2}\n";
+
+    @Test
+    public void testReaderParsesAllObjects() throws Exception {
+        List<OllamaChatResponseModel> parts = new ArrayList<>();
+        try (NdJsonReader<OllamaChatResponseModel> reader = new NdJsonReader<>(
+                new ByteArrayInputStream(CHAT_STREAM.getBytes(StandardCharsets.UTF_8)), OllamaChatResponseModel.class)) {
+            OllamaChatResponseModel part;
+            while ((part = reader.next()) != null) {
+                parts.add(part);
+            }
+        }
+        assertEquals(3, parts.size());
+        assertEquals("Grüß", parts.get(0).getMessage().getContent());
+        assertTrue(parts.get(2).isDone());
+        assertEquals(2, parts.get(2).getEvalCount());
+    }
+
+    @Test
+    public void testDecoderHandlesObjectsSplitAcrossChunks() throws Exception {
+        byte[] bytes = CHAT_STREAM.getBytes(StandardCharsets.UTF_8);
+        // small chunks split objects, tokens and multi-byte characters
+        for (int chunkSize : new int[]{1, 7, bytes.length}) {
+            NdJsonDecoder<OllamaChatResponseModel> decoder = new NdJsonDecoder<>(OllamaChatResponseModel.class);
+            StringBuilder content = new StringBuilder();
+            int parts = 0;
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                decoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+                OllamaChatResponseModel part;
+                while ((part = decoder.next()) != null) {
+                    content.append(part.getMessage().getContent());
+                    parts++;
+                }
+            }
+            decoder.endOfInput();
+            assertNull(decoder.next());
+            assertEquals(3, parts);
+            assertEquals("Grüß dich", content.toString());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.ollama4j.unittests.tokenizer;
+
+import io.github.ollama4j.models.chat.OllamaChatMessage;
+import io.github.ollama4j.models.chat.OllamaChatMessageRole;
+import io.github.ollama4j.models.generate.OllamaGenerateRequest;
+import io.github.ollama4j.tokenizer.BpeTokenizer;
+import io.github.ollama4j.tokenizer.HeuristicTokenizer;
+import io.github.ollama4j.tokenizer.Tokenizer;
+import io.github.ollama4j.tokenizer.Tokenizers;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestTokenizers {
+
+    /**
+     * Merges of a tiny byte-level vocabulary; a space is written as 'Ġ'.
+     */
+    private static final String[][] MERGES = {{"h", "e"}, {"l", "l"}, {"he", "ll"}, {"hell", "o"}, {"Ġ", "hello"}, {"Ġ", "w"}};
+
+    @Test
+    void testBpeTokenizerFromVocabAndMerges(@TempDir Path directory) throws IOException {
+        Path vocab = directory.resolve("vocab.json");
+        Path merges = directory.resolve("merges.txt");
+        Files.writeString(vocab, vocabulary().toString(), StandardCharsets.UTF_8);
+        StringBuilder mergeLines = new StringBuilder("#version: 0.2\n");
+        for (String[] merge : MERGES) {
+            mergeLines.append(merge[0]).append(' ').append(merge[1]).append('\n');
+        }
+        Files.writeString(merges, mergeLines, StandardCharsets.UTF_8);
+
+        BpeTokenizer tokenizer = BpeTokenizer.fromVocabAndMerges(vocab, merges);
+        assertEquals(256 + MERGES.length, tokenizer.getVocabularySize());
+        // "hello", " hello" and " w" are single tokens, "orld" and "!" are bytes, which have the ids of their byte value
+        int[] tokens = tokenizer.encode("hello hello world!");
+        assertEquals(8, tokens.length);
+        assertEquals(256 + 3, tokens[0]);
+        assertEquals(256 + 4, tokens[1]);
+        assertEquals(256 + 5, tokens[2]);
+        assertEquals('o', tokens[3]);
+        assertEquals(8, tokenizer.countTokens("hello hello world!"));
+        // multi-byte characters are split into their UTF-8 bytes, which have the ids of their byte value
+        assertEquals(2, tokenizer.countTokens("ä"));
+    }
+
+    @Test
+    void testBpeTokenizerFromHuggingFaceFile(@TempDir Path directory) throws IOException {
+        JSONArray merges = new JSONArray();
+        for (String[] merge : MERGES) {
+            merges.put(new JSONArray(merge));
+        }
+        JSONObject tokenizerJson = new JSONObject()
+                .put("model", new JSONObject().put("type", "BPE").put("vocab", vocabulary()).put("merges", merges))
+                // split digits into single characters
+                .put("pre_tokenizer", new JSONObject().put("type", "Split").put("pattern", new JSONObject().put("Regex", "\\p{N}| ?\\p{L}+|\\s+")));
+        Path file = directory.resolve("tokenizer.json");
+        Files.writeString(file, tokenizerJson.toString(), StandardCharsets.UTF_8);
+
+        BpeTokenizer tokenizer = BpeTokenizer.fromHuggingFace(file);
+        // "hello", " " and one token per digit
+        assertEquals(1 + 1 + 3, tokenizer.countTokens("hello 123"));
+        OllamaGenerateRequest request = new OllamaGenerateRequest("m", "hello hello");
+        assertEquals(2, tokenizer.countPromptTokens(request));
+        List<OllamaChatMessage> history = List.of(new OllamaChatMessage(OllamaChatMessageRole.USER, "hello"),
+                new OllamaChatMessage(OllamaChatMessageRole.ASSISTANT, "hello hello"));
+        assertEquals(2 * Tokenizer.MESSAGE_OVERHEAD_TOKENS + 3, tokenizer.countHistoryTokens(history));
+    }
+
+    @Test
+    void testHeuristicTokenizerAndRegistry() {
+        Tokenizer heuristic = HeuristicTokenizer.INSTANCE;
+        assertEquals(0, heuristic.countTokens(""));
+        // "The", "quick", "brown", "fox" (2 + 2 + 2 + 1 runs of up to four characters), "," and "."
+        assertEquals(2 + 1 + 2 + 2 + 1, heuristic.countTokens("The quick, brown fox."));
+        assertEquals(3, heuristic.countTokens("你好吗"));
+
+        assertSame(HeuristicTokenizer.INSTANCE, Tokenizers.forModel("unknown-model:latest"));
+        Tokenizer custom = text -> text.length();
+        Tokenizers.register("test-model", custom);
+        assertSame(custom, Tokenizers.forModel("test-model:7b"));
+    }
+
+    private static JSONObject vocabulary() {
+        JSONObject vocabulary = new JSONObject();
+        int next = 256;
+        for (int b = 0; b < 256; b++) {
+            boolean printable = (b >= '!' && b <= '~') || (b >= 0xA1 && b <= 0xAC) || (b >= 0xAE && b <= 0xFF);
+            vocabulary.put(String.valueOf((char) (printable ? b : next++)), b);
+        }
+        int id = 256;
+        for (String[] merge : MERGES) {
+            vocabulary.put(merge[0] + merge[1], id++);
+        }
+        return vocabulary;
+    }
+}
@@ -0,0 +1,321 @@
+package io.github.ollama4j.unittests.vectorstore;
+
+import io.github.ollama4j.models.embeddings.EmbeddingMatrix;
+import io.github.ollama4j.vectorstore.EmbeddingFileReader;
+import io.github.ollama4j.vectorstore.EmbeddingFileWriter;
+import io.github.ollama4j.vectorstore.FlatVectorIndex;
+import io.github.ollama4j.vectorstore.HnswIndex;
+import io.github.ollama4j.vectorstore.Quantization;
+import io.github.ollama4j.vectorstore.QuantizedVectorIndex;
+import io.github.ollama4j.vectorstore.SearchResult;
+import io.github.ollama4j.vectorstore.SimilarityMetric;
+import io.github.ollama4j.vectorstore.VectorIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestVectorIndexes {
+
+    @Test
+    void testFlatIndexFindsExactTopKWithParallelScan() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            float[][] vectors = randomVectors(50_000, 8, 1);
+            FlatVectorIndex index = new FlatVectorIndex(8, SimilarityMetric.DOT_PRODUCT, executor, 4);
+            for (float[] vector : vectors) {
+                index.add(vector);
+            }
+            float[] query = randomVectors(1, 8, 2)[0];
+            assertEquals(exactTopK(vectors, query, 10, false), ids(index.search(query, 10)));
+            // rows on both sides of the boundaries of the growing segments of 1024, 2048, 4096, ... rows
+            for (int id : new int[]{0, 1023, 1024, 3071, 3072, 7167, 7168, 15359, 15360, 49_999}) {
+                assertArrayEquals(vectors[id], index.get(id));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFlatIndexCosineIgnoresMagnitude() {
+        VectorIndex index = new FlatVectorIndex(2, SimilarityMetric.COSINE);
+        int firstId = index.addAll(new EmbeddingMatrix(new float[]{10, 0, 0, 1, 1, 1}, 3, 2));
+        assertEquals(0, firstId);
+        List<SearchResult> results = index.search(new float[]{2, 0.1f}, 2);
+        assertEquals(List.of(0, 2), ids(results));
+        assertEquals(0.9988f, results.get(0).getScore(), 1e-3);
+        assertThrows(IllegalArgumentException.class, () -> index.add(new float[3]));
+        // k is limited to the size of the index, and must be positive
+        assertEquals(3, index.search(new float[]{1, 0}, Integer.MAX_VALUE).size());
+        assertThrows(IllegalArgumentException.class, () -> index.search(new float[]{1, 0}, 0));
+        assertTrue(new FlatVectorIndex(2, SimilarityMetric.COSINE).search(new float[]{1, 0}, 5).isEmpty());
+    }
+
+    @Test
+    void testEmbeddingFileRoundTripWithResume(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("embeddings.bin");
+        try (EmbeddingFileWriter writer = EmbeddingFileWriter.create(file, "all-minilm", 3)) {
+            writer.append(100, new float[]{1, 2, 3});
+            writer.checkpoint();
+            writer.append(101, new EmbeddingMatrix(new float[]{4, 5, 6, 7, 8, 9}, 2, 3));
+        }
+        try (EmbeddingFileWriter writer = EmbeddingFileWriter.resume(file)) {
+            assertEquals(3, writer.size());
+            writer.append(500, new float[]{-1, -2, -3});
+        }
+        try (EmbeddingFileReader reader = EmbeddingFileReader.open(file)) {
+            assertEquals("all-minilm", reader.getModel());
+            assertEquals(3, reader.getDimensions());
+            assertEquals(4, reader.size());
+            assertArrayEquals(new float[]{7, 8, 9}, reader.row(2));
+            assertEquals(-2f, reader.rowBuffer(3).get(1));
+            assertEquals(3, reader.rowBuffer(3).remaining());
+            assertEquals(101, reader.getId(1));
+            assertEquals(500, reader.getId(3));
+            // the rows of every checkpoint follow the table of the previous one
+            assertEquals(reader.getOffset(0) + 12 + 16, reader.getOffset(1));
+            assertEquals(reader.getOffset(2) + 12 + 3 * 16, reader.getOffset(3));
+            assertEquals(6, reader.toMatrix(1, 3).get(0, 2));
+        }
+    }
+
+    @Test
+    void testEmbeddingFileWithoutCheckpointIsRejected(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("embeddings.bin");
+        EmbeddingFileWriter writer = EmbeddingFileWriter.create(file, "all-minilm", 2);
+        writer.append(0, new float[]{1, 2});
+        assertThrows(IOException.class, () -> EmbeddingFileReader.open(file));
+        writer.close();
+        Files.write(directory.resolve("other.bin"), new byte[64]);
+        assertThrows(IOException.class, () -> EmbeddingFileReader.open(directory.resolve("other.bin")));
+    }
+
+    @Test
+    void testEmbeddingFileStaysReadableAfterCheckpoint(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("embeddings.bin");
+        Path crashed = directory.resolve("crashed.bin");
+        try (EmbeddingFileWriter writer = EmbeddingFileWriter.create(file, "all-minilm", 2)) {
+            writer.append(7, new float[]{1, 2});
+            writer.checkpoint();
+            // more than the write buffer, so rows after the checkpoint reach the file
+            for (int row = 0; row < 200_000; row++) {
+                writer.append(row, new float[]{row, -row});
+            }
+            try (EmbeddingFileReader reader = EmbeddingFileReader.open(file)) {
+                assertEquals(1, reader.size());
+                assertEquals(7, reader.getId(0));
+                assertArrayEquals(new float[]{1, 2}, reader.row(0));
+            }
+            // the state of the file if the process died now
+            Files.copy(file, crashed);
+        }
+        try (EmbeddingFileReader reader = EmbeddingFileReader.open(file)) {
+            assertEquals(200_001, reader.size());
+            assertArrayEquals(new float[]{199_999, -199_999}, reader.row(200_000));
+        }
+
+        try (EmbeddingFileWriter writer = EmbeddingFileWriter.resume(crashed)) {
+            assertEquals(1, writer.size());
+            writer.append(8, new float[]{3, 4});
+        }
+        try (EmbeddingFileReader reader = EmbeddingFileReader.open(crashed)) {
+            assertEquals(2, reader.size());
+            assertArrayEquals(new float[]{3, 4}, reader.row(1));
+            assertEquals(8, reader.getId(1));
+        }
+    }
+
+    @Test
+    void testHnswIndexRecallWithConcurrentInsertsAndPersistence(@TempDir Path directory) throws Exception {
+        float[][] vectors = randomVectors(4000, 16, 3);
+        HnswIndex index = HnswIndex.builder().dimensions(16).metric(SimilarityMetric.COSINE).m(12).efConstruction(100).efSearch(80).build();
+        // ids depend on the interleaving of the inserting threads, so remember which vector got which id
+        int[] vectorOfId = new int[vectors.length];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread;
+                inserts.add(executor.submit(() -> {
+                    for (int i = first; i < vectors.length; i += 4) {
+                        vectorOfId[index.add(vectors[i])] = i;
+                    }
+                }));
+            }
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(vectors.length, index.size());
+
+        Path file = directory.resolve("index.hnsw");
+        index.save(file);
+        HnswIndex loaded = HnswIndex.load(file);
+        assertEquals(vectors.length, loaded.size());
+
+        int hits = 0;
+        float[][] queries = randomVectors(50, 16, 4);
+        for (float[] query : queries) {
+            List<Integer> expected = exactTopK(vectors, query, 10, true);
+            List<Integer> found = ids(index.search(query, 10));
+            for (int id : found) {
+                if (expected.contains(vectorOfId[id])) {
+                    hits++;
+                }
+            }
+            assertEquals(found, ids(loaded.search(query, 10)));
+        }
+        double recall = hits / (10.0 * queries.length);
+        assertTrue(recall >= 0.9, "recall@10 too low: " + recall);
+    }
+
+    @Test
+    void testHnswIndexRejectsCorruptFilesAndInvalidK(@TempDir Path directory) throws Exception {
+        HnswIndex index = HnswIndex.builder().dimensions(4).metric(SimilarityMetric.COSINE).efSearch(50).build();
+        for (float[] vector : randomVectors(20, 4, 7)) {
+            index.add(vector);
+        }
+        assertEquals(20, index.search(new float[]{1, 0, 0, 0}, 100).size());
+        assertThrows(IllegalArgumentException.class, () -> index.search(new float[]{1, 0, 0, 0}, 0));
+
+        Path file = directory.resolve("index.hnsw");
+        index.save(file);
+        byte[] saved = Files.readAllBytes(file);
+        // header: magic, version, dimensions, metric, m, efConstruction, efSearch, size, entry id, entry level
+        assertThrows(IOException.class, () -> HnswIndex.load(withInt(directory, saved, 3, 99)));
+        assertThrows(IOException.class, () -> HnswIndex.load(withInt(directory, saved, 2, -1)));
+        assertThrows(IOException.class, () -> HnswIndex.load(withInt(directory, saved, 7, 1_000_000)));
+        assertThrows(IOException.class, () -> HnswIndex.load(withInt(directory, saved, 8, 20)));
+        // the level of the first node follows the vectors
+        assertThrows(IOException.class, () -> HnswIndex.load(withInt(directory, saved, 10 + 20 * 4, 1 << 20)));
+        Path truncated = directory.resolve("truncated.hnsw");
+        for (int cut : new int[]{1, 2, 4, saved.length - 2}) {
+            Files.write(truncated, Arrays.copyOf(saved, saved.length - cut));
+            assertThrows(IOException.class, () -> HnswIndex.load(truncated));
+        }
+
+        // saving replaces the file in one move, without leaving temporary files behind
+        index.add(new float[]{0, 0, 0, 1});
+        index.save(file);
+        assertEquals(21, HnswIndex.load(file).size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("corrupt.hnsw", "index.hnsw", "truncated.hnsw"),
+                    files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * @return a copy of the file with the int at the given index replaced
+     */
+    private static Path withInt(Path directory, byte[] file, int index, int value) throws IOException {
+        ByteBuffer copy = ByteBuffer.wrap(file.clone());
+        copy.putInt(index * Integer.BYTES, value);
+        return Files.write(directory.resolve("corrupt.hnsw"), copy.array());
+    }
+
+    @Test
+    void testQuantizedIndexesKeepRecall() {
+        float[][] vectors = randomVectors(5000, 64, 5);
+        float[][] queries = randomVectors(20, 64, 6);
+        assertTrue(recall(quantized(Quantization.INT8, 0), vectors, queries) >= 0.9);
+        assertTrue(recall(quantized(Quantization.INT8, 4), vectors, queries) >= 0.97);
+        // sign bits of 64 dimensions only tell apart vectors that differ a lot, but rescoring finds near duplicates
+        QuantizedVectorIndex binary = quantized(Quantization.BINARY, 10);
+        for (float[] vector : vectors) {
+            binary.add(vector);
+        }
+        for (int id = 0; id < vectors.length; id += 500) {
+            float[] nearDuplicate = vectors[id].clone();
+            nearDuplicate[0] += 0.1f;
+            assertEquals(id, binary.search(nearDuplicate, 1).get(0).getId());
+        }
+        // k and the oversampled candidates are limited to the size of the index
+        assertEquals(vectors.length, binary.search(vectors[0], Integer.MAX_VALUE).size());
+        assertThrows(IllegalArgumentException.class, () -> binary.search(vectors[0], -1));
+        assertEquals(68, quantized(Quantization.INT8, 0).getBytesPerVector());
+        assertEquals(8, quantized(Quantization.BINARY, 0).getBytesPerVector());
+        // rescoring is opt-in, as the full vectors cost more memory than the codes save
+        QuantizedVectorIndex defaults = QuantizedVectorIndex.builder().dimensions(64).metric(SimilarityMetric.COSINE)
+                .quantization(Quantization.INT8).build();
+        assertEquals(0, defaults.getOversampling());
+        assertEquals(68, defaults.getBytesPerVector());
+        assertEquals(68 + 64 * 4, quantized(Quantization.INT8, 4).getBytesPerVector());
+    }
+
+    private static QuantizedVectorIndex quantized(Quantization quantization, int oversampling) {
+        return QuantizedVectorIndex.builder().dimensions(64).metric(SimilarityMetric.COSINE)
+                .quantization(quantization).oversampling(oversampling).build();
+    }
+
+    private static double recall(VectorIndex index, float[][] vectors, float[][] queries) {
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+        int hits = 0;
+        for (float[] query : queries) {
+            List<Integer> expected = exactTopK(vectors, query, 10, true);
+            for (int id : ids(index.search(query, 10))) {
+                if (expected.contains(id)) {
+                    hits++;
+                }
+            }
+        }
+        return hits / (10.0 * queries.length);
+    }
+
+    static float[][] randomVectors(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][dimensions];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    static List<Integer> exactTopK(float[][] vectors, float[] query, int k, boolean cosine) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < vectors.length; i++) {
+            ids.add(i);
+        }
+        ids.sort(Comparator.comparingDouble((Integer id) -> similarity(vectors[id], query, cosine)).reversed());
+        return ids.subList(0, k);
+    }
+
+    static double similarity(float[] a, float[] b, boolean cosine) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return cosine ? dot / Math.sqrt(normA * normB) : dot;
+    }
+
+    static List<Integer> ids(List<SearchResult> results) {
+        List<Integer> ids = new ArrayList<>();
+        for (SearchResult result : results) {
+            ids.add(result.getId());
+        }
+        return ids;
+    }
+}